@@ -0,0 +1,154 @@
+-- Hotel Booking System Database Migration
+-- Brings a database created from an older schema.sql up to the current one, keeping its data.
+-- Safe to run again: tables are created only if missing, columns and indexes are added only if
+-- missing (checked in information_schema), and backfills skip rows that are already there.
+--
+-- Run with: mysql -u root -p hotel_booking_system < database/migrate.sql
+-- Stop the application first; the ledger is seeded from bookings only while it is empty.
+
+USE hotel_booking_system;
+
+-- Properties (hotels) of the group; existing rooms and bookings belong to property 1
+CREATE TABLE IF NOT EXISTS properties (
+    property_id INT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(20) UNIQUE NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    city VARCHAR(100),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT IGNORE INTO properties (property_id, code, name, city) VALUES
+(1, 'MAIN', 'Main Hotel', NULL);
+
+-- rooms.property_id, its index and foreign key
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'rooms' AND COLUMN_NAME = 'property_id') = 0,
+              'ALTER TABLE rooms ADD COLUMN property_id INT NOT NULL DEFAULT 1 AFTER room_number', 'DO 0');
+PREPARE migration FROM @ddl; EXECUTE migration; DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'rooms' AND INDEX_NAME = 'idx_rooms_property_type') = 0,
+              'ALTER TABLE rooms ADD INDEX idx_rooms_property_type (property_id, room_type, price)', 'DO 0');
+PREPARE migration FROM @ddl; EXECUTE migration; DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.KEY_COLUMN_USAGE
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'rooms' AND COLUMN_NAME = 'property_id'
+               AND REFERENCED_TABLE_NAME = 'properties') = 0,
+              'ALTER TABLE rooms ADD FOREIGN KEY (property_id) REFERENCES properties(property_id)', 'DO 0');
+PREPARE migration FROM @ddl; EXECUTE migration; DEALLOCATE PREPARE migration;
+
+-- bookings.room_locked, bookings.property_id and its index
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'bookings' AND COLUMN_NAME = 'room_locked') = 0,
+              'ALTER TABLE bookings ADD COLUMN room_locked BOOLEAN NOT NULL DEFAULT FALSE AFTER status', 'DO 0');
+PREPARE migration FROM @ddl; EXECUTE migration; DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'bookings' AND COLUMN_NAME = 'property_id') = 0,
+              'ALTER TABLE bookings ADD COLUMN property_id INT NOT NULL DEFAULT 1 AFTER room_locked', 'DO 0');
+PREPARE migration FROM @ddl; EXECUTE migration; DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'bookings' AND INDEX_NAME = 'idx_bookings_property') = 0,
+              'ALTER TABLE bookings ADD INDEX idx_bookings_property (property_id, check_in_date)', 'DO 0');
+PREPARE migration FROM @ddl; EXECUTE migration; DEALLOCATE PREPARE migration;
+
+-- A booking's property is a copy of its room's
+UPDATE bookings b JOIN rooms r ON r.room_number = b.room_number
+SET b.property_id = r.property_id
+WHERE b.property_id <> r.property_id;
+
+-- Room-night reservations: one row per night held by a confirmed booking
+CREATE TABLE IF NOT EXISTS room_nights (
+    room_number INT NOT NULL,
+    night DATE NOT NULL,
+    booking_id INT NOT NULL,
+    PRIMARY KEY (room_number, night),
+    INDEX idx_room_nights_booking (booking_id),
+    FOREIGN KEY (room_number) REFERENCES rooms(room_number),
+    FOREIGN KEY (booking_id) REFERENCES bookings(booking_id) ON DELETE CASCADE
+);
+
+-- Reserve the nights of every confirmed booking; a night already held (by this booking from an earlier
+-- run, or by an older overlapping booking) is left as it is
+INSERT IGNORE INTO room_nights (room_number, night, booking_id)
+WITH RECURSIVE stay_nights AS (
+    SELECT booking_id, room_number, check_in_date AS night, check_out_date
+    FROM bookings WHERE status = 'CONFIRMED' AND room_number IS NOT NULL AND check_out_date > check_in_date
+    UNION ALL
+    SELECT booking_id, room_number, night + INTERVAL 1 DAY, check_out_date
+    FROM stay_nights WHERE night + INTERVAL 1 DAY < check_out_date
+)
+SELECT room_number, night, booking_id FROM stay_nights;
+
+-- Transactional outbox and the relay's per-sink offsets
+CREATE TABLE IF NOT EXISTS outbox_events (
+    event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(40) NOT NULL,
+    booking_id INT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at_ms BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS outbox_offsets (
+    sink_name VARCHAR(64) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Append-only booking ledger; previous_room and property_id were added after the first version
+CREATE TABLE IF NOT EXISTS booking_ledger (
+    sequence BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type TINYINT NOT NULL,
+    booking_id INT NOT NULL DEFAULT 0,
+    customer_id INT NOT NULL DEFAULT 0,
+    room_number INT NOT NULL DEFAULT 0,
+    previous_room INT NOT NULL DEFAULT 0,
+    property_id INT NOT NULL DEFAULT 1,
+    check_in_day INT NOT NULL DEFAULT 0,
+    check_out_day INT NOT NULL DEFAULT 0,
+    amount_cents BIGINT NOT NULL DEFAULT 0,
+    created_at_ms BIGINT NOT NULL,
+    INDEX idx_ledger_created (created_at_ms)
+);
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'booking_ledger' AND COLUMN_NAME = 'previous_room') = 0,
+              'ALTER TABLE booking_ledger ADD COLUMN previous_room INT NOT NULL DEFAULT 0 AFTER room_number', 'DO 0');
+PREPARE migration FROM @ddl; EXECUTE migration; DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'booking_ledger' AND COLUMN_NAME = 'property_id') = 0,
+              'ALTER TABLE booking_ledger ADD COLUMN property_id INT NOT NULL DEFAULT 1 AFTER previous_room', 'DO 0');
+PREPARE migration FROM @ddl; EXECUTE migration; DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'booking_ledger' AND INDEX_NAME = 'idx_ledger_created') = 0,
+              'ALTER TABLE booking_ledger ADD INDEX idx_ledger_created (created_at_ms)', 'DO 0');
+PREPARE migration FROM @ddl; EXECUTE migration; DEALLOCATE PREPARE migration;
+
+-- Seed an empty ledger with the current rooms and bookings: every room, every booking as created,
+-- then the cancellations. @seed is decided once, so the later inserts do not see the earlier ones.
+SET @seed = (SELECT COUNT(*) = 0 FROM booking_ledger);
+
+INSERT INTO booking_ledger (event_type, room_number, property_id, created_at_ms)
+SELECT 4, room_number, property_id, UNIX_TIMESTAMP() * 1000 FROM rooms
+WHERE @seed ORDER BY room_number;
+
+INSERT INTO booking_ledger (event_type, booking_id, customer_id, room_number, property_id, check_in_day, check_out_day, amount_cents, created_at_ms)
+SELECT 1, booking_id, COALESCE(customer_id, 0), COALESCE(room_number, 0), property_id, TO_DAYS(check_in_date) - 719528,
+       TO_DAYS(check_out_date) - 719528, ROUND(total_amount * 100), UNIX_TIMESTAMP() * 1000
+FROM bookings WHERE @seed ORDER BY booking_id;
+
+INSERT INTO booking_ledger (event_type, booking_id, customer_id, room_number, property_id, check_in_day, check_out_day, amount_cents, created_at_ms)
+SELECT 2, booking_id, COALESCE(customer_id, 0), COALESCE(room_number, 0), property_id, TO_DAYS(check_in_date) - 719528,
+       TO_DAYS(check_out_date) - 719528, ROUND(total_amount * 100), UNIX_TIMESTAMP() * 1000
+FROM bookings WHERE @seed AND status = 'CANCELLED' ORDER BY booking_id;
+
+-- Replication heartbeat row read by ReplicaRouter
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id TINYINT PRIMARY KEY,
+    beat_ms BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT IGNORE INTO replication_heartbeat (id, beat_ms) VALUES (1, 0);
@@ -13,14 +13,27 @@ CREATE TABLE customers (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
  
+-- Properties (hotels) of the group
+CREATE TABLE properties (
+    property_id INT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(20) UNIQUE NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    city VARCHAR(100),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Rooms table
+-- room_number is unique across the whole group (e.g. property 12 numbers its rooms 12101, 12102, ...)
 CREATE TABLE rooms (
     room_number INT PRIMARY KEY,
+    property_id INT NOT NULL DEFAULT 1,
     room_type VARCHAR(50) NOT NULL,
     price DECIMAL(10,2) NOT NULL,
-    is_available BOOLEAN DEFAULT TRUE,
+    is_available BOOLEAN DEFAULT TRUE, -- legacy flag, no longer read: availability comes from room_nights
     amenities TEXT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_rooms_property_type (property_id, room_type, price),
+    FOREIGN KEY (property_id) REFERENCES properties(property_id)
 );
 
 -- Bookings table
@@ -32,11 +45,74 @@ CREATE TABLE bookings (
     check_out_date DATE NOT NULL,
     total_amount DECIMAL(10,2) NOT NULL,
     status ENUM('CONFIRMED', 'CANCELLED') DEFAULT 'CONFIRMED',
+    room_locked BOOLEAN NOT NULL DEFAULT FALSE, -- guest asked for this room; never moved by re-assignment
+    property_id INT NOT NULL DEFAULT 1, -- copy of the room's property for per-property reports
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_bookings_property (property_id, check_in_date),
     FOREIGN KEY (customer_id) REFERENCES customers(customer_id),
     FOREIGN KEY (room_number) REFERENCES rooms(room_number)
 );
 
+-- Room-night reservations: one row per night held by a confirmed booking
+-- The primary key makes overlapping bookings of the same room fail atomically
+CREATE TABLE room_nights (
+    room_number INT NOT NULL,
+    night DATE NOT NULL,
+    booking_id INT NOT NULL,
+    PRIMARY KEY (room_number, night),
+    INDEX idx_room_nights_booking (booking_id),
+    FOREIGN KEY (room_number) REFERENCES rooms(room_number),
+    FOREIGN KEY (booking_id) REFERENCES bookings(booking_id) ON DELETE CASCADE
+);
+
+-- Transactional outbox: one row per booking event, written in the same transaction as the change
+-- OutboxRelay streams the rows to downstream sinks in event_id order
+CREATE TABLE outbox_events (
+    event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(40) NOT NULL,
+    booking_id INT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at_ms BIGINT NOT NULL
+);
+
+-- Last event delivered to each sink, so the relay resumes where it stopped
+CREATE TABLE outbox_offsets (
+    sink_name VARCHAR(64) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Append-only booking ledger, the system of record: every booking and room change is one row,
+-- written in the same transaction as the change. bookings and room_nights are query projections
+-- that LedgerReplay can rebuild from it. event_type: 1 created, 2 cancelled, 3 moved, 4 room available
+CREATE TABLE booking_ledger (
+    sequence BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type TINYINT NOT NULL,
+    booking_id INT NOT NULL DEFAULT 0,
+    customer_id INT NOT NULL DEFAULT 0,
+    room_number INT NOT NULL DEFAULT 0,
+    previous_room INT NOT NULL DEFAULT 0,
+    property_id INT NOT NULL DEFAULT 1,
+    check_in_day INT NOT NULL DEFAULT 0,
+    check_out_day INT NOT NULL DEFAULT 0,
+    amount_cents BIGINT NOT NULL DEFAULT 0,
+    created_at_ms BIGINT NOT NULL,
+    INDEX idx_ledger_created (created_at_ms)
+);
+
+-- Replication heartbeat: the primary stamps beat_ms every few hundred ms, and ReplicaRouter
+-- reads the replicated value on each replica to measure its lag
+CREATE TABLE replication_heartbeat (
+    id TINYINT PRIMARY KEY,
+    beat_ms BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO replication_heartbeat (id, beat_ms) VALUES (1, 0);
+
+-- Insert sample property
+INSERT INTO properties (property_id, code, name, city) VALUES
+(1, 'MAIN', 'Main Hotel', NULL);
+
 -- Insert sample rooms data
 INSERT INTO rooms (room_number, room_type, price, amenities) VALUES
 (101, 'Standard', 100.00, 'WiFi, TV, AC, Bathroom'),
@@ -56,3 +132,23 @@ INSERT INTO customers (name, email, phone) VALUES
 INSERT INTO bookings (customer_id, room_number, check_in_date, check_out_date, total_amount, status) VALUES
 (1, 101, '2024-02-01', '2024-02-05', 400.00, 'CONFIRMED'),
 (2, 201, '2024-02-10', '2024-02-12', 300.00, 'CONFIRMED');
+
+-- Reserve the nights of the sample bookings
+INSERT INTO room_nights (room_number, night, booking_id)
+WITH RECURSIVE stay_nights AS (
+    SELECT booking_id, room_number, check_in_date AS night, check_out_date
+    FROM bookings WHERE status = 'CONFIRMED'
+    UNION ALL
+    SELECT booking_id, room_number, night + INTERVAL 1 DAY, check_out_date
+    FROM stay_nights WHERE night + INTERVAL 1 DAY < check_out_date
+)
+SELECT room_number, night, booking_id FROM stay_nights;
+
+-- Seed the ledger with the sample rooms and bookings
+INSERT INTO booking_ledger (event_type, room_number, property_id, created_at_ms)
+SELECT 4, room_number, property_id, UNIX_TIMESTAMP() * 1000 FROM rooms ORDER BY room_number;
+
+INSERT INTO booking_ledger (event_type, booking_id, customer_id, room_number, property_id, check_in_day, check_out_day, amount_cents, created_at_ms)
+SELECT 1, booking_id, customer_id, room_number, property_id, TO_DAYS(check_in_date) - 719528, TO_DAYS(check_out_date) - 719528,
+       ROUND(total_amount * 100), UNIX_TIMESTAMP() * 1000
+FROM bookings ORDER BY booking_id;
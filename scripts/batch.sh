@@ -0,0 +1,20 @@
+#!/usr/bin/env bash
+# Run a bulk operation without a display (night jobs, imports)
+#
+# Usage: scripts/batch.sh book bookings.csv [--out results.csv]
+#        scripts/batch.sh cancel booking-ids.txt
+#        scripts/batch.sh stats
+#        scripts/batch.sh availability 2025-01-01 2025-02-01
+# Extra JVM options can be passed in $JAVA_OPTS (for example -Dhotel.cli.threads=4)
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="$ROOT/out"
+CONNECTOR="${MYSQL_CONNECTOR_JAR:-$(ls "$ROOT"/lib/mysql-connector*.jar 2>/dev/null | head -n 1 || true)}"
+CLASSPATH="$OUT/hotel-booking.jar${CONNECTOR:+:$CONNECTOR}"
+
+if [ ! -f "$OUT/hotel-booking.jar" ]; then
+    "$ROOT/scripts/build.sh" >&2
+fi
+
+exec java -Djava.awt.headless=true ${JAVA_OPTS:-} -cp "$CLASSPATH" com.hotelbooking.cli.BatchRunner "$@"
@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# Produce an AppCDS archive (out/hotel-booking.jsa) from a training run of ApplicationLauncher
+#
+# The training run starts the application normally, waits until the caches are warm and every
+# dialog has been built, then exits; the JVM dumps every class it loaded (JDK, Swing, JDBC driver
+# and application) into a dynamic archive layered on the JDK's default CDS archive.
+# Needs JDK 13+, a display (or Xvfb) and a reachable database for a representative class set.
+# Rebuild the archive whenever the jar or the JDK changes - a stale archive is silently ignored.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="$ROOT/out"
+CONNECTOR="${MYSQL_CONNECTOR_JAR:-$(ls "$ROOT"/lib/mysql-connector*.jar 2>/dev/null | head -n 1 || true)}"
+CLASSPATH="$OUT/hotel-booking.jar${CONNECTOR:+:$CONNECTOR}"
+
+if [ ! -f "$OUT/hotel-booking.jar" ]; then
+    "$ROOT/scripts/build.sh"
+fi
+
+rm -f "$OUT/hotel-booking.jsa"
+java -XX:ArchiveClassesAtExit="$OUT/hotel-booking.jsa" \
+     -Dhotel.startup.exitAfter=warm \
+     -Dhotel.metrics.dump.seconds=0 \
+     -cp "$CLASSPATH" com.hotelbooking.ApplicationLauncher
+
+ls -l "$OUT/hotel-booking.jsa"
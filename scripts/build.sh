@@ -0,0 +1,25 @@
+#!/usr/bin/env bash
+# Compile the application and package it as out/hotel-booking.jar
+# Class-data sharing only archives classes loaded from JAR files, so the launcher scripts run the jar.
+#
+# The MySQL driver is taken from $MYSQL_CONNECTOR_JAR or the first lib/mysql-connector*.jar.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="$ROOT/out"
+CONNECTOR="${MYSQL_CONNECTOR_JAR:-$(ls "$ROOT"/lib/mysql-connector*.jar 2>/dev/null | head -n 1 || true)}"
+
+rm -rf "$OUT/classes"
+mkdir -p "$OUT/classes"
+
+find "$ROOT/src/main/java" -name '*.java' > "$OUT/sources.txt"
+javac -encoding UTF-8 -d "$OUT/classes" ${CONNECTOR:+-cp "$CONNECTOR"} @"$OUT/sources.txt"
+
+jar --create --file "$OUT/hotel-booking.jar" \
+    --main-class com.hotelbooking.ApplicationLauncher \
+    -C "$OUT/classes" .
+
+echo "Built $OUT/hotel-booking.jar"
+if [ -z "$CONNECTOR" ]; then
+    echo "Warning: no MySQL connector found (set MYSQL_CONNECTOR_JAR or put it in lib/)" >&2
+fi
@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Race overlapping bookings of one room from several processes and audit room_nights afterwards
+#
+# Usage: scripts/double-booking-stress.sh ROOM [processes] [threads]   (default 4 processes, 32 threads)
+# Starts the processes together, each running DoubleBookingStress with --keep against the same
+# room and night window, so bookings collide both on the in-process room lock and on the
+# room_nights primary key. A final run with --verify-only checks that every night of the window
+# went to exactly one confirmed booking, then cancels the window's bookings. Exits non-zero if the
+# audit fails. Needs the database from database/schema.sql with the room and customer 1.
+# Extra JVM options can be passed in $JAVA_OPTS; extra DoubleBookingStress options in $STRESS_OPTS
+# (for example "--from 2030-01-01 --nights 7").
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="$ROOT/out"
+ROOM="${1:?usage: $0 ROOM [processes] [threads]}"
+PROCESSES="${2:-4}"
+THREADS="${3:-32}"
+CONNECTOR="${MYSQL_CONNECTOR_JAR:-$(ls "$ROOT"/lib/mysql-connector*.jar 2>/dev/null | head -n 1 || true)}"
+CLASSPATH="$OUT/hotel-booking.jar${CONNECTOR:+:$CONNECTOR}"
+
+if [ ! -f "$OUT/hotel-booking.jar" ]; then
+    "$ROOT/scripts/build.sh"
+fi
+
+stress() {
+    java -Djava.awt.headless=true ${JAVA_OPTS:-} -cp "$CLASSPATH" com.hotelbooking.cli.DoubleBookingStress \
+        --room "$ROOM" ${STRESS_OPTS:-} "$@"
+}
+
+echo "Double-booking stress on room $ROOM: $PROCESSES processes x $THREADS threads"
+PIDS=()
+for ((p = 0; p < PROCESSES; p++)); do
+    stress --threads "$THREADS" --keep &
+    PIDS+=("$!")
+done
+for pid in "${PIDS[@]}"; do
+    wait "$pid"
+done
+
+stress --verify-only
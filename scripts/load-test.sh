@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Load-test the headless booking server on localhost at 1k, 10k and 50k concurrent connections
+#
+# Usage: scripts/load-test.sh [seconds] [levels...]   (default 30 seconds, levels 1000 10000 50000)
+# Starts BookingServer, runs LoadTestClient once per level against a mix of search, quote,
+# booking lookup and customer lookup requests, prints one summary line per level and stops the
+# server. Needs the database from database/schema.sql with some rooms, customers and bookings.
+# Run on JDK 21+ so both sides use virtual threads; on older JDKs they fall back to thread pools
+# and the 10k/50k levels mostly measure thread scheduling.
+# 50k connections need about 100k open files: raise "ulimit -n" (the script tries) and, on Linux,
+# net.ipv4.ip_local_port_range if the client runs out of ephemeral ports.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="$ROOT/out"
+SECONDS_PER_LEVEL="${1:-30}"
+shift || true
+LEVELS=(1000 10000 50000)
+if [ "$#" -gt 0 ]; then
+    LEVELS=("$@")
+fi
+PORT="${HOTEL_SERVER_PORT:-8080}"
+BASE="http://localhost:$PORT/api"
+TODAY="$(date +%F)"
+TOMORROW="$(date -d tomorrow +%F 2>/dev/null || date -v+1d +%F)"
+CONNECTOR="${MYSQL_CONNECTOR_JAR:-$(ls "$ROOT"/lib/mysql-connector*.jar 2>/dev/null | head -n 1 || true)}"
+CLASSPATH="$OUT/hotel-booking.jar${CONNECTOR:+:$CONNECTOR}"
+
+if [ ! -f "$OUT/hotel-booking.jar" ]; then
+    "$ROOT/scripts/build.sh"
+fi
+ulimit -n 200000 2>/dev/null || echo "warning: could not raise open-files limit (now $(ulimit -n))"
+
+java ${SERVER_OPTS:-} -Dhotel.server.port="$PORT" -cp "$CLASSPATH" com.hotelbooking.server.BookingServer &
+SERVER_PID=$!
+trap 'kill "$SERVER_PID" 2>/dev/null || true; wait "$SERVER_PID" 2>/dev/null || true' EXIT
+
+for _ in $(seq 1 60); do
+    curl -sf "$BASE/health" > /dev/null 2>&1 && break
+    sleep 1
+done
+
+URLS=(
+    --url "$BASE/rooms?checkIn=$TODAY&checkOut=$TOMORROW"
+    --url "$BASE/quote?type=Single&checkIn=$TODAY&checkOut=$TOMORROW"
+    --url "$BASE/bookings/1"
+    --url "$BASE/customers/1"
+)
+
+echo "Booking server load test ($(java -version 2>&1 | head -n 1))"
+for level in "${LEVELS[@]}"; do
+    java ${CLIENT_OPTS:-} -cp "$CLASSPATH" com.hotelbooking.server.LoadTestClient \
+        "${URLS[@]}" --connections "$level" --seconds "$SECONDS_PER_LEVEL"
+done
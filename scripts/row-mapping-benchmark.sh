@@ -0,0 +1,25 @@
+#!/usr/bin/env bash
+# Compare SELECT * with by-label mapping against the explicit projections and positional mappers
+#
+# Usage: scripts/row-mapping-benchmark.sh [rows] [runs]   (default 100000 rows, 10 measured runs)
+# Runs RowMappingBenchmark, which fills temporary copies of the bookings and rooms tables with
+# generated rows (the real tables are not touched), reads them back once per case and round after
+# 5 warm-up rounds, and prints min/median/mean wall time and allocation per case. Needs the
+# database from database/schema.sql; a local server keeps network time from hiding the mapping cost.
+# Extra JVM options can be passed in $JAVA_OPTS (for example -Xmx2g).
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="$ROOT/out"
+ROWS="${1:-100000}"
+RUNS="${2:-10}"
+CONNECTOR="${MYSQL_CONNECTOR_JAR:-$(ls "$ROOT"/lib/mysql-connector*.jar 2>/dev/null | head -n 1 || true)}"
+CLASSPATH="$OUT/hotel-booking.jar${CONNECTOR:+:$CONNECTOR}"
+
+if [ ! -f "$OUT/hotel-booking.jar" ]; then
+    "$ROOT/scripts/build.sh"
+fi
+
+echo "Result-set mapping, $ROWS rows ($(java -version 2>&1 | head -n 1))"
+exec java -Djava.awt.headless=true ${JAVA_OPTS:-} -cp "$CLASSPATH" com.hotelbooking.services.RowMappingBenchmark \
+    --rows "$ROWS" --runs "$RUNS"
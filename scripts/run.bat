@@ -0,0 +1,14 @@
+@echo off
+rem Start the desktop client on Windows front-desk PCs, using the AppCDS archive when one has been built
+rem Set MYSQL_CONNECTOR_JAR to the driver jar if it is not in lib\
+setlocal
+
+set ROOT=%~dp0..
+set OUT=%ROOT%\out
+if "%MYSQL_CONNECTOR_JAR%"=="" for %%f in ("%ROOT%\lib\mysql-connector*.jar") do set MYSQL_CONNECTOR_JAR=%%f
+set CLASSPATH=%OUT%\hotel-booking.jar;%MYSQL_CONNECTOR_JAR%
+
+set CDS_OPTS=
+if exist "%OUT%\hotel-booking.jsa" set CDS_OPTS=-XX:SharedArchiveFile="%OUT%\hotel-booking.jsa" -Xshare:auto
+
+java %CDS_OPTS% %JAVA_OPTS% -cp "%CLASSPATH%" com.hotelbooking.ApplicationLauncher %*
@@ -0,0 +1,17 @@
+#!/usr/bin/env bash
+# Start the desktop client, using the AppCDS archive when one has been built
+# Extra JVM options can be passed in $JAVA_OPTS (for example -Dhotel.startup.csv=startup.csv)
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="$ROOT/out"
+CONNECTOR="${MYSQL_CONNECTOR_JAR:-$(ls "$ROOT"/lib/mysql-connector*.jar 2>/dev/null | head -n 1 || true)}"
+CLASSPATH="$OUT/hotel-booking.jar${CONNECTOR:+:$CONNECTOR}"
+
+CDS_OPTS=()
+if [ -f "$OUT/hotel-booking.jsa" ]; then
+    # -Xshare:auto falls back to normal class loading if the archive does not match this JDK or jar
+    CDS_OPTS=(-XX:SharedArchiveFile="$OUT/hotel-booking.jsa" -Xshare:auto)
+fi
+
+exec java "${CDS_OPTS[@]}" ${JAVA_OPTS:-} -cp "$CLASSPATH" com.hotelbooking.ApplicationLauncher "$@"
@@ -0,0 +1,54 @@
+#!/usr/bin/env bash
+# Measure JVM start to MainFrame visible, with and without class-data sharing
+#
+# Usage: scripts/startup-benchmark.sh [runs]   (default 10 runs per configuration)
+# Each run starts a fresh JVM that exits as soon as the main frame is visible and reports the
+# firstInteraction milestone from StartupTimeline (milliseconds since JVM start). Configurations:
+#   no-cds   -Xshare:off, every class loaded and verified from the jar and the JDK modules
+#   jdk-cds  the JDK's default archive only (what a plain "java -jar" gets)
+#   app-cds  the dynamic archive from scripts/build-cds-archive.sh
+# The first run of each configuration is a discarded warm-up (OS file cache).
+# Needs a display (or Xvfb); the database does not have to be reachable.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="$ROOT/out"
+RUNS="${1:-10}"
+CONNECTOR="${MYSQL_CONNECTOR_JAR:-$(ls "$ROOT"/lib/mysql-connector*.jar 2>/dev/null | head -n 1 || true)}"
+CLASSPATH="$OUT/hotel-booking.jar${CONNECTOR:+:$CONNECTOR}"
+
+if [ ! -f "$OUT/hotel-booking.jar" ]; then
+    "$ROOT/scripts/build.sh"
+fi
+
+measure() {
+    java "$@" -Dhotel.startup.exitAfter=firstInteraction -Dhotel.gui.prewarm=false \
+         -cp "$CLASSPATH" com.hotelbooking.ApplicationLauncher 2>/dev/null \
+        | sed -n 's/^STARTUP firstInteraction_ms=//p'
+}
+
+run_config() {
+    local name="$1"
+    shift
+    measure "$@" > /dev/null || true
+    local samples=()
+    for ((i = 0; i < RUNS; i++)); do
+        samples+=("$(measure "$@")")
+    done
+    printf '%s\n' "${samples[@]}" | sort -n | awk -v name="$name" '
+        { v[NR] = $1; sum += $1 }
+        END {
+            if (NR == 0) { printf "%-8s no samples\n", name; exit }
+            printf "%-8s runs=%d  min=%7.1f  median=%7.1f  mean=%7.1f  max=%7.1f ms\n",
+                   name, NR, v[1], v[int((NR + 1) / 2)], sum / NR, v[NR]
+        }'
+}
+
+echo "JVM start -> MainFrame visible ($(java -version 2>&1 | head -n 1))"
+run_config no-cds -Xshare:off
+run_config jdk-cds -Xshare:auto
+if [ -f "$OUT/hotel-booking.jsa" ]; then
+    run_config app-cds -XX:SharedArchiveFile="$OUT/hotel-booking.jsa" -Xshare:auto
+else
+    echo "app-cds  skipped - run scripts/build-cds-archive.sh first"
+fi
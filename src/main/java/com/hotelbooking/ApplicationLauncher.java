@@ -1,34 +1,158 @@
 package com.hotelbooking;
 
+import com.hotelbooking.events.OutboxRelay;
 import com.hotelbooking.gui.MainFrame;
+import com.hotelbooking.model.Room;
+import com.hotelbooking.services.AvailabilityIndex;
+import com.hotelbooking.services.CustomerService;
+import com.hotelbooking.services.PricingEngine;
+import com.hotelbooking.services.RoomAssignmentOptimizer;
+import com.hotelbooking.services.RoomService;
+import com.hotelbooking.utils.ConnectionPool;
 import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.JdbcProfiler;
+import com.hotelbooking.utils.Metrics;
+import com.hotelbooking.utils.StartupTimeline;
 
 import javax.swing.*;
 import java.awt.*;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Application Launcher - Main class to start the Hotel Booking System
  * Demonstrates OOP with application initialization and error handling
  */
 public class ApplicationLauncher {
+    // Background threads used to warm the pool and caches at startup
+    private static final int WARMUP_THREADS = 4;
+    // Connections opened ahead of the first click - override with -Dhotel.startup.pool.prefill=N
+    private static final int POOL_PREFILL = Integer.getInteger("hotel.startup.pool.prefill", 4);
+    // Build all dialogs once the caches are warm - disable with -Dhotel.gui.prewarm=false
+    private static final boolean PREWARM_DIALOGS = !"false".equalsIgnoreCase(System.getProperty("hotel.gui.prewarm"));
+    // Scripted runs (CDS training, startup benchmark) exit at this milestone: firstInteraction or warm
+    private static final String EXIT_AFTER = System.getProperty("hotel.startup.exitAfter", "");
+    
+    private static volatile MainFrame mainFrame;
     
     /**
      * Main method - Entry point of the application
      */
     public static void main(String[] args) {
         // Set modern look and feel for better UI appearance
-        setModernLookAndFeel();
+        StartupTimeline.time("lookAndFeel", ApplicationLauncher::setModernLookAndFeel);
         
         // Display splash screen or loading message
         showWelcomeMessage();
         
-        // Test database connection before starting GUI
-        if (testDatabaseConnection()) {
-            // Launch the main application GUI
-            launchMainApplication();
-        } else {
-            // Show error and exit if database connection fails
-            showDatabaseErrorAndExit();
+        // Optional periodic metrics report - enable with -Dhotel.metrics.dump.seconds=N
+        long metricsDumpSeconds = Long.getLong("hotel.metrics.dump.seconds", 0);
+        if (metricsDumpSeconds > 0) {
+            Metrics.startPeriodicDump(metricsDumpSeconds, TimeUnit.SECONDS);
+        }
+        
+        // Show the GUI right away; the database check and cache warmup run in the background
+        launchMainApplication();
+        startWarmup();
+    }
+    
+    /**
+     * Check the database, then fill the connection pool and load caches in parallel
+     * If the database is unreachable the error dialog is shown and the application exits as before
+     */
+    private static void startWarmup() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService warmup = Executors.newFixedThreadPool(WARMUP_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "startup-warmup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        warmup.execute(() -> {
+            long checkStart = StartupTimeline.begin();
+            boolean connected = testDatabaseConnection();
+            StartupTimeline.end("databaseCheck", checkStart);
+            if (!connected) {
+                warmup.shutdown();
+                SwingUtilities.invokeLater(ApplicationLauncher::showDatabaseErrorAndExit);
+                return;
+            }
+            
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            ConnectionPool pool = ConnectionPool.getDefault();
+            int prefill = Math.min(POOL_PREFILL, pool.getMaxSize());
+            tasks.add(CompletableFuture.runAsync(() -> StartupTimeline.time("connectionPool", () -> {
+                try {
+                    pool.prefill(prefill);
+                } catch (SQLException e) {
+                    System.err.println("Warning: could not pre-open database connections: " + e.getMessage());
+                }
+            }), warmup));
+            tasks.add(CompletableFuture.runAsync(() -> StartupTimeline.time("availability", () -> {
+                AvailabilityIndex.getInstance();
+                // Nightly room re-assignment - set -Dhotel.assign.nightly.hour=-1 to disable
+                RoomAssignmentOptimizer.getInstance().startNightlyReoptimization();
+                // Booking event relay - only when sinks are configured with -Dhotel.outbox.sinks
+                OutboxRelay.startConfigured();
+            }), warmup));
+            tasks.add(CompletableFuture.runAsync(() -> StartupTimeline.time("rooms", ApplicationLauncher::warmRooms), warmup));
+            tasks.add(CompletableFuture.runAsync(() -> StartupTimeline.time("customers",
+                    () -> new CustomerService().getAllCustomers()), warmup));
+            
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+                StartupTimeline.milestone("warm");
+                warmup.shutdown();
+                System.out.println("🔥 Caches warm (" + String.format("%.0f", StartupTimeline.getMillisSinceStart("warm")) +
+                                   " ms after JVM start)");
+                System.out.print(StartupTimeline.report());
+                StartupTimeline.appendCsv();
+                SwingUtilities.invokeLater(() -> {
+                    if (PREWARM_DIALOGS && error == null && mainFrame != null) {
+                        mainFrame.getDialogManager().prewarm();
+                    }
+                    // Queued behind the dialog builds so a training run loads their classes too
+                    SwingUtilities.invokeLater(() -> exitIfStartupRun("warm"));
+                });
+            });
+        });
+    }
+    
+    /**
+     * End a scripted startup run once the milestone named by -Dhotel.startup.exitAfter is reached
+     * Prints one machine-readable line for scripts/startup-benchmark.sh
+     */
+    private static void exitIfStartupRun(String milestone) {
+        if (!milestone.equals(EXIT_AFTER)) {
+            return;
+        }
+        System.out.println(String.format(Locale.ROOT, "STARTUP %s_ms=%.1f", milestone, StartupTimeline.getMillisSinceStart(milestone)));
+        if (!"warm".equals(milestone)) {
+            StartupTimeline.appendCsv(); // the warm path has already written it
+        }
+        System.exit(0);
+    }
+    
+    /**
+     * Load the room catalog and compile tonight's rate table for every room type
+     */
+    private static void warmRooms() {
+        PricingEngine pricingEngine = PricingEngine.getInstance();
+        LocalDate tonight = LocalDate.now();
+        Set<String> roomTypes = new HashSet<>();
+        for (Room room : new RoomService().getAllRooms()) {
+            if (roomTypes.add(room.getRoomType())) {
+                pricingEngine.quote(room, tonight, tonight.plusDays(1));
+            }
         }
     }
     
@@ -100,8 +224,12 @@ public class ApplicationLauncher {
             public void run() {
                 try {
                     // Create and display the main application frame
-                    MainFrame mainFrame = new MainFrame();
+                    long frameStart = StartupTimeline.begin();
+                    mainFrame = new MainFrame();
                     mainFrame.setVisible(true);
+                    StartupTimeline.end("mainFrame", frameStart);
+                    StartupTimeline.milestone("firstInteraction");
+                    exitIfStartupRun("firstInteraction");
                     
                     System.out.println("✅ Application started successfully!");
                     System.out.println("🎯 Ready for hotel room bookings!");
@@ -163,6 +291,10 @@ public class ApplicationLauncher {
      */
     public static void shutdown() {
         System.out.println("🛑 Shutting down application...");
+        System.out.println(Metrics.report());
+        if (JdbcProfiler.isEnabled()) {
+            System.out.println(JdbcProfiler.report(15));
+        }
         
         // Close database connection
         DatabaseConnection.closeConnection();
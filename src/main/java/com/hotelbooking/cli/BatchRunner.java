@@ -0,0 +1,550 @@
+package com.hotelbooking.cli;
+
+import com.hotelbooking.model.Booking;
+import com.hotelbooking.model.BookingBatch;
+import com.hotelbooking.model.PropertyReport;
+import com.hotelbooking.model.Room;
+import com.hotelbooking.utils.Json;
+import com.hotelbooking.services.ArchiveService;
+import com.hotelbooking.services.AvailabilityIndex;
+import com.hotelbooking.services.BookingService;
+import com.hotelbooking.services.CustomerService;
+import com.hotelbooking.services.LedgerProjections;
+import com.hotelbooking.services.LedgerReplay;
+import com.hotelbooking.services.PropertyService;
+import com.hotelbooking.services.RoomService;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.BookingArchive;
+import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.Money;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchRunner class - non-interactive command line for bulk operations, no display needed
+ * Demonstrates streaming file input through the services in fixed-size chunks
+ *
+ * Usage: BatchRunner <command> [arguments] [--out FILE]
+ *   book FILE|-                CSV rows: email,name,phone,room,checkIn,checkOut (room = number or type)
+ *   cancel FILE|-              one booking ID per line (first CSV column)
+ *   stats                      booking statistics as one JSON object
+ *   availability FROM TO       free rooms per night and room type, FROM inclusive, TO exclusive
+ *   ledger [--full] [--snapshot]  rebuild projections from the booking ledger (--full ignores
+ *                              snapshots, --snapshot writes one at the settled sequence) and print them as JSON
+ *   properties [FROM TO]       one JSON report per property (default: the next 30 nights),
+ *                              properties computed in parallel (-Dhotel.report.threads)
+ *   archive BEFORE             move bookings that checked out before BEFORE (today at the latest)
+ *                              to the columnar archive (-Dhotel.archive.dir) - run it nightly from cron
+ * Input is read line by line, so files of any size run in constant memory. Empty lines, lines
+ * starting with '#' and a header line are skipped. Results are CSV (JSON for
+ * stats, ledger, properties and archive) on stdout or --out; a summary goes to stderr. Exit code 0 when every row succeeded,
+ * 1 when some rows were rejected, 2 on bad usage.
+ *
+ * Configuration:
+ *   -Dhotel.cli.batch.size=500     rows per chunk (one batched cancel statement per chunk)
+ *   -Dhotel.cli.threads=8          concurrent bookings per chunk (keep at or below hotel.db.pool.size)
+ * Service logging is reduced to errors (on stderr) unless -Dhotel.log.level is given.
+ */
+public class BatchRunner {
+    private static final int BATCH_SIZE = Integer.getInteger("hotel.cli.batch.size", 500);
+    private static final int THREADS = Integer.getInteger("hotel.cli.threads", 8);
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_REJECTED = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private final PrintWriter out;
+    private final BookingService bookingService = new BookingService();
+    private final CustomerService customerService = new CustomerService();
+    private final RoomService roomService = new RoomService();
+    // Customer IDs by email, so repeated guests in a file are looked up once
+    private final Map<String, Integer> customerIds = new ConcurrentHashMap<>();
+
+    public BatchRunner(PrintWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Main method - run one command and exit with its status
+     */
+    public static void main(String[] args) {
+        if (System.getProperty("hotel.log.level") == null) {
+            AppLogger.setLevel(AppLogger.Level.ERROR);
+        }
+
+        List<String> arguments = new ArrayList<>();
+        String outFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outFile = args[++i];
+            } else {
+                arguments.add(args[i]);
+            }
+        }
+
+        int status;
+        try (PrintWriter out = new PrintWriter(outFile == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(outFile), StandardCharsets.UTF_8))) {
+            status = new BatchRunner(out).run(arguments);
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            status = EXIT_USAGE;
+        } finally {
+            DatabaseConnection.closeConnection();
+            AppLogger.flush();
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Dispatch one command
+     * @return the process exit code
+     */
+    public int run(List<String> arguments) throws IOException {
+        String command = arguments.isEmpty() ? "" : arguments.get(0);
+        switch (command) {
+            case "book":
+                if (arguments.size() == 2) {
+                    try (BufferedReader reader = open(arguments.get(1))) {
+                        return book(reader);
+                    }
+                }
+                break;
+            case "cancel":
+                if (arguments.size() == 2) {
+                    try (BufferedReader reader = open(arguments.get(1))) {
+                        return cancel(reader);
+                    }
+                }
+                break;
+            case "stats":
+                if (arguments.size() == 1) {
+                    return stats();
+                }
+                break;
+            case "availability":
+                if (arguments.size() == 3) {
+                    return availability(LocalDate.parse(arguments.get(1)), LocalDate.parse(arguments.get(2)));
+                }
+                break;
+            case "ledger": {
+                List<String> options = arguments.subList(1, arguments.size());
+                if (List.of("--full", "--snapshot").containsAll(options)) {
+                    return ledger(options.contains("--full"), options.contains("--snapshot"));
+                }
+                break;
+            }
+            case "properties":
+                if (arguments.size() == 1) {
+                    return properties(LocalDate.now(), LocalDate.now().plusDays(30));
+                }
+                if (arguments.size() == 3) {
+                    return properties(LocalDate.parse(arguments.get(1)), LocalDate.parse(arguments.get(2)));
+                }
+                break;
+            case "archive":
+                if (arguments.size() == 2) {
+                    LocalDate before = LocalDate.parse(arguments.get(1));
+                    if (!before.isAfter(LocalDate.now())) {
+                        return archive(before);
+                    }
+                    System.err.println("archive: BEFORE must not be after today - those stays are still live");
+                }
+                break;
+            default:
+                break;
+        }
+        System.err.println("Usage: BatchRunner book FILE|- | cancel FILE|- | stats | availability FROM TO | " +
+                           "ledger [--full] [--snapshot] | properties [FROM TO] | archive BEFORE  [--out FILE]");
+        return EXIT_USAGE;
+    }
+
+    /**
+     * Bulk bookings, one result row per input row in input order
+     */
+    private int book(BufferedReader reader) throws IOException {
+        long startNanos = System.nanoTime();
+        out.println("line,status,booking_id,customer_id,room_number,check_in,check_out,total,message");
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        int[] counts = new int[2]; // booked, rejected
+        try {
+            List<String[]> chunk = new ArrayList<>(BATCH_SIZE);
+            List<Integer> lineNumbers = new ArrayList<>(BATCH_SIZE);
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] fields = line.split(",", -1);
+                boolean header = lineNumber == 1 && fields.length > 4 && !fields[4].trim().matches("\\d{4}-\\d{2}-\\d{2}");
+                if (skip(line) || header) {
+                    continue;
+                }
+                chunk.add(fields);
+                lineNumbers.add(lineNumber);
+                if (chunk.size() == BATCH_SIZE) {
+                    bookChunk(workers, chunk, lineNumbers, counts);
+                    chunk.clear();
+                    lineNumbers.clear();
+                }
+            }
+            bookChunk(workers, chunk, lineNumbers, counts);
+        } finally {
+            workers.shutdown();
+        }
+
+        summary("book", counts[0] + " booked, " + counts[1] + " rejected", startNanos);
+        return counts[1] == 0 ? EXIT_OK : EXIT_REJECTED;
+    }
+
+    private void bookChunk(ExecutorService workers, List<String[]> chunk, List<Integer> lineNumbers, int[] counts) {
+        List<Future<String>> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String[] fields = chunk.get(i);
+            int lineNumber = lineNumbers.get(i);
+            results.add(workers.submit(() -> bookRow(lineNumber, fields)));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            String row;
+            try {
+                row = results.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                row = lineNumbers.get(i) + ",ERROR,,,,,,," + csv(String.valueOf(e.getCause()));
+            }
+            counts[row.contains(",OK,") ? 0 : 1]++;
+            out.println(row);
+        }
+        out.flush();
+    }
+
+    private String bookRow(int lineNumber, String[] fields) {
+        if (fields.length < 6) {
+            return lineNumber + ",ERROR,,,,,,,expected email,name,phone,room,checkIn,checkOut";
+        }
+        String email = fields[0].trim();
+        String room = fields[3].trim();
+        LocalDate checkIn;
+        LocalDate checkOut;
+        try {
+            checkIn = LocalDate.parse(fields[4].trim());
+            checkOut = LocalDate.parse(fields[5].trim());
+        } catch (RuntimeException e) {
+            return lineNumber + ",ERROR,,,,,,," + csv("bad date: " + e.getMessage());
+        }
+        try {
+            BookingService.validateStay(checkIn, checkOut);
+        } catch (IllegalArgumentException e) {
+            return lineNumber + ",ERROR,,,,,,," + csv(e.getMessage());
+        }
+
+        Integer knownCustomer = customerIds.get(email);
+        int customerId = knownCustomer != null
+                ? knownCustomer : lookUpCustomer(fields[1].trim(), email, fields[2].trim());
+        if (customerId <= 0) {
+            return lineNumber + ",ERROR,,,,,,,invalid customer details";
+        }
+
+        Booking booking = room.matches("\\d+")
+                ? bookingService.makeBooking(customerId, Integer.parseInt(room), checkIn, checkOut)
+                : bookingService.makeRoomTypeBooking(customerId, room, checkIn, checkOut);
+        if (booking == null) {
+            return lineNumber + ",REJECTED,," + customerId + "," + (room.matches("\\d+") ? room : "") +
+                   "," + checkIn + "," + checkOut + ",,room not available";
+        }
+        return lineNumber + ",OK," + booking.getBookingId() + "," + customerId + "," + booking.getRoomNumber() +
+               "," + checkIn + "," + checkOut + "," + Money.toDecimal(booking.getTotalAmountCents()).toPlainString() + ",";
+    }
+
+    /**
+     * Find or create a customer and remember its ID for the rest of the file
+     * Runs outside the map, so the JDBC calls never hold a ConcurrentHashMap bin lock.
+     * @return the customer ID, or -1 if the details are invalid
+     */
+    private int lookUpCustomer(String name, String email, String phone) {
+        int customerId = customerService.findOrCreateCustomer(name, email, phone);
+        if (customerId <= 0) {
+            // Another worker may have created the same email between the lookup and the insert
+            customerId = customerService.findOrCreateCustomer(name, email, phone);
+        }
+        if (customerId <= 0) {
+            return -1;
+        }
+        Integer first = customerIds.putIfAbsent(email, customerId);
+        return first != null ? first : customerId;
+    }
+
+    /**
+     * Bulk cancellations, one batched transaction per chunk of IDs
+     */
+    private int cancel(BufferedReader reader) throws IOException {
+        long startNanos = System.nanoTime();
+        out.println("booking_id,status");
+
+        int[] counts = new int[2]; // cancelled, skipped
+        List<Integer> chunk = new ArrayList<>(BATCH_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String first = line.split(",", 2)[0].trim();
+            if (skip(line) || !first.matches("\\d+")) {
+                continue;
+            }
+            chunk.add(Integer.parseInt(first));
+            if (chunk.size() == BATCH_SIZE) {
+                cancelChunk(chunk, counts);
+                chunk.clear();
+            }
+        }
+        cancelChunk(chunk, counts);
+
+        summary("cancel", counts[0] + " cancelled, " + counts[1] + " not found or already cancelled", startNanos);
+        return counts[1] == 0 ? EXIT_OK : EXIT_REJECTED;
+    }
+
+    private void cancelChunk(List<Integer> chunk, int[] counts) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // Each ID is cancelled once; a repeat in the same chunk is reported as already cancelled
+        Set<Integer> cancelled = new HashSet<>(bookingService.cancelBookings(new LinkedHashSet<>(chunk)));
+        for (Integer bookingId : chunk) {
+            boolean done = cancelled.remove(bookingId);
+            counts[done ? 0 : 1]++;
+            out.println(bookingId + (done ? ",CANCELLED" : ",SKIPPED"));
+        }
+        out.flush();
+    }
+
+    /**
+     * Booking statistics from one pass over the bookings table plus the archive
+     */
+    private int stats() {
+        long startNanos = System.nanoTime();
+        BookingBatch batch = new BookingBatch();
+        bookingService.loadAllBookings(batch);
+
+        Map<Integer, int[]> nightsByRoom = new TreeMap<>();
+        int today = (int) LocalDate.now().toEpochDay();
+        int staysInHouse = 0;
+        for (int row = 0; row < batch.size(); row++) {
+            if (batch.getStatus(row) != BookingBatch.STATUS_CONFIRMED) {
+                continue;
+            }
+            int nights = batch.getCheckOutDay(row) - batch.getCheckInDay(row);
+            nightsByRoom.computeIfAbsent(batch.getRoomNumber(row), key -> new int[1])[0] += nights;
+            if (batch.getCheckInDay(row) <= today && today < batch.getCheckOutDay(row)) {
+                staysInHouse++;
+            }
+        }
+        Map<String, Object> roomNights = new LinkedHashMap<>();
+        for (Map.Entry<Integer, int[]> entry : nightsByRoom.entrySet()) {
+            roomNights.put(entry.getKey().toString(), entry.getValue()[0]);
+        }
+
+        BookingArchive archive = BookingArchive.getDefault();
+        long revenueCents = batch.sumConfirmedAmountCents();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("generatedAt", LocalDate.now());
+        stats.put("totalBookings", batch.size());
+        stats.put("confirmed", batch.countByStatus(BookingBatch.STATUS_CONFIRMED));
+        stats.put("cancelled", batch.countByStatus(BookingBatch.STATUS_CANCELLED));
+        stats.put("inHouseTonight", staysInHouse);
+        stats.put("revenueCents", revenueCents);
+        stats.put("revenue", Money.toDecimal(revenueCents).toPlainString());
+        stats.put("archivedBookings", archive.getRowCount());
+        stats.put("archivedRevenueCents", archive.sumConfirmedRevenueCents());
+        Map<String, Object> archivedByProperty = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> entry : archive.sumConfirmedRevenueCentsByProperty().entrySet()) {
+            archivedByProperty.put(entry.getKey().toString(), entry.getValue());
+        }
+        stats.put("archivedRevenueByPropertyCents", archivedByProperty);
+        stats.put("confirmedNightsByRoom", roomNights);
+        out.println(Json.write(stats));
+
+        summary("stats", batch.size() + " bookings", startNanos);
+        return EXIT_OK;
+    }
+
+    /**
+     * Free rooms per night and room type, answered from the in-memory availability calendar
+     */
+    private int availability(LocalDate from, LocalDate to) {
+        long startNanos = System.nanoTime();
+        Map<String, List<Integer>> roomsByType = new TreeMap<>();
+        for (Room room : roomService.getAllRooms()) {
+            roomsByType.computeIfAbsent(room.getRoomType(), key -> new ArrayList<>()).add(room.getRoomNumber());
+        }
+
+        AvailabilityIndex index = AvailabilityIndex.getInstance();
+        out.println("night,room_type,rooms,free");
+        int rows = 0;
+        for (LocalDate night = from; night.isBefore(to); night = night.plusDays(1)) {
+            LocalDate morning = night.plusDays(1);
+            for (Map.Entry<String, List<Integer>> entry : roomsByType.entrySet()) {
+                int free = 0;
+                for (int roomNumber : entry.getValue()) {
+                    if (index.isFree(roomNumber, night, morning)) {
+                        free++;
+                    }
+                }
+                out.println(night + "," + csv(entry.getKey()) + "," + entry.getValue().size() + "," + free);
+                rows++;
+            }
+        }
+
+        summary("availability", rows + " rows", startNanos);
+        return EXIT_OK;
+    }
+
+    /**
+     * Projections rebuilt by replaying the booking ledger, with the replay timing
+     */
+    private int ledger(boolean full, boolean snapshot) {
+        long startNanos = System.nanoTime();
+        LedgerProjections projections;
+        try {
+            projections = LedgerReplay.replay(!full, snapshot);
+        } catch (SQLException e) {
+            System.err.println("Ledger replay failed: " + e.getMessage());
+            return EXIT_REJECTED;
+        }
+        long replayMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        Map<String, Object> revenueByMonth = new LinkedHashMap<>();
+        for (Map.Entry<YearMonth, Long> entry : projections.getRevenueByMonth().entrySet()) {
+            revenueByMonth.put(entry.getKey().toString(), entry.getValue());
+        }
+        Map<String, Object> revenueByProperty = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> entry : projections.getRevenueByProperty().entrySet()) {
+            revenueByProperty.put(entry.getKey().toString(), entry.getValue());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sequence", projections.getSequence());
+        result.put("settledSequence", projections.getSettledSequence());
+        result.put("replayMillis", replayMillis);
+        result.put("totalBookings", projections.getBookingCount());
+        result.put("confirmed", projections.getConfirmedBookings());
+        result.put("cancelled", projections.getCancelledBookings());
+        result.put("rooms", projections.getRooms().size());
+        result.put("revenueCents", projections.getRevenueCents());
+        result.put("revenue", Money.toDecimal(projections.getRevenueCents()).toPlainString());
+        result.put("revenueByMonthCents", revenueByMonth);
+        result.put("revenueByPropertyCents", revenueByProperty);
+        if (snapshot) {
+            Path file = LedgerReplay.getLatestSnapshot();
+            result.put("snapshot", file == null ? null : file.toString());
+        }
+        out.println(Json.write(result));
+
+        summary("ledger", projections.getBookingCount() + " bookings at sequence " + projections.getSequence(), startNanos);
+        return EXIT_OK;
+    }
+
+    /**
+     * Per-property figures for a date range, FROM inclusive, TO exclusive
+     */
+    private int properties(LocalDate from, LocalDate to) {
+        long startNanos = System.nanoTime();
+        List<PropertyReport> reports = new PropertyService().getPropertyReports(from, to);
+
+        List<Object> result = new ArrayList<>(reports.size());
+        for (PropertyReport report : reports) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("propertyId", report.getProperty().getPropertyId());
+            json.put("code", report.getProperty().getCode());
+            json.put("name", report.getProperty().getName());
+            json.put("rooms", report.getRooms());
+            json.put("roomsFreeTonight", report.getRoomsFreeTonight());
+            json.put("confirmed", report.getConfirmedBookings());
+            json.put("cancelled", report.getCancelledBookings());
+            json.put("roomNightsSold", report.getRoomNightsSold());
+            json.put("occupancyPercent", Math.round(report.getOccupancyPercent() * 10) / 10.0);
+            json.put("revenueCents", report.getRevenueCents());
+            json.put("revenue", Money.toDecimal(report.getRevenueCents()).toPlainString());
+            result.add(json);
+        }
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("from", from);
+        output.put("to", to);
+        output.put("properties", result);
+        out.println(Json.write(output));
+
+        summary("properties", reports.size() + " properties", startNanos);
+        return EXIT_OK;
+    }
+
+    /**
+     * Move bookings that checked out before the cutoff from the bookings table to the archive
+     */
+    private int archive(LocalDate before) {
+        long startNanos = System.nanoTime();
+        ArchiveService archiveService = new ArchiveService();
+        int archived = archiveService.archiveBookingsBefore(before);
+        archiveService.close();
+        if (archived < 0) {
+            System.err.println("Archival failed - no bookings were removed (see the log)");
+            return EXIT_REJECTED;
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("before", before);
+        result.put("archived", archived);
+        result.put("archiveRows", BookingArchive.getDefault().getRowCount());
+        out.println(Json.write(result));
+
+        summary("archive", archived + " bookings archived", startNanos);
+        return EXIT_OK;
+    }
+
+    private static BufferedReader open(String path) throws IOException {
+        Reader reader = "-".equals(path)
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8);
+        return new BufferedReader(reader);
+    }
+
+    private static boolean skip(String line) {
+        String trimmed = line.trim();
+        return trimmed.isEmpty() || trimmed.startsWith("#");
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void summary(String command, String result, long startNanos) {
+        System.err.printf("%s: %s in %d ms%n", command, result, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
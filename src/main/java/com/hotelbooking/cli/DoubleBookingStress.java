@@ -0,0 +1,280 @@
+package com.hotelbooking.cli;
+
+import com.hotelbooking.model.Booking;
+import com.hotelbooking.services.BookingService;
+import com.hotelbooking.utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DoubleBookingStress class - concurrent overlapping bookings of one room, then an audit of room_nights
+ * Worker threads are released together and book random 1-3 night stays inside a short window, so
+ * almost every attempt overlaps another. Several processes can run against the same room and window
+ * at once (--keep, which skips the audit) to race through the database rather than the in-process
+ * room lock; a final run with --verify-only then audits the window. The audit fails if two confirmed
+ * bookings of the room overlap, if a confirmed night has no room_nights row, or if a room_nights row
+ * in the window does not belong to a confirmed booking covering that night. The window's bookings
+ * are cancelled at the end unless --keep is given.
+ *
+ * Usage: DoubleBookingStress --room N [--customer ID] [--threads T] [--attempts A] [--from DATE]
+ *                            [--nights N] [--keep] [--verify-only]
+ * Defaults: customer 1, 32 threads, 50 attempts per thread, a 14-night window starting 400 days
+ * from today. Exit status 0 if the audit passes, 1 if it finds a double booking, 2 on bad arguments
+ * or a database error.
+ */
+public class DoubleBookingStress {
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_VIOLATION = 1;
+    private static final int EXIT_ERROR = 2;
+
+    // Pairs of confirmed bookings of the room that share a night
+    private static final String OVERLAP_SQL =
+            "SELECT COUNT(*) FROM bookings a JOIN bookings b ON b.room_number = a.room_number " +
+            "AND b.booking_id > a.booking_id AND b.check_in_date < a.check_out_date AND a.check_in_date < b.check_out_date " +
+            "WHERE a.room_number = ? AND a.status = 'CONFIRMED' AND b.status = 'CONFIRMED' " +
+            "AND a.check_in_date < ? AND a.check_out_date > ?";
+    // Nights the confirmed bookings of the window should hold
+    private static final String BOOKED_NIGHTS_SQL =
+            "SELECT COALESCE(SUM(DATEDIFF(check_out_date, check_in_date)), 0) FROM bookings " +
+            "WHERE room_number = ? AND status = 'CONFIRMED' AND check_in_date >= ? AND check_out_date <= ?";
+    // room_nights rows of the window, and those backed by a confirmed booking covering the night
+    private static final String NIGHT_ROWS_SQL =
+            "SELECT COUNT(*), COALESCE(SUM(b.status = 'CONFIRMED' AND b.room_number = rn.room_number " +
+            "AND rn.night >= b.check_in_date AND rn.night < b.check_out_date), 0) " +
+            "FROM room_nights rn LEFT JOIN bookings b ON b.booking_id = rn.booking_id " +
+            "WHERE rn.room_number = ? AND rn.night >= ? AND rn.night < ?";
+    private static final String WINDOW_BOOKINGS_SQL =
+            "SELECT booking_id FROM bookings WHERE room_number = ? AND status = 'CONFIRMED' " +
+            "AND check_in_date >= ? AND check_out_date <= ?";
+
+    private final int roomNumber;
+    private final int customerId;
+    private final int threads;
+    private final int attempts;
+    private final LocalDate windowStart;
+    private final int windowNights;
+
+    private final BookingService bookingService = new BookingService();
+    private final ConcurrentLinkedQueue<Booking> winners = new ConcurrentLinkedQueue<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public DoubleBookingStress(int roomNumber, int customerId, int threads, int attempts,
+                               LocalDate windowStart, int windowNights) {
+        this.roomNumber = roomNumber;
+        this.customerId = customerId;
+        this.threads = threads;
+        this.attempts = attempts;
+        this.windowStart = windowStart;
+        this.windowNights = windowNights;
+    }
+
+    /**
+     * Main method - parse arguments, run the stress and audit the window
+     */
+    public static void main(String[] args) {
+        int roomNumber = 0;
+        int customerId = 1;
+        int threads = 32;
+        int attempts = 50;
+        LocalDate from = LocalDate.now().plusDays(400);
+        int nights = 14;
+        boolean keep = false;
+        boolean verifyOnly = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--room":
+                        roomNumber = Integer.parseInt(args[++i]);
+                        break;
+                    case "--customer":
+                        customerId = Integer.parseInt(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--attempts":
+                        attempts = Integer.parseInt(args[++i]);
+                        break;
+                    case "--from":
+                        from = LocalDate.parse(args[++i]);
+                        break;
+                    case "--nights":
+                        nights = Integer.parseInt(args[++i]);
+                        break;
+                    case "--keep":
+                        keep = true;
+                        break;
+                    case "--verify-only":
+                        verifyOnly = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+            if (roomNumber <= 0 || threads <= 0 || attempts <= 0 || nights <= 0) {
+                throw new IllegalArgumentException("--room is required; counts must be positive");
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.exit(EXIT_ERROR);
+        }
+
+        DoubleBookingStress stress = new DoubleBookingStress(roomNumber, customerId, threads, attempts, from, nights);
+        int status;
+        try {
+            if (!verifyOnly) {
+                System.out.println(stress.run());
+            }
+            // With --keep other processes may still be booking the window, so their last run audits it
+            status = keep && !verifyOnly ? EXIT_OK : stress.audit();
+            if (!keep) {
+                stress.cleanUp();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = EXIT_ERROR;
+        } catch (SQLException e) {
+            System.err.println("Audit failed: " + e.getMessage());
+            status = EXIT_ERROR;
+        }
+        DatabaseConnection.closeConnection();
+        System.exit(status);
+    }
+
+    /**
+     * Release every worker at once, wait for them all and return the summary line
+     */
+    public String run() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    bookRepeatedly();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "stress-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        done.await();
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        return String.format(Locale.ROOT, "room=%d window=%s+%d threads=%d attempts=%d booked=%d rejected=%d millis=%d",
+                roomNumber, windowStart, windowNights, threads, (long) threads * attempts,
+                winners.size(), rejected.sum(), millis);
+    }
+
+    /**
+     * Check the window in bookings and room_nights and print the result
+     * @return EXIT_OK if every night has at most one confirmed booking and room_nights agrees
+     */
+    public int audit() throws SQLException {
+        LocalDate windowEnd = windowStart.plusDays(windowNights);
+        long overlaps;
+        long bookedNights;
+        long nightRows;
+        long backedRows;
+        try (Connection connection = DatabaseConnection.borrowConnection()) {
+            overlaps = queryLong(connection, OVERLAP_SQL, windowEnd, windowStart);
+            bookedNights = queryLong(connection, BOOKED_NIGHTS_SQL, windowStart, windowEnd);
+            try (PreparedStatement statement = connection.prepareStatement(NIGHT_ROWS_SQL)) {
+                bind(statement, windowStart, windowEnd);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    nightRows = resultSet.getLong(1);
+                    backedRows = resultSet.getLong(2);
+                }
+            }
+        }
+
+        // Every booking this process was told it won must still be the one holding its nights
+        int lostWinners = 0;
+        List<Integer> held = windowBookings();
+        for (Booking winner : winners) {
+            if (!held.contains(winner.getBookingId())) {
+                lostWinners++;
+            }
+        }
+
+        boolean passed = overlaps == 0 && nightRows == bookedNights && backedRows == nightRows && lostWinners == 0;
+        System.out.println(String.format(Locale.ROOT,
+                "audit %s: overlappingPairs=%d bookedNights=%d roomNightRows=%d unbackedRows=%d lostWinners=%d",
+                passed ? "PASSED" : "FAILED", overlaps, bookedNights, nightRows, nightRows - backedRows, lostWinners));
+        return passed ? EXIT_OK : EXIT_VIOLATION;
+    }
+
+    /**
+     * Cancel every confirmed booking of the window, so the next run starts from an empty calendar
+     */
+    public void cleanUp() throws SQLException {
+        Set<Integer> cancelled = bookingService.cancelBookings(windowBookings());
+        System.out.println("cancelled " + cancelled.size() + " stress bookings");
+    }
+
+    private void bookRepeatedly() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < attempts; i++) {
+            LocalDate checkIn = windowStart.plusDays(random.nextInt(windowNights));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(3));
+            if (checkOut.isAfter(windowStart.plusDays(windowNights))) {
+                checkOut = windowStart.plusDays(windowNights);
+            }
+            Booking booking = bookingService.makeBooking(customerId, roomNumber, checkIn, checkOut);
+            if (booking != null) {
+                winners.add(booking);
+            } else {
+                rejected.increment();
+            }
+        }
+    }
+
+    private List<Integer> windowBookings() throws SQLException {
+        List<Integer> bookingIds = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(WINDOW_BOOKINGS_SQL)) {
+            bind(statement, windowStart, windowStart.plusDays(windowNights));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    bookingIds.add(resultSet.getInt(1));
+                }
+            }
+        }
+        return bookingIds;
+    }
+
+    private long queryLong(Connection connection, String sql, LocalDate first, LocalDate second) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, first, second);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+
+    private void bind(PreparedStatement statement, LocalDate first, LocalDate second) throws SQLException {
+        statement.setInt(1, roomNumber);
+        statement.setDate(2, Date.valueOf(first));
+        statement.setDate(3, Date.valueOf(second));
+    }
+}
@@ -0,0 +1,25 @@
+package com.hotelbooking.events;
+
+import com.hotelbooking.model.BookingEvent;
+
+import java.util.List;
+
+/**
+ * EventSink interface - a downstream destination fed by the OutboxRelay
+ * The relay delivers each sink's events in event ID order, one batch at a time, and only advances
+ * the sink's offset after deliver() returns. A batch that throws is retried from the same offset,
+ * so delivery is at-least-once and sinks should tolerate a repeated event (match on eventId).
+ */
+public interface EventSink {
+
+    /**
+     * Stable name, used as the key of the sink's stored offset
+     */
+    String getName();
+
+    /**
+     * Deliver a batch of events, in order
+     * @throws Exception if the batch could not be delivered (it will be retried)
+     */
+    void deliver(List<BookingEvent> events) throws Exception;
+}
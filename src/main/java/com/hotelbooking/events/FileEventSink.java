@@ -0,0 +1,57 @@
+package com.hotelbooking.events;
+
+import com.hotelbooking.model.BookingEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * FileEventSink class appending events to a local file, one JSON object per line
+ * Each batch is written with a single write and forced to disk before the relay commits the
+ * offset, so a crash can repeat the tail of the file but never lose an event.
+ */
+public class FileEventSink implements EventSink {
+    private final String name;
+    private final Path file;
+
+    public FileEventSink(String name, Path file) {
+        this.name = name;
+        this.file = file;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void deliver(List<BookingEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder(events.size() * 256);
+        for (BookingEvent event : events) {
+            lines.append(event.toJson()).append('\n');
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
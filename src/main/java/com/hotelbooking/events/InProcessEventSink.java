@@ -0,0 +1,46 @@
+package com.hotelbooking.events;
+
+import com.hotelbooking.model.BookingEvent;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * InProcessEventSink class handing events to subscribers in the same JVM
+ * Subscribers run on the relay thread, in event order; a subscriber that throws makes the relay
+ * retry the batch, so every subscriber sees the batch again.
+ */
+public class InProcessEventSink implements EventSink {
+    private final String name;
+    private final List<Consumer<BookingEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    public InProcessEventSink(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Receive every event delivered from now on
+     */
+    public void subscribe(Consumer<BookingEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<BookingEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void deliver(List<BookingEvent> events) {
+        for (BookingEvent event : events) {
+            for (Consumer<BookingEvent> subscriber : subscribers) {
+                subscriber.accept(event);
+            }
+        }
+    }
+}
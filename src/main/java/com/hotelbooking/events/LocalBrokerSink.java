@@ -0,0 +1,34 @@
+package com.hotelbooking.events;
+
+import com.hotelbooking.model.BookingEvent;
+
+import java.util.List;
+
+/**
+ * LocalBrokerSink class publishing events to a topic of the LocalEventBroker
+ */
+public class LocalBrokerSink implements EventSink {
+    private final String name;
+    private final LocalEventBroker broker;
+    private final String topic;
+
+    public LocalBrokerSink(String name, LocalEventBroker broker, String topic) {
+        this.name = name;
+        this.broker = broker;
+        this.topic = topic;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    @Override
+    public void deliver(List<BookingEvent> events) {
+        broker.publish(topic, events);
+    }
+}
@@ -0,0 +1,134 @@
+package com.hotelbooking.events;
+
+import com.hotelbooking.model.BookingEvent;
+import com.hotelbooking.utils.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LocalEventBroker class - in-memory stand-in for a message broker such as Kafka
+ * Topics are split into partitions by booking ID, so all events of one booking stay in order in
+ * one partition. Each partition is an append-only log addressed by offset; consumers keep their
+ * own offsets and poll from them. Only the newest entries of a partition are retained.
+ *
+ * Configuration:
+ *   -Dhotel.broker.partitions=4        partitions per topic
+ *   -Dhotel.broker.retention=100000    events kept per partition
+ */
+public class LocalEventBroker {
+    private static final int DEFAULT_PARTITIONS = Integer.getInteger("hotel.broker.partitions", 4);
+    private static final int RETENTION = Integer.getInteger("hotel.broker.retention", 100_000);
+
+    private static LocalEventBroker instance = null;
+
+    private final int partitionCount;
+    private final Map<String, Partition[]> topics = new ConcurrentHashMap<>();
+
+    public LocalEventBroker(int partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * Returns the broker shared by the whole process
+     */
+    public static synchronized LocalEventBroker getInstance() {
+        if (instance == null) {
+            instance = new LocalEventBroker(DEFAULT_PARTITIONS);
+        }
+        return instance;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Partition an event of this booking goes to
+     */
+    public int partitionFor(int bookingId) {
+        return Math.floorMod(bookingId, partitionCount);
+    }
+
+    /**
+     * Append events to their partitions, keeping their relative order
+     */
+    public void publish(String topic, List<BookingEvent> events) {
+        Partition[] partitions = partitions(topic);
+        for (BookingEvent event : events) {
+            partitions[partitionFor(event.getBookingId())].append(event);
+        }
+    }
+
+    /**
+     * Read up to maxEvents from a partition, starting at an offset
+     * Offsets below the retained range start at the oldest retained event
+     */
+    public List<BookingEvent> poll(String topic, int partition, long fromOffset, int maxEvents) {
+        return partitions(topic)[partition].read(fromOffset, maxEvents);
+    }
+
+    /**
+     * Offset the next event appended to a partition will get
+     */
+    public long getEndOffset(String topic, int partition) {
+        return partitions(topic)[partition].getEndOffset();
+    }
+
+    private Partition[] partitions(String topic) {
+        return topics.computeIfAbsent(topic, name -> {
+            Partition[] partitions = new Partition[partitionCount];
+            for (int i = 0; i < partitionCount; i++) {
+                partitions[i] = new Partition();
+            }
+            Metrics.gauge("broker." + name + ".events", () -> {
+                long total = 0;
+                for (Partition partition : partitions) {
+                    total += partition.getEndOffset();
+                }
+                return total;
+            });
+            return partitions;
+        });
+    }
+
+    /**
+     * Append-only log of one partition with a bounded retained tail
+     */
+    private static class Partition {
+        private final Deque<BookingEvent> retained = new ArrayDeque<>();
+        private long startOffset = 0;
+
+        synchronized void append(BookingEvent event) {
+            retained.addLast(event);
+            if (retained.size() > RETENTION) {
+                retained.removeFirst();
+                startOffset++;
+            }
+        }
+
+        synchronized List<BookingEvent> read(long fromOffset, int maxEvents) {
+            List<BookingEvent> events = new ArrayList<>(Math.min(maxEvents, retained.size()));
+            long skip = Math.max(fromOffset - startOffset, 0);
+            long position = 0;
+            for (BookingEvent event : retained) {
+                if (position++ < skip) {
+                    continue;
+                }
+                if (events.size() == maxEvents) {
+                    break;
+                }
+                events.add(event);
+            }
+            return events;
+        }
+
+        synchronized long getEndOffset() {
+            return startOffset + retained.size();
+        }
+    }
+}
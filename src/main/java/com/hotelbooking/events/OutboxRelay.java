@@ -0,0 +1,473 @@
+package com.hotelbooking.events;
+
+import com.hotelbooking.model.BookingEvent;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.Metrics;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OutboxRelay class streaming committed booking events from the outbox_events table to sinks
+ * A single relay thread reads each sink's events in event ID order, in batches, delivers them and
+ * then stores the sink's offset (the last delivered event ID) in outbox_offsets, so a restart
+ * resumes where it stopped and delivery is at-least-once. The thread wakes when a booking change
+ * commits and otherwise polls at a fixed interval.
+ *
+ * Event IDs are auto-increment values, which can become visible out of order when transactions
+ * commit out of order. A missing ID is therefore waited for (hotel.outbox.gap.ms) before the relay
+ * moves past it. A skipped ID is still watched for hotel.outbox.late.ms: a long transaction that
+ * commits into the gap after the offset has moved on is delivered late (out of order), and no
+ * event at or above a watched ID is pruned. Watched IDs are kept in memory only.
+ *
+ * Lag per sink is published as metrics: outbox.NAME.lagEvents (events written but not yet
+ * delivered) and outbox.NAME.lagMillis (age of the oldest undelivered event), plus offset,
+ * delivered and failures. Delivered events older than the retention are pruned.
+ *
+ * Configuration:
+ *   -Dhotel.outbox.sinks=file,inprocess,broker   sinks to start (none by default - run the relay in one process only)
+ *   -Dhotel.outbox.file=outbox-events.jsonl      file sink path
+ *   -Dhotel.outbox.topic=bookings                broker sink topic
+ *   -Dhotel.outbox.batch.size=200, -Dhotel.outbox.poll.ms=500, -Dhotel.outbox.gap.ms=5000,
+ *   -Dhotel.outbox.late.ms=600000, -Dhotel.outbox.retention.hours=24
+ */
+public class OutboxRelay {
+    private static final String SINKS = System.getProperty("hotel.outbox.sinks", "");
+    private static final String FILE = System.getProperty("hotel.outbox.file", "outbox-events.jsonl");
+    private static final String TOPIC = System.getProperty("hotel.outbox.topic", "bookings");
+    private static final int BATCH_SIZE = Integer.getInteger("hotel.outbox.batch.size", 200);
+    private static final long POLL_MILLIS = Long.getLong("hotel.outbox.poll.ms", 500);
+    private static final long GAP_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("hotel.outbox.gap.ms", 5000));
+    private static final long LATE_WATCH_MILLIS = Long.getLong("hotel.outbox.late.ms", 600_000);
+    // Skipped IDs watched per sink; beyond this a huge gap is only logged
+    private static final int LATE_WATCH_LIMIT = 10_000;
+    private static final long RETENTION_MILLIS = TimeUnit.HOURS.toMillis(Long.getLong("hotel.outbox.retention.hours", 24));
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int PRUNE_LIMIT = 10_000;
+
+    private static final AppLogger LOG = AppLogger.getLogger(OutboxRelay.class);
+
+    private static OutboxRelay instance = null;
+    // The started relay, woken by signal() - null while no relay runs in this process
+    private static volatile OutboxRelay running = null;
+
+    private final List<SinkState> sinks = new CopyOnWriteArrayList<>();
+    private final Object wakeUp = new Object();
+    private final LongAdder gapsSkipped = Metrics.counter("outbox.gapsSkipped");
+    private final LongAdder lateDelivered = Metrics.counter("outbox.lateDelivered");
+    private final LongAdder lateAbandoned = Metrics.counter("outbox.lateAbandoned");
+    private boolean signalled = false;
+    private volatile Thread thread = null;
+    private long lastPruneNanos = System.nanoTime();
+
+    /**
+     * Returns the shared relay with the sinks named in -Dhotel.outbox.sinks registered
+     */
+    public static synchronized OutboxRelay getInstance() {
+        if (instance == null) {
+            instance = new OutboxRelay();
+            for (String sink : SINKS.split(",")) {
+                switch (sink.trim()) {
+                    case "file":
+                        instance.register(new FileEventSink("file", Paths.get(FILE)));
+                        break;
+                    case "inprocess":
+                        instance.register(new InProcessEventSink("inprocess"));
+                        break;
+                    case "broker":
+                        instance.register(new LocalBrokerSink("broker", LocalEventBroker.getInstance(), TOPIC));
+                        break;
+                    case "":
+                        break;
+                    default:
+                        LOG.warn("Unknown outbox sink '" + sink.trim() + "' ignored");
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start the shared relay if any sink is configured
+     */
+    public static void startConfigured() {
+        OutboxRelay relay = getInstance();
+        if (!relay.sinks.isEmpty()) {
+            relay.start();
+        }
+    }
+
+    /**
+     * Wake the running relay, if any, because new events were committed
+     */
+    public static void signal() {
+        OutboxRelay relay = running;
+        if (relay != null) {
+            synchronized (relay.wakeUp) {
+                relay.signalled = true;
+                relay.wakeUp.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Add a sink; it starts from its stored offset (or from the oldest retained event if new)
+     */
+    public void register(EventSink sink) {
+        sinks.add(new SinkState(sink));
+    }
+
+    /**
+     * Find a registered sink by name, e.g. to subscribe to the in-process sink
+     */
+    public EventSink getSink(String name) {
+        for (SinkState state : sinks) {
+            if (state.sink.getName().equals(name)) {
+                return state.sink;
+            }
+        }
+        return null;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::relayLoop, "outbox-relay");
+        thread.setDaemon(true);
+        running = this;
+        thread.start();
+        LOG.info("Outbox relay started for " + sinks.size() + " sink(s)");
+    }
+
+    public synchronized void stop() {
+        Thread stopping = thread;
+        thread = null;
+        running = null;
+        if (stopping != null) {
+            stopping.interrupt();
+        }
+    }
+
+    /**
+     * Offset and lag of every sink, for status pages
+     */
+    public Map<String, Map<String, Object>> getStatus() {
+        Map<String, Map<String, Object>> status = new LinkedHashMap<>();
+        for (SinkState state : sinks) {
+            Map<String, Object> sink = new LinkedHashMap<>();
+            sink.put("offset", state.offset);
+            sink.put("lagEvents", state.lagEvents);
+            sink.put("lagMillis", state.lagMillis);
+            sink.put("delivered", state.delivered.sum());
+            sink.put("failures", state.failures.sum());
+            status.put(state.sink.getName(), sink);
+        }
+        return status;
+    }
+
+    private void relayLoop() {
+        while (thread == Thread.currentThread()) {
+            boolean more = false;
+            try {
+                long head = headEventId();
+                for (SinkState state : sinks) {
+                    more |= pump(state, head);
+                }
+                if (System.nanoTime() - lastPruneNanos > PRUNE_INTERVAL_NANOS) {
+                    lastPruneNanos = System.nanoTime();
+                    prune();
+                }
+            } catch (SQLException e) {
+                LOG.error("Outbox relay could not read events: " + e.getMessage());
+            }
+            if (!more && !awaitSignal()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deliver the next batch to one sink
+     * @return true if a full batch was delivered and more may be waiting
+     */
+    private boolean pump(SinkState state, long head) throws SQLException {
+        if (state.offset < 0) {
+            state.offset = loadOffset(state.sink.getName());
+        }
+        state.lagEvents = Math.max(head - state.offset, 0);
+        deliverLate(state);
+
+        List<BookingEvent> events = readEvents(state.offset);
+        if (events.isEmpty()) {
+            state.lagMillis = 0;
+            return false;
+        }
+        state.lagMillis = System.currentTimeMillis() - events.get(0).getCreatedAtMillis();
+
+        List<BookingEvent> deliverable = settledPrefix(state, events);
+        if (deliverable.isEmpty()) {
+            return false;
+        }
+
+        try {
+            state.sink.deliver(deliverable);
+        } catch (Exception e) {
+            state.failures.increment();
+            LOG.warn("Outbox sink " + state.sink.getName() + " failed at event " +
+                     deliverable.get(0).getEventId() + " (will retry): " + e);
+            return false;
+        }
+
+        long lastEventId = deliverable.get(deliverable.size() - 1).getEventId();
+        storeOffset(state.sink.getName(), lastEventId);
+        state.offset = lastEventId;
+        state.delivered.add(deliverable.size());
+        state.lagEvents = Math.max(head - lastEventId, 0);
+        return deliverable.size() == events.size() && events.size() == BATCH_SIZE;
+    }
+
+    /**
+     * Events up to the first ID gap that may still be filled by an uncommitted transaction
+     */
+    private List<BookingEvent> settledPrefix(SinkState state, List<BookingEvent> events) {
+        List<BookingEvent> settled = new ArrayList<>(events.size());
+        long expected = state.offset + 1;
+        for (BookingEvent event : events) {
+            // A new sink (offset 0) waits on gaps too, except before its very first event
+            if (event.getEventId() != expected && (!settled.isEmpty() || state.offset > 0)) {
+                long now = System.nanoTime();
+                if (state.gapAt != expected) {
+                    state.gapAt = expected;
+                    state.gapSinceNanos = now;
+                }
+                if (now - state.gapSinceNanos < GAP_WAIT_NANOS) {
+                    break;
+                }
+                gapsSkipped.increment();
+                watchSkipped(state, expected, event.getEventId());
+            }
+            settled.add(event);
+            expected = event.getEventId() + 1;
+        }
+        return settled;
+    }
+
+    /**
+     * Keep watching the IDs of a skipped gap [fromEventId, toEventId) for late commits
+     */
+    private void watchSkipped(SinkState state, long fromEventId, long toEventId) {
+        long now = System.currentTimeMillis();
+        for (long eventId = fromEventId; eventId < toEventId; eventId++) {
+            if (state.lateIds.size() >= LATE_WATCH_LIMIT) {
+                LOG.warn("Outbox sink " + state.sink.getName() + " skipped events " + eventId + " to " + (toEventId - 1) +
+                         " without watching them - too many open gaps");
+                return;
+            }
+            state.lateIds.put(eventId, now);
+        }
+    }
+
+    /**
+     * Deliver events that committed into a gap after the sink's offset moved past it
+     */
+    private void deliverLate(SinkState state) throws SQLException {
+        long expiredBefore = System.currentTimeMillis() - LATE_WATCH_MILLIS;
+        for (Iterator<Long> skippedAt = state.lateIds.values().iterator(); skippedAt.hasNext(); ) {
+            if (skippedAt.next() < expiredBefore) {
+                skippedAt.remove();
+                lateAbandoned.increment();
+            }
+        }
+        if (state.lateIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> watched = new ArrayList<>(Math.min(state.lateIds.size(), BATCH_SIZE));
+        for (Long eventId : state.lateIds.keySet()) {
+            if (watched.size() == BATCH_SIZE) {
+                break;
+            }
+            watched.add(eventId);
+        }
+        List<BookingEvent> late = readEvents(watched);
+        if (late.isEmpty()) {
+            return;
+        }
+
+        try {
+            state.sink.deliver(late);
+        } catch (Exception e) {
+            state.failures.increment();
+            LOG.warn("Outbox sink " + state.sink.getName() + " failed on late event " +
+                     late.get(0).getEventId() + " (will retry): " + e);
+            return;
+        }
+        for (BookingEvent event : late) {
+            state.lateIds.remove(event.getEventId());
+        }
+        state.delivered.add(late.size());
+        lateDelivered.add(late.size());
+        LOG.info("Outbox sink " + state.sink.getName() + " received " + late.size() + " late event(s) below offset " +
+                 state.offset);
+    }
+
+    private boolean awaitSignal() {
+        synchronized (wakeUp) {
+            try {
+                if (!signalled) {
+                    wakeUp.wait(POLL_MILLIS);
+                }
+                signalled = false;
+                return true;
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+
+    private static long headEventId() throws SQLException {
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT COALESCE(MAX(event_id), 0) FROM outbox_events");
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    private static List<BookingEvent> readEvents(long afterEventId) throws SQLException {
+        String sql = "SELECT event_id, event_type, booking_id, payload, created_at_ms FROM outbox_events " +
+                     "WHERE event_id > ? ORDER BY event_id LIMIT " + BATCH_SIZE;
+        List<BookingEvent> events = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, afterEventId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    events.add(new BookingEvent(resultSet.getLong(1), resultSet.getString(2), resultSet.getInt(3),
+                                                resultSet.getString(4), resultSet.getLong(5)));
+                }
+            }
+        }
+        return events;
+    }
+
+    private static List<BookingEvent> readEvents(List<Long> eventIds) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT event_id, event_type, booking_id, payload, created_at_ms " +
+                                              "FROM outbox_events WHERE event_id IN (");
+        for (int i = 0; i < eventIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") ORDER BY event_id");
+
+        List<BookingEvent> events = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < eventIds.size(); i++) {
+                statement.setLong(i + 1, eventIds.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    events.add(new BookingEvent(resultSet.getLong(1), resultSet.getString(2), resultSet.getInt(3),
+                                                resultSet.getString(4), resultSet.getLong(5)));
+                }
+            }
+        }
+        return events;
+    }
+
+    private static long loadOffset(String sinkName) throws SQLException {
+        try (Connection connection = DatabaseConnection.borrowConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT last_event_id FROM outbox_offsets WHERE sink_name = ?")) {
+                statement.setString(1, sinkName);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return resultSet.getLong(1);
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT IGNORE INTO outbox_offsets (sink_name, last_event_id) VALUES (?, 0)")) {
+                statement.setString(1, sinkName);
+                statement.executeUpdate();
+            }
+            return 0;
+        }
+    }
+
+    private static void storeOffset(String sinkName, long lastEventId) throws SQLException {
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE outbox_offsets SET last_event_id = ? WHERE sink_name = ?")) {
+            statement.setLong(1, lastEventId);
+            statement.setString(2, sinkName);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Delete events every sink has received once they are older than the retention
+     * Stops below the lowest ID still watched for a late commit.
+     */
+    private void prune() throws SQLException {
+        long delivered = Long.MAX_VALUE;
+        for (SinkState state : sinks) {
+            delivered = Math.min(delivered, state.offset);
+            if (!state.lateIds.isEmpty()) {
+                delivered = Math.min(delivered, state.lateIds.firstKey() - 1);
+            }
+        }
+        if (delivered <= 0 || delivered == Long.MAX_VALUE) {
+            return;
+        }
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM outbox_events WHERE event_id <= ? AND created_at_ms < ? LIMIT " + PRUNE_LIMIT)) {
+            statement.setLong(1, delivered);
+            statement.setLong(2, System.currentTimeMillis() - RETENTION_MILLIS);
+            int pruned = statement.executeUpdate();
+            if (pruned > 0) {
+                LOG.info("Pruned " + pruned + " delivered outbox events");
+            }
+        }
+    }
+
+    /**
+     * Relay position and lag of one sink
+     */
+    private static class SinkState {
+        final EventSink sink;
+        final LongAdder delivered;
+        final LongAdder failures;
+        volatile long offset = -1; // -1 until loaded from outbox_offsets
+        volatile long lagEvents;
+        volatile long lagMillis;
+        long gapAt = -1;
+        long gapSinceNanos;
+        // Skipped event IDs still watched for a late commit, with the time each was skipped (relay thread only)
+        final TreeMap<Long, Long> lateIds = new TreeMap<>();
+
+        SinkState(EventSink sink) {
+            this.sink = sink;
+            String prefix = "outbox." + sink.getName();
+            this.delivered = Metrics.counter(prefix + ".delivered");
+            this.failures = Metrics.counter(prefix + ".failures");
+            Metrics.gauge(prefix + ".offset", () -> offset);
+            Metrics.gauge(prefix + ".lagEvents", () -> lagEvents);
+            Metrics.gauge(prefix + ".lagMillis", () -> lagMillis);
+        }
+    }
+}
@@ -2,10 +2,13 @@
 
 import com.hotelbooking.model.Booking;
 import com.hotelbooking.model.Customer;
+import com.hotelbooking.model.Quote;
 import com.hotelbooking.model.Room;
 import com.hotelbooking.services.BookingService;
 import com.hotelbooking.services.CustomerService;
 import com.hotelbooking.services.RoomService;
+import com.hotelbooking.services.ServiceContext;
+import com.hotelbooking.utils.Money;
 
 import javax.swing.*;
 import java.awt.*;
@@ -27,6 +30,7 @@ public class BookingDialog extends JDialog {
     private JTextField customerEmailField;
     private JTextField customerPhoneField;
     private JTextField roomNumberField;
+    private JCheckBox specificRoomCheckBox;
     private JFormattedTextField checkInField;
     private JFormattedTextField checkOutField;
     private JLabel roomDetailsLabel;
@@ -42,16 +46,41 @@ public class BookingDialog extends JDialog {
     private DateTimeFormatter dateFormatter;
 
     public BookingDialog(JFrame parent, Integer preSelectedRoom) {
+        this(parent, ServiceContext.getInstance());
+        prepare(preSelectedRoom);
+    }
+
+    public BookingDialog(JFrame parent, ServiceContext services) {
         super(parent, "Make New Booking", true);
-        this.bookingService = new BookingService();
-        this.customerService = new CustomerService();
-        this.roomService = new RoomService();
+        this.bookingService = services.getBookingService();
+        this.customerService = services.getCustomerService();
+        this.roomService = services.getRoomService();
         this.dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         
         initializeComponents();
         setupLayout();
         setupEventListeners();
         setDialogProperties();
+    }
+
+    /**
+     * Reset the form for a new booking
+     * @param preSelectedRoom room number to pre-fill, or null
+     */
+    void prepare(Integer preSelectedRoom) {
+        customerNameField.setText("");
+        customerEmailField.setText("");
+        customerPhoneField.setText("");
+        roomNumberField.setText("");
+        specificRoomCheckBox.setSelected(false);
+        checkInField.setValue(LocalDate.now().plusDays(1));
+        checkOutField.setValue(LocalDate.now().plusDays(3));
+        roomDetailsLabel.setText("Select a room to see details");
+        roomDetailsLabel.setForeground(new Color(70, 130, 180));
+        totalAmountLabel.setText("Total Amount: $0.00");
+        totalAmountLabel.setForeground(new Color(34, 139, 34));
+        selectedRoom = null;
+        selectedCustomer = null;
         
         // If room number is provided, pre-fill it
         if (preSelectedRoom != null) {
@@ -68,6 +97,8 @@ public class BookingDialog extends JDialog {
         
         // Room fields
         roomNumberField = new JTextField(10);
+        specificRoomCheckBox = new JCheckBox("Guest requested this room");
+        specificRoomCheckBox.setBackground(new Color(240, 240, 240));
         
         // Date fields with current date as default
         checkInField = new JFormattedTextField(dateFormatter);
@@ -101,6 +132,7 @@ public class BookingDialog extends JDialog {
         // Set tooltips
         customerEmailField.setToolTipText("Enter customer email to search existing customer");
         roomNumberField.setToolTipText("Enter room number to book");
+        specificRoomCheckBox.setToolTipText("Unticked: any room of this type, chosen to avoid unsellable gaps");
         checkInField.setToolTipText("Format: YYYY-MM-DD");
         checkOutField.setToolTipText("Format: YYYY-MM-DD");
     }
@@ -168,6 +200,9 @@ public class BookingDialog extends JDialog {
         roomPanel.add(searchRoomButton);
         formPanel.add(roomPanel);
         
+        formPanel.add(createLabel("Room Assignment:"));
+        formPanel.add(specificRoomCheckBox);
+        
         // Dates section
         formPanel.add(createLabel("Check-in Date:"));
         formPanel.add(checkInField);
@@ -247,7 +282,7 @@ public class BookingDialog extends JDialog {
         cancelButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                dispose();
+                setVisible(false);
             }
         });
     }
@@ -304,15 +339,12 @@ public class BookingDialog extends JDialog {
                 roomDetailsLabel.setText("Room not found!");
                 roomDetailsLabel.setForeground(Color.RED);
                 selectedRoom = null;
-            } else if (!room.isAvailable()) {
-                roomDetailsLabel.setText("Room " + roomNumber + " is not available!");
-                roomDetailsLabel.setForeground(Color.RED);
-                selectedRoom = null;
             } else {
+                // Availability depends on the stay dates - the quote below reports it
                 selectedRoom = room;
                 roomDetailsLabel.setText(
                     "Room " + roomNumber + " | " + room.getRoomType() + 
-                    " | $" + room.getPrice() + "/night | " + room.getAmenities()
+                    " | Base " + Money.format(room.getPriceCents()) + "/night | " + room.getAmenities()
                 );
                 roomDetailsLabel.setForeground(new Color(0, 100, 0));
                 calculateTotal(); // Auto-calculate when room is selected
@@ -343,17 +375,16 @@ public class BookingDialog extends JDialog {
                 return;
             }
             
-            // Check room availability for selected dates
-            if (!bookingService.isRoomAvailable(selectedRoom.getRoomNumber(), checkIn, checkOut)) {
+            // Check room availability and price for selected dates
+            Quote quote = bookingService.getQuote(selectedRoom, checkIn, checkOut);
+            if (!quote.isAvailable()) {
                 totalAmountLabel.setText("Room not available for selected dates!");
                 totalAmountLabel.setForeground(Color.RED);
                 return;
             }
             
-            long days = java.time.temporal.ChronoUnit.DAYS.between(checkIn, checkOut);
-            double totalAmount = days * selectedRoom.getPrice();
-            
-            totalAmountLabel.setText(String.format("Total Amount: $%.2f (%d nights)", totalAmount, days));
+            totalAmountLabel.setText(String.format("Total Amount: %s (%d nights)",
+                Money.format(quote.getTotalAmountCents()), quote.getNumberOfNights()));
             totalAmountLabel.setForeground(new Color(34, 139, 34));
             
         } catch (Exception e) {
@@ -397,10 +428,16 @@ public class BookingDialog extends JDialog {
                 return; // Validation failed
             }
             
-            // Check room availability
-            if (!bookingService.isRoomAvailable(selectedRoom.getRoomNumber(), checkIn, checkOut)) {
+            // Check availability of the room, or of any room of its type when the room is not fixed
+            boolean specificRoom = specificRoomCheckBox.isSelected();
+            Quote quote = specificRoom
+                    ? bookingService.getQuote(selectedRoom, checkIn, checkOut)
+                    : bookingService.getRoomTypeQuote(selectedRoom.getPropertyId(), selectedRoom.getRoomType(),
+                                                     checkIn, checkOut);
+            if (!quote.isAvailable()) {
                 JOptionPane.showMessageDialog(this,
-                    "Room is not available for the selected dates!",
+                    (specificRoom ? "Room is" : "No " + selectedRoom.getRoomType() + " room is") +
+                    " available for the selected dates!",
                     "Room Not Available",
                     JOptionPane.ERROR_MESSAGE);
                 return;
@@ -408,7 +445,10 @@ public class BookingDialog extends JDialog {
             
             // Calculate total amount
             long days = java.time.temporal.ChronoUnit.DAYS.between(checkIn, checkOut);
-            double totalAmount = days * selectedRoom.getPrice();
+            long totalAmountCents = quote.getTotalAmountCents();
+            String roomDescription = specificRoom
+                    ? selectedRoom.getRoomNumber() + " (" + selectedRoom.getRoomType() + ")"
+                    : "any " + selectedRoom.getRoomType() + " room (assigned on booking)";
             
             // Show confirmation dialog
             int confirmation = JOptionPane.showConfirmDialog(this,
@@ -416,30 +456,39 @@ public class BookingDialog extends JDialog {
                 "Customer: " + name + "\n" +
                 "Email: " + email + "\n" +
                 "Phone: " + phone + "\n" +
-                "Room: " + selectedRoom.getRoomNumber() + " (" + selectedRoom.getRoomType() + ")\n" +
+                "Room: " + roomDescription + "\n" +
                 "Dates: " + checkIn + " to " + checkOut + " (" + days + " nights)\n" +
-                "Total Amount: $" + String.format("%.2f", totalAmount) + "\n\n" +
+                "Total Amount: " + Money.format(totalAmountCents) + "\n\n" +
                 "Confirm booking?",
                 "Confirm Booking",
                 JOptionPane.YES_NO_OPTION);
                 
             if (confirmation == JOptionPane.YES_OPTION) {
                 // Create the booking
-                Booking booking = bookingService.makeBooking(name, email, phone, 
-                    selectedRoom.getRoomNumber(), checkIn, checkOut, selectedRoom.getPrice());
+                Booking booking;
+                if (specificRoom) {
+                    booking = bookingService.makeBooking(name, email, phone, 
+                        selectedRoom.getRoomNumber(), checkIn, checkOut);
+                } else {
+                    int customerId = customerService.findOrCreateCustomer(name, email, phone);
+                    booking = customerId > 0
+                            ? bookingService.makeRoomTypeBooking(customerId, selectedRoom.getPropertyId(),
+                                                                 selectedRoom.getRoomType(), checkIn, checkOut)
+                            : null;
+                }
                 
                 if (booking != null) {
                     JOptionPane.showMessageDialog(this,
                         "✅ Booking confirmed successfully!\n\n" +
                         "Booking ID: " + booking.getBookingId() + "\n" +
-                        "Room: " + selectedRoom.getRoomNumber() + "\n" +
-                        "Total Amount: $" + String.format("%.2f", totalAmount) + "\n" +
+                        "Room: " + booking.getRoomNumber() + "\n" +
+                        "Total Amount: " + Money.format(booking.getTotalAmountCents()) + "\n" +
                         "Status: " + booking.getStatus() + "\n\n" +
                         "Thank you for your booking!",
                         "Booking Confirmed",
                         JOptionPane.INFORMATION_MESSAGE);
                     
-                    dispose(); // Close dialog
+                    setVisible(false); // Close dialog
                 } else {
                     JOptionPane.showMessageDialog(this,
                         "Failed to create booking. Please try again.",
@@ -457,9 +506,9 @@ public class BookingDialog extends JDialog {
     }
 
     private void setDialogProperties() {
-        setSize(600, 500);
+        setSize(600, 540);
         setLocationRelativeTo(getParent());
         setResizable(false);
-        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setDefaultCloseOperation(HIDE_ON_CLOSE); // reopened by DialogManager
     }
     }
@@ -3,6 +3,8 @@ package com.hotelbooking.gui;
 import com.hotelbooking.model.Booking;
 import com.hotelbooking.services.BookingService;
 import com.hotelbooking.services.CustomerService;
+import com.hotelbooking.services.ServiceContext;
+import com.hotelbooking.utils.Money;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -16,8 +18,11 @@ import java.util.List;
  * Demonstrates OOP with focused functionality and user confirmation
  */
 public class CancelBookingDialog extends JDialog {
+    private ServiceContext services;
     private BookingService bookingService;
     private CustomerService customerService;
+    private long loadedVersion = -1;
+    private long loadedAtMillis;
     private JTable bookingsTable;
     private JTextField bookingIdField;
     private JTextField customerEmailField;
@@ -30,9 +35,14 @@ public class CancelBookingDialog extends JDialog {
     private JLabel instructionsLabel;
 
     public CancelBookingDialog(JFrame parent) {
+        this(parent, ServiceContext.getInstance());
+    }
+
+    public CancelBookingDialog(JFrame parent, ServiceContext services) {
         super(parent, "Cancel Booking", true);
-        this.bookingService = new BookingService();
-        this.customerService = new CustomerService();
+        this.services = services;
+        this.bookingService = services.getBookingService();
+        this.customerService = services.getCustomerService();
         initializeComponents();
         setupLayout();
         setupEventListeners();
@@ -247,6 +257,8 @@ public class CancelBookingDialog extends JDialog {
     }
 
     private void loadActiveBookings() {
+        loadedVersion = services.getBookingsViewVersion();
+        loadedAtMillis = System.currentTimeMillis();
         List<Booking> allBookings = bookingService.getAllBookings();
         // Filter only confirmed bookings
         List<Booking> activeBookings = allBookings.stream()
@@ -256,6 +268,15 @@ public class CancelBookingDialog extends JDialog {
         clearSearchFields();
     }
 
+    /**
+     * Reload the table if bookings or customers changed since it was last loaded, or it is too old to trust
+     */
+    void refreshIfChanged() {
+        if (services.getBookingsViewVersion() != loadedVersion || services.isExpired(loadedAtMillis)) {
+            loadActiveBookings();
+        }
+    }
+
     private void searchBookingById() {
         String bookingIdText = bookingIdField.getText().trim();
         if (bookingIdText.isEmpty()) {
@@ -328,7 +349,7 @@ public class CancelBookingDialog extends JDialog {
                 booking.getRoomNumber(),
                 booking.getCheckInDate(),
                 booking.getCheckOutDate(),
-                String.format("$%.2f", booking.getTotalAmount()),
+                Money.format(booking.getTotalAmountCents()),
                 booking.getStatus(),
                 daysLeftText
             });
@@ -341,8 +362,7 @@ public class CancelBookingDialog extends JDialog {
 
     private String getCustomerName(int customerId) {
         try {
-            var customer = customerService.findCustomerById(customerId);
-            return customer != null ? customer.getName() : "Unknown";
+            return services.getCustomerName(customerId);
         } catch (Exception e) {
             return "Unknown";
         }
@@ -442,7 +462,7 @@ public class CancelBookingDialog extends JDialog {
                 "Check-in: %s\n" +
                 "Check-out: %s\n" +
                 "Duration: %d nights\n" +
-                "Total Amount: $%.2f\n" +
+                "Total Amount: %s\n" +
                 "Status: %s\n" +
                 "Days until check-in: %s\n\n" +
                 "Cancellation Policy:\n" +
@@ -454,7 +474,7 @@ public class CancelBookingDialog extends JDialog {
                 booking.getCheckInDate(),
                 booking.getCheckOutDate(),
                 booking.getNumberOfDays(),
-                booking.getTotalAmount(),
+                Money.format(booking.getTotalAmountCents()),
                 booking.getStatus(),
                 daysLeft >= 0 ? daysLeft + " days" : "Past date"
             );
@@ -470,6 +490,6 @@ public class CancelBookingDialog extends JDialog {
         setSize(900, 600);
         setLocationRelativeTo(getParent());
         setResizable(true);
-        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setDefaultCloseOperation(HIDE_ON_CLOSE); // reopened by DialogManager
     }
           }
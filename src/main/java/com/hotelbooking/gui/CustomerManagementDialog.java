@@ -2,6 +2,7 @@
 
 import com.hotelbooking.model.Customer;
 import com.hotelbooking.services.CustomerService;
+import com.hotelbooking.services.ServiceContext;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -15,7 +16,10 @@ import java.util.List;
  * Demonstrates OOP with CRUD operations and data validation
  */
 public class CustomerManagementDialog extends JDialog {
+    private ServiceContext services;
     private CustomerService customerService;
+    private long loadedVersion = -1;
+    private long loadedAtMillis;
     private JTable customersTable;
     private JTextField searchField;
     private JTextField nameField;
@@ -32,8 +36,13 @@ public class CustomerManagementDialog extends JDialog {
     private Customer selectedCustomer;
 
     public CustomerManagementDialog(JFrame parent) {
+        this(parent, ServiceContext.getInstance());
+    }
+
+    public CustomerManagementDialog(JFrame parent, ServiceContext services) {
         super(parent, "Customer Management", true);
-        this.customerService = new CustomerService();
+        this.services = services;
+        this.customerService = services.getCustomerService();
         initializeComponents();
         setupLayout();
         setupEventListeners();
@@ -303,11 +312,23 @@ public class CustomerManagementDialog extends JDialog {
     }
 
     private void loadAllCustomers() {
+        loadedVersion = CustomerService.getDataVersion();
+        loadedAtMillis = System.currentTimeMillis();
         List<Customer> customers = customerService.getAllCustomers();
         updateTable(customers);
         clearForm();
     }
 
+    /**
+     * Reload the table if customers changed since it was last loaded, or it is too old to trust
+     * (customer edits by other clients are not versioned)
+     */
+    void refreshIfChanged() {
+        if (CustomerService.getDataVersion() != loadedVersion || services.isExpired(loadedAtMillis)) {
+            loadAllCustomers();
+        }
+    }
+
     private void searchCustomers() {
         String searchTerm = searchField.getText().trim();
         if (searchTerm.isEmpty()) {
@@ -512,6 +533,6 @@ public class CustomerManagementDialog extends JDialog {
         setSize(800, 700);
         setLocationRelativeTo(getParent());
         setResizable(true);
-        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setDefaultCloseOperation(HIDE_ON_CLOSE); // reopened by DialogManager
     }
                                     }
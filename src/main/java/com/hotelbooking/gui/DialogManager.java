@@ -0,0 +1,121 @@
+package com.hotelbooking.gui;
+
+import com.hotelbooking.services.ServiceContext;
+import com.hotelbooking.utils.LatencyHistogram;
+import com.hotelbooking.utils.Metrics;
+
+import javax.swing.*;
+
+/**
+ * DialogManager class owning the application's dialogs
+ * Each dialog is built once (on first use, or ahead of time by prewarm) with the shared services
+ * and is hidden rather than disposed when closed. Reopening only reloads a dialog's table when
+ * the data it shows has changed since it was loaded, so it costs milliseconds instead of new
+ * services plus a full reload. All methods must be called on the Swing event thread.
+ */
+public class DialogManager {
+    private static final LatencyHistogram PREPARE_TIMER = Metrics.timer("gui.dialog.prepare");
+
+    private final JFrame owner;
+    private ServiceContext services;
+
+    private SearchRoomsDialog searchRoomsDialog;
+    private BookingDialog bookingDialog;
+    private CancelBookingDialog cancelBookingDialog;
+    private ViewBookingsDialog viewBookingsDialog;
+    private CustomerManagementDialog customerManagementDialog;
+
+    public DialogManager(JFrame owner) {
+        this.owner = owner;
+    }
+
+    public void showSearchRooms() {
+        long startNanos = System.nanoTime();
+        getSearchRoomsDialog().refreshIfChanged();
+        open(searchRoomsDialog, startNanos);
+    }
+
+    public void showBooking(Integer preSelectedRoom) {
+        long startNanos = System.nanoTime();
+        getBookingDialog().prepare(preSelectedRoom);
+        open(bookingDialog, startNanos);
+    }
+
+    public void showCancelBooking() {
+        long startNanos = System.nanoTime();
+        getCancelBookingDialog().refreshIfChanged();
+        open(cancelBookingDialog, startNanos);
+    }
+
+    public void showViewBookings() {
+        long startNanos = System.nanoTime();
+        getViewBookingsDialog().refreshIfChanged();
+        open(viewBookingsDialog, startNanos);
+    }
+
+    public void showCustomerManagement() {
+        long startNanos = System.nanoTime();
+        getCustomerManagementDialog().refreshIfChanged();
+        open(customerManagementDialog, startNanos);
+    }
+
+    /**
+     * Build every dialog ahead of the first click, one per event so the GUI stays responsive
+     */
+    public void prewarm() {
+        SwingUtilities.invokeLater(this::getSearchRoomsDialog);
+        SwingUtilities.invokeLater(this::getBookingDialog);
+        SwingUtilities.invokeLater(this::getCancelBookingDialog);
+        SwingUtilities.invokeLater(this::getViewBookingsDialog);
+        SwingUtilities.invokeLater(this::getCustomerManagementDialog);
+    }
+
+    private void open(JDialog dialog, long startNanos) {
+        dialog.setLocationRelativeTo(owner);
+        PREPARE_TIMER.recordSince(startNanos);
+        dialog.setVisible(true); // modal - returns when the dialog is closed
+    }
+
+    // Services are looked up on first use so building the main frame never touches the database
+    private ServiceContext services() {
+        if (services == null) {
+            services = ServiceContext.getInstance();
+        }
+        return services;
+    }
+
+    private SearchRoomsDialog getSearchRoomsDialog() {
+        if (searchRoomsDialog == null) {
+            searchRoomsDialog = new SearchRoomsDialog(owner, services(), this);
+        }
+        return searchRoomsDialog;
+    }
+
+    private BookingDialog getBookingDialog() {
+        if (bookingDialog == null) {
+            bookingDialog = new BookingDialog(owner, services());
+        }
+        return bookingDialog;
+    }
+
+    private CancelBookingDialog getCancelBookingDialog() {
+        if (cancelBookingDialog == null) {
+            cancelBookingDialog = new CancelBookingDialog(owner, services());
+        }
+        return cancelBookingDialog;
+    }
+
+    private ViewBookingsDialog getViewBookingsDialog() {
+        if (viewBookingsDialog == null) {
+            viewBookingsDialog = new ViewBookingsDialog(owner, services());
+        }
+        return viewBookingsDialog;
+    }
+
+    private CustomerManagementDialog getCustomerManagementDialog() {
+        if (customerManagementDialog == null) {
+            customerManagementDialog = new CustomerManagementDialog(owner, services());
+        }
+        return customerManagementDialog;
+    }
+}
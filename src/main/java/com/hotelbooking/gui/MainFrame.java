@@ -18,8 +18,10 @@ public class MainFrame extends JFrame {
     private JButton exitButton;
     private JLabel titleLabel;
     private JButton manageCustomersButton;
+    private DialogManager dialogManager;
 
     public MainFrame() {
+        dialogManager = new DialogManager(this);
         initializeComponents();
         setupLayout();
         setupEventListeners();
@@ -79,32 +81,28 @@ public class MainFrame extends JFrame {
         searchRoomsButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                SearchRoomsDialog searchDialog = new SearchRoomsDialog(MainFrame.this);
-                searchDialog.setVisible(true);
+                dialogManager.showSearchRooms();
             }
         });
 
         makeBookingButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                BookingDialog bookingDialog = new BookingDialog(MainFrame.this, null);
-                bookingDialog.setVisible(true);
+                dialogManager.showBooking(null);
             }
         });
 
         cancelBookingButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                CancelBookingDialog cancelDialog = new CancelBookingDialog(MainFrame.this);
-                cancelDialog.setVisible(true);
+                dialogManager.showCancelBooking();
             }
         });
 
         viewBookingsButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                ViewBookingsDialog viewBookingsDialog = new ViewBookingsDialog(MainFrame.this);
-                viewBookingsDialog.setVisible(true);
+                dialogManager.showViewBookings();
             }
         });
 
@@ -112,8 +110,7 @@ public class MainFrame extends JFrame {
         manageCustomersButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                CustomerManagementDialog customerDialog = new CustomerManagementDialog(MainFrame.this);
-                customerDialog.setVisible(true);
+                dialogManager.showCustomerManagement();
             }
         });
 
@@ -133,6 +130,13 @@ public class MainFrame extends JFrame {
         });
     }
 
+    /**
+     * Dialogs of this frame, built once and reused
+     */
+    public DialogManager getDialogManager() {
+        return dialogManager;
+    }
+
     private void setFrameProperties() {
         setTitle("Hotel Room Booking System - OOP Project");
         setSize(500, 500);
@@ -2,12 +2,15 @@
 
 import com.hotelbooking.model.Room;
 import com.hotelbooking.services.RoomService;
+import com.hotelbooking.services.ServiceContext;
+import com.hotelbooking.utils.Money;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -15,7 +18,12 @@ import java.util.List;
  * Demonstrates OOP with GUI components and event handling
  */
 public class SearchRoomsDialog extends JDialog {
+    private ServiceContext services;
+    private DialogManager dialogManager;
     private RoomService roomService;
+    private long loadedVersion = -1;
+    private LocalDate loadedOn;
+    private long loadedAtMillis;
     private JTable roomsTable;
     private JComboBox<String> roomTypeComboBox;
     private JTextField maxPriceField;
@@ -25,8 +33,14 @@ public class SearchRoomsDialog extends JDialog {
     private JLabel resultsLabel;
 
     public SearchRoomsDialog(JFrame parent) {
+        this(parent, ServiceContext.getInstance(), null);
+    }
+
+    public SearchRoomsDialog(JFrame parent, ServiceContext services, DialogManager dialogManager) {
         super(parent, "Search Available Rooms", true);
-        this.roomService = new RoomService();
+        this.services = services;
+        this.dialogManager = dialogManager;
+        this.roomService = services.getRoomService();
         initializeComponents();
         setupLayout();
         setupEventListeners();
@@ -198,9 +212,12 @@ public class SearchRoomsDialog extends JDialog {
         int roomNumber = (int) roomsTable.getValueAt(selectedRow, 0);
         
         // Close search dialog and open booking dialog with pre-selected room
-        dispose();
-        BookingDialog bookingDialog = new BookingDialog((JFrame) getParent(), roomNumber);
-        bookingDialog.setVisible(true);
+        setVisible(false);
+        if (dialogManager != null) {
+            dialogManager.showBooking(roomNumber);
+        } else {
+            new BookingDialog((JFrame) getParent(), roomNumber).setVisible(true);
+        }
     }
 });
         
@@ -214,10 +231,24 @@ public class SearchRoomsDialog extends JDialog {
     }
 
     private void loadAvailableRooms() {
+        loadedVersion = services.getRoomsViewVersion();
+        loadedOn = LocalDate.now();
+        loadedAtMillis = System.currentTimeMillis();
         List<Room> rooms = roomService.getAvailableRooms();
         updateTable(rooms);
     }
 
+    /**
+     * Reset the filters and reload if rooms or bookings changed (or the date rolled over) since the last load,
+     * or the list is too old to trust
+     */
+    void refreshIfChanged() {
+        if (services.getRoomsViewVersion() != loadedVersion || !LocalDate.now().equals(loadedOn)
+                || services.isExpired(loadedAtMillis)) {
+            clearFilters();
+        }
+    }
+
     private void searchRooms() {
         try {
             String selectedType = (String) roomTypeComboBox.getSelectedItem();
@@ -228,10 +259,10 @@ public class SearchRoomsDialog extends JDialog {
                 roomType = selectedType;
             }
             
-            double maxPrice = 0;
+            long maxPriceCents = 0;
             if (!priceText.isEmpty()) {
-                maxPrice = Double.parseDouble(priceText);
-                if (maxPrice < 0) {
+                maxPriceCents = Money.parse(priceText);
+                if (maxPriceCents < 0) {
                     JOptionPane.showMessageDialog(this, 
                         "Price cannot be negative!", 
                         "Invalid Input", 
@@ -240,7 +271,7 @@ public class SearchRoomsDialog extends JDialog {
                 }
             }
             
-            List<Room> rooms = roomService.searchRooms(roomType, maxPrice);
+            List<Room> rooms = roomService.searchRooms(roomType, maxPriceCents);
             updateTable(rooms);
             
             if (rooms.isEmpty()) {
@@ -266,7 +297,7 @@ public class SearchRoomsDialog extends JDialog {
             model.addRow(new Object[]{
                 room.getRoomNumber(),
                 room.getRoomType(),
-                String.format("$%.2f", room.getPrice()),
+                Money.format(room.getPriceCents()),
                 room.isAvailable() ? "Available" : "Occupied",
                 room.getAmenities()
             });
@@ -318,6 +349,6 @@ public class SearchRoomsDialog extends JDialog {
         setSize(900, 600);
         setLocationRelativeTo(getParent());
         setResizable(true);
-        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setDefaultCloseOperation(HIDE_ON_CLOSE); // reopened by DialogManager
     }
                                       }
@@ -3,6 +3,8 @@ package com.hotelbooking.gui;
 import com.hotelbooking.model.Booking;
 import com.hotelbooking.services.BookingService;
 import com.hotelbooking.services.CustomerService;
+import com.hotelbooking.services.ServiceContext;
+import com.hotelbooking.utils.Money;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
@@ -16,8 +18,11 @@ import java.util.List;
  * Demonstrates OOP with data display and user interactions
  */
 public class ViewBookingsDialog extends JDialog {
+    private ServiceContext services;
     private BookingService bookingService;
     private CustomerService customerService;
+    private long loadedVersion = -1;
+    private long loadedAtMillis;
     private JTable bookingsTable;
     private JTextField searchEmailField;
     private JButton searchButton;
@@ -28,9 +33,14 @@ public class ViewBookingsDialog extends JDialog {
     private JComboBox<String> filterComboBox;
 
     public ViewBookingsDialog(JFrame parent) {
+        this(parent, ServiceContext.getInstance());
+    }
+
+    public ViewBookingsDialog(JFrame parent, ServiceContext services) {
         super(parent, "View and Manage Bookings", true);
-        this.bookingService = new BookingService();
-        this.customerService = new CustomerService();
+        this.services = services;
+        this.bookingService = services.getBookingService();
+        this.customerService = services.getCustomerService();
         initializeComponents();
         setupLayout();
         setupEventListeners();
@@ -233,10 +243,21 @@ public class ViewBookingsDialog extends JDialog {
     }
 
     private void loadAllBookings() {
+        loadedVersion = services.getBookingsViewVersion();
+        loadedAtMillis = System.currentTimeMillis();
         List<Booking> bookings = bookingService.getAllBookings();
         updateTable(bookings);
     }
 
+    /**
+     * Reload the table if bookings or customers changed since it was last loaded, or it is too old to trust
+     */
+    void refreshIfChanged() {
+        if (services.getBookingsViewVersion() != loadedVersion || services.isExpired(loadedAtMillis)) {
+            loadAllBookings();
+        }
+    }
+
     private void searchBookingsByEmail() {
         String email = searchEmailField.getText().trim();
         if (email.isEmpty()) {
@@ -291,7 +312,7 @@ public class ViewBookingsDialog extends JDialog {
                 booking.getRoomNumber(),
                 booking.getCheckInDate(),
                 booking.getCheckOutDate(),
-                String.format("$%.2f", booking.getTotalAmount()),
+                Money.format(booking.getTotalAmountCents()),
                 booking.getStatus(),
                 days + " days"
             });
@@ -303,10 +324,8 @@ public class ViewBookingsDialog extends JDialog {
     }
 
     private String getCustomerName(int customerId) {
-        // In a real application, you might want to cache this or join in SQL
         try {
-            var customer = customerService.findCustomerById(customerId);
-            return customer != null ? customer.getName() : "Unknown";
+            return services.getCustomerName(customerId);
         } catch (Exception e) {
             return "Unknown";
         }
@@ -382,7 +401,7 @@ public class ViewBookingsDialog extends JDialog {
                 "Check-in: %s\n" +
                 "Check-out: %s\n" +
                 "Duration: %d nights\n" +
-                "Total Amount: $%.2f\n" +
+                "Total Amount: %s\n" +
                 "Status: %s\n\n" +
                 "Created: %s",
                 booking.getBookingId(),
@@ -392,7 +411,7 @@ public class ViewBookingsDialog extends JDialog {
                 booking.getCheckInDate(),
                 booking.getCheckOutDate(),
                 booking.getNumberOfDays(),
-                booking.getTotalAmount(),
+                Money.format(booking.getTotalAmountCents()),
                 booking.getStatus(),
                 "Database timestamp" // You could add created_at to Booking model
             );
@@ -408,6 +427,6 @@ public class ViewBookingsDialog extends JDialog {
         setSize(900, 600);
         setLocationRelativeTo(getParent());
         setResizable(true);
-        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setDefaultCloseOperation(HIDE_ON_CLOSE); // reopened by DialogManager
     }
           }
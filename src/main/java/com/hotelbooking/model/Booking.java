@@ -1,5 +1,7 @@
  package com.hotelbooking.model;
 
+import com.hotelbooking.utils.Money;
+
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
@@ -14,8 +16,9 @@ public class Booking {
     private int roomNumber;
     private LocalDate checkInDate;
     private LocalDate checkOutDate;
-    private double totalAmount;
+    private long totalAmountCents;
     private String status;
+    private int propertyId = Property.DEFAULT_ID;
 
     // Constants for booking status
     public static final String STATUS_CONFIRMED = "CONFIRMED";
@@ -34,18 +37,18 @@ public class Booking {
         this.checkInDate = checkInDate;
         this.checkOutDate = checkOutDate;
         this.status = status;
-        this.totalAmount = calculateTotalAmount(100.0); // Default price, will be updated
+        this.totalAmountCents = calculateTotalAmount(10000); // Default price, will be updated
     }
 
     // Constructor for new bookings
     public Booking(int customerId, int roomNumber, 
-                  LocalDate checkInDate, LocalDate checkOutDate, double roomPrice) {
+                  LocalDate checkInDate, LocalDate checkOutDate, long roomPriceCents) {
         this.customerId = customerId;
         this.roomNumber = roomNumber;
         this.checkInDate = checkInDate;
         this.checkOutDate = checkOutDate;
         this.status = STATUS_CONFIRMED;
-        this.totalAmount = calculateTotalAmount(roomPrice);
+        this.totalAmountCents = calculateTotalAmount(roomPriceCents);
     }
 
     // Getter and Setter methods
@@ -73,6 +76,14 @@ public class Booking {
         this.roomNumber = roomNumber;
     }
 
+    public int getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(int propertyId) {
+        this.propertyId = propertyId;
+    }
+
     public LocalDate getCheckInDate() {
         return checkInDate;
     }
@@ -94,12 +105,12 @@ public class Booking {
         }
     }
 
-    public double getTotalAmount() {
-        return totalAmount;
+    public long getTotalAmountCents() {
+        return totalAmountCents;
     }
 
-    public void setTotalAmount(double totalAmount) {
-        this.totalAmount = totalAmount;
+    public void setTotalAmountCents(long totalAmountCents) {
+        this.totalAmountCents = totalAmountCents;
     }
 
     public String getStatus() {
@@ -115,12 +126,12 @@ public class Booking {
     }
 
     // Business logic methods
-    public double calculateTotalAmount(double roomPrice) {
+    public long calculateTotalAmount(long roomPriceCents) {
         if (checkInDate != null && checkOutDate != null) {
             long numberOfDays = ChronoUnit.DAYS.between(checkInDate, checkOutDate);
-            return numberOfDays * roomPrice;
+            return Money.times(roomPriceCents, numberOfDays);
         }
-        return 0.0;
+        return Money.ZERO;
     }
 
     public long getNumberOfDays() {
@@ -158,19 +169,19 @@ public class Booking {
                checkInDate != null && 
                checkOutDate != null && 
                checkOutDate.isAfter(checkInDate) && 
-               totalAmount >= 0;
+               totalAmountCents >= 0;
     }
 
     // toString method
     @Override
     public String toString() {
-        return String.format("Booking ID: %d | Customer: %d | Room: %d | Dates: %s to %s | Amount: $%.2f | Status: %s",
-                bookingId, customerId, roomNumber, checkInDate, checkOutDate, totalAmount, status);
+        return String.format("Booking ID: %d | Customer: %d | Room: %d | Dates: %s to %s | Amount: %s | Status: %s",
+                bookingId, customerId, roomNumber, checkInDate, checkOutDate, Money.format(totalAmountCents), status);
     }
 
     // Utility method to get booking summary
     public String getBookingSummary() {
-        return String.format("Room %d booked from %s to %s. Total: $%.2f",
-                roomNumber, checkInDate, checkOutDate, totalAmount);
+        return String.format("Room %d booked from %s to %s. Total: %s",
+                roomNumber, checkInDate, checkOutDate, Money.format(totalAmountCents));
     }
   }
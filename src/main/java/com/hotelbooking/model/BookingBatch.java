@@ -0,0 +1,223 @@
+package com.hotelbooking.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BookingBatch class holding many bookings as parallel primitive arrays (struct-of-arrays)
+ * Used by bulk and analytics workloads where one Booking object per row would dominate the cost
+ */
+public class BookingBatch {
+    // Status codes for the status column
+    public static final byte STATUS_CONFIRMED = 0;
+    public static final byte STATUS_CANCELLED = 1;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // Column arrays - row i of the batch is index i of every array
+    private int[] bookingIds;
+    private int[] customerIds;
+    private int[] roomNumbers;
+    private int[] checkInDays;
+    private int[] checkOutDays;
+    private long[] amountCents;
+    private byte[] statuses;
+    private int[] propertyIds;
+    private int size;
+
+    // Constructors
+    public BookingBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BookingBatch(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        bookingIds = new int[capacity];
+        customerIds = new int[capacity];
+        roomNumbers = new int[capacity];
+        checkInDays = new int[capacity];
+        checkOutDays = new int[capacity];
+        amountCents = new long[capacity];
+        statuses = new byte[capacity];
+        propertyIds = new int[capacity];
+    }
+
+    /**
+     * Build a batch from a list of bookings
+     */
+    public static BookingBatch fromBookings(List<Booking> bookings) {
+        BookingBatch batch = new BookingBatch(bookings.size());
+        for (Booking booking : bookings) {
+            batch.add(booking);
+        }
+        return batch;
+    }
+
+    /**
+     * Append one row from primitive values
+     */
+    public void add(int bookingId, int customerId, int roomNumber,
+                    int checkInDay, int checkOutDay, long amountCents, byte status, int propertyId) {
+        if (size == bookingIds.length) {
+            grow();
+        }
+        bookingIds[size] = bookingId;
+        customerIds[size] = customerId;
+        roomNumbers[size] = roomNumber;
+        checkInDays[size] = checkInDay;
+        checkOutDays[size] = checkOutDay;
+        this.amountCents[size] = amountCents;
+        statuses[size] = status;
+        propertyIds[size] = propertyId;
+        size++;
+    }
+
+    /**
+     * Append one row converted from a Booking
+     */
+    public void add(Booking booking) {
+        add(booking.getBookingId(),
+            booking.getCustomerId(),
+            booking.getRoomNumber(),
+            (int) booking.getCheckInDate().toEpochDay(),
+            (int) booking.getCheckOutDate().toEpochDay(),
+            booking.getTotalAmountCents(),
+            toStatusCode(booking.getStatus()),
+            booking.getPropertyId());
+    }
+
+    /**
+     * Convert one row back into a Booking object
+     */
+    public Booking toBooking(int row) {
+        checkIndex(row);
+        Booking booking = new Booking(bookingIds[row], customerIds[row], roomNumbers[row],
+                LocalDate.ofEpochDay(checkInDays[row]), LocalDate.ofEpochDay(checkOutDays[row]),
+                toStatus(statuses[row]));
+        booking.setTotalAmountCents(amountCents[row]);
+        booking.setPropertyId(propertyIds[row]);
+        return booking;
+    }
+
+    /**
+     * Convert every row into Booking objects
+     */
+    public List<Booking> toBookings() {
+        List<Booking> bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bookings.add(toBooking(i));
+        }
+        return bookings;
+    }
+
+    // Status conversion helpers
+    public static byte toStatusCode(String status) {
+        return Booking.STATUS_CANCELLED.equals(status) ? STATUS_CANCELLED : STATUS_CONFIRMED;
+    }
+
+    public static String toStatus(byte statusCode) {
+        return statusCode == STATUS_CANCELLED ? Booking.STATUS_CANCELLED : Booking.STATUS_CONFIRMED;
+    }
+
+    // Row accessors
+    public int getBookingId(int row) {
+        checkIndex(row);
+        return bookingIds[row];
+    }
+
+    public int getCustomerId(int row) {
+        checkIndex(row);
+        return customerIds[row];
+    }
+
+    public int getRoomNumber(int row) {
+        checkIndex(row);
+        return roomNumbers[row];
+    }
+
+    public int getCheckInDay(int row) {
+        checkIndex(row);
+        return checkInDays[row];
+    }
+
+    public int getCheckOutDay(int row) {
+        checkIndex(row);
+        return checkOutDays[row];
+    }
+
+    public long getAmountCents(int row) {
+        checkIndex(row);
+        return amountCents[row];
+    }
+
+    public byte getStatus(int row) {
+        checkIndex(row);
+        return statuses[row];
+    }
+
+    public int getPropertyId(int row) {
+        checkIndex(row);
+        return propertyIds[row];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Reset the batch for reuse without releasing its arrays
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    // Business logic methods
+    public long sumConfirmedAmountCents() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] == STATUS_CONFIRMED) {
+                total += amountCents[i];
+            }
+        }
+        return total;
+    }
+
+    public int countByStatus(byte status) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void grow() {
+        int capacity = bookingIds.length * 2;
+        bookingIds = Arrays.copyOf(bookingIds, capacity);
+        customerIds = Arrays.copyOf(customerIds, capacity);
+        roomNumbers = Arrays.copyOf(roomNumbers, capacity);
+        checkInDays = Arrays.copyOf(checkInDays, capacity);
+        checkOutDays = Arrays.copyOf(checkOutDays, capacity);
+        amountCents = Arrays.copyOf(amountCents, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        propertyIds = Arrays.copyOf(propertyIds, capacity);
+    }
+
+    private void checkIndex(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for batch of size " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BookingBatch | Rows: %d | Capacity: %d", size, bookingIds.length);
+    }
+}
@@ -0,0 +1,62 @@
+package com.hotelbooking.model;
+
+/**
+ * BookingEvent class representing one entry of the booking outbox
+ * Immutable so the relay can hand the same event to every sink
+ */
+public class BookingEvent {
+    public static final String BOOKING_CREATED = "BookingCreated";
+    public static final String BOOKING_CANCELLED = "BookingCancelled";
+    public static final String BOOKING_MOVED = "BookingMoved";
+    public static final String ROOM_AVAILABILITY_CHANGED = "RoomAvailabilityChanged";
+
+    private final long eventId; // 0 until the event has been written to the outbox
+    private final String eventType;
+    private final int bookingId; // 0 for room events
+    private final String payload; // JSON object
+    private final long createdAtMillis;
+
+    public BookingEvent(long eventId, String eventType, int bookingId, String payload, long createdAtMillis) {
+        this.eventId = eventId;
+        this.eventType = eventType;
+        this.bookingId = bookingId;
+        this.payload = payload;
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public int getBookingId() {
+        return bookingId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    /**
+     * The event as one JSON object: envelope fields plus the payload
+     */
+    public String toJson() {
+        return "{\"eventId\":" + eventId +
+               ",\"type\":\"" + eventType + "\"" +
+               ",\"bookingId\":" + bookingId +
+               ",\"createdAtMillis\":" + createdAtMillis +
+               ",\"payload\":" + payload + "}";
+    }
+
+    @Override
+    public String toString() {
+        return "BookingEvent{" + eventId + " " + eventType + " booking=" + bookingId + "}";
+    }
+}
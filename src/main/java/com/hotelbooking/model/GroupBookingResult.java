@@ -0,0 +1,94 @@
+package com.hotelbooking.model;
+
+import com.hotelbooking.utils.Money;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GroupBookingResult class representing the outcome of a multi-room booking
+ * A group is all or nothing: either every requested room is booked or none is, in which case
+ * the bookings list is empty and the reason says why
+ */
+public class GroupBookingResult {
+    private final boolean success;
+    private final List<Booking> bookings;
+    private final String reason;
+    private final long allocationNanos;
+    private final long totalNanos;
+
+    private GroupBookingResult(boolean success, List<Booking> bookings, String reason,
+                               long allocationNanos, long totalNanos) {
+        this.success = success;
+        this.bookings = Collections.unmodifiableList(bookings);
+        this.reason = reason;
+        this.allocationNanos = allocationNanos;
+        this.totalNanos = totalNanos;
+    }
+
+    public static GroupBookingResult booked(List<Booking> bookings, long allocationNanos, long totalNanos) {
+        return new GroupBookingResult(true, bookings, null, allocationNanos, totalNanos);
+    }
+
+    public static GroupBookingResult rejected(String reason, long allocationNanos, long totalNanos) {
+        return new GroupBookingResult(false, Collections.emptyList(), reason, allocationNanos, totalNanos);
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public List<Booking> getBookings() {
+        return bookings;
+    }
+
+    /**
+     * Why the group was rejected (null on success)
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public int getRoomCount() {
+        return bookings.size();
+    }
+
+    public long getTotalAmountCents() {
+        long total = 0;
+        for (Booking booking : bookings) {
+            total += booking.getTotalAmountCents();
+        }
+        return total;
+    }
+
+    /**
+     * Time spent choosing rooms from the availability index
+     */
+    public long getAllocationNanos() {
+        return allocationNanos;
+    }
+
+    public double getAllocationMillis() {
+        return allocationNanos / 1_000_000.0;
+    }
+
+    /**
+     * Time for the whole request: allocation, locking and the booking transaction
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public double getTotalMillis() {
+        return totalNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        if (!success) {
+            return String.format("Group Booking | Rejected: %s | Allocation: %.2f ms", reason, getAllocationMillis());
+        }
+        return String.format("Group Booking | Rooms: %d | Total: %s | Allocation: %.2f ms | Overall: %.2f ms",
+                getRoomCount(), Money.format(getTotalAmountCents()), getAllocationMillis(), getTotalMillis());
+    }
+}
@@ -0,0 +1,117 @@
+package com.hotelbooking.model;
+
+import java.time.LocalDate;
+
+/**
+ * LedgerEntry class representing one event of the append-only booking ledger
+ * Fields are primitives (dates as epoch days, money as cents) so millions of entries can be
+ * replayed without parsing; fields an event type does not use are 0.
+ */
+public class LedgerEntry {
+    public static final byte BOOKING_CREATED = 1;
+    public static final byte BOOKING_CANCELLED = 2;
+    public static final byte BOOKING_MOVED = 3;             // roomNumber is the new room, previousRoom the old one
+    public static final byte ROOM_AVAILABILITY_CHANGED = 4; // a room became sellable (bookingId 0)
+
+    private final long sequence; // 0 until the entry has been written to the ledger
+    private final byte eventType;
+    private final int bookingId;
+    private final int customerId;
+    private final int roomNumber;
+    private final int previousRoom;
+    private final int propertyId;
+    private final int checkInDay;
+    private final int checkOutDay;
+    private final long amountCents;
+    private final long createdAtMillis;
+
+    public LedgerEntry(long sequence, byte eventType, int bookingId, int customerId, int roomNumber, int previousRoom,
+                       int propertyId, int checkInDay, int checkOutDay, long amountCents, long createdAtMillis) {
+        this.sequence = sequence;
+        this.eventType = eventType;
+        this.bookingId = bookingId;
+        this.customerId = customerId;
+        this.roomNumber = roomNumber;
+        this.previousRoom = previousRoom;
+        this.propertyId = propertyId;
+        this.checkInDay = checkInDay;
+        this.checkOutDay = checkOutDay;
+        this.amountCents = amountCents;
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    /**
+     * Event type name, as used for outbox events
+     */
+    public static String typeName(byte eventType) {
+        switch (eventType) {
+            case BOOKING_CREATED:
+                return BookingEvent.BOOKING_CREATED;
+            case BOOKING_CANCELLED:
+                return BookingEvent.BOOKING_CANCELLED;
+            case BOOKING_MOVED:
+                return BookingEvent.BOOKING_MOVED;
+            case ROOM_AVAILABILITY_CHANGED:
+                return BookingEvent.ROOM_AVAILABILITY_CHANGED;
+            default:
+                return "Unknown" + eventType;
+        }
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public byte getEventType() {
+        return eventType;
+    }
+
+    public int getBookingId() {
+        return bookingId;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public int getRoomNumber() {
+        return roomNumber;
+    }
+
+    public int getPreviousRoom() {
+        return previousRoom;
+    }
+
+    public int getPropertyId() {
+        return propertyId;
+    }
+
+    public int getCheckInDay() {
+        return checkInDay;
+    }
+
+    public int getCheckOutDay() {
+        return checkOutDay;
+    }
+
+    public LocalDate getCheckInDate() {
+        return LocalDate.ofEpochDay(checkInDay);
+    }
+
+    public LocalDate getCheckOutDate() {
+        return LocalDate.ofEpochDay(checkOutDay);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry{" + sequence + " " + typeName(eventType) + " booking=" + bookingId + " room=" + roomNumber + "}";
+    }
+}
@@ -0,0 +1,63 @@
+package com.hotelbooking.model;
+
+/**
+ * Property class representing one hotel of the group
+ * Rooms and bookings belong to exactly one property
+ */
+public class Property {
+    // Property of rows created before the group had more than one hotel
+    public static final int DEFAULT_ID = 1;
+
+    private int propertyId;
+    private String code;
+    private String name;
+    private String city;
+
+    public Property() {
+        // Default constructor
+    }
+
+    public Property(int propertyId, String code, String name, String city) {
+        this.propertyId = propertyId;
+        this.code = code;
+        this.name = name;
+        this.city = city;
+    }
+
+    public int getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(int propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Property %d | %s | %s%s", propertyId, code, name, city != null ? " | " + city : "");
+    }
+}
@@ -0,0 +1,87 @@
+package com.hotelbooking.model;
+
+import com.hotelbooking.utils.Money;
+
+import java.time.LocalDate;
+
+/**
+ * PropertyReport class representing one property's figures for a date range
+ * Bookings count toward the range by their nights inside it; revenue is that of confirmed
+ * bookings checking in within the range
+ */
+public class PropertyReport {
+    private final Property property;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int rooms;
+    private final int roomsFreeTonight;
+    private final int confirmedBookings;
+    private final int cancelledBookings;
+    private final long revenueCents;
+    private final long roomNightsSold;
+
+    public PropertyReport(Property property, LocalDate from, LocalDate to, int rooms, int roomsFreeTonight,
+                          int confirmedBookings, int cancelledBookings, long revenueCents, long roomNightsSold) {
+        this.property = property;
+        this.from = from;
+        this.to = to;
+        this.rooms = rooms;
+        this.roomsFreeTonight = roomsFreeTonight;
+        this.confirmedBookings = confirmedBookings;
+        this.cancelledBookings = cancelledBookings;
+        this.revenueCents = revenueCents;
+        this.roomNightsSold = roomNightsSold;
+    }
+
+    public Property getProperty() {
+        return property;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public int getRooms() {
+        return rooms;
+    }
+
+    public int getRoomsFreeTonight() {
+        return roomsFreeTonight;
+    }
+
+    public int getConfirmedBookings() {
+        return confirmedBookings;
+    }
+
+    public int getCancelledBookings() {
+        return cancelledBookings;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public long getRoomNightsSold() {
+        return roomNightsSold;
+    }
+
+    /**
+     * Share of the range's room nights that were sold, in percent
+     */
+    public double getOccupancyPercent() {
+        long roomNights = (long) rooms * (to.toEpochDay() - from.toEpochDay());
+        return roomNights <= 0 ? 0.0 : roomNightsSold * 100.0 / roomNights;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | Rooms: %d (%d free tonight) | Bookings: %d confirmed, %d cancelled | " +
+                             "Revenue: %s | Occupancy: %.1f%%",
+                property.getCode(), rooms, roomsFreeTonight, confirmedBookings, cancelledBookings,
+                Money.format(revenueCents), getOccupancyPercent());
+    }
+}
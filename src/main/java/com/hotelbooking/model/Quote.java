@@ -0,0 +1,63 @@
+package com.hotelbooking.model;
+
+import com.hotelbooking.utils.Money;
+
+import java.time.LocalDate;
+
+/**
+ * Quote class representing availability and total price of a stay
+ * Immutable so it can be shared from the quote cache
+ */
+public class Quote {
+    private final int roomNumber; // 0 if no room of the requested type is available
+    private final String roomType;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final boolean available;
+    private final long totalAmountCents;
+
+    public Quote(int roomNumber, String roomType, LocalDate checkInDate, LocalDate checkOutDate,
+                 boolean available, long totalAmountCents) {
+        this.roomNumber = roomNumber;
+        this.roomType = roomType;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.available = available;
+        this.totalAmountCents = totalAmountCents;
+    }
+
+    public int getRoomNumber() {
+        return roomNumber;
+    }
+
+    public String getRoomType() {
+        return roomType;
+    }
+
+    public LocalDate getCheckInDate() {
+        return checkInDate;
+    }
+
+    public LocalDate getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public long getTotalAmountCents() {
+        return totalAmountCents;
+    }
+
+    public long getNumberOfNights() {
+        return checkOutDate.toEpochDay() - checkInDate.toEpochDay();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Quote | Room: %d (%s) | Dates: %s to %s | %s | Total: %s",
+                roomNumber, roomType, checkInDate, checkOutDate,
+                available ? "Available" : "Not Available", Money.format(totalAmountCents));
+    }
+}
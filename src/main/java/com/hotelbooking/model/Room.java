@@ -1,4 +1,6 @@
  package com.hotelbooking.model;
+
+import com.hotelbooking.utils.Money;
   
 /**
  * Room class representing a hotel room entity
@@ -8,23 +10,30 @@ public class Room {
     // Private fields - Encapsulation
     private int roomNumber;
     private String roomType;
-    private double price;
+    private long priceCents; // Nightly price in cents
     private boolean isAvailable;
     private String amenities;
+    private int propertyId = Property.DEFAULT_ID;
 
     // Default constructor
     public Room() {
     }
 
     // Parameterized constructor
-    public Room(int roomNumber, String roomType, double price, boolean isAvailable, String amenities) {
+    public Room(int roomNumber, String roomType, long priceCents, boolean isAvailable, String amenities) {
         this.roomNumber = roomNumber;
         this.roomType = roomType;
-        this.price = price;
+        this.priceCents = priceCents;
         this.isAvailable = isAvailable;
         this.amenities = amenities;
     }
 
+    // Constructor for a room of a specific property
+    public Room(int roomNumber, int propertyId, String roomType, long priceCents, boolean isAvailable, String amenities) {
+        this(roomNumber, roomType, priceCents, isAvailable, amenities);
+        this.propertyId = propertyId;
+    }
+
     // Getter and Setter methods - Encapsulation
     public int getRoomNumber() {
         return roomNumber;
@@ -34,6 +43,14 @@ public class Room {
         this.roomNumber = roomNumber;
     }
 
+    public int getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(int propertyId) {
+        this.propertyId = propertyId;
+    }
+
     public String getRoomType() {
         return roomType;
     }
@@ -42,12 +59,12 @@ public class Room {
         this.roomType = roomType;
     }
 
-    public double getPrice() {
-        return price;
+    public long getPriceCents() {
+        return priceCents;
     }
 
-    public void setPrice(double price) {
-        this.price = price;
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
     }
 
     public boolean isAvailable() {
@@ -69,15 +86,15 @@ public class Room {
     // toString method for displaying room information
     @Override
     public String toString() {
-        return String.format("Room %d | Type: %s | Price: $%.2f | Status: %s | Amenities: %s",
-                roomNumber, roomType, price, 
+        return String.format("Room %d | Type: %s | Price: %s | Status: %s | Amenities: %s",
+                roomNumber, roomType, Money.format(priceCents), 
                 isAvailable ? "Available" : "Occupied", 
                 amenities);
     }
 
     // Utility method to check if room is affordable
-    public boolean isAffordable(double budget) {
-        return price <= budget;
+    public boolean isAffordable(long budgetCents) {
+        return priceCents <= budgetCents;
     }
 
     // Utility method to check if room has specific amenity
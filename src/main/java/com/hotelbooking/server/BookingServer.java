@@ -0,0 +1,556 @@
+package com.hotelbooking.server;
+
+import com.hotelbooking.events.OutboxRelay;
+import com.hotelbooking.model.Booking;
+import com.hotelbooking.model.Customer;
+import com.hotelbooking.model.GroupBookingResult;
+import com.hotelbooking.model.Property;
+import com.hotelbooking.model.PropertyReport;
+import com.hotelbooking.model.Quote;
+import com.hotelbooking.model.Room;
+import com.hotelbooking.services.AvailabilityIndex;
+import com.hotelbooking.services.BookingService;
+import com.hotelbooking.services.CustomerService;
+import com.hotelbooking.services.PropertyService;
+import com.hotelbooking.services.RoomService;
+import com.hotelbooking.services.ServiceContext;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.Json;
+import com.hotelbooking.utils.LatencyHistogram;
+import com.hotelbooking.utils.Metrics;
+import com.hotelbooking.utils.Money;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BookingServer class - headless mode exposing the booking services as an HTTP/JSON API
+ * Demonstrates the JDK's built-in HTTP server with one (virtual) thread per request
+ *
+ * Endpoints:
+ *   GET    /api/health
+ *   GET    /api/rooms?property=&type=&maxPrice=&checkIn=&checkOut=
+ *   GET    /api/quote?room=|type=&property=&checkIn=&checkOut=
+ *   POST   /api/bookings          {customerId | name,email,phone} + {roomNumber | roomType[, propertyId]}, checkIn, checkOut
+ *   POST   /api/group-bookings    {customerId, [propertyId,] rooms: {type: count}, checkIn, checkOut}
+ *   GET    /api/bookings/{id}
+ *   DELETE /api/bookings/{id}
+ *   GET    /api/customers/{id}
+ *   GET    /api/customers?email=
+ *   GET    /api/properties?from=&to=   one report per property (default: the next 30 nights)
+ *   GET    /api/metrics           (plain text report)
+ *   GET    /api/outbox            event relay offset and lag per sink
+ * Money is returned both as integer cents and as a decimal string; dates are ISO yyyy-MM-dd.
+ * Room searches without a property cover the whole group; room-type quotes and bookings without
+ * one use the home property (-Dhotel.property).
+ *
+ * Configuration:
+ *   -Dhotel.server.port=8080         listen port
+ *   -Dhotel.server.backlog=1024      TCP accept backlog
+ *   -Dhotel.server.threads=200       worker threads when virtual threads are not available (JDK before 21)
+ *   -Dhotel.server.maxInFlight=64    requests allowed into the services at once (the pool has far fewer
+ *                                    connections, so the rest wait here instead of in the pool)
+ *   -Dhotel.server.queue.ms=2000     how long a request waits for a slot before a 503
+ */
+public class BookingServer {
+    private static final AppLogger LOG = AppLogger.getLogger(BookingServer.class);
+
+    private static final int PORT = Integer.getInteger("hotel.server.port", 8080);
+    private static final int BACKLOG = Integer.getInteger("hotel.server.backlog", 1024);
+    private static final int FALLBACK_THREADS = Integer.getInteger("hotel.server.threads", 200);
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("hotel.server.maxInFlight", 64);
+    private static final long QUEUE_MILLIS = Long.getLong("hotel.server.queue.ms", 2000);
+
+    private static final LatencyHistogram REQUEST_TIMER = Metrics.timer("server.request");
+    private static final LongAdder REJECTED = Metrics.counter("server.rejected");
+    private static final LongAdder ERRORS = Metrics.counter("server.errors");
+
+    private final ServiceContext services;
+    private final Semaphore admission = new Semaphore(MAX_IN_FLIGHT);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public BookingServer(ServiceContext services) {
+        this.services = services;
+    }
+
+    /**
+     * Main method - start the server and keep running until the JVM is stopped
+     */
+    public static void main(String[] args) throws IOException {
+        BookingServer bookingServer = new BookingServer(ServiceContext.getInstance());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            bookingServer.stop();
+            DatabaseConnection.closeConnection();
+        }, "booking-server-shutdown"));
+        bookingServer.start(PORT);
+    }
+
+    /**
+     * Bind the port and start accepting requests
+     */
+    public void start(int port) throws IOException {
+        // Load the availability calendar before the first search instead of inside it
+        AvailabilityIndex.getInstance();
+        OutboxRelay.startConfigured();
+
+        executor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.start();
+        Metrics.gauge("server.inFlight", () -> MAX_IN_FLIGHT - admission.availablePermits());
+        LOG.info("Booking server listening on port " + port);
+    }
+
+    /**
+     * Stop accepting requests, give in-flight ones a second to finish
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        LOG.info("Booking server stopped");
+    }
+
+    /**
+     * A virtual thread per request when the JDK has them (21+), otherwise a fixed platform pool
+     * Looked up reflectively so the same jar still runs on older JDKs
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOG.warn("Virtual threads not available on this JDK - using " + FALLBACK_THREADS + " worker threads");
+            return Executors.newFixedThreadPool(FALLBACK_THREADS);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long startNanos = System.nanoTime();
+        try {
+            if (!admission.tryAcquire(QUEUE_MILLIS, TimeUnit.MILLISECONDS)) {
+                REJECTED.increment();
+                send(exchange, 503, error("server busy, retry later"));
+                return;
+            }
+            try {
+                Object response = route(exchange);
+                // The one place a success status is chosen, for JSON and text bodies alike
+                int status = "POST".equals(exchange.getRequestMethod()) ? 201 : 200;
+                if (response instanceof String) {
+                    sendText(exchange, status, (String) response);
+                } else {
+                    send(exchange, status, response);
+                }
+            } finally {
+                admission.release();
+            }
+        } catch (ApiException e) {
+            send(exchange, e.status, error(e.getMessage()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, error("server shutting down"));
+        } catch (RuntimeException e) {
+            ERRORS.increment();
+            LOG.error("Error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + e);
+            send(exchange, 500, error("internal error"));
+        } finally {
+            exchange.close();
+            REQUEST_TIMER.recordSince(startNanos);
+        }
+    }
+
+    private Object route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String resource = path.length > 2 ? path[2] : "";
+        String id = path.length > 3 ? path[3] : null;
+
+        switch (resource) {
+            case "health":
+                return map("status", "UP");
+            case "metrics":
+                return Metrics.report();
+            case "outbox":
+                return OutboxRelay.getInstance().getStatus();
+            case "rooms":
+                requireMethod(method, "GET");
+                return searchRooms(query);
+            case "quote":
+                requireMethod(method, "GET");
+                return quote(query);
+            case "bookings":
+                if (id == null) {
+                    requireMethod(method, "POST");
+                    return book(readBody(exchange));
+                }
+                if ("DELETE".equals(method)) {
+                    return cancel(parseId(id));
+                }
+                requireMethod(method, "GET");
+                return getBooking(parseId(id));
+            case "group-bookings":
+                requireMethod(method, "POST");
+                return groupBook(readBody(exchange));
+            case "customers":
+                requireMethod(method, "GET");
+                return id != null ? getCustomer(parseId(id)) : findCustomer(query);
+            case "properties":
+                requireMethod(method, "GET");
+                return propertyReports(query);
+            default:
+                throw new ApiException(404, "no such endpoint");
+        }
+    }
+
+    private Object searchRooms(Map<String, String> query) {
+        String type = query.getOrDefault("type", "");
+        long maxPriceCents = query.containsKey("maxPrice") ? Money.parse(query.get("maxPrice")) : 0;
+        int propertyId = query.containsKey("property") ? parseId(query.get("property")) : RoomService.ANY_PROPERTY;
+        RoomService roomService = services.getRoomService();
+        List<Room> rooms;
+        if (query.containsKey("checkIn") || query.containsKey("checkOut")) {
+            LocalDate checkIn = requireDate(query, "checkIn");
+            LocalDate checkOut = requireDate(query, "checkOut");
+            rooms = roomService.searchRoomSummaries(propertyId, type, maxPriceCents, checkIn, checkOut);
+        } else {
+            rooms = roomService.searchRooms(propertyId, type, maxPriceCents, null, null);
+        }
+        List<Object> result = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            Map<String, Object> json = map("roomNumber", room.getRoomNumber(), "roomType", room.getRoomType());
+            json.put("propertyId", room.getPropertyId());
+            putMoney(json, "price", room.getPriceCents());
+            json.put("amenities", room.getAmenities());
+            result.add(json);
+        }
+        return result;
+    }
+
+    private Object quote(Map<String, String> query) {
+        LocalDate checkIn = requireDate(query, "checkIn");
+        LocalDate checkOut = requireDate(query, "checkOut");
+        BookingService bookingService = services.getBookingService();
+        Quote quote;
+        if (query.containsKey("room")) {
+            Room room = services.getRoomService().getRoomByNumber(parseId(query.get("room")));
+            if (room == null) {
+                throw new ApiException(404, "room not found");
+            }
+            quote = bookingService.getQuote(room, checkIn, checkOut);
+        } else if (query.containsKey("type")) {
+            int propertyId = query.containsKey("property") ? parseId(query.get("property"))
+                                                           : PropertyService.getHomePropertyId();
+            quote = bookingService.getRoomTypeQuote(propertyId, query.get("type"), checkIn, checkOut);
+            if (quote == null) {
+                throw new ApiException(404, "no " + query.get("type") + " room free for those dates");
+            }
+        } else {
+            throw new IllegalArgumentException("room or type is required");
+        }
+        Map<String, Object> json = map("roomNumber", quote.getRoomNumber(), "roomType", quote.getRoomType());
+        json.put("checkIn", quote.getCheckInDate());
+        json.put("checkOut", quote.getCheckOutDate());
+        json.put("nights", quote.getNumberOfNights());
+        json.put("available", quote.isAvailable());
+        putMoney(json, "total", quote.getTotalAmountCents());
+        return json;
+    }
+
+    private Object book(Map<String, Object> body) {
+        LocalDate checkIn = requireDate(body, "checkIn");
+        LocalDate checkOut = requireDate(body, "checkOut");
+        // Before the customer is created; the services check again, both map to 400
+        BookingService.validateStay(checkIn, checkOut);
+        int customerId = resolveCustomer(body);
+        BookingService bookingService = services.getBookingService();
+
+        Booking booking;
+        if (body.get("roomNumber") != null) {
+            booking = bookingService.makeBooking(customerId, toInt(body.get("roomNumber"), "roomNumber"), checkIn, checkOut);
+        } else if (body.get("roomType") != null) {
+            booking = bookingService.makeRoomTypeBooking(customerId, propertyOf(body), body.get("roomType").toString(),
+                                                         checkIn, checkOut);
+        } else {
+            throw new IllegalArgumentException("roomNumber or roomType is required");
+        }
+        if (booking == null) {
+            throw new ApiException(409, "room not available for those dates");
+        }
+        return toJson(booking);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object groupBook(Map<String, Object> body) {
+        LocalDate checkIn = requireDate(body, "checkIn");
+        LocalDate checkOut = requireDate(body, "checkOut");
+        int customerId = resolveCustomer(body);
+        if (!(body.get("rooms") instanceof Map)) {
+            throw new IllegalArgumentException("rooms must be an object of room type to count");
+        }
+        Map<String, Integer> roomTypeMix = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) body.get("rooms")).entrySet()) {
+            roomTypeMix.put(entry.getKey(), toInt(entry.getValue(), "rooms." + entry.getKey()));
+        }
+
+        GroupBookingResult result = services.getBookingService().makeGroupBooking(customerId, propertyOf(body), roomTypeMix,
+                                                                                  checkIn, checkOut);
+        if (!result.isSuccess()) {
+            throw new ApiException(409, result.getReason());
+        }
+        List<Object> bookings = new ArrayList<>();
+        for (Booking booking : result.getBookings()) {
+            bookings.add(toJson(booking));
+        }
+        Map<String, Object> json = map("bookings", bookings, "rooms", result.getRoomCount());
+        putMoney(json, "total", result.getTotalAmountCents());
+        return json;
+    }
+
+    private Object getBooking(int bookingId) {
+        Booking booking = services.getBookingService().getBookingById(bookingId);
+        if (booking == null) {
+            throw new ApiException(404, "booking not found");
+        }
+        return toJson(booking);
+    }
+
+    private Object cancel(int bookingId) {
+        if (!services.getBookingService().cancelBooking(bookingId)) {
+            throw new ApiException(409, "booking not found or already cancelled");
+        }
+        return map("bookingId", bookingId, "status", Booking.STATUS_CANCELLED);
+    }
+
+    private Object getCustomer(int customerId) {
+        Customer customer = services.getCustomerService().findCustomerById(customerId);
+        if (customer == null) {
+            throw new ApiException(404, "customer not found");
+        }
+        return toJson(customer);
+    }
+
+    private Object findCustomer(Map<String, String> query) {
+        String email = query.get("email");
+        if (email == null || email.isEmpty()) {
+            throw new IllegalArgumentException("email is required");
+        }
+        Customer customer = services.getCustomerService().findCustomerByEmail(email);
+        if (customer == null) {
+            throw new ApiException(404, "customer not found");
+        }
+        return toJson(customer);
+    }
+
+    /**
+     * One report per property for from..to (default: the next 30 nights)
+     */
+    private Object propertyReports(Map<String, String> query) {
+        LocalDate from = query.containsKey("from") ? requireDate(query, "from") : LocalDate.now();
+        LocalDate to = query.containsKey("to") ? requireDate(query, "to") : from.plusDays(30);
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("to must be after from");
+        }
+        List<Object> result = new ArrayList<>();
+        for (PropertyReport report : new PropertyService().getPropertyReports(from, to)) {
+            result.add(toJson(report));
+        }
+        return result;
+    }
+
+    /**
+     * Property named in a booking body, or the home property
+     */
+    private static int propertyOf(Map<String, Object> body) {
+        return body.get("propertyId") != null ? toInt(body.get("propertyId"), "propertyId")
+                                              : PropertyService.getHomePropertyId();
+    }
+
+    /**
+     * The customer to book for: an existing customerId, or name/email/phone (found or created)
+     */
+    private int resolveCustomer(Map<String, Object> body) {
+        if (body.get("customerId") != null) {
+            return toInt(body.get("customerId"), "customerId");
+        }
+        Object name = body.get("name");
+        Object email = body.get("email");
+        Object phone = body.get("phone");
+        if (name == null || email == null || phone == null) {
+            throw new IllegalArgumentException("customerId or name, email and phone are required");
+        }
+        CustomerService customerService = services.getCustomerService();
+        int customerId = customerService.findOrCreateCustomer(name.toString(), email.toString(), phone.toString());
+        if (customerId <= 0) {
+            throw new IllegalArgumentException("invalid customer details");
+        }
+        return customerId;
+    }
+
+    private static Map<String, Object> toJson(Booking booking) {
+        Map<String, Object> json = map("bookingId", booking.getBookingId(), "customerId", booking.getCustomerId());
+        json.put("roomNumber", booking.getRoomNumber());
+        json.put("propertyId", booking.getPropertyId());
+        json.put("checkIn", booking.getCheckInDate());
+        json.put("checkOut", booking.getCheckOutDate());
+        json.put("status", booking.getStatus());
+        putMoney(json, "total", booking.getTotalAmountCents());
+        return json;
+    }
+
+    private static Map<String, Object> toJson(Customer customer) {
+        Map<String, Object> json = map("customerId", customer.getCustomerId(), "name", customer.getName());
+        json.put("email", customer.getEmail());
+        json.put("phone", customer.getPhone());
+        return json;
+    }
+
+    private static Map<String, Object> toJson(PropertyReport report) {
+        Property property = report.getProperty();
+        Map<String, Object> json = map("propertyId", property.getPropertyId(), "code", property.getCode());
+        json.put("name", property.getName());
+        json.put("from", report.getFrom());
+        json.put("to", report.getTo());
+        json.put("rooms", report.getRooms());
+        json.put("roomsFreeTonight", report.getRoomsFreeTonight());
+        json.put("confirmedBookings", report.getConfirmedBookings());
+        json.put("cancelledBookings", report.getCancelledBookings());
+        json.put("roomNightsSold", report.getRoomNightsSold());
+        json.put("occupancyPercent", Math.round(report.getOccupancyPercent() * 10) / 10.0);
+        putMoney(json, "revenue", report.getRevenueCents());
+        return json;
+    }
+
+    private static void putMoney(Map<String, Object> json, String field, long cents) {
+        json.put(field + "Cents", cents);
+        json.put(field, Money.toDecimal(cents).toPlainString());
+    }
+
+    private static Map<String, Object> map(Object... keysAndValues) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            json.put(keysAndValues[i].toString(), keysAndValues[i + 1]);
+        }
+        return json;
+    }
+
+    private static Map<String, Object> error(String message) {
+        return map("error", message);
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!expected.equals(method)) {
+            throw new ApiException(405, method + " not allowed here");
+        }
+    }
+
+    private static LocalDate requireDate(Map<String, ?> values, String field) {
+        Object value = values.get(field);
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is required (yyyy-MM-dd)");
+        }
+        return LocalDate.parse(value.toString());
+    }
+
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + text);
+        }
+    }
+
+    private static int toInt(Object value, String field) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            return parseId((String) value);
+        }
+        throw new IllegalArgumentException(field + " must be a number");
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            if (body.isEmpty()) {
+                throw new IllegalArgumentException("JSON body is required");
+            }
+            return Json.parseObject(body);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * A request error that maps to a specific HTTP status
+     */
+    static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.hotelbooking.server;
+
+import com.hotelbooking.utils.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LoadTestClient class - closed-loop load generator for BookingServer
+ * Each simulated connection sends a request, waits for the response and sends the next one,
+ * cycling through the given URLs, until the test time is up. Prints throughput, latency
+ * percentiles and error counts in one line per run.
+ *
+ * Usage: LoadTestClient --url URL [--url URL ...] [--connections N] [--seconds S] [--warmup S]
+ * Defaults: 1000 connections, 30 seconds, 5 seconds of warm-up excluded from the figures.
+ * Tens of thousands of connections need a raised open-files limit (ulimit -n) on both sides.
+ */
+public class LoadTestClient {
+    private final List<URI> targets;
+    private final int connections;
+    private final long durationNanos;
+    private final long warmupNanos;
+
+    private final LatencyHistogram latency = new LatencyHistogram("loadtest.latency");
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder non2xx = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public LoadTestClient(List<URI> targets, int connections, long durationSeconds, long warmupSeconds) {
+        this.targets = targets;
+        this.connections = connections;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+    }
+
+    /**
+     * Main method - parse arguments and run one load test
+     */
+    public static void main(String[] args) throws InterruptedException {
+        List<URI> targets = new ArrayList<>();
+        int connections = 1000;
+        long seconds = 30;
+        long warmup = 5;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url":
+                    targets.add(URI.create(args[++i]));
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Long.parseLong(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (targets.isEmpty()) {
+            targets.add(URI.create("http://localhost:8080/api/health"));
+        }
+        System.out.println(new LoadTestClient(targets, connections, seconds, warmup).run());
+    }
+
+    /**
+     * Run the test and return the summary line
+     */
+    public String run() throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        List<HttpRequest> requests = new ArrayList<>(targets.size());
+        for (URI target : targets) {
+            requests.add(HttpRequest.newBuilder(target).timeout(Duration.ofSeconds(30)).GET().build());
+        }
+
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + warmupNanos;
+        long endNanos = measureFromNanos + durationNanos;
+        CountDownLatch done = new CountDownLatch(connections);
+        ExecutorService workers = BookingServer.newRequestExecutor();
+        for (int c = 0; c < connections; c++) {
+            int offset = c;
+            workers.execute(() -> {
+                try {
+                    runConnection(client, requests, offset, measureFromNanos, endNanos);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        workers.shutdown();
+
+        double seconds = durationNanos / 1e9;
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        return String.format(Locale.ROOT,
+                "connections=%d seconds=%.0f requests=%d throughput=%.1f req/s p50=%.2f ms p90=%.2f ms p99=%.2f ms max=%.2f ms non2xx=%d errors=%d",
+                connections, seconds, completed.sum(), completed.sum() / seconds,
+                snapshot.getP50Nanos() / 1e6, snapshot.getP90Nanos() / 1e6, snapshot.getP99Nanos() / 1e6,
+                snapshot.getMaxNanos() / 1e6, non2xx.sum(), failures.sum());
+    }
+
+    private void runConnection(HttpClient client, List<HttpRequest> requests, int offset,
+                               long measureFromNanos, long endNanos) {
+        int next = offset;
+        long now;
+        while ((now = System.nanoTime()) < endNanos) {
+            HttpRequest request = requests.get(next++ % requests.size());
+            boolean measured = now >= measureFromNanos;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (measured) {
+                    latency.recordSince(now);
+                    completed.increment();
+                    if (response.statusCode() / 100 != 2) {
+                        non2xx.increment();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (measured) {
+                    failures.increment();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.BookingBatch;
+import com.hotelbooking.utils.BookingArchive;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.DatabaseConnection;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDate;
+
+/**
+ * ArchiveService class for moving historical bookings out of the live bookings table
+ * Old rows are appended to the columnar BookingArchive and then deleted, keeping the live table small
+ */
+public class ArchiveService {
+    private BookingArchive archive;
+
+    private static final AppLogger LOG = AppLogger.getLogger(ArchiveService.class);
+
+    public ArchiveService() {
+        this(BookingArchive.getDefault());
+    }
+
+    public ArchiveService(BookingArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Archive every booking whose check-out date is before the cutoff
+     * The delete is only committed after the archive append has been forced to disk,
+     * so a failure at any point leaves each booking in the live table, the archive, or both (never neither)
+     * @param cutoff bookings that checked out before this date are archived
+     * @return number of bookings moved, or -1 on failure
+     */
+    public int archiveBookingsBefore(LocalDate cutoff) {
+        String selectSql = "SELECT " + BookingService.BATCH_COLUMNS + " FROM bookings WHERE check_out_date < ? FOR UPDATE";
+        String deleteSql = "DELETE FROM bookings WHERE booking_id = ?";
+
+        try (Connection connection = DatabaseConnection.borrowConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                BookingBatch bookings = new BookingBatch();
+                try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+                    statement.setDate(1, Date.valueOf(cutoff));
+
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        BookingService.fillBatch(resultSet, bookings);
+                    }
+                }
+
+                if (bookings.isEmpty()) {
+                    connection.commit();
+                    LOG.info("No bookings to archive before " + cutoff);
+                    return 0;
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(deleteSql)) {
+                    for (int i = 0; i < bookings.size(); i++) {
+                        statement.setInt(1, bookings.getBookingId(i));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+
+                int appended = archive.append(bookings);
+                connection.commit();
+                BookingService.dataChanged();
+
+                LOG.info("Archived " + bookings.size() + " bookings before " + cutoff +
+                         " (" + appended + " new archive rows)");
+                return bookings.size();
+
+            } catch (SQLException | IOException e) {
+                LOG.error("Error archiving bookings: " + e.getMessage());
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    LOG.error("Error rolling back archival: " + rollbackError.getMessage());
+                }
+                return -1;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOG.error("Error archiving bookings: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Release resources held by this service
+     * The connection goes back to the pool after every archival run, so there is nothing left to close
+     */
+    public void close() {
+        // Nothing to release
+    }
+}
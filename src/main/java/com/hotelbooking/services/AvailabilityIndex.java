@@ -0,0 +1,748 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.LedgerEntry;
+import com.hotelbooking.model.Property;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.Metrics;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AvailabilityIndex class - in-memory booking calendar derived from the room_nights table
+ * Each room has a BitSet with one bit per night (set = booked), so "is this room free for these
+ * dates" is a nextSetBit scan instead of a query. A "free tonight" set is maintained incrementally
+ * on every booking and cancellation, and a daily rollover job swaps in the next night's status,
+ * which it precomputes ahead of midnight.
+ *
+ * Rooms are partitioned by property: each property has its own room list and tonight/tomorrow
+ * sets, so property-scoped searches and the rollover of one property never scan another's rooms.
+ * Room-keyed lookups go straight to the room's calendar, whatever its property.
+ *
+ * Bookings made by other processes reach the index through the booking ledger: a daemon thread
+ * polls for entries past the last sequence read and replays them onto the calendars. Sequences
+ * skipped on the way (inserts not yet committed) are remembered and looked up again on every poll;
+ * a late entry reloads its rooms from room_nights instead of being replayed out of order. Until
+ * then the index may be stale, so callers still check room_nights before writing; when that
+ * check or the insert hits a conflict, the room's nights are reloaded from the table.
+ *
+ * A room the index has not seen is placed under the property named by its ledger entry, or the
+ * one in the rooms table; a room registered under the wrong property is moved when that is known.
+ *
+ * Configuration:
+ *   -Dhotel.availability.sync.ms=1000    ledger poll interval (0 disables the poll)
+ *   -Dhotel.availability.gap.ms=60000    how long a missing ledger sequence is waited for
+ */
+public class AvailabilityIndex {
+    // Nights further back than this are not indexed (the past never changes availability)
+    private static final int HISTORY_DAYS = 31;
+    private static final long SYNC_MILLIS = Long.getLong("hotel.availability.sync.ms", 1000);
+    private static final long GAP_WAIT_MILLIS = Long.getLong("hotel.availability.gap.ms", 60_000);
+    private static final int SYNC_BATCH = 1000;
+    // Missing sequences remembered at most; the oldest are given up first
+    private static final int MAX_MISSING = 10_000;
+
+    private static final String SYNC_SQL =
+            "SELECT sequence, event_type, room_number, previous_room, property_id, check_in_day, check_out_day " +
+            "FROM booking_ledger WHERE sequence > ? ORDER BY sequence LIMIT " + SYNC_BATCH;
+    private static final String LATE_SQL =
+            "SELECT sequence, event_type, room_number, previous_room, property_id FROM booking_ledger WHERE sequence IN ";
+    private static final String PRESENT_SQL =
+            "SELECT sequence FROM booking_ledger WHERE sequence > ? AND sequence <= ?";
+
+    private static final LongAdder entriesSynced = Metrics.counter("availability.synced");
+    private static final LongAdder roomsReloaded = Metrics.counter("availability.roomsReloaded");
+    private static final LongAdder lateEntries = Metrics.counter("availability.lateEntries");
+
+    private static AvailabilityIndex instance = null;
+
+    private static final AppLogger LOG = AppLogger.getLogger(AvailabilityIndex.class);
+
+    private final Map<Integer, BitSet> nightsByRoom = new ConcurrentHashMap<>();
+    private final Map<Integer, Partition> partitions = new ConcurrentHashMap<>();
+    private final Map<Integer, Partition> partitionOfRoom = new ConcurrentHashMap<>();
+    private volatile int tonight;
+    private volatile int baseDay;
+
+    // Ledger position: every entry up to readSequence has been applied, except the missing sequences,
+    // which are mapped to the time they were first found missing
+    private long readSequence;
+    private final TreeMap<Long, Long> missingSequences = new TreeMap<>();
+
+    private ScheduledExecutorService rolloverExecutor = null;
+    private ScheduledExecutorService syncExecutor = null;
+
+    public AvailabilityIndex() {
+        this.tonight = (int) LocalDate.now().toEpochDay();
+        this.baseDay = tonight - HISTORY_DAYS;
+    }
+
+    /**
+     * Returns the shared index, loading it from the database and starting the rollover job on first use
+     */
+    public static synchronized AvailabilityIndex getInstance() {
+        if (instance == null) {
+            instance = new AvailabilityIndex();
+            instance.reload();
+            instance.startDailyRollover();
+            instance.startLedgerSync();
+            Metrics.gauge("availability.rooms", instance.nightsByRoom::size);
+            Metrics.gauge("availability.freeTonight", instance::countFreeTonight);
+            Metrics.gauge("availability.properties", instance.partitions::size);
+        }
+        return instance;
+    }
+
+    /**
+     * Rebuild the calendar from the rooms and room_nights tables
+     */
+    public synchronized void reload() {
+        String sequenceSql = "SELECT COALESCE(MAX(sequence), 0) FROM booking_ledger";
+        String roomsSql = "SELECT room_number, property_id FROM rooms";
+        String nightsSql = "SELECT room_number, DATEDIFF(night, '1970-01-01') FROM room_nights WHERE night >= ?";
+
+        int today = (int) LocalDate.now().toEpochDay();
+        Map<Integer, BitSet> loaded = new ConcurrentHashMap<>();
+        Map<Integer, Integer> propertyOfRoom = new HashMap<>();
+
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement sequenceStatement = connection.prepareStatement(sequenceSql);
+             PreparedStatement presentStatement = connection.prepareStatement(PRESENT_SQL);
+             PreparedStatement roomsStatement = connection.prepareStatement(roomsSql);
+             PreparedStatement nightsStatement = connection.prepareStatement(nightsSql)) {
+
+            // Read the ledger position first: entries committed while the tables load are applied again, harmlessly.
+            // Sequences below it that are not in the ledger yet may still commit, so they start out missing.
+            long sequence;
+            try (ResultSet resultSet = sequenceStatement.executeQuery()) {
+                resultSet.next();
+                sequence = resultSet.getLong(1);
+            }
+            long settled = Math.max(LedgerReplay.getSettledSequence(0, sequence), sequence - MAX_MISSING);
+            Set<Long> present = new HashSet<>();
+            presentStatement.setLong(1, settled);
+            presentStatement.setLong(2, sequence);
+            try (ResultSet resultSet = presentStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    present.add(resultSet.getLong(1));
+                }
+            }
+
+            try (ResultSet resultSet = roomsStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    loaded.put(resultSet.getInt(1), new BitSet());
+                    propertyOfRoom.put(resultSet.getInt(1), resultSet.getInt(2));
+                }
+            }
+
+            int newBaseDay = today - HISTORY_DAYS;
+            nightsStatement.setDate(1, Date.valueOf(LocalDate.ofEpochDay(newBaseDay)));
+            try (ResultSet resultSet = nightsStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    BitSet nights = loaded.computeIfAbsent(resultSet.getInt(1), room -> new BitSet());
+                    nights.set(resultSet.getInt(2) - newBaseDay);
+                }
+            }
+
+            nightsByRoom.clear();
+            nightsByRoom.putAll(loaded);
+            partitions.clear();
+            partitionOfRoom.clear();
+            for (Map.Entry<Integer, BitSet> entry : loaded.entrySet()) {
+                Integer propertyId = propertyOfRoom.get(entry.getKey());
+                register(propertyId != null ? propertyId : Property.DEFAULT_ID, entry.getKey());
+            }
+            baseDay = newBaseDay;
+            tonight = today;
+            for (Partition partition : partitions.values()) {
+                rebuildTonight(partition);
+                partition.freeTomorrow = computeFreeOn(partition, today + 1);
+            }
+            readSequence = sequence;
+            missingSequences.clear();
+            long now = System.currentTimeMillis();
+            for (long missing = settled + 1; missing <= sequence; missing++) {
+                if (!present.contains(missing)) {
+                    missingSequences.put(missing, now);
+                }
+            }
+            LOG.info("Availability index loaded: " + loaded.size() + " rooms in " + partitions.size() +
+                     " properties, " + countFreeTonight() + " free tonight, " + missingSequences.size() +
+                     " ledger sequences pending");
+
+        } catch (SQLException e) {
+            LOG.error("Error loading availability index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replace one room's calendar with its rows in room_nights
+     * Used when a write found the room taken although the index had it free - another process booked it.
+     */
+    public void reloadRoom(int roomNumber) {
+        String sql = "SELECT DATEDIFF(night, '1970-01-01') FROM room_nights WHERE room_number = ? AND night >= ?";
+
+        int base = baseDay;
+        BitSet loaded = new BitSet();
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, roomNumber);
+            statement.setDate(2, Date.valueOf(LocalDate.ofEpochDay(base)));
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    loaded.set(resultSet.getInt(1) - base);
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reloading availability of room " + roomNumber + ": " + e.getMessage());
+            return;
+        }
+
+        BitSet nights = nightsByRoom.computeIfAbsent(roomNumber, room -> new BitSet());
+        synchronized (nights) {
+            nights.clear();
+            nights.or(loaded);
+        }
+        refreshViews(partitionFor(roomNumber, 0), roomNumber);
+        roomsReloaded.increment();
+        LOG.info("Availability of room " + roomNumber + " reloaded: " + loaded.cardinality() + " nights booked");
+    }
+
+    /**
+     * Apply ledger entries written since the last poll, by this process or any other
+     * Replaying an entry this process already applied is harmless: it sets or clears the same nights.
+     * A sequence skipped by the poll is an insert still in flight or rolled back; it is looked up again
+     * on later polls until it appears or hotel.availability.gap.ms passes. A late entry may depend on
+     * entries already applied after it, so its rooms are reloaded from room_nights rather than replayed.
+     * @return number of entries applied
+     */
+    public synchronized int syncFromLedger() {
+        List<Change> changes = new ArrayList<>();
+        List<Change> late = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(SYNC_SQL)) {
+            statement.setLong(1, readSequence);
+
+            long sequence = readSequence;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long next = resultSet.getLong(1);
+                    for (long missing = sequence + 1; missing < next; missing++) {
+                        missingSequences.put(missing, now);
+                    }
+                    sequence = next;
+                    changes.add(new Change(resultSet.getByte(2), resultSet.getInt(3), resultSet.getInt(4),
+                                           resultSet.getInt(5), resultSet.getInt(6), resultSet.getInt(7)));
+                }
+            }
+            readSequence = sequence;
+            expireMissing(now);
+
+            if (!missingSequences.isEmpty()) {
+                readLate(connection, late);
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error syncing availability index from the ledger: " + e.getMessage());
+            return 0;
+        }
+
+        // Applied with the connection returned, as an unknown room's property may be looked up
+        for (Change change : changes) {
+            apply(change);
+        }
+        for (Change change : late) {
+            if (change.eventType == LedgerEntry.ROOM_AVAILABILITY_CHANGED) {
+                addRoom(change.propertyId, change.roomNumber);
+                continue;
+            }
+            partitionFor(change.roomNumber, change.propertyId);
+            reloadRoom(change.roomNumber);
+            if (change.eventType == LedgerEntry.BOOKING_MOVED) {
+                reloadRoom(change.previousRoom);
+            }
+        }
+        lateEntries.add(late.size());
+        entriesSynced.add(changes.size() + late.size());
+        return changes.size() + late.size();
+    }
+
+    /**
+     * Register a room under its property, or move an already known room to it
+     */
+    public void addRoom(int propertyId, int roomNumber) {
+        nightsByRoom.putIfAbsent(roomNumber, new BitSet());
+        refreshViews(partitionFor(roomNumber, propertyId), roomNumber);
+    }
+
+    /**
+     * Property the room belongs to, or 0 if the room is unknown
+     */
+    public int getPropertyOf(int roomNumber) {
+        Partition partition = partitionOfRoom.get(roomNumber);
+        return partition != null ? partition.propertyId : 0;
+    }
+
+    /**
+     * Properties that have at least one room, in ID order
+     */
+    public Set<Integer> getPropertyIds() {
+        return new TreeSet<>(partitions.keySet());
+    }
+
+    /**
+     * Number of rooms of a property
+     */
+    public int getRoomCount(int propertyId) {
+        Partition partition = partitions.get(propertyId);
+        return partition != null ? partition.rooms.size() : 0;
+    }
+
+    /**
+     * True if no night in [checkInDate, checkOutDate) is booked
+     */
+    public boolean isFree(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate) {
+        BitSet nights = nightsByRoom.get(roomNumber);
+        if (nights == null) {
+            return false; // unknown room
+        }
+        int from = Math.max((int) checkInDate.toEpochDay() - baseDay, 0);
+        int to = (int) checkOutDate.toEpochDay() - baseDay;
+        if (to <= from) {
+            return true;
+        }
+        synchronized (nights) {
+            int booked = nights.nextSetBit(from);
+            return booked < 0 || booked >= to;
+        }
+    }
+
+    /**
+     * Number of free nights between the previous booked night (or tonight) and the check-in date
+     * @param limit value returned when the gap is at least this long
+     */
+    int freeNightsBefore(int roomNumber, LocalDate checkInDate, int limit) {
+        BitSet nights = nightsByRoom.get(roomNumber);
+        int in = (int) checkInDate.toEpochDay();
+        int earliest = Math.max(tonight, in - limit);
+        if (nights == null || in <= earliest) {
+            return Math.max(in - earliest, 0);
+        }
+        synchronized (nights) {
+            int booked = nights.previousSetBit(in - 1 - baseDay);
+            return in - Math.max(booked + baseDay + 1, earliest);
+        }
+    }
+
+    /**
+     * Number of free nights between the check-out date and the next booked night
+     * @param limit value returned when the gap is at least this long (or there is no later booking)
+     */
+    int freeNightsAfter(int roomNumber, LocalDate checkOutDate, int limit) {
+        BitSet nights = nightsByRoom.get(roomNumber);
+        if (nights == null) {
+            return limit;
+        }
+        int from = (int) checkOutDate.toEpochDay() - baseDay;
+        synchronized (nights) {
+            int booked = nights.nextSetBit(Math.max(from, 0));
+            return booked < 0 ? limit : Math.min(booked - from, limit);
+        }
+    }
+
+    public boolean isFreeTonight(int roomNumber) {
+        Partition partition = partitionOfRoom.get(roomNumber);
+        return partition != null && partition.freeTonight.contains(roomNumber);
+    }
+
+    /**
+     * Rooms of every property with no booking tonight, in room number order
+     */
+    public Set<Integer> getRoomsFreeTonight() {
+        Set<Integer> free = new TreeSet<>();
+        for (Partition partition : partitions.values()) {
+            free.addAll(partition.freeTonight);
+        }
+        return free;
+    }
+
+    /**
+     * Rooms of one property with no booking tonight, in room number order
+     */
+    public Set<Integer> getRoomsFreeTonight(int propertyId) {
+        Partition partition = partitions.get(propertyId);
+        return partition != null ? Collections.unmodifiableSet(partition.freeTonight) : Collections.emptySet();
+    }
+
+    /**
+     * Rooms of every property free for a whole stay, in room number order
+     */
+    public List<Integer> getRoomsFree(LocalDate checkInDate, LocalDate checkOutDate) {
+        List<Integer> free = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            collectFree(partition, checkInDate, checkOutDate, free);
+        }
+        free.sort(null);
+        return free;
+    }
+
+    /**
+     * Rooms of one property free for a whole stay, in room number order
+     */
+    public List<Integer> getRoomsFree(int propertyId, LocalDate checkInDate, LocalDate checkOutDate) {
+        List<Integer> free = new ArrayList<>();
+        Partition partition = partitions.get(propertyId);
+        if (partition != null) {
+            collectFree(partition, checkInDate, checkOutDate, free);
+        }
+        return free;
+    }
+
+    /**
+     * Record a committed booking
+     */
+    public void markBooked(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate) {
+        update(roomNumber, checkInDate, checkOutDate, true);
+    }
+
+    /**
+     * Record a cancelled booking
+     */
+    public void markReleased(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate) {
+        update(roomNumber, checkInDate, checkOutDate, false);
+    }
+
+    /**
+     * Advance "tonight" to the current date, using the precomputed next-night status
+     */
+    public synchronized void rollover() {
+        int today = (int) LocalDate.now().toEpochDay();
+        if (today == tonight) {
+            return;
+        }
+        boolean nextNight = today == tonight + 1;
+        tonight = today;
+        for (Partition partition : partitions.values()) {
+            if (nextNight) {
+                Set<Integer> next = partition.freeTomorrow;
+                partition.freeTonight.retainAll(next);
+                partition.freeTonight.addAll(next);
+            } else {
+                rebuildTonight(partition);
+            }
+            partition.freeTomorrow = computeFreeOn(partition, today + 1);
+        }
+        LOG.info("Availability rollover to " + LocalDate.ofEpochDay(today) + ": " + countFreeTonight() + " rooms free tonight");
+    }
+
+    /**
+     * Run rollover shortly after every midnight on a daemon thread
+     */
+    public synchronized void startDailyRollover() {
+        if (rolloverExecutor != null) {
+            return;
+        }
+        rolloverExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-rollover");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextRun = now.toLocalDate().plusDays(1).atTime(0, 0, 5);
+        rolloverExecutor.scheduleAtFixedRate(this::rollover,
+                Duration.between(now, nextRun).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Poll the booking ledger every hotel.availability.sync.ms on a daemon thread
+     */
+    public synchronized void startLedgerSync() {
+        if (SYNC_MILLIS <= 0 || syncExecutor != null) {
+            return;
+        }
+        syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncExecutor.scheduleWithFixedDelay(this::syncFromLedger, SYNC_MILLIS, SYNC_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void apply(Change change) {
+        int roomNumber = change.roomNumber;
+        int previousRoom = change.previousRoom;
+        LocalDate checkInDate = LocalDate.ofEpochDay(change.checkInDay);
+        LocalDate checkOutDate = LocalDate.ofEpochDay(change.checkOutDay);
+        if (change.eventType != LedgerEntry.ROOM_AVAILABILITY_CHANGED) {
+            partitionFor(roomNumber, change.propertyId);
+        }
+        switch (change.eventType) {
+            case LedgerEntry.BOOKING_CREATED:
+                markBooked(roomNumber, checkInDate, checkOutDate);
+                break;
+            case LedgerEntry.BOOKING_CANCELLED:
+                markReleased(roomNumber, checkInDate, checkOutDate);
+                break;
+            case LedgerEntry.BOOKING_MOVED:
+                markReleased(previousRoom, checkInDate, checkOutDate);
+                markBooked(roomNumber, checkInDate, checkOutDate);
+                break;
+            case LedgerEntry.ROOM_AVAILABILITY_CHANGED:
+                addRoom(change.propertyId, roomNumber);
+                break;
+            default:
+                LOG.warn("Unknown ledger event type " + change.eventType + " - not applied to the availability index");
+        }
+    }
+
+    // Give up on sequences missing longer than the gap wait, and on the oldest beyond MAX_MISSING
+    private void expireMissing(long now) {
+        int expired = 0;
+        while (!missingSequences.isEmpty()) {
+            Map.Entry<Long, Long> oldest = missingSequences.firstEntry();
+            if (missingSequences.size() <= MAX_MISSING && now - oldest.getValue() < GAP_WAIT_MILLIS) {
+                break;
+            }
+            missingSequences.pollFirstEntry();
+            expired++;
+        }
+        if (expired > 0) {
+            LOG.warn(expired + " ledger sequences never appeared - availability index skipping them");
+        }
+    }
+
+    // Look up missing sequences that have committed since, and stop waiting for them
+    private void readLate(Connection connection, List<Change> late) throws SQLException {
+        List<Long> wanted = new ArrayList<>();
+        for (Long sequence : missingSequences.keySet()) {
+            wanted.add(sequence);
+            if (wanted.size() == SYNC_BATCH) {
+                break;
+            }
+        }
+        StringBuilder sql = new StringBuilder(LATE_SQL).append('(');
+        for (int i = 0; i < wanted.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < wanted.size(); i++) {
+                statement.setLong(i + 1, wanted.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    missingSequences.remove(resultSet.getLong(1));
+                    late.add(new Change(resultSet.getByte(2), resultSet.getInt(3), resultSet.getInt(4),
+                                        resultSet.getInt(5), 0, 0));
+                }
+            }
+        }
+    }
+
+    private void update(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate, boolean booked) {
+        BitSet nights = nightsByRoom.computeIfAbsent(roomNumber, room -> new BitSet());
+        int from = Math.max((int) checkInDate.toEpochDay() - baseDay, 0);
+        int to = (int) checkOutDate.toEpochDay() - baseDay;
+        if (to <= from) {
+            return;
+        }
+        synchronized (nights) {
+            nights.set(from, to, booked);
+        }
+
+        // Incrementally maintain the tonight and tomorrow views of the room's property
+        Partition partition = partitionFor(roomNumber, 0);
+        int in = (int) checkInDate.toEpochDay();
+        int out = (int) checkOutDate.toEpochDay();
+        int night = tonight;
+        if (in <= night && night < out) {
+            if (booked) {
+                partition.freeTonight.remove(roomNumber);
+            } else {
+                partition.freeTonight.add(roomNumber);
+            }
+        }
+        if (in <= night + 1 && night + 1 < out) {
+            if (booked) {
+                partition.freeTomorrow.remove(roomNumber);
+            } else {
+                partition.freeTomorrow.add(roomNumber);
+            }
+        }
+    }
+
+    /**
+     * Partition of the room, registering or moving it when the property is new to the index
+     * @param propertyId property from a ledger entry, or 0 to keep the current one or look it up in rooms
+     */
+    private Partition partitionFor(int roomNumber, int propertyId) {
+        Partition current = partitionOfRoom.get(roomNumber);
+        if (current != null && (propertyId <= 0 || current.propertyId == propertyId)) {
+            return current;
+        }
+        int home = propertyId > 0 ? propertyId : lookUpProperty(roomNumber);
+        synchronized (partitionOfRoom) {
+            current = partitionOfRoom.get(roomNumber);
+            if (current != null && current.propertyId == home) {
+                return current;
+            }
+            if (current != null) {
+                current.rooms.remove(roomNumber);
+                current.freeTonight.remove(roomNumber);
+                current.freeTomorrow.remove(roomNumber);
+                LOG.info("Room " + roomNumber + " moved from property " + current.propertyId + " to " + home);
+            }
+            Partition partition = register(home, roomNumber);
+            refreshViews(partition, roomNumber);
+            return partition;
+        }
+    }
+
+    private int lookUpProperty(int roomNumber) {
+        String sql = "SELECT property_id FROM rooms WHERE room_number = ?";
+
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, roomNumber);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getInt(1);
+                }
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error looking up the property of room " + roomNumber + ": " + e.getMessage());
+        }
+        return Property.DEFAULT_ID;
+    }
+
+    // Set the room's tonight and tomorrow flags from its calendar
+    private void refreshViews(Partition partition, int roomNumber) {
+        BitSet nights = nightsByRoom.computeIfAbsent(roomNumber, room -> new BitSet());
+        boolean bookedTonight;
+        boolean bookedTomorrow;
+        synchronized (nights) {
+            bookedTonight = nights.get(tonight - baseDay);
+            bookedTomorrow = nights.get(tonight + 1 - baseDay);
+        }
+        if (bookedTonight) {
+            partition.freeTonight.remove(roomNumber);
+        } else {
+            partition.freeTonight.add(roomNumber);
+        }
+        if (bookedTomorrow) {
+            partition.freeTomorrow.remove(roomNumber);
+        } else {
+            partition.freeTomorrow.add(roomNumber);
+        }
+    }
+
+    private Partition register(int propertyId, int roomNumber) {
+        Partition partition = partitions.computeIfAbsent(propertyId, Partition::new);
+        partition.rooms.add(roomNumber);
+        partitionOfRoom.put(roomNumber, partition);
+        return partition;
+    }
+
+    private void collectFree(Partition partition, LocalDate checkInDate, LocalDate checkOutDate, List<Integer> free) {
+        for (Integer roomNumber : partition.rooms) {
+            if (isFree(roomNumber, checkInDate, checkOutDate)) {
+                free.add(roomNumber);
+            }
+        }
+    }
+
+    private long countFreeTonight() {
+        long free = 0;
+        for (Partition partition : partitions.values()) {
+            free += partition.freeTonight.size();
+        }
+        return free;
+    }
+
+    private void rebuildTonight(Partition partition) {
+        Set<Integer> free = computeFreeOn(partition, tonight);
+        partition.freeTonight.retainAll(free);
+        partition.freeTonight.addAll(free);
+    }
+
+    private Set<Integer> computeFreeOn(Partition partition, int epochDay) {
+        Set<Integer> free = new ConcurrentSkipListSet<>();
+        int index = epochDay - baseDay;
+        for (Integer roomNumber : partition.rooms) {
+            BitSet nights = nightsByRoom.get(roomNumber);
+            if (nights == null) {
+                continue;
+            }
+            synchronized (nights) {
+                if (!nights.get(index)) {
+                    free.add(roomNumber);
+                }
+            }
+        }
+        return free;
+    }
+
+    /**
+     * One ledger entry as the index applies it
+     */
+    private static final class Change {
+        final byte eventType;
+        final int roomNumber;
+        final int previousRoom;
+        final int propertyId;
+        final int checkInDay;
+        final int checkOutDay;
+
+        Change(byte eventType, int roomNumber, int previousRoom, int propertyId, int checkInDay, int checkOutDay) {
+            this.eventType = eventType;
+            this.roomNumber = roomNumber;
+            this.previousRoom = previousRoom;
+            this.propertyId = propertyId;
+            this.checkInDay = checkInDay;
+            this.checkOutDay = checkOutDay;
+        }
+    }
+
+    /**
+     * Rooms of one property and its tonight/tomorrow views
+     */
+    private static final class Partition {
+        final int propertyId;
+        final Set<Integer> rooms = new ConcurrentSkipListSet<>();
+        final Set<Integer> freeTonight = new ConcurrentSkipListSet<>();
+        volatile Set<Integer> freeTomorrow = new ConcurrentSkipListSet<>();
+
+        Partition(int propertyId) {
+            this.propertyId = propertyId;
+        }
+    }
+}
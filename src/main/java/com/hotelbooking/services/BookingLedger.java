@@ -0,0 +1,110 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.Booking;
+import com.hotelbooking.model.BookingEvent;
+import com.hotelbooking.model.LedgerEntry;
+import com.hotelbooking.utils.Metrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BookingLedger utility class appending to the booking_ledger table, the system of record
+ * Every change to bookings and rooms is written as an immutable ledger entry on the caller's
+ * connection, inside the same transaction as the change, together with the outbox event that
+ * announces it. The bookings and room_nights tables are projections kept in step by the services
+ * for fast queries; LedgerReplay rebuilds projections from the ledger alone.
+ */
+public class BookingLedger {
+    private static final String INSERT_SQL =
+            "INSERT INTO booking_ledger (event_type, booking_id, customer_id, room_number, previous_room, property_id, " +
+            "check_in_day, check_out_day, amount_cents, created_at_ms) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final LongAdder entriesWritten = Metrics.counter("ledger.written");
+
+    // Private constructor to prevent instantiation - Utility class pattern
+    private BookingLedger() {
+        // Utility class should not be instantiated
+    }
+
+    /**
+     * Entry for a new booking
+     */
+    static LedgerEntry created(Booking booking) {
+        return entry(LedgerEntry.BOOKING_CREATED, booking);
+    }
+
+    /**
+     * Entry for a cancelled booking
+     */
+    static LedgerEntry cancelled(Booking booking) {
+        return entry(LedgerEntry.BOOKING_CANCELLED, booking);
+    }
+
+    /**
+     * Entry for a booking re-assigned to another room of the same type
+     */
+    static LedgerEntry moved(int propertyId, int bookingId, int fromRoom, int toRoom,
+                             LocalDate checkInDate, LocalDate checkOutDate) {
+        return new LedgerEntry(0, LedgerEntry.BOOKING_MOVED, bookingId, 0, toRoom, fromRoom, propertyId,
+                               (int) checkInDate.toEpochDay(), (int) checkOutDate.toEpochDay(), 0,
+                               System.currentTimeMillis());
+    }
+
+    /**
+     * Entry for a room that became sellable
+     */
+    static LedgerEntry roomAvailable(int propertyId, int roomNumber) {
+        return new LedgerEntry(0, LedgerEntry.ROOM_AVAILABILITY_CHANGED, 0, 0, roomNumber, 0, propertyId, 0, 0, 0,
+                               System.currentTimeMillis());
+    }
+
+    /**
+     * Append one entry (and its outbox event) as part of the caller's transaction
+     */
+    static void append(Connection connection, LedgerEntry entry) throws SQLException {
+        appendAll(connection, Collections.singletonList(entry));
+    }
+
+    /**
+     * Append entries (and their outbox events) in one batch as part of the caller's transaction
+     */
+    static void appendAll(Connection connection, List<LedgerEntry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<BookingEvent> events = new ArrayList<>(entries.size());
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (LedgerEntry entry : entries) {
+                statement.setByte(1, entry.getEventType());
+                statement.setInt(2, entry.getBookingId());
+                statement.setInt(3, entry.getCustomerId());
+                statement.setInt(4, entry.getRoomNumber());
+                statement.setInt(5, entry.getPreviousRoom());
+                statement.setInt(6, entry.getPropertyId());
+                statement.setInt(7, entry.getCheckInDay());
+                statement.setInt(8, entry.getCheckOutDay());
+                statement.setLong(9, entry.getAmountCents());
+                statement.setLong(10, entry.getCreatedAtMillis());
+                statement.addBatch();
+                events.add(BookingOutbox.toEvent(entry));
+            }
+            statement.executeBatch();
+        }
+        BookingOutbox.appendAll(connection, events);
+        entriesWritten.add(entries.size());
+    }
+
+    private static LedgerEntry entry(byte eventType, Booking booking) {
+        return new LedgerEntry(0, eventType, booking.getBookingId(), booking.getCustomerId(), booking.getRoomNumber(), 0,
+                               booking.getPropertyId(),
+                               (int) booking.getCheckInDate().toEpochDay(), (int) booking.getCheckOutDate().toEpochDay(),
+                               booking.getTotalAmountCents(), System.currentTimeMillis());
+    }
+}
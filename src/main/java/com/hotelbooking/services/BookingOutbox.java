@@ -0,0 +1,86 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.BookingEvent;
+import com.hotelbooking.model.LedgerEntry;
+import com.hotelbooking.utils.Json;
+import com.hotelbooking.utils.Metrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BookingOutbox utility class writing booking events to the outbox_events table
+ * Events are inserted on the caller's connection, inside the transaction that changes the
+ * booking (by BookingLedger, next to the ledger entry they announce), so an event exists if and
+ * only if its change was committed. OutboxRelay streams them to downstream sinks afterwards.
+ */
+public class BookingOutbox {
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (event_type, booking_id, payload, created_at_ms) VALUES (?, ?, ?, ?)";
+
+    private static final LongAdder eventsWritten = Metrics.counter("outbox.written");
+
+    // Private constructor to prevent instantiation - Utility class pattern
+    private BookingOutbox() {
+        // Utility class should not be instantiated
+    }
+
+    /**
+     * The outbox event announcing a ledger entry
+     */
+    static BookingEvent toEvent(LedgerEntry entry) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        switch (entry.getEventType()) {
+            case LedgerEntry.BOOKING_MOVED:
+                payload.put("bookingId", entry.getBookingId());
+                payload.put("fromRoom", entry.getPreviousRoom());
+                payload.put("toRoom", entry.getRoomNumber());
+                payload.put("propertyId", entry.getPropertyId());
+                payload.put("checkIn", entry.getCheckInDate());
+                payload.put("checkOut", entry.getCheckOutDate());
+                break;
+            case LedgerEntry.ROOM_AVAILABILITY_CHANGED:
+                payload.put("roomNumber", entry.getRoomNumber());
+                payload.put("propertyId", entry.getPropertyId());
+                payload.put("available", true);
+                break;
+            default:
+                payload.put("bookingId", entry.getBookingId());
+                payload.put("customerId", entry.getCustomerId());
+                payload.put("roomNumber", entry.getRoomNumber());
+                payload.put("propertyId", entry.getPropertyId());
+                payload.put("checkIn", entry.getCheckInDate());
+                payload.put("checkOut", entry.getCheckOutDate());
+                if (entry.getEventType() == LedgerEntry.BOOKING_CREATED) {
+                    payload.put("totalAmountCents", entry.getAmountCents());
+                }
+        }
+        return new BookingEvent(0, LedgerEntry.typeName(entry.getEventType()), entry.getBookingId(),
+                                Json.write(payload), entry.getCreatedAtMillis());
+    }
+
+    /**
+     * Insert events in one batch as part of the caller's transaction
+     */
+    static void appendAll(Connection connection, List<BookingEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (BookingEvent event : events) {
+                statement.setString(1, event.getEventType());
+                statement.setInt(2, event.getBookingId());
+                statement.setString(3, event.getPayload());
+                statement.setLong(4, event.getCreatedAtMillis());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        eventsWritten.add(events.size());
+    }
+}
@@ -1,73 +1,408 @@
 package com.hotelbooking.services;
 
+import com.hotelbooking.events.OutboxRelay;
 import com.hotelbooking.model.Booking;
+import com.hotelbooking.model.BookingBatch;
+import com.hotelbooking.model.GroupBookingResult;
+import com.hotelbooking.model.LedgerEntry;
+import com.hotelbooking.model.Quote;
+import com.hotelbooking.model.Room;
+import com.hotelbooking.utils.BookingArchive;
+import com.hotelbooking.utils.AppLogger;
 import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.LatencyHistogram;
+import com.hotelbooking.utils.Metrics;
+import com.hotelbooking.utils.Money;
+import com.hotelbooking.utils.RowMapper;
+import com.hotelbooking.utils.SingleFlight;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * BookingService class for handling booking-related operations
  * Demonstrates OOP with database operations and business logic
  */
 public class BookingService {
-    private Connection connection;
+    private PricingEngine pricingEngine;
+    private QuoteCache quoteCache;
+    private RoomLockManager roomLocks;
+    private AvailabilityIndex availabilityIndex;
+
+    // Latency timers for every public method
+    private static final LatencyHistogram QUOTE_STAY_TIMER = Metrics.timer("BookingService.quoteStay");
+    private static final LatencyHistogram GET_QUOTE_TIMER = Metrics.timer("BookingService.getQuote");
+    private static final LatencyHistogram GET_ROOM_TYPE_QUOTE_TIMER = Metrics.timer("BookingService.getRoomTypeQuote");
+    private static final LatencyHistogram MAKE_BOOKING_TIMER = Metrics.timer("BookingService.makeBooking");
+    private static final LatencyHistogram MAKE_BOOKING_WITH_CUSTOMER_DETAILS_TIMER = Metrics.timer("BookingService.makeBookingWithCustomerDetails");
+    private static final LatencyHistogram MAKE_ROOM_TYPE_BOOKING_TIMER = Metrics.timer("BookingService.makeRoomTypeBooking");
+    private static final LatencyHistogram MAKE_GROUP_BOOKING_TIMER = Metrics.timer("BookingService.makeGroupBooking");
+    private static final LatencyHistogram GROUP_ALLOCATION_TIMER = Metrics.timer("booking.group.allocation");
+    private static final LatencyHistogram CANCEL_BOOKING_TIMER = Metrics.timer("BookingService.cancelBooking");
+    private static final LatencyHistogram CANCEL_BOOKINGS_TIMER = Metrics.timer("BookingService.cancelBookings");
+    private static final LatencyHistogram GET_BOOKINGS_BY_CUSTOMER_TIMER = Metrics.timer("BookingService.getBookingsByCustomer");
+    private static final LatencyHistogram GET_BOOKINGS_BY_PROPERTY_TIMER = Metrics.timer("BookingService.getBookingsByProperty");
+    private static final LatencyHistogram GET_BOOKINGS_BY_CUSTOMER_EMAIL_TIMER = Metrics.timer("BookingService.getBookingsByCustomerEmail");
+    private static final LatencyHistogram GET_BOOKING_HISTORY_BY_CUSTOMER_TIMER = Metrics.timer("BookingService.getBookingHistoryByCustomer");
+    private static final LatencyHistogram GET_ALL_BOOKINGS_TIMER = Metrics.timer("BookingService.getAllBookings");
+    private static final LatencyHistogram LOAD_ALL_BOOKINGS_TIMER = Metrics.timer("BookingService.loadAllBookings");
+    private static final LatencyHistogram GET_BOOKING_BY_ID_TIMER = Metrics.timer("BookingService.getBookingById");
+    private static final LatencyHistogram IS_ROOM_AVAILABLE_TIMER = Metrics.timer("BookingService.isRoomAvailable");
+    private static final LatencyHistogram DISPLAY_BOOKING_STATISTICS_TIMER = Metrics.timer("BookingService.displayBookingStatistics");
+
+    private static final AppLogger LOG = AppLogger.getLogger(BookingService.class);
+
+    // MySQL error code for a duplicate primary/unique key
+    private static final int DUPLICATE_KEY_ERROR = 1062;
+    private static final LongAdder bookingConflicts = Metrics.counter("booking.conflicts");
+
+    // Bumped on every committed write so screens can tell whether their copy is stale
+    private static final AtomicLong dataVersion = new AtomicLong();
+    // Concurrent availability checks of the same room and stay share one query
+    private static final SingleFlight<List<Object>, Boolean> availabilityChecks =
+            new SingleFlight<>("BookingService.isRoomAvailable.flight");
+    // Rooms tried by makeRoomTypeBooking before giving up
+    private static final int MAX_ASSIGNMENT_ATTEMPTS = 3;
+    // Allocations tried by makeGroupBooking - a conflict refreshes the index and allocates once more
+    private static final int MAX_GROUP_ATTEMPTS = 2;
+
+    // Explicit booking projection for batch and Booking reads, in the positional order used by
+    // fillBatch and BOOKING_MAPPER - dates, amount and status arrive as primitives (no Date/BigDecimal per row)
+    static final String BATCH_COLUMNS =
+            "booking_id, customer_id, room_number, " +
+            "DATEDIFF(check_in_date, '1970-01-01'), DATEDIFF(check_out_date, '1970-01-01'), " +
+            "CAST(ROUND(total_amount * 100) AS SIGNED), " +
+            "CASE WHEN status = 'CANCELLED' THEN " + BookingBatch.STATUS_CANCELLED +
+            " ELSE " + BookingBatch.STATUS_CONFIRMED + " END, " +
+            "property_id";
+
+    static final RowMapper<Booking> BOOKING_MAPPER = resultSet -> {
+        Booking booking = new Booking(resultSet.getInt(1),
+                                      resultSet.getInt(2),
+                                      resultSet.getInt(3),
+                                      LocalDate.ofEpochDay(resultSet.getInt(4)),
+                                      LocalDate.ofEpochDay(resultSet.getInt(5)),
+                                      BookingBatch.toStatus(resultSet.getByte(7)));
+        booking.setTotalAmountCents(resultSet.getLong(6));
+        booking.setPropertyId(resultSet.getInt(8));
+        return booking;
+    };
+
+    /**
+     * Counter that changes whenever bookings are created, cancelled, moved or archived
+     */
+    public static long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Record a committed change to the bookings table and wake the outbox relay for its events
+     */
+    static void dataChanged() {
+        dataVersion.incrementAndGet();
+        DatabaseConnection.recordWrite();
+        OutboxRelay.signal();
+    }
 
     public BookingService() {
-        this.connection = DatabaseConnection.getConnection();
+        // Connections are borrowed from the pool for each call
+        this.pricingEngine = PricingEngine.getInstance();
+        this.quoteCache = QuoteCache.getInstance();
+        this.roomLocks = RoomLockManager.getInstance();
+        this.availabilityIndex = AvailabilityIndex.getInstance();
+    }
+
+    /**
+     * Quote the total price of a stay using the dynamic pricing engine
+     * @param room Room from the catalog
+     * @param checkInDate Check-in date
+     * @param checkOutDate Check-out date
+     * @return Total price in cents
+     */
+    public long quoteStay(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        long startNanos = System.nanoTime();
+        try {
+            return pricingEngine.quote(room, checkInDate, checkOutDate);
+        } finally {
+            QUOTE_STAY_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Get availability and total price for a specific room, served from the quote cache when fresh
+     * @param room Room from the catalog
+     * @param checkInDate Check-in date
+     * @param checkOutDate Check-out date
+     * @return Quote for the stay
+     */
+    public Quote getQuote(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        long startNanos = System.nanoTime();
+        try {
+            return quoteCache.get(room.getPropertyId(), room.getRoomType(), room.getRoomNumber(), checkInDate, checkOutDate,
+                    () -> new Quote(room.getRoomNumber(), room.getRoomType(), checkInDate, checkOutDate,
+                            availabilityIndex.isFree(room.getRoomNumber(), checkInDate, checkOutDate),
+                            pricingEngine.quote(room, checkInDate, checkOutDate)));
+        } finally {
+            GET_QUOTE_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Get the cheapest available room of a type at the home property, served from the quote cache when fresh
+     * @param roomType Room type to quote
+     * @param checkInDate Check-in date
+     * @param checkOutDate Check-out date
+     * @return Quote naming the chosen room, or an unavailable quote if every room is taken
+     */
+    public Quote getRoomTypeQuote(String roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        return getRoomTypeQuote(PropertyService.getHomePropertyId(), roomType, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Get the cheapest available room of a type at a property, served from the quote cache when fresh
+     * @param propertyId Property to quote
+     * @param roomType Room type to quote
+     * @param checkInDate Check-in date
+     * @param checkOutDate Check-out date
+     * @return Quote naming the chosen room, or an unavailable quote if every room is taken
+     */
+    public Quote getRoomTypeQuote(int propertyId, String roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        long startNanos = System.nanoTime();
+        try {
+            return quoteCache.get(propertyId, roomType, QuoteCache.ANY_ROOM, checkInDate, checkOutDate, () -> {
+                // searchRoomSummaries keeps only rooms free for the stay and orders by price,
+                // so the first room is the cheapest available one
+                List<Room> freeRooms = new RoomService().searchRoomSummaries(propertyId, roomType, 0,
+                                                                             checkInDate, checkOutDate);
+                if (!freeRooms.isEmpty()) {
+                    Room room = freeRooms.get(0);
+                    return new Quote(room.getRoomNumber(), roomType, checkInDate, checkOutDate, true,
+                            pricingEngine.quote(room, checkInDate, checkOutDate));
+                }
+                return new Quote(QuoteCache.ANY_ROOM, roomType, checkInDate, checkOutDate, false, Money.ZERO);
+            });
+        } finally {
+            GET_ROOM_TYPE_QUOTE_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
      * Create a new booking
+     * The booking row and one room_nights row per night are inserted in one transaction;
+     * if another booking already holds any of those nights the insert fails on the
+     * primary key and the whole booking is rolled back. Within this JVM the check and the insert
+     * run under the room's lock, so concurrent callers for the same room queue instead of colliding
+     * The booking is room-locked: the guest asked for this room, so re-optimization never moves it
      * @param customerId The customer ID
      * @param roomNumber The room number
      * @param checkInDate Check-in date
      * @param checkOutDate Check-out date
-     * @param roomPrice Room price per night
-     * @return The created Booking object
+     * @return The created Booking object, or null if the room is taken or the insert failed
+     * @throws IllegalArgumentException if check-out is not after check-in
      */
     public Booking makeBooking(int customerId, int roomNumber, 
-                             LocalDate checkInDate, LocalDate checkOutDate, 
-                             double roomPrice) {
-        String sql = "INSERT INTO bookings (customer_id, room_number, check_in_date, check_out_date, total_amount, status) VALUES (?, ?, ?, ?, ?, ?)";
-        
+                             LocalDate checkInDate, LocalDate checkOutDate) {
+        long startNanos = System.nanoTime();
+        try {
+            validateStay(checkInDate, checkOutDate);
+            Room room = new RoomService().getRoomByNumber(roomNumber);
+            if (room == null) {
+                LOG.error("Error creating booking: room " + roomNumber + " not found");
+                return null;
+            }
+            return bookRoom(customerId, room, checkInDate, checkOutDate, true);
+        } finally {
+            MAKE_BOOKING_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Book a room of the requested type at the home property
+     * @param customerId The customer ID
+     * @param roomType Room type wanted
+     * @param checkInDate Check-in date
+     * @param checkOutDate Check-out date
+     * @return The created Booking object, or null if no room of the type could be booked
+     */
+    public Booking makeRoomTypeBooking(int customerId, String roomType,
+                                       LocalDate checkInDate, LocalDate checkOutDate) {
+        return makeRoomTypeBooking(customerId, PropertyService.getHomePropertyId(), roomType, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Book a room of the requested type at a property, letting the assignment optimizer pick the room that
+     * leaves the fewest unsellable gaps; the next best room is tried if the chosen one is taken
+     * @param customerId The customer ID
+     * @param propertyId Property to book at
+     * @param roomType Room type wanted
+     * @param checkInDate Check-in date
+     * @param checkOutDate Check-out date
+     * @return The created Booking object, or null if no room of the type could be booked
+     * @throws IllegalArgumentException if check-out is not after check-in
+     */
+    public Booking makeRoomTypeBooking(int customerId, int propertyId, String roomType,
+                                       LocalDate checkInDate, LocalDate checkOutDate) {
+        long startNanos = System.nanoTime();
+        try {
+            validateStay(checkInDate, checkOutDate);
+            Map<Integer, Room> freeRooms = new HashMap<>();
+            List<Integer> candidates = new ArrayList<>();
+            for (Room room : new RoomService().searchRoomSummaries(propertyId, roomType, 0, checkInDate, checkOutDate)) {
+                freeRooms.put(room.getRoomNumber(), room);
+                candidates.add(room.getRoomNumber());
+            }
+
+            List<Integer> ranked = RoomAssignmentOptimizer.getInstance().rankRooms(candidates, checkInDate, checkOutDate);
+            for (int attempt = 0; attempt < Math.min(ranked.size(), MAX_ASSIGNMENT_ATTEMPTS); attempt++) {
+                Booking booking = bookRoom(customerId, freeRooms.get(ranked.get(attempt)), checkInDate, checkOutDate, false);
+                if (booking != null) {
+                    return booking;
+                }
+            }
+
+            LOG.warn("No " + roomType + " room available at property " + propertyId + " from " +
+                     checkInDate + " to " + checkOutDate);
+            return null;
+        } finally {
+            MAKE_ROOM_TYPE_BOOKING_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Reject a stay of no nights before anything is priced or written
+     * @throws IllegalArgumentException if a date is missing or check-out is not after check-in
+     */
+    public static void validateStay(LocalDate checkInDate, LocalDate checkOutDate) {
+        if (checkInDate == null || checkOutDate == null) {
+            throw new IllegalArgumentException("check-in and check-out dates are required");
+        }
+        if (!checkOutDate.isAfter(checkInDate)) {
+            throw new IllegalArgumentException("check-out date must be after check-in date");
+        }
+    }
+
+    /**
+     * Check-and-book one room under its lock
+     * @param roomLocked true if the guest asked for this specific room
+     */
+    private Booking bookRoom(int customerId, Room room, LocalDate checkInDate, LocalDate checkOutDate,
+                             boolean roomLocked) {
+        int roomNumber = room.getRoomNumber();
+
+        // Calculate total amount from the nightly rate table (before a connection is held)
+        long totalAmountCents = pricingEngine.quote(room, checkInDate, checkOutDate);
+
+        try (RoomLockManager.Lease lease = roomLocks.lock(roomNumber, RoomLockManager.DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (lease == null) {
+                LOG.warn("Timed out waiting for room " + roomNumber + " - booking not made");
+                return null;
+            }
+
+            // Check-and-book: no other thread in this JVM can book the room between the check and the insert.
+            // Not coalesced - a shared lookup may have started before the previous holder's commit
+            if (!checkRoomNights(roomNumber, checkInDate, checkOutDate)) {
+                bookingConflicts.increment();
+                // The index may have offered the room because another process's booking has not reached it yet
+                availabilityIndex.reloadRoom(roomNumber);
+                LOG.warn("Room " + roomNumber + " is not available from " + checkInDate + " to " + checkOutDate);
+                return null;
+            }
+
+            try (Connection connection = DatabaseConnection.borrowConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    int bookingId = insertBooking(connection, customerId, room,
+                                                  checkInDate, checkOutDate, totalAmountCents, roomLocked);
+                    // Claims every night of the stay; an overlapping booking fails on the primary key
+                    reserveNights(connection, bookingId, roomNumber, checkInDate, checkOutDate);
+                    Booking booking = new Booking(bookingId, customerId, roomNumber, checkInDate, checkOutDate, Booking.STATUS_CONFIRMED);
+                    booking.setTotalAmountCents(totalAmountCents);
+                    booking.setPropertyId(room.getPropertyId());
+                    BookingLedger.append(connection, BookingLedger.created(booking));
+                    connection.commit();
+
+                    calendarChanged(roomNumber, true, checkInDate, checkOutDate);
+
+                    LOG.info("Booking created successfully! Booking ID: " + bookingId);
+                    return booking;
+
+                } catch (SQLException e) {
+                    connection.rollback();
+                    if (e.getErrorCode() == DUPLICATE_KEY_ERROR) {
+                        bookingConflicts.increment();
+                        availabilityIndex.reloadRoom(roomNumber);
+                        LOG.warn("Room " + roomNumber + " is already booked for some night between " +
+                                 checkInDate + " and " + checkOutDate + " - booking rejected");
+                        return null;
+                    }
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error creating booking: " + e.getMessage());
+            }
+        }
+    
+        return null;
+    }
+
+    /**
+     * Insert the booking row and return its generated ID
+     */
+    private int insertBooking(Connection connection, int customerId, Room room, LocalDate checkInDate,
+                              LocalDate checkOutDate, long totalAmountCents, boolean roomLocked) throws SQLException {
+        String sql = "INSERT INTO bookings (customer_id, room_number, check_in_date, check_out_date, total_amount, status, room_locked, property_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
         try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
-            // Calculate total amount
-            long numberOfDays = java.time.temporal.ChronoUnit.DAYS.between(checkInDate, checkOutDate);
-            double totalAmount = numberOfDays * roomPrice;
-            
             statement.setInt(1, customerId);
-            statement.setInt(2, roomNumber);
+            statement.setInt(2, room.getRoomNumber());
             statement.setDate(3, Date.valueOf(checkInDate));
             statement.setDate(4, Date.valueOf(checkOutDate));
-            statement.setDouble(5, totalAmount);
+            statement.setBigDecimal(5, Money.toDecimal(totalAmountCents));
             statement.setString(6, Booking.STATUS_CONFIRMED);
-            
-            int affectedRows = statement.executeUpdate();
-            
-            if (affectedRows > 0) {
-                // Get the generated booking ID
-                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        int bookingId = generatedKeys.getInt(1);
-                        
-                        // Update room availability
-                        updateRoomAvailability(roomNumber, false);
-                        
-                        System.out.println("✅ Booking created successfully! Booking ID: " + bookingId);
-                        return new Booking(bookingId, customerId, roomNumber, checkInDate, checkOutDate, Booking.STATUS_CONFIRMED);
-                    }
+            statement.setBoolean(7, roomLocked);
+            statement.setInt(8, room.getPropertyId());
+            statement.executeUpdate();
+
+            // Get the generated booking ID
+            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    return generatedKeys.getInt(1);
                 }
             }
-            
-        } catch (SQLException e) {
-            System.out.println("❌ Error creating booking: " + e.getMessage());
         }
-        
-        return null;
+        throw new SQLException("Booking insert returned no generated key");
+    }
+
+    /**
+     * Insert one room_nights row per night of the stay
+     */
+    private void reserveNights(Connection connection, int bookingId, int roomNumber,
+                               LocalDate checkInDate, LocalDate checkOutDate) throws SQLException {
+        String sql = "INSERT INTO room_nights (room_number, night, booking_id) VALUES (?, ?, ?)";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (LocalDate night = checkInDate; night.isBefore(checkOutDate); night = night.plusDays(1)) {
+                statement.setInt(1, roomNumber);
+                statement.setDate(2, Date.valueOf(night));
+                statement.setInt(3, bookingId);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
     }
 
     /**
@@ -78,61 +413,477 @@ public class BookingService {
      * @param roomNumber Room number
      * @param checkInDate Check-in date
      * @param checkOutDate Check-out date
-     * @param roomPrice Room price per night
      * @return The created Booking object
      */
     public Booking makeBooking(String customerName, String customerEmail, String customerPhone,
-                             int roomNumber, LocalDate checkInDate, LocalDate checkOutDate, 
-                             double roomPrice) {
+                             int roomNumber, LocalDate checkInDate, LocalDate checkOutDate) {
+        long startNanos = System.nanoTime();
         try {
-            // First, find or create customer
-            CustomerService customerService = new CustomerService();
-            int customerId = customerService.findOrCreateCustomer(customerName, customerEmail, customerPhone);
+            try {
+                // First, find or create customer
+                CustomerService customerService = new CustomerService();
+                int customerId = customerService.findOrCreateCustomer(customerName, customerEmail, customerPhone);
             
-            if (customerId > 0) {
-                return makeBooking(customerId, roomNumber, checkInDate, checkOutDate, roomPrice);
-            }
+                if (customerId > 0) {
+                    return makeBooking(customerId, roomNumber, checkInDate, checkOutDate);
+                }
             
-        } catch (Exception e) {
-            System.out.println("❌ Error in booking process: " + e.getMessage());
-        }
+            } catch (Exception e) {
+                LOG.error("Error in booking process: " + e.getMessage());
+            }
         
+            return null;
+        } finally {
+            MAKE_BOOKING_WITH_CUSTOMER_DETAILS_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Book several rooms for one customer in a single all-or-nothing operation
+     * Rooms are chosen from the availability index (cheapest free rooms of each type), locked
+     * together in ascending room order, and every booking plus its room_nights rows is inserted
+     * in one batched transaction. If any room turns out to be taken - by room_nights, checked under the
+     * locks, or by the insert itself - the rooms are refreshed in the index and the group is allocated
+     * once more before it is rejected.
+     * @param customerId The customer ID of the group organiser
+     * @param roomTypeMix Number of rooms wanted per room type
+     * @param checkInDate Check-in date
+     * @param checkOutDate Check-out date
+     * @return The outcome, including the time spent on allocation
+     */
+    public GroupBookingResult makeGroupBooking(int customerId, Map<String, Integer> roomTypeMix,
+                                               LocalDate checkInDate, LocalDate checkOutDate) {
+        return makeGroupBooking(customerId, PropertyService.getHomePropertyId(), roomTypeMix, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Book a group at one property, as makeGroupBooking does for the home property
+     * @param customerId The customer ID of the group organiser
+     * @param propertyId Property every room of the group is taken from
+     * @param roomTypeMix Number of rooms wanted per room type
+     * @param checkInDate Check-in date
+     * @param checkOutDate Check-out date
+     * @return The outcome, including the time spent on allocation
+     */
+    public GroupBookingResult makeGroupBooking(int customerId, int propertyId, Map<String, Integer> roomTypeMix,
+                                               LocalDate checkInDate, LocalDate checkOutDate) {
+        long startNanos = System.nanoTime();
+        long allocationNanos = 0;
+        try {
+            if (roomTypeMix.isEmpty() || !checkOutDate.isAfter(checkInDate)) {
+                return GroupBookingResult.rejected("empty room mix or invalid dates", 0, System.nanoTime() - startNanos);
+            }
+
+            String reason = null;
+            for (int attempt = 1; attempt <= MAX_GROUP_ATTEMPTS; attempt++) {
+                // Allocate: one query per room type, already filtered to rooms free for the stay
+                long allocationStart = System.nanoTime();
+                List<Room> allocated = new ArrayList<>();
+                String shortage = allocateGroup(propertyId, roomTypeMix, checkInDate, checkOutDate, allocated);
+                allocationNanos += System.nanoTime() - allocationStart;
+                if (shortage != null) {
+                    reason = shortage;
+                    break;
+                }
+                GROUP_ALLOCATION_TIMER.recordSince(allocationStart);
+
+                int[] roomNumbers = new int[allocated.size()];
+                long[] amounts = new long[allocated.size()];
+                for (int i = 0; i < roomNumbers.length; i++) {
+                    roomNumbers[i] = allocated.get(i).getRoomNumber();
+                    amounts[i] = pricingEngine.quote(allocated.get(i), checkInDate, checkOutDate);
+                }
+
+                boolean conflict = false;
+                try (RoomLockManager.Lease lease = roomLocks.lockAll(roomNumbers, RoomLockManager.DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (lease == null) {
+                        reason = "timed out waiting for room locks";
+                        break;
+                    }
+
+                    // Re-check room_nights itself: the index may not yet hold another process's bookings
+                    Set<Integer> taken = takenRooms(roomNumbers, checkInDate, checkOutDate);
+                    if (taken == null) {
+                        reason = "availability check failed";
+                        break;
+                    }
+                    if (!taken.isEmpty()) {
+                        conflict = true;
+                        for (int roomNumber : taken) {
+                            availabilityIndex.reloadRoom(roomNumber);
+                        }
+                        reason = "room(s) " + taken + " were booked while the group was being allocated";
+                    } else {
+                        List<Booking> bookings = null;
+                        try {
+                            bookings = insertGroup(customerId, propertyId, roomNumbers, amounts, checkInDate, checkOutDate);
+                        } catch (SQLException e) {
+                            if (e.getErrorCode() != DUPLICATE_KEY_ERROR) {
+                                LOG.error("Error creating group booking: " + e.getMessage());
+                                reason = "booking transaction failed";
+                                break;
+                            }
+                            // Some night was claimed between the check and the insert - which room is not reported
+                            conflict = true;
+                            for (int roomNumber : roomNumbers) {
+                                availabilityIndex.reloadRoom(roomNumber);
+                            }
+                            reason = "a room was booked while the group was being inserted";
+                        }
+                        if (bookings != null) {
+                            for (int i = 0; i < roomNumbers.length; i++) {
+                                availabilityIndex.markBooked(roomNumbers[i], checkInDate, checkOutDate);
+                            }
+                            dataChanged();
+                            for (Map.Entry<String, Integer> entry : roomTypeMix.entrySet()) {
+                                pricingEngine.occupancyChanged(propertyId, entry.getKey(), checkInDate, checkOutDate,
+                                                               entry.getValue());
+                                quoteCache.invalidate(propertyId, entry.getKey(), checkInDate, checkOutDate);
+                            }
+                            GroupBookingResult result = GroupBookingResult.booked(bookings, allocationNanos,
+                                                                                  System.nanoTime() - startNanos);
+                            LOG.info(result.toString());
+                            return result;
+                        }
+                    }
+                }
+
+                if (conflict) {
+                    bookingConflicts.increment();
+                    if (attempt < MAX_GROUP_ATTEMPTS) {
+                        LOG.info("Group booking for customer " + customerId + ": " + reason + " - allocating again");
+                    }
+                }
+            }
+
+            LOG.warn("Group booking for customer " + customerId + " rejected: " + reason);
+            return GroupBookingResult.rejected(reason, allocationNanos, System.nanoTime() - startNanos);
+        } finally {
+            MAKE_GROUP_BOOKING_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Pick the cheapest free rooms of each type of the mix
+     * @param allocated receives the rooms
+     * @return why the mix cannot be met, or null if every type had enough free rooms
+     */
+    private String allocateGroup(int propertyId, Map<String, Integer> roomTypeMix, LocalDate checkInDate,
+                                 LocalDate checkOutDate, List<Room> allocated) {
+        RoomService roomService = new RoomService();
+        for (Map.Entry<String, Integer> entry : roomTypeMix.entrySet()) {
+            int wanted = entry.getValue();
+            if (wanted <= 0) {
+                continue;
+            }
+            List<Room> freeRooms = roomService.searchRoomSummaries(propertyId, entry.getKey(), 0,
+                                                                   checkInDate, checkOutDate);
+            if (freeRooms.size() < wanted) {
+                return "only " + freeRooms.size() + " " + entry.getKey() + " room(s) free, " + wanted + " requested";
+            }
+            allocated.addAll(freeRooms.subList(0, wanted));
+        }
         return null;
     }
 
+    /**
+     * Rooms of the group with a booked night in the stay, read from room_nights in one query
+     * @return the taken rooms (empty if all are free), or null if the query failed
+     */
+    private Set<Integer> takenRooms(int[] roomNumbers, LocalDate checkInDate, LocalDate checkOutDate) {
+        StringBuilder sql = new StringBuilder("SELECT DISTINCT room_number FROM room_nights WHERE room_number IN (");
+        for (int i = 0; i < roomNumbers.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") AND night >= ? AND night < ?");
+
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (int roomNumber : roomNumbers) {
+                statement.setInt(index++, roomNumber);
+            }
+            statement.setDate(index++, Date.valueOf(checkInDate));
+            statement.setDate(index, Date.valueOf(checkOutDate));
+
+            Set<Integer> taken = new HashSet<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    taken.add(resultSet.getInt(1));
+                }
+            }
+            return taken;
+
+        } catch (SQLException e) {
+            LOG.error("Error checking group availability: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Insert every booking of a group and all of their room_nights rows in one transaction
+     * @return the bookings
+     * @throws SQLException after rolling back, with DUPLICATE_KEY_ERROR if a night was already taken
+     */
+    private List<Booking> insertGroup(int customerId, int propertyId, int[] roomNumbers, long[] amounts,
+                                      LocalDate checkInDate, LocalDate checkOutDate) throws SQLException {
+        String bookingSql = "INSERT INTO bookings (customer_id, room_number, check_in_date, check_out_date, total_amount, status, property_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String nightsSql = "INSERT INTO room_nights (room_number, night, booking_id) VALUES (?, ?, ?)";
+
+        try (Connection connection = DatabaseConnection.borrowConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int[] bookingIds = new int[roomNumbers.length];
+                try (PreparedStatement statement = connection.prepareStatement(bookingSql, Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < roomNumbers.length; i++) {
+                        statement.setInt(1, customerId);
+                        statement.setInt(2, roomNumbers[i]);
+                        statement.setDate(3, Date.valueOf(checkInDate));
+                        statement.setDate(4, Date.valueOf(checkOutDate));
+                        statement.setBigDecimal(5, Money.toDecimal(amounts[i]));
+                        statement.setString(6, Booking.STATUS_CONFIRMED);
+                        statement.setInt(7, propertyId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    // Generated keys come back in batch order
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                        for (int i = 0; i < bookingIds.length; i++) {
+                            if (!generatedKeys.next()) {
+                                throw new SQLException("Group insert returned " + i + " keys for " + bookingIds.length + " bookings");
+                            }
+                            bookingIds[i] = generatedKeys.getInt(1);
+                        }
+                    }
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(nightsSql)) {
+                    for (int i = 0; i < roomNumbers.length; i++) {
+                        for (LocalDate night = checkInDate; night.isBefore(checkOutDate); night = night.plusDays(1)) {
+                            statement.setInt(1, roomNumbers[i]);
+                            statement.setDate(2, Date.valueOf(night));
+                            statement.setInt(3, bookingIds[i]);
+                            statement.addBatch();
+                        }
+                    }
+                    // Any night already held by another booking fails the primary key and rolls back the group
+                    statement.executeBatch();
+                }
+
+                List<Booking> bookings = new ArrayList<>(roomNumbers.length);
+                List<LedgerEntry> entries = new ArrayList<>(roomNumbers.length);
+                for (int i = 0; i < roomNumbers.length; i++) {
+                    Booking booking = new Booking(bookingIds[i], customerId, roomNumbers[i], checkInDate, checkOutDate, Booking.STATUS_CONFIRMED);
+                    booking.setTotalAmountCents(amounts[i]);
+                    booking.setPropertyId(propertyId);
+                    bookings.add(booking);
+                    entries.add(BookingLedger.created(booking));
+                }
+                BookingLedger.appendAll(connection, entries);
+                connection.commit();
+                return bookings;
+
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
     /**
      * Cancel a booking
      * @param bookingId The booking ID to cancel
      * @return true if cancellation successful, false otherwise
      */
     public boolean cancelBooking(int bookingId) {
-        String sql = "UPDATE bookings SET status = ? WHERE booking_id = ? AND status = ?";
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "UPDATE bookings SET status = ? WHERE booking_id = ? AND status = ?";
+            String releaseSql = "DELETE FROM room_nights WHERE booking_id = ?";
+            Booking booking = getBookingById(bookingId);
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, Booking.STATUS_CANCELLED);
-            statement.setInt(2, bookingId);
-            statement.setString(3, Booking.STATUS_CONFIRMED);
+            if (booking == null) {
+                LOG.warn("Booking " + bookingId + " not found or already cancelled!");
+                return false;
+            }
+
+            try (RoomLockManager.Lease lease = roomLocks.lock(booking.getRoomNumber(), RoomLockManager.DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (lease == null) {
+                    LOG.warn("Timed out waiting for room " + booking.getRoomNumber() + " - booking " + bookingId + " not cancelled");
+                    return false;
+                }
+
+                try (Connection connection = DatabaseConnection.borrowConnection()) {
+                    int affectedRows;
+                    connection.setAutoCommit(false);
+                    try (PreparedStatement statement = connection.prepareStatement(sql);
+                         PreparedStatement releaseStatement = connection.prepareStatement(releaseSql)) {
+                        statement.setString(1, Booking.STATUS_CANCELLED);
+                        statement.setInt(2, bookingId);
+                        statement.setString(3, Booking.STATUS_CONFIRMED);
+                        affectedRows = statement.executeUpdate();
+
+                        // Free the nights in the same transaction so they can be rebooked immediately
+                        releaseStatement.setInt(1, bookingId);
+                        releaseStatement.executeUpdate();
+                        if (affectedRows > 0) {
+                            BookingLedger.append(connection, BookingLedger.cancelled(booking));
+                        }
+                        connection.commit();
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
             
-            int affectedRows = statement.executeUpdate();
+                    if (affectedRows > 0) {
+                        // Release the nights in the availability index
+                        calendarChanged(booking.getRoomNumber(), false,
+                                        booking.getCheckInDate(), booking.getCheckOutDate());
+                
+                        LOG.info("Booking " + bookingId + " cancelled successfully!");
+                        return true;
+                    } else {
+                        LOG.warn("Booking " + bookingId + " not found or already cancelled!");
+                    }
             
-            if (affectedRows > 0) {
-                // Get room number to make it available again
-                int roomNumber = getRoomNumberFromBooking(bookingId);
-                if (roomNumber > 0) {
-                    updateRoomAvailability(roomNumber, true);
+                } catch (SQLException e) {
+                    LOG.error("Error cancelling booking: " + e.getMessage());
                 }
-                
-                System.out.println("✅ Booking " + bookingId + " cancelled successfully!");
-                return true;
-            } else {
-                System.out.println("❌ Booking " + bookingId + " not found or already cancelled!");
             }
-            
+        
+            return false;
+        } finally {
+            CANCEL_BOOKING_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Cancel many bookings at once
+     * The bookings are read in one query, their rooms locked together, and every status update and
+     * room_nights release runs as one batched transaction. Bookings that are unknown or already
+     * cancelled are skipped; if the transaction fails nothing is cancelled.
+     * @param bookingIds The booking IDs to cancel
+     * @return IDs of the bookings that were cancelled
+     */
+    public Set<Integer> cancelBookings(Collection<Integer> bookingIds) {
+        long startNanos = System.nanoTime();
+        try {
+            Set<Integer> cancelled = new LinkedHashSet<>();
+            List<Booking> bookings = getConfirmedBookings(bookingIds);
+            if (bookings.isEmpty()) {
+                return cancelled;
+            }
+
+            int[] roomNumbers = new int[bookings.size()];
+            for (int i = 0; i < roomNumbers.length; i++) {
+                roomNumbers[i] = bookings.get(i).getRoomNumber();
+            }
+
+            String sql = "UPDATE bookings SET status = ? WHERE booking_id = ? AND status = ?";
+            String releaseSql = "DELETE FROM room_nights WHERE booking_id = ?";
+
+            try (RoomLockManager.Lease lease = roomLocks.lockAll(roomNumbers, RoomLockManager.DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (lease == null) {
+                    LOG.warn("Timed out waiting for room locks - " + bookings.size() + " bookings not cancelled");
+                    return cancelled;
+                }
+
+                try (Connection connection = DatabaseConnection.borrowConnection()) {
+                    int[] affectedRows;
+                    connection.setAutoCommit(false);
+                    try (PreparedStatement statement = connection.prepareStatement(sql);
+                         PreparedStatement releaseStatement = connection.prepareStatement(releaseSql)) {
+                        for (Booking booking : bookings) {
+                            statement.setString(1, Booking.STATUS_CANCELLED);
+                            statement.setInt(2, booking.getBookingId());
+                            statement.setString(3, Booking.STATUS_CONFIRMED);
+                            statement.addBatch();
+                            releaseStatement.setInt(1, booking.getBookingId());
+                            releaseStatement.addBatch();
+                        }
+                        affectedRows = statement.executeBatch();
+                        releaseStatement.executeBatch();
+                        List<LedgerEntry> entries = new ArrayList<>();
+                        for (int i = 0; i < affectedRows.length; i++) {
+                            if (affectedRows[i] != 0) {
+                                entries.add(BookingLedger.cancelled(bookings.get(i)));
+                            }
+                        }
+                        BookingLedger.appendAll(connection, entries);
+                        connection.commit();
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+
+                    Map<Integer, Room> rooms = new HashMap<>();
+                    for (int i = 0; i < affectedRows.length; i++) {
+                        if (affectedRows[i] == 0) {
+                            continue;
+                        }
+                        Booking booking = bookings.get(i);
+                        cancelled.add(booking.getBookingId());
+                        availabilityIndex.markReleased(booking.getRoomNumber(), booking.getCheckInDate(), booking.getCheckOutDate());
+                        Room room = rooms.computeIfAbsent(booking.getRoomNumber(), roomNumber -> new RoomService().getRoomByNumber(roomNumber));
+                        if (room != null) {
+                            pricingEngine.occupancyChanged(room.getPropertyId(), room.getRoomType(),
+                                                           booking.getCheckInDate(), booking.getCheckOutDate(), -1);
+                            quoteCache.invalidate(room.getPropertyId(), room.getRoomType(), booking.getCheckInDate(), booking.getCheckOutDate());
+                        }
+                    }
+                    if (!cancelled.isEmpty()) {
+                        dataChanged();
+                    }
+                    LOG.info(cancelled.size() + " of " + bookingIds.size() + " bookings cancelled");
+
+                } catch (SQLException e) {
+                    LOG.error("Error cancelling bookings: " + e.getMessage());
+                }
+            }
+
+            return cancelled;
+        } finally {
+            CANCEL_BOOKINGS_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Read the confirmed bookings among the given IDs in one query
+     */
+    private List<Booking> getConfirmedBookings(Collection<Integer> bookingIds) {
+        List<Booking> bookings = new ArrayList<>();
+        if (bookingIds.isEmpty()) {
+            return bookings;
+        }
+        StringBuilder sql = new StringBuilder("SELECT " + BATCH_COLUMNS + " FROM bookings WHERE status = ? AND booking_id IN (");
+        for (int i = 0; i < bookingIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") ORDER BY booking_id");
+
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            statement.setString(1, Booking.STATUS_CONFIRMED);
+            int index = 2;
+            for (Integer bookingId : bookingIds) {
+                statement.setInt(index++, bookingId);
+            }
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                bookings = RowMapper.mapAll(resultSet, BOOKING_MAPPER);
+            }
+
         } catch (SQLException e) {
-            System.out.println("❌ Error cancelling booking: " + e.getMessage());
+            LOG.error("Error fetching bookings to cancel: " + e.getMessage());
         }
-        
-        return false;
+        return bookings;
     }
 
     /**
@@ -141,24 +892,63 @@ public class BookingService {
      * @return List of customer's bookings
      */
     public List<Booking> getBookingsByCustomer(int customerId) {
-        List<Booking> bookings = new ArrayList<>();
-        String sql = "SELECT * FROM bookings WHERE customer_id = ? ORDER BY check_in_date DESC";
+        long startNanos = System.nanoTime();
+        try {
+            List<Booking> bookings = new ArrayList<>();
+            String sql = "SELECT " + BATCH_COLUMNS + " FROM bookings WHERE customer_id = ? ORDER BY check_in_date DESC";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, customerId);
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, customerId);
             
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    Booking booking = extractBookingFromResultSet(resultSet);
-                    bookings.add(booking);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    bookings = RowMapper.mapAll(resultSet, BOOKING_MAPPER);
                 }
-            }
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error fetching customer bookings: " + e.getMessage());
-        }
+            } catch (SQLException e) {
+                LOG.error("Error fetching customer bookings: " + e.getMessage());
+            }
         
-        return bookings;
+            return bookings;
+        } finally {
+            GET_BOOKINGS_BY_CUSTOMER_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Get the bookings of one property with a stay overlapping a date range
+     * @param propertyId The property ID
+     * @param fromDate First night of the range
+     * @param toDate Day after the last night of the range
+     * @return List of the property's bookings, by check-in date
+     */
+    public List<Booking> getBookingsByProperty(int propertyId, LocalDate fromDate, LocalDate toDate) {
+        long startNanos = System.nanoTime();
+        try {
+            List<Booking> bookings = new ArrayList<>();
+            // idx_bookings_property keeps this to the property's own rows
+            String sql = "SELECT " + BATCH_COLUMNS + " FROM bookings " +
+                        "WHERE property_id = ? AND check_in_date < ? AND check_out_date > ? " +
+                        "ORDER BY check_in_date";
+
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, propertyId);
+                statement.setDate(2, Date.valueOf(toDate));
+                statement.setDate(3, Date.valueOf(fromDate));
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    bookings = RowMapper.mapAll(resultSet, BOOKING_MAPPER);
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error fetching bookings of property " + propertyId + ": " + e.getMessage());
+            }
+
+            return bookings;
+        } finally {
+            GET_BOOKINGS_BY_PROPERTY_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
@@ -167,26 +957,47 @@ public class BookingService {
      * @return List of customer's bookings
      */
     public List<Booking> getBookingsByCustomerEmail(String customerEmail) {
-        List<Booking> bookings = new ArrayList<>();
-        String sql = "SELECT b.* FROM bookings b " +
-                    "JOIN customers c ON b.customer_id = c.customer_id " +
-                    "WHERE c.email = ? ORDER BY b.check_in_date DESC";
+        long startNanos = System.nanoTime();
+        try {
+            List<Booking> bookings = new ArrayList<>();
+            // email is unique, so the subquery resolves to at most one customer_id
+            String sql = "SELECT " + BATCH_COLUMNS + " FROM bookings " +
+                        "WHERE customer_id = (SELECT customer_id FROM customers WHERE email = ?) " +
+                        "ORDER BY check_in_date DESC";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, customerEmail);
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, customerEmail);
             
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    Booking booking = extractBookingFromResultSet(resultSet);
-                    bookings.add(booking);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    bookings = RowMapper.mapAll(resultSet, BOOKING_MAPPER);
                 }
-            }
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error fetching bookings by email: " + e.getMessage());
-        }
+            } catch (SQLException e) {
+                LOG.error("Error fetching bookings by email: " + e.getMessage());
+            }
         
-        return bookings;
+            return bookings;
+        } finally {
+            GET_BOOKINGS_BY_CUSTOMER_EMAIL_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Get the full booking history for a customer, including archived bookings
+     * @param customerId The customer ID
+     * @return List of live and archived bookings, newest check-in first
+     */
+    public List<Booking> getBookingHistoryByCustomer(int customerId) {
+        long startNanos = System.nanoTime();
+        try {
+            List<Booking> bookings = getBookingsByCustomer(customerId);
+            bookings.addAll(BookingArchive.getDefault().findByCustomer(customerId));
+            bookings.sort((a, b) -> b.getCheckInDate().compareTo(a.getCheckInDate()));
+            return bookings;
+        } finally {
+            GET_BOOKING_HISTORY_BY_CUSTOMER_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
@@ -194,132 +1005,167 @@ public class BookingService {
      * @return List of all bookings
      */
     public List<Booking> getAllBookings() {
-        List<Booking> bookings = new ArrayList<>();
-        String sql = "SELECT * FROM bookings ORDER BY booking_id DESC";
+        long startNanos = System.nanoTime();
+        try {
+            List<Booking> bookings = new ArrayList<>();
+            String sql = "SELECT " + BATCH_COLUMNS + " FROM bookings ORDER BY booking_id DESC";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
             
-            while (resultSet.next()) {
-                Booking booking = extractBookingFromResultSet(resultSet);
-                bookings.add(booking);
-            }
+                bookings = RowMapper.mapAll(resultSet, BOOKING_MAPPER);
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error fetching all bookings: " + e.getMessage());
-        }
+            } catch (SQLException e) {
+                LOG.error("Error fetching all bookings: " + e.getMessage());
+            }
         
-        return bookings;
+            return bookings;
+        } finally {
+            GET_ALL_BOOKINGS_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
-     * Get booking by ID
-     * @param bookingId The booking ID
-     * @return Booking object if found, null otherwise
+     * Load all bookings into a primitive batch without creating a Booking object per row
+     * Dates, amounts and status are converted to primitives by the query itself
+     * @param batch The batch to fill (cleared first)
+     * @return number of rows loaded
      */
-    public Booking getBookingById(int bookingId) {
-        String sql = "SELECT * FROM bookings WHERE booking_id = ?";
-        
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, bookingId);
-            
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return extractBookingFromResultSet(resultSet);
-                }
+    public int loadAllBookings(BookingBatch batch) {
+        long startNanos = System.nanoTime();
+        try {
+            batch.clear();
+            String sql = "SELECT " + BATCH_COLUMNS + " FROM bookings ORDER BY booking_id";
+
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+
+                fillBatch(resultSet, batch);
+
+            } catch (SQLException e) {
+                LOG.error("Error loading booking batch: " + e.getMessage());
             }
-            
-        } catch (SQLException e) {
-            System.out.println("❌ Error fetching booking: " + e.getMessage());
+
+            return batch.size();
+        } finally {
+            LOAD_ALL_BOOKINGS_TIMER.recordSince(startNanos);
         }
-        
-        return null;
     }
 
     /**
-     * Update room availability
-     * @param roomNumber The room number
-     * @param isAvailable New availability status
+     * Append every row of a result set selected with BATCH_COLUMNS to a batch
      */
-    private void updateRoomAvailability(int roomNumber, boolean isAvailable) {
-        RoomService roomService = new RoomService();
-        roomService.updateRoomAvailability(roomNumber, isAvailable);
+    static void fillBatch(ResultSet resultSet, BookingBatch batch) throws SQLException {
+        while (resultSet.next()) {
+            batch.add(resultSet.getInt(1),
+                      resultSet.getInt(2),
+                      resultSet.getInt(3),
+                      resultSet.getInt(4),
+                      resultSet.getInt(5),
+                      resultSet.getLong(6),
+                      resultSet.getByte(7),
+                      resultSet.getInt(8));
+        }
     }
 
     /**
-     * Get room number from booking
+     * Get booking by ID
      * @param bookingId The booking ID
-     * @return Room number
+     * @return Booking object if found, null otherwise
      */
-    private int getRoomNumberFromBooking(int bookingId) {
-        String sql = "SELECT room_number FROM bookings WHERE booking_id = ?";
+    public Booking getBookingById(int bookingId) {
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "SELECT " + BATCH_COLUMNS + " FROM bookings WHERE booking_id = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, bookingId);
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, bookingId);
             
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return resultSet.getInt("room_number");
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return BOOKING_MAPPER.map(resultSet);
+                    }
                 }
-            }
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error getting room number from booking: " + e.getMessage());
-        }
+            } catch (SQLException e) {
+                LOG.error("Error fetching booking: " + e.getMessage());
+            }
         
-        return -1;
+            return null;
+        } finally {
+            GET_BOOKING_BY_ID_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
-     * Extract Booking object from ResultSet
+     * Apply a committed booking or cancellation to the availability index and the rate tables,
+     * and discard quotes affected by the changed stay
+     * @param roomNumber The room number
+     * @param booked true for a new booking, false for a cancellation
+     * @param checkInDate First night of the booked or cancelled stay
+     * @param checkOutDate Departure date of the booked or cancelled stay
      */
-    private Booking extractBookingFromResultSet(ResultSet resultSet) throws SQLException {
-        int bookingId = resultSet.getInt("booking_id");
-        int customerId = resultSet.getInt("customer_id");
-        int roomNumber = resultSet.getInt("room_number");
-        LocalDate checkInDate = resultSet.getDate("check_in_date").toLocalDate();
-        LocalDate checkOutDate = resultSet.getDate("check_out_date").toLocalDate();
-        double totalAmount = resultSet.getDouble("total_amount");
-        String status = resultSet.getString("status");
-        
-        Booking booking = new Booking(bookingId, customerId, roomNumber, checkInDate, checkOutDate, status);
-        booking.setTotalAmount(totalAmount);
-        
-        return booking;
+    private void calendarChanged(int roomNumber, boolean booked, LocalDate checkInDate, LocalDate checkOutDate) {
+        dataChanged();
+        if (booked) {
+            availabilityIndex.markBooked(roomNumber, checkInDate, checkOutDate);
+        } else {
+            availabilityIndex.markReleased(roomNumber, checkInDate, checkOutDate);
+        }
+
+        Room room = new RoomService().getRoomByNumber(roomNumber);
+        if (room != null) {
+            pricingEngine.occupancyChanged(room.getPropertyId(), room.getRoomType(), checkInDate, checkOutDate,
+                                           booked ? 1 : -1);
+            quoteCache.invalidate(room.getPropertyId(), room.getRoomType(), checkInDate, checkOutDate);
+        }
     }
 
     /**
      * Check if room is available for given dates
+     * Concurrent checks of the same room and dates share one query
      * @param roomNumber The room number
      * @param checkInDate Check-in date
      * @param checkOutDate Check-out date
      * @return true if available, false otherwise
      */
     public boolean isRoomAvailable(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate) {
-        String sql = "SELECT COUNT(*) FROM bookings " +
-                    "WHERE room_number = ? AND status = 'CONFIRMED' " +
-                    "AND ((check_in_date BETWEEN ? AND ?) OR (check_out_date BETWEEN ? AND ?) " +
-                    "OR (check_in_date <= ? AND check_out_date >= ?))";
-        
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        long startNanos = System.nanoTime();
+        try {
+            return availabilityChecks.execute(List.of(roomNumber, checkInDate, checkOutDate),
+                                             () -> checkRoomNights(roomNumber, checkInDate, checkOutDate));
+        } finally {
+            IS_ROOM_AVAILABLE_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * True if the room has no booked night in the stay, always with a query of its own
+     */
+    private boolean checkRoomNights(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate) {
+        // Range scan on the (room_number, night) primary key of the reservation table
+        String sql = "SELECT COUNT(*) FROM room_nights " +
+                    "WHERE room_number = ? AND night >= ? AND night < ?";
+    
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setInt(1, roomNumber);
             statement.setDate(2, Date.valueOf(checkInDate));
-            statement.setDate(3, Date.valueOf(checkOutDate.minusDays(1)));
-            statement.setDate(4, Date.valueOf(checkInDate.plusDays(1)));
-            statement.setDate(5, Date.valueOf(checkOutDate));
-            statement.setDate(6, Date.valueOf(checkInDate));
-            statement.setDate(7, Date.valueOf(checkOutDate));
-            
+            statement.setDate(3, Date.valueOf(checkOutDate));
+        
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
                     return resultSet.getInt(1) == 0;
                 }
             }
-            
+        
         } catch (SQLException e) {
-            System.out.println("❌ Error checking room availability: " + e.getMessage());
+            LOG.error("Error checking room availability: " + e.getMessage());
         }
-        
+    
         return false;
     }
 
@@ -327,33 +1173,49 @@ public class BookingService {
      * Get booking statistics
      */
     public void displayBookingStatistics() {
-        String sql = "SELECT " +
-                    "COUNT(*) as total_bookings, " +
-                    "COUNT(CASE WHEN status = 'CONFIRMED' THEN 1 END) as confirmed_bookings, " +
-                    "COUNT(CASE WHEN status = 'CANCELLED' THEN 1 END) as cancelled_bookings, " +
-                    "SUM(CASE WHEN status = 'CONFIRMED' THEN total_amount ELSE 0 END) as total_revenue " +
-                    "FROM bookings";
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "SELECT " +
+                        "COUNT(*) as total_bookings, " +
+                        "COUNT(CASE WHEN status = 'CONFIRMED' THEN 1 END) as confirmed_bookings, " +
+                        "COUNT(CASE WHEN status = 'CANCELLED' THEN 1 END) as cancelled_bookings, " +
+                        "SUM(CASE WHEN status = 'CONFIRMED' THEN total_amount ELSE 0 END) as total_revenue " +
+                        "FROM bookings";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
             
-            if (resultSet.next()) {
-                System.out.println("=== Booking Statistics ===");
-                System.out.println("Total Bookings: " + resultSet.getInt("total_bookings"));
-                System.out.println("Confirmed: " + resultSet.getInt("confirmed_bookings"));
-                System.out.println("Cancelled: " + resultSet.getInt("cancelled_bookings"));
-                System.out.println("Total Revenue: $" + resultSet.getDouble("total_revenue"));
-            }
+                StringBuilder report = new StringBuilder("=== Booking Statistics ===\n");
+                if (resultSet.next()) {
+                    report.append("Total Bookings: ").append(resultSet.getInt("total_bookings")).append('\n')
+                          .append("Confirmed: ").append(resultSet.getInt("confirmed_bookings")).append('\n')
+                          .append("Cancelled: ").append(resultSet.getInt("cancelled_bookings")).append('\n')
+                          .append("Total Revenue: ")
+                          .append(Money.format(Money.fromDecimal(resultSet.getBigDecimal("total_revenue")))).append('\n');
+                }
+
+                BookingArchive archive = BookingArchive.getDefault();
+                report.append("Archived Bookings: ").append(archive.getRowCount())
+                      .append(" (Confirmed: ").append(archive.countByStatus(BookingBatch.STATUS_CONFIRMED))
+                      .append(", Cancelled: ").append(archive.countByStatus(BookingBatch.STATUS_CANCELLED)).append(")\n")
+                      .append("Archived Revenue: ").append(Money.format(archive.sumConfirmedRevenueCents()));
+                LOG.info(report.toString());
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error fetching booking statistics: " + e.getMessage());
+            } catch (SQLException e) {
+                LOG.error("Error fetching booking statistics: " + e.getMessage());
+            }
+        } finally {
+            DISPLAY_BOOKING_STATISTICS_TIMER.recordSince(startNanos);
         }
     }
 
     /**
-     * Close the database connection
+     * Release resources held by this service
+     * Connections go back to the pool after every call, so there is nothing left to close;
+     * use DatabaseConnection.closeConnection() to shut down the pool on exit
      */
     public void close() {
-        DatabaseConnection.closeConnection();
+        // Nothing to release
     }
                      }
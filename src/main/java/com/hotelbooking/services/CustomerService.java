@@ -1,22 +1,63 @@
 package com.hotelbooking.services;
 
 import com.hotelbooking.model.Customer;
+import com.hotelbooking.utils.AppLogger;
 import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.LatencyHistogram;
+import com.hotelbooking.utils.Metrics;
+import com.hotelbooking.utils.RowMapper;
+import com.hotelbooking.utils.SingleFlight;
 
 import javax.swing.*;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * CustomerService class for handling customer-related operations
  * Demonstrates OOP with database CRUD operations and business logic
  */
 public class CustomerService {
-    private Connection connection;
+
+    // Latency timers for every public method
+    private static final LatencyHistogram CREATE_CUSTOMER_TIMER = Metrics.timer("CustomerService.createCustomer");
+    private static final LatencyHistogram FIND_CUSTOMER_BY_EMAIL_TIMER = Metrics.timer("CustomerService.findCustomerByEmail");
+    private static final LatencyHistogram FIND_CUSTOMER_BY_ID_TIMER = Metrics.timer("CustomerService.findCustomerById");
+    private static final LatencyHistogram FIND_OR_CREATE_CUSTOMER_TIMER = Metrics.timer("CustomerService.findOrCreateCustomer");
+    private static final LatencyHistogram UPDATE_CUSTOMER_TIMER = Metrics.timer("CustomerService.updateCustomer");
+    private static final LatencyHistogram DELETE_CUSTOMER_TIMER = Metrics.timer("CustomerService.deleteCustomer");
+    private static final LatencyHistogram GET_ALL_CUSTOMERS_TIMER = Metrics.timer("CustomerService.getAllCustomers");
+    private static final LatencyHistogram GET_CUSTOMERS_BY_PROPERTY_TIMER = Metrics.timer("CustomerService.getCustomersByProperty");
+    private static final LatencyHistogram SEARCH_CUSTOMERS_BY_NAME_TIMER = Metrics.timer("CustomerService.searchCustomersByName");
+    private static final LatencyHistogram VALIDATE_CUSTOMER_DATA_TIMER = Metrics.timer("CustomerService.validateCustomerData");
+    private static final LatencyHistogram DISPLAY_CUSTOMER_STATISTICS_TIMER = Metrics.timer("CustomerService.displayCustomerStatistics");
+
+    private static final AppLogger LOG = AppLogger.getLogger(CustomerService.class);
+
+    // Bumped on every committed write so screens can tell whether their copy is stale
+    private static final AtomicLong dataVersion = new AtomicLong();
+
+    // Concurrent lookups of the same email share one query
+    private static final SingleFlight<String, Customer> emailLookups = new SingleFlight<>("CustomerService.findCustomerByEmail.flight");
+
+    // Explicit projection and its positional mapper (created_at is never read)
+    static final String CUSTOMER_COLUMNS = "customer_id, name, email, phone";
+    static final RowMapper<Customer> CUSTOMER_MAPPER = resultSet -> new Customer(
+            resultSet.getInt(1),
+            resultSet.getString(2),
+            resultSet.getString(3),
+            resultSet.getString(4));
  
     public CustomerService() {
-        this.connection = DatabaseConnection.getConnection();
+        // Connections are borrowed from the pool for each call
+    }
+
+    /**
+     * Counter that changes whenever a customer is created, updated or deleted
+     */
+    public static long getDataVersion() {
+        return dataVersion.get();
     }
 
     /**
@@ -27,58 +68,77 @@ public class CustomerService {
      * @return The created Customer object
      */
     public Customer createCustomer(String name, String email, String phone) {
-        String sql = "INSERT INTO customers (name, email, phone) VALUES (?, ?, ?)";
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "INSERT INTO customers (name, email, phone) VALUES (?, ?, ?)";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setString(1, name);
-            statement.setString(2, email);
-            statement.setString(3, phone);
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setString(1, name);
+                statement.setString(2, email);
+                statement.setString(3, phone);
             
-            int affectedRows = statement.executeUpdate();
+                int affectedRows = statement.executeUpdate();
             
-            if (affectedRows > 0) {
-                // Get the generated customer ID
-                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        int customerId = generatedKeys.getInt(1);
-                        System.out.println("✅ Customer created successfully! Customer ID: " + customerId);
-                        return new Customer(customerId, name, email, phone);
+                if (affectedRows > 0) {
+                    // Get the generated customer ID
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            int customerId = generatedKeys.getInt(1);
+                            dataVersion.incrementAndGet();
+                            DatabaseConnection.recordWrite();
+                            LOG.info("Customer created successfully! Customer ID: " + customerId);
+                            return new Customer(customerId, name, email, phone);
+                        }
                     }
                 }
-            }
             
-        } catch (SQLException e) {
-            if (e.getErrorCode() == 1062) { // Duplicate entry error code
-                System.out.println("❌ Customer with email '" + email + "' already exists!");
-            } else {
-                System.out.println("❌ Error creating customer: " + e.getMessage());
+            } catch (SQLException e) {
+                if (e.getErrorCode() == 1062) { // Duplicate entry error code
+                    LOG.warn("Customer with email '" + email + "' already exists!");
+                } else {
+                    LOG.error("Error creating customer: " + e.getMessage());
+                }
             }
-        }
         
-        return null;
+            return null;
+        } finally {
+            CREATE_CUSTOMER_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
      * Find customer by email
+     * Concurrent calls for the same email share one query and one Customer object
      * @param email Customer email
      * @return Customer object if found, null otherwise
      */
     public Customer findCustomerByEmail(String email) {
-        String sql = "SELECT * FROM customers WHERE email = ?";
-        
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        long startNanos = System.nanoTime();
+        try {
+            return emailLookups.execute(email, () -> loadCustomerByEmail(email));
+        } finally {
+            FIND_CUSTOMER_BY_EMAIL_TIMER.recordSince(startNanos);
+        }
+    }
+
+    private Customer loadCustomerByEmail(String email) {
+        String sql = "SELECT " + CUSTOMER_COLUMNS + " FROM customers WHERE email = ?";
+    
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, email);
-            
+        
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return extractCustomerFromResultSet(resultSet);
+                    return CUSTOMER_MAPPER.map(resultSet);
                 }
             }
-            
+        
         } catch (SQLException e) {
-            System.out.println("❌ Error finding customer by email: " + e.getMessage());
+            LOG.error("Error finding customer by email: " + e.getMessage());
         }
-        
+    
         return null;
     }
 
@@ -88,22 +148,28 @@ public class CustomerService {
      * @return Customer object if found, null otherwise
      */
     public Customer findCustomerById(int customerId) {
-        String sql = "SELECT * FROM customers WHERE customer_id = ?";
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "SELECT " + CUSTOMER_COLUMNS + " FROM customers WHERE customer_id = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, customerId);
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, customerId);
             
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return extractCustomerFromResultSet(resultSet);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return CUSTOMER_MAPPER.map(resultSet);
+                    }
                 }
-            }
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error finding customer by ID: " + e.getMessage());
-        }
+            } catch (SQLException e) {
+                LOG.error("Error finding customer by ID: " + e.getMessage());
+            }
         
-        return null;
+            return null;
+        } finally {
+            FIND_CUSTOMER_BY_ID_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
@@ -114,20 +180,27 @@ public class CustomerService {
      * @return Customer ID (existing or new)
      */
     public int findOrCreateCustomer(String name, String email, String phone) {
-        // First, try to find existing customer by email
-        Customer existingCustomer = findCustomerByEmail(email);
-        if (existingCustomer != null) {
-            System.out.println("✅ Found existing customer: " + existingCustomer.getName());
-            return existingCustomer.getCustomerId();
-        }
+        long startNanos = System.nanoTime();
+        try {
+            // First, try to find existing customer by email
+            Customer existingCustomer = findCustomerByEmail(email);
+            if (existingCustomer != null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Found existing customer: " + existingCustomer.getName());
+                }
+                return existingCustomer.getCustomerId();
+            }
         
-        // If not found, create new customer
-        Customer newCustomer = createCustomer(name, email, phone);
-        if (newCustomer != null) {
-            return newCustomer.getCustomerId();
-        }
+            // If not found, create new customer
+            Customer newCustomer = createCustomer(name, email, phone);
+            if (newCustomer != null) {
+                return newCustomer.getCustomerId();
+            }
         
-        return -1; // Error case
+            return -1; // Error case
+        } finally {
+            FIND_OR_CREATE_CUSTOMER_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
@@ -139,28 +212,36 @@ public class CustomerService {
      * @return true if update successful, false otherwise
      */
     public boolean updateCustomer(int customerId, String name, String email, String phone) {
-        String sql = "UPDATE customers SET name = ?, email = ?, phone = ? WHERE customer_id = ?";
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "UPDATE customers SET name = ?, email = ?, phone = ? WHERE customer_id = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, name);
-            statement.setString(2, email);
-            statement.setString(3, phone);
-            statement.setInt(4, customerId);
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, name);
+                statement.setString(2, email);
+                statement.setString(3, phone);
+                statement.setInt(4, customerId);
             
-            int affectedRows = statement.executeUpdate();
-            boolean success = affectedRows > 0;
+                int affectedRows = statement.executeUpdate();
+                boolean success = affectedRows > 0;
             
-            if (success) {
-                System.out.println("✅ Customer " + customerId + " updated successfully!");
-            } else {
-                System.out.println("❌ Customer " + customerId + " not found!");
-            }
+                if (success) {
+                    dataVersion.incrementAndGet();
+                    DatabaseConnection.recordWrite();
+                    LOG.info("Customer " + customerId + " updated successfully!");
+                } else {
+                    LOG.warn("Customer " + customerId + " not found!");
+                }
             
-            return success;
+                return success;
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error updating customer: " + e.getMessage());
-            return false;
+            } catch (SQLException e) {
+                LOG.error("Error updating customer: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            UPDATE_CUSTOMER_TIMER.recordSince(startNanos);
         }
     }
 
@@ -170,31 +251,39 @@ public class CustomerService {
      * @return true if deletion successful, false otherwise
      */
     public boolean deleteCustomer(int customerId) {
-        // First check if customer has any bookings
-        if (hasActiveBookings(customerId)) {
-            System.out.println("❌ Cannot delete customer with active bookings!");
-            return false;
-        }
+        long startNanos = System.nanoTime();
+        try {
+            // First check if customer has any bookings
+            if (hasActiveBookings(customerId)) {
+                LOG.warn("Cannot delete customer with active bookings!");
+                return false;
+            }
         
-        String sql = "DELETE FROM customers WHERE customer_id = ?";
+            String sql = "DELETE FROM customers WHERE customer_id = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, customerId);
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, customerId);
             
-            int affectedRows = statement.executeUpdate();
-            boolean success = affectedRows > 0;
+                int affectedRows = statement.executeUpdate();
+                boolean success = affectedRows > 0;
             
-            if (success) {
-                System.out.println("✅ Customer " + customerId + " deleted successfully!");
-            } else {
-                System.out.println("❌ Customer " + customerId + " not found!");
-            }
+                if (success) {
+                    dataVersion.incrementAndGet();
+                    DatabaseConnection.recordWrite();
+                    LOG.info("Customer " + customerId + " deleted successfully!");
+                } else {
+                    LOG.warn("Customer " + customerId + " not found!");
+                }
             
-            return success;
+                return success;
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error deleting customer: " + e.getMessage());
-            return false;
+            } catch (SQLException e) {
+                LOG.error("Error deleting customer: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            DELETE_CUSTOMER_TIMER.recordSince(startNanos);
         }
     }
 
@@ -203,24 +292,60 @@ public class CustomerService {
      * @return List of all customers
      */
     public List<Customer> getAllCustomers() {
-        List<Customer> customers = new ArrayList<>();
-        String sql = "SELECT * FROM customers ORDER BY name";
+        long startNanos = System.nanoTime();
+        try {
+            List<Customer> customers = new ArrayList<>();
+            String sql = "SELECT " + CUSTOMER_COLUMNS + " FROM customers ORDER BY name";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
             
-            while (resultSet.next()) {
-                Customer customer = extractCustomerFromResultSet(resultSet);
-                customers.add(customer);
-            }
+                customers = RowMapper.mapAll(resultSet, CUSTOMER_MAPPER);
             
-            System.out.println("✅ Found " + customers.size() + " customers");
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Found " + customers.size() + " customers");
+                }
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error fetching customers: " + e.getMessage());
-        }
+            } catch (SQLException e) {
+                LOG.error("Error fetching customers: " + e.getMessage());
+            }
         
-        return customers;
+            return customers;
+        } finally {
+            GET_ALL_CUSTOMERS_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Get the customers who have booked at a property
+     * Customers are shared by the whole group; a customer belongs to every property they stayed at
+     * @param propertyId Property ID
+     * @return List of the property's customers
+     */
+    public List<Customer> getCustomersByProperty(int propertyId) {
+        long startNanos = System.nanoTime();
+        try {
+            List<Customer> customers = new ArrayList<>();
+            String sql = "SELECT " + CUSTOMER_COLUMNS + " FROM customers WHERE customer_id IN " +
+                        "(SELECT customer_id FROM bookings WHERE property_id = ?) ORDER BY name";
+
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, propertyId);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    customers = RowMapper.mapAll(resultSet, CUSTOMER_MAPPER);
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error fetching customers of property " + propertyId + ": " + e.getMessage());
+            }
+
+            return customers;
+        } finally {
+            GET_CUSTOMERS_BY_PROPERTY_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
@@ -229,26 +354,31 @@ public class CustomerService {
      * @return List of matching customers
      */
     public List<Customer> searchCustomersByName(String name) {
-        List<Customer> customers = new ArrayList<>();
-        String sql = "SELECT * FROM customers WHERE name LIKE ? ORDER BY name";
+        long startNanos = System.nanoTime();
+        try {
+            List<Customer> customers = new ArrayList<>();
+            String sql = "SELECT " + CUSTOMER_COLUMNS + " FROM customers WHERE name LIKE ? ORDER BY name";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, "%" + name + "%");
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, "%" + name + "%");
             
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    Customer customer = extractCustomerFromResultSet(resultSet);
-                    customers.add(customer);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    customers = RowMapper.mapAll(resultSet, CUSTOMER_MAPPER);
                 }
-            }
             
-            System.out.println("✅ Found " + customers.size() + " customers matching '" + name + "'");
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Found " + customers.size() + " customers matching '" + name + "'");
+                }
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error searching customers: " + e.getMessage());
-        }
+            } catch (SQLException e) {
+                LOG.error("Error searching customers: " + e.getMessage());
+            }
         
-        return customers;
+            return customers;
+        } finally {
+            SEARCH_CUSTOMERS_BY_NAME_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
@@ -259,7 +389,8 @@ public class CustomerService {
     private boolean hasActiveBookings(int customerId) {
         String sql = "SELECT COUNT(*) FROM bookings WHERE customer_id = ? AND status = 'CONFIRMED'";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setInt(1, customerId);
             
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -269,24 +400,12 @@ public class CustomerService {
             }
             
         } catch (SQLException e) {
-            System.out.println("❌ Error checking customer bookings: " + e.getMessage());
+            LOG.error("Error checking customer bookings: " + e.getMessage());
         }
         
         return false;
     }
 
-    /**
-     * Extract Customer object from ResultSet
-     */
-    private Customer extractCustomerFromResultSet(ResultSet resultSet) throws SQLException {
-        int customerId = resultSet.getInt("customer_id");
-        String name = resultSet.getString("name");
-        String email = resultSet.getString("email");
-        String phone = resultSet.getString("phone");
-        
-        return new Customer(customerId, name, email, phone);
-    }
-
     /**
      * Validate customer data
      * @param name Customer name
@@ -295,55 +414,68 @@ public class CustomerService {
      * @return true if valid, false otherwise
      */
     public boolean validateCustomerData(String name, String email, String phone) {
-        if (name == null || name.trim().isEmpty()) {
-            JOptionPane.showMessageDialog(null, "Name cannot be empty!", "Validation Error", JOptionPane.ERROR_MESSAGE);
-            return false;
-        }
+        long startNanos = System.nanoTime();
+        try {
+            if (name == null || name.trim().isEmpty()) {
+                JOptionPane.showMessageDialog(null, "Name cannot be empty!", "Validation Error", JOptionPane.ERROR_MESSAGE);
+                return false;
+            }
         
-        if (email == null || !email.contains("@") || !email.contains(".")) {
-            JOptionPane.showMessageDialog(null, "Please enter a valid email address!", "Validation Error", JOptionPane.ERROR_MESSAGE);
-            return false;
-        }
+            if (email == null || !email.contains("@") || !email.contains(".")) {
+                JOptionPane.showMessageDialog(null, "Please enter a valid email address!", "Validation Error", JOptionPane.ERROR_MESSAGE);
+                return false;
+            }
         
-        if (phone == null || !phone.matches("\\d{10}")) {
-            JOptionPane.showMessageDialog(null, "Phone number must be 10 digits!", "Validation Error", JOptionPane.ERROR_MESSAGE);
-            return false;
-        }
+            if (phone == null || !phone.matches("\\d{10}")) {
+                JOptionPane.showMessageDialog(null, "Phone number must be 10 digits!", "Validation Error", JOptionPane.ERROR_MESSAGE);
+                return false;
+            }
         
-        return true;
+            return true;
+        } finally {
+            VALIDATE_CUSTOMER_DATA_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
      * Get customer statistics
      */
     public void displayCustomerStatistics() {
-        String sql = "SELECT " +
-                    "COUNT(*) as total_customers, " +
-                    "COUNT(DISTINCT b.customer_id) as customers_with_bookings, " +
-                    "AVG(booking_count) as avg_bookings_per_customer " +
-                    "FROM customers c " +
-                    "LEFT JOIN (SELECT customer_id, COUNT(*) as booking_count FROM bookings GROUP BY customer_id) b " +
-                    "ON c.customer_id = b.customer_id";
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "SELECT " +
+                        "COUNT(*) as total_customers, " +
+                        "COUNT(DISTINCT b.customer_id) as customers_with_bookings, " +
+                        "AVG(booking_count) as avg_bookings_per_customer " +
+                        "FROM customers c " +
+                        "LEFT JOIN (SELECT customer_id, COUNT(*) as booking_count FROM bookings GROUP BY customer_id) b " +
+                        "ON c.customer_id = b.customer_id";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
             
-            if (resultSet.next()) {
-                System.out.println("=== Customer Statistics ===");
-                System.out.println("Total Customers: " + resultSet.getInt("total_customers"));
-                System.out.println("Customers with Bookings: " + resultSet.getInt("customers_with_bookings"));
-                System.out.println("Avg Bookings per Customer: " + String.format("%.2f", resultSet.getDouble("avg_bookings_per_customer")));
-            }
+                if (resultSet.next()) {
+                    LOG.info("=== Customer Statistics ===\n" +
+                             "Total Customers: " + resultSet.getInt("total_customers") + "\n" +
+                             "Customers with Bookings: " + resultSet.getInt("customers_with_bookings") + "\n" +
+                             "Avg Bookings per Customer: " + String.format("%.2f", resultSet.getDouble("avg_bookings_per_customer")));
+                }
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error fetching customer statistics: " + e.getMessage());
+            } catch (SQLException e) {
+                LOG.error("Error fetching customer statistics: " + e.getMessage());
+            }
+        } finally {
+            DISPLAY_CUSTOMER_STATISTICS_TIMER.recordSince(startNanos);
         }
     }
 
     /**
-     * Close the database connection
+     * Release resources held by this service
+     * Connections go back to the pool after every call, so there is nothing left to close;
+     * use DatabaseConnection.closeConnection() to shut down the pool on exit
      */
     public void close() {
-        DatabaseConnection.closeConnection();
+        // Nothing to release
     }
         }
@@ -0,0 +1,300 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.Booking;
+import com.hotelbooking.model.LedgerEntry;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * LedgerProjections class holding the read models rebuilt from the booking ledger
+ * Bookings are split into partitions by booking ID (every event of a booking lands in the same
+ * partition, so partitions are replayed in parallel without locks). Each partition keeps its
+ * bookings in an open-addressing table of primitive columns rather than objects, which keeps a
+ * replay of millions of events cheap. Once replay is done the derived projections - counts,
+ * revenue by check-in month and the availability calendar - are computed from the partitions.
+ *
+ * The availability calendar uses the same layout as AvailabilityIndex: one BitSet per room,
+ * bit i = night (baseDay + i), with baseDay a month before today.
+ */
+public class LedgerProjections {
+    static final byte STATUS_CONFIRMED = 1;
+    static final byte STATUS_CANCELLED = 2;
+
+    private static final int HISTORY_DAYS = 31;
+
+    private final long sequence;
+    private final long settledSequence;
+    private final Partition[] partitions;
+    private final Set<Integer> rooms;
+    private final int baseDay;
+
+    private int confirmedBookings;
+    private int cancelledBookings;
+    private long revenueCents;
+    private final Map<YearMonth, Long> revenueByMonth = new TreeMap<>();
+    private final Map<Integer, Long> revenueByProperty = new TreeMap<>();
+    private final Map<Integer, BitSet> calendar = new HashMap<>();
+
+    LedgerProjections(long sequence, long settledSequence, Partition[] partitions, Set<Integer> rooms) {
+        this.sequence = sequence;
+        this.settledSequence = settledSequence;
+        this.partitions = partitions;
+        this.rooms = Collections.unmodifiableSet(new TreeSet<>(rooms));
+        this.baseDay = (int) LocalDate.now().toEpochDay() - HISTORY_DAYS;
+        summarize();
+    }
+
+    /**
+     * Ledger sequence of the last event reflected in these projections
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Ledger sequence below which no entry can still appear - where a snapshot of this replay would stop
+     */
+    public long getSettledSequence() {
+        return settledSequence;
+    }
+
+    /**
+     * Current state of a booking, or null if the ledger has no such booking
+     */
+    public Booking getBooking(int bookingId) {
+        Partition partition = partitions[Math.floorMod(bookingId, partitions.length)];
+        int slot = partition.find(bookingId);
+        if (slot < 0) {
+            return null;
+        }
+        Booking booking = new Booking(bookingId, partition.customerIds[slot], partition.roomNumbers[slot],
+                                      LocalDate.ofEpochDay(partition.checkInDays[slot]),
+                                      LocalDate.ofEpochDay(partition.checkOutDays[slot]),
+                                      partition.statuses[slot] == STATUS_CONFIRMED
+                                              ? Booking.STATUS_CONFIRMED : Booking.STATUS_CANCELLED);
+        booking.setTotalAmountCents(partition.amountsCents[slot]);
+        booking.setPropertyId(partition.propertyIds[slot]);
+        return booking;
+    }
+
+    public int getBookingCount() {
+        return confirmedBookings + cancelledBookings;
+    }
+
+    public int getConfirmedBookings() {
+        return confirmedBookings;
+    }
+
+    public int getCancelledBookings() {
+        return cancelledBookings;
+    }
+
+    /**
+     * Total of confirmed bookings, in cents
+     */
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    /**
+     * Confirmed revenue by check-in month, in cents
+     */
+    public Map<YearMonth, Long> getRevenueByMonth() {
+        return Collections.unmodifiableMap(revenueByMonth);
+    }
+
+    /**
+     * Confirmed revenue by property, in cents
+     */
+    public Map<Integer, Long> getRevenueByProperty() {
+        return Collections.unmodifiableMap(revenueByProperty);
+    }
+
+    /**
+     * Rooms that have been made available
+     */
+    public Set<Integer> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * True if no confirmed booking holds the room on any night from check-in up to check-out
+     */
+    public boolean isFree(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate) {
+        BitSet nights = calendar.get(roomNumber);
+        if (nights == null) {
+            return rooms.contains(roomNumber);
+        }
+        int from = Math.max((int) checkInDate.toEpochDay() - baseDay, 0);
+        int to = (int) checkOutDate.toEpochDay() - baseDay;
+        int booked = nights.nextSetBit(from);
+        return booked < 0 || booked >= to;
+    }
+
+    /**
+     * Booked nights of a room from baseDay on (bit i = baseDay + i), a copy
+     */
+    public BitSet getBookedNights(int roomNumber) {
+        BitSet nights = calendar.get(roomNumber);
+        return nights == null ? new BitSet() : (BitSet) nights.clone();
+    }
+
+    public LocalDate getCalendarStart() {
+        return LocalDate.ofEpochDay(baseDay);
+    }
+
+    private void summarize() {
+        for (Partition partition : partitions) {
+            for (int slot = 0; slot < partition.keys.length; slot++) {
+                if (partition.keys[slot] == 0) {
+                    continue;
+                }
+                if (partition.statuses[slot] == STATUS_CANCELLED) {
+                    cancelledBookings++;
+                    continue;
+                }
+                confirmedBookings++;
+                long amount = partition.amountsCents[slot];
+                revenueCents += amount;
+                revenueByMonth.merge(YearMonth.from(LocalDate.ofEpochDay(partition.checkInDays[slot])), amount, Long::sum);
+                revenueByProperty.merge(partition.propertyIds[slot], amount, Long::sum);
+
+                int from = Math.max(partition.checkInDays[slot] - baseDay, 0);
+                int to = partition.checkOutDays[slot] - baseDay;
+                if (from < to) {
+                    calendar.computeIfAbsent(partition.roomNumbers[slot], room -> new BitSet()).set(from, to);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerProjections{sequence=" + sequence + " settled=" + settledSequence + " bookings=" + getBookingCount() +
+               " confirmed=" + confirmedBookings + " rooms=" + rooms.size() + "}";
+    }
+
+    /**
+     * Bookings of one partition as parallel primitive columns, keyed by booking ID with linear probing
+     * Booking ID 0 marks an empty slot (IDs are auto-increment values starting at 1).
+     * Only ever touched by one replay thread at a time.
+     */
+    static final class Partition {
+        int[] keys;
+        int[] customerIds;
+        int[] roomNumbers;
+        int[] propertyIds;
+        int[] checkInDays;
+        int[] checkOutDays;
+        long[] amountsCents;
+        byte[] statuses;
+        private int size;
+
+        Partition(int expectedBookings) {
+            int capacity = Integer.highestOneBit(Math.max(expectedBookings, 8) * 4 / 3) << 1;
+            allocate(capacity);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void apply(byte eventType, int bookingId, int customerId, int roomNumber, int propertyId,
+                   int checkInDay, int checkOutDay, long amountCents) {
+            switch (eventType) {
+                case LedgerEntry.BOOKING_CREATED:
+                    put(bookingId, customerId, roomNumber, propertyId, checkInDay, checkOutDay, amountCents,
+                        STATUS_CONFIRMED);
+                    break;
+                case LedgerEntry.BOOKING_CANCELLED: {
+                    int slot = find(bookingId);
+                    if (slot >= 0) {
+                        statuses[slot] = STATUS_CANCELLED;
+                    }
+                    break;
+                }
+                case LedgerEntry.BOOKING_MOVED: {
+                    int slot = find(bookingId);
+                    if (slot >= 0) {
+                        roomNumbers[slot] = roomNumber;
+                    }
+                    break;
+                }
+                default:
+                    // Room events carry no booking state
+            }
+        }
+
+        void put(int bookingId, int customerId, int roomNumber, int propertyId, int checkInDay, int checkOutDay,
+                 long amountCents, byte status) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int slot = slotOf(bookingId);
+            if (keys[slot] == 0) {
+                keys[slot] = bookingId;
+                size++;
+            }
+            customerIds[slot] = customerId;
+            roomNumbers[slot] = roomNumber;
+            propertyIds[slot] = propertyId;
+            checkInDays[slot] = checkInDay;
+            checkOutDays[slot] = checkOutDay;
+            amountsCents[slot] = amountCents;
+            statuses[slot] = status;
+        }
+
+        int find(int bookingId) {
+            int slot = slotOf(bookingId);
+            return keys[slot] == bookingId ? slot : -1;
+        }
+
+        // Slot holding the key, or the empty slot where it would go
+        private int slotOf(int bookingId) {
+            int mask = keys.length - 1;
+            int slot = (bookingId * 0x9E3779B9 >>> 7) & mask;
+            while (keys[slot] != 0 && keys[slot] != bookingId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity];
+            customerIds = new int[capacity];
+            roomNumbers = new int[capacity];
+            propertyIds = new int[capacity];
+            checkInDays = new int[capacity];
+            checkOutDays = new int[capacity];
+            amountsCents = new long[capacity];
+            statuses = new byte[capacity];
+            size = 0;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCustomers = customerIds;
+            int[] oldRooms = roomNumbers;
+            int[] oldProperties = propertyIds;
+            int[] oldCheckIns = checkInDays;
+            int[] oldCheckOuts = checkOutDays;
+            long[] oldAmounts = amountsCents;
+            byte[] oldStatuses = statuses;
+            allocate(oldKeys.length * 2);
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    put(oldKeys[slot], oldCustomers[slot], oldRooms[slot], oldProperties[slot], oldCheckIns[slot], oldCheckOuts[slot],
+                        oldAmounts[slot], oldStatuses[slot]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.LedgerEntry;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.LatencyHistogram;
+import com.hotelbooking.utils.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LedgerReplay utility class rebuilding LedgerProjections from the booking_ledger table
+ * The ledger is read in sequence ranges (chunks) by a pool of reader threads, each on its own
+ * connection, into primitive arrays already grouped by partition. Apply threads - one per
+ * partition - walk the chunks in sequence order and apply only their own bookings, so events of
+ * one booking are applied in order while partitions proceed in parallel. A chunk is dropped once
+ * every apply thread is done with it, and readers stay at most a few chunks ahead.
+ *
+ * Snapshots of the replayed state are written to hotel.ledger.snapshot.dir; a replay starts from
+ * the newest readable snapshot and only reads the events after it. A snapshot is taken
+ * automatically when a replay had to apply more than hotel.ledger.snapshot.every events.
+ *
+ * Sequences are allocated when a transaction inserts, not when it commits, so a lower sequence can
+ * still appear after a higher one has been read. A snapshot therefore only covers the settled
+ * prefix of the ledger: it stops below the oldest gap whose next entry is younger than
+ * hotel.ledger.snapshot.settle.ms (a gap older than that is taken to be a rollback). The replay
+ * applies the settled prefix, snapshots it, and then applies the rest.
+ *
+ * Configuration:
+ *   -Dhotel.ledger.replay.threads (default: available processors), -Dhotel.ledger.replay.readers=4,
+ *   -Dhotel.ledger.replay.chunk=250000, -Dhotel.ledger.replay.readAhead=8,
+ *   -Dhotel.ledger.snapshot.dir=ledger-snapshots, -Dhotel.ledger.snapshot.every=1000000,
+ *   -Dhotel.ledger.snapshot.keep=2, -Dhotel.ledger.snapshot.settle.ms=60000
+ */
+public class LedgerReplay {
+    private static final int APPLY_THREADS = Integer.getInteger("hotel.ledger.replay.threads",
+                                                                Runtime.getRuntime().availableProcessors());
+    private static final int READER_THREADS = Integer.getInteger("hotel.ledger.replay.readers", 4);
+    private static final int CHUNK_EVENTS = Integer.getInteger("hotel.ledger.replay.chunk", 250_000);
+    private static final int READ_AHEAD = Integer.getInteger("hotel.ledger.replay.readAhead", 8);
+    private static final String SNAPSHOT_DIR = System.getProperty("hotel.ledger.snapshot.dir", "ledger-snapshots");
+    private static final long SNAPSHOT_EVERY = Long.getLong("hotel.ledger.snapshot.every", 1_000_000);
+    private static final int SNAPSHOT_KEEP = Integer.getInteger("hotel.ledger.snapshot.keep", 2);
+    private static final long SETTLE_MILLIS = Long.getLong("hotel.ledger.snapshot.settle.ms", 60_000);
+
+    private static final int SNAPSHOT_MAGIC = 0x4C454447; // "LEDG"
+    // Version 2 added property_id per booking; older snapshots are skipped and replayed from the ledger
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final String SNAPSHOT_PREFIX = "ledger-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private static final String CHUNK_SQL =
+            "SELECT sequence, event_type, booking_id, customer_id, room_number, check_in_day, check_out_day, amount_cents, " +
+            "property_id " +
+            "FROM booking_ledger WHERE sequence > ? AND sequence <= ? ORDER BY sequence";
+
+    // Last entry below the first entry younger than the settle time (through idx_ledger_created)
+    private static final String SETTLED_SQL =
+            "SELECT COALESCE(MAX(sequence), ?) FROM booking_ledger WHERE sequence > ? AND sequence < " +
+            "(SELECT COALESCE(MIN(sequence), ?) FROM booking_ledger WHERE sequence > ? AND created_at_ms > ?)";
+
+    private static final LatencyHistogram REPLAY_TIMER = Metrics.timer("ledger.replay");
+    private static final LatencyHistogram SNAPSHOT_TIMER = Metrics.timer("ledger.snapshot");
+    private static final LongAdder eventsReplayed = Metrics.counter("ledger.replayed");
+
+    private static final AppLogger LOG = AppLogger.getLogger(LedgerReplay.class);
+
+    // Private constructor to prevent instantiation - Utility class pattern
+    private LedgerReplay() {
+        // Utility class should not be instantiated
+    }
+
+    /**
+     * Rebuild the projections from the newest snapshot plus the events after it
+     */
+    public static LedgerProjections replay() throws SQLException {
+        return replay(true);
+    }
+
+    /**
+     * Rebuild the projections, from the newest snapshot or (useSnapshot false) from the first event
+     */
+    public static LedgerProjections replay(boolean useSnapshot) throws SQLException {
+        return replay(useSnapshot, false);
+    }
+
+    /**
+     * Rebuild the projections, and (writeSnapshot true) snapshot the settled prefix however few events it added
+     */
+    public static LedgerProjections replay(boolean useSnapshot, boolean writeSnapshot) throws SQLException {
+        long startNanos = System.nanoTime();
+        try {
+            int partitionCount = Math.max(APPLY_THREADS, 1);
+            LedgerProjections.Partition[] partitions = null;
+            Set<Integer> rooms = new TreeSet<>();
+            long fromSequence = 0;
+
+            if (useSnapshot) {
+                Snapshot snapshot = loadLatestSnapshot(partitionCount);
+                if (snapshot != null) {
+                    partitions = snapshot.partitions;
+                    rooms.addAll(snapshot.rooms);
+                    fromSequence = snapshot.sequence;
+                }
+            }
+
+            long toSequence = getLastSequence();
+            if (partitions == null) {
+                // Sized for the ledger up front, within reason - tables grow as needed
+                int expected = (int) Math.min(toSequence / partitionCount + 1, 1 << 22);
+                partitions = new LedgerProjections.Partition[partitionCount];
+                for (int p = 0; p < partitionCount; p++) {
+                    partitions[p] = new LedgerProjections.Partition(expected);
+                }
+            }
+
+            // The settled prefix first, so it can be snapshotted before any unsettled event is applied
+            long settledSequence = Math.max(getSettledSequence(fromSequence, toSequence), fromSequence);
+            long replayed = 0;
+            if (settledSequence > fromSequence) {
+                replayed = replayRange(partitions, rooms, fromSequence, settledSequence);
+            }
+            if (writeSnapshot || replayed >= SNAPSHOT_EVERY) {
+                writeSnapshot(settledSequence, partitions, rooms);
+            }
+            if (toSequence > settledSequence) {
+                replayed += replayRange(partitions, rooms, settledSequence, toSequence);
+            }
+            eventsReplayed.add(replayed);
+
+            LedgerProjections projections = new LedgerProjections(Math.max(toSequence, fromSequence), settledSequence,
+                                                                  partitions, rooms);
+            LOG.info("Replayed " + replayed + " ledger events after sequence " + fromSequence + " in " +
+                     (System.nanoTime() - startNanos) / 1_000_000 + " ms - " + projections);
+            return projections;
+        } finally {
+            REPLAY_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Newest snapshot file, or null if there is none
+     */
+    public static Path getLatestSnapshot() {
+        List<Path> snapshots = listSnapshots();
+        return snapshots.isEmpty() ? null : snapshots.get(0);
+    }
+
+    /**
+     * Write the replayed state at a settled sequence as a snapshot and drop all but the newest few
+     * @return the snapshot file, or null if it could not be written
+     */
+    private static Path writeSnapshot(long sequence, LedgerProjections.Partition[] partitions, Set<Integer> rooms) {
+        long startNanos = System.nanoTime();
+        try {
+            Path dir = Paths.get(SNAPSHOT_DIR);
+            Files.createDirectories(dir);
+            Path target = dir.resolve(SNAPSHOT_PREFIX + sequence + SNAPSHOT_SUFFIX);
+            Path temp = Files.createTempFile(dir, SNAPSHOT_PREFIX, ".tmp");
+
+            int bookings = 0;
+            for (LedgerProjections.Partition partition : partitions) {
+                bookings += partition.size();
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(sequence);
+                out.writeInt(rooms.size());
+                for (int room : rooms) {
+                    out.writeInt(room);
+                }
+                out.writeInt(bookings);
+                for (LedgerProjections.Partition partition : partitions) {
+                    for (int slot = 0; slot < partition.keys.length; slot++) {
+                        if (partition.keys[slot] != 0) {
+                            out.writeInt(partition.keys[slot]);
+                            out.writeInt(partition.customerIds[slot]);
+                            out.writeInt(partition.roomNumbers[slot]);
+                            out.writeInt(partition.propertyIds[slot]);
+                            out.writeInt(partition.checkInDays[slot]);
+                            out.writeInt(partition.checkOutDays[slot]);
+                            out.writeLong(partition.amountsCents[slot]);
+                            out.writeByte(partition.statuses[slot]);
+                        }
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOG.info("Ledger snapshot at settled sequence " + sequence + " written to " + target);
+
+            List<Path> snapshots = listSnapshots();
+            for (int i = SNAPSHOT_KEEP; i < snapshots.size(); i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+            return target;
+        } catch (IOException e) {
+            LOG.error("Error writing ledger snapshot: " + e.getMessage());
+            return null;
+        } finally {
+            SNAPSHOT_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Read the ledger events in (fromSequence, toSequence] into the partitions
+     */
+    private static long replayRange(LedgerProjections.Partition[] partitions, Set<Integer> rooms,
+                                    long fromSequence, long toSequence) throws SQLException {
+        int chunkCount = (int) ((toSequence - fromSequence + CHUNK_EVENTS - 1) / CHUNK_EVENTS);
+        int partitionCount = partitions.length;
+        AtomicReferenceArray<CompletableFuture<Chunk>> chunks = new AtomicReferenceArray<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            chunks.set(i, new CompletableFuture<>());
+        }
+        Semaphore readAhead = new Semaphore(Math.max(READ_AHEAD, 1));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        LongAdder applied = new LongAdder();
+
+        ExecutorService readers = Executors.newFixedThreadPool(Math.max(READER_THREADS, 1), daemon("ledger-reader"));
+        ExecutorService appliers = Executors.newFixedThreadPool(partitionCount, daemon("ledger-apply"));
+        try {
+            List<CompletableFuture<Void>> workers = new ArrayList<>(partitionCount);
+            for (int p = 0; p < partitionCount; p++) {
+                int partition = p;
+                workers.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < chunkCount; i++) {
+                        Chunk chunk = chunks.get(i).join();
+                        applied.add(chunk.applyTo(partition, partitions[partition], rooms));
+                        if (chunk.release()) {
+                            chunks.set(i, null);
+                            readAhead.release();
+                        }
+                    }
+                }, appliers));
+            }
+
+            for (int i = 0; i < chunkCount && failure.get() == null; i++) {
+                readAhead.acquireUninterruptibly();
+                long chunkFrom = fromSequence + (long) i * CHUNK_EVENTS;
+                long chunkTo = Math.min(chunkFrom + CHUNK_EVENTS, toSequence);
+                CompletableFuture<Chunk> target = chunks.get(i);
+                readers.execute(() -> {
+                    try {
+                        target.complete(readChunk(chunkFrom, chunkTo, partitionCount));
+                    } catch (SQLException | RuntimeException e) {
+                        // Fail every chunk so no apply thread waits for one that will never be read
+                        failure.compareAndSet(null, e);
+                        for (int j = 0; j < chunkCount; j++) {
+                            CompletableFuture<Chunk> chunk = chunks.get(j);
+                            if (chunk != null) {
+                                chunk.completeExceptionally(e);
+                            }
+                        }
+                        readAhead.release(chunkCount);
+                    }
+                });
+            }
+
+            CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).join();
+            return applied.sum();
+        } catch (CompletionException e) {
+            Throwable cause = failure.get() != null ? failure.get() : e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw e;
+        } finally {
+            readers.shutdownNow();
+            appliers.shutdownNow();
+        }
+    }
+
+    private static Chunk readChunk(long fromSequence, long toSequence, int partitionCount) throws SQLException {
+        int capacity = (int) (toSequence - fromSequence);
+        Chunk chunk = new Chunk(capacity, partitionCount);
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(CHUNK_SQL)) {
+            statement.setFetchSize(Math.min(capacity, 10_000));
+            statement.setLong(1, fromSequence);
+            statement.setLong(2, toSequence);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    chunk.add(resultSet.getByte(2), resultSet.getInt(3), resultSet.getInt(4), resultSet.getInt(5),
+                              resultSet.getInt(9), resultSet.getInt(6), resultSet.getInt(7), resultSet.getLong(8));
+                }
+            }
+        }
+        chunk.index();
+        return chunk;
+    }
+
+    private static long getLastSequence() throws SQLException {
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(sequence), 0) FROM booking_ledger")) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Highest sequence up to which no entry can still appear, between fromSequence and toSequence
+     */
+    static long getSettledSequence(long fromSequence, long toSequence) throws SQLException {
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(SETTLED_SQL)) {
+            statement.setLong(1, fromSequence);
+            statement.setLong(2, fromSequence);
+            statement.setLong(3, toSequence + 1);
+            statement.setLong(4, fromSequence);
+            statement.setLong(5, System.currentTimeMillis() - SETTLE_MILLIS);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Math.min(resultSet.getLong(1), toSequence) : fromSequence;
+            }
+        }
+    }
+
+    /**
+     * Newest snapshot that can be read, redistributed over the current partition count
+     */
+    private static Snapshot loadLatestSnapshot(int partitionCount) {
+        for (Path file : listSnapshots()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                    LOG.warn("Skipping ledger snapshot " + file + " - unknown format");
+                    continue;
+                }
+                long sequence = in.readLong();
+                Set<Integer> rooms = new TreeSet<>();
+                int roomCount = in.readInt();
+                for (int i = 0; i < roomCount; i++) {
+                    rooms.add(in.readInt());
+                }
+                int bookings = in.readInt();
+                LedgerProjections.Partition[] partitions = new LedgerProjections.Partition[partitionCount];
+                for (int p = 0; p < partitionCount; p++) {
+                    partitions[p] = new LedgerProjections.Partition(bookings / partitionCount + 1);
+                }
+                for (int i = 0; i < bookings; i++) {
+                    int bookingId = in.readInt();
+                    partitions[Math.floorMod(bookingId, partitionCount)].put(bookingId, in.readInt(), in.readInt(),
+                            in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readByte());
+                }
+                LOG.info("Loaded ledger snapshot " + file + " at sequence " + sequence + " (" + bookings + " bookings)");
+                return new Snapshot(sequence, partitions, rooms);
+            } catch (IOException e) {
+                LOG.warn("Skipping unreadable ledger snapshot " + file + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Snapshot files, newest (highest sequence) first
+     */
+    private static List<Path> listSnapshots() {
+        List<Path> snapshots = new ArrayList<>();
+        Path dir = Paths.get(SNAPSHOT_DIR);
+        if (!Files.isDirectory(dir)) {
+            return snapshots;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                if (snapshotSequence(file) >= 0) {
+                    snapshots.add(file);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Error listing ledger snapshots: " + e.getMessage());
+        }
+        snapshots.sort(Comparator.comparingLong(LedgerReplay::snapshotSequence).reversed());
+        return snapshots;
+    }
+
+    private static long snapshotSequence(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Snapshot {
+        final long sequence;
+        final LedgerProjections.Partition[] partitions;
+        final Set<Integer> rooms;
+
+        Snapshot(long sequence, LedgerProjections.Partition[] partitions, Set<Integer> rooms) {
+            this.sequence = sequence;
+            this.partitions = partitions;
+            this.rooms = rooms;
+        }
+    }
+
+    /**
+     * One sequence range of the ledger as primitive columns, with the rows of each partition listed
+     * in sequence order
+     */
+    private static final class Chunk {
+        private final byte[] eventTypes;
+        private final int[] bookingIds;
+        private final int[] customerIds;
+        private final int[] roomNumbers;
+        private final int[] propertyIds;
+        private final int[] checkInDays;
+        private final int[] checkOutDays;
+        private final long[] amountsCents;
+        private final int partitionCount;
+        private int size;
+        // Rows of partition p are partitionRows[partitionStart[p] .. partitionStart[p + 1])
+        private int[] partitionRows;
+        private int[] partitionStart;
+        private final AtomicInteger pending;
+
+        Chunk(int capacity, int partitionCount) {
+            this.eventTypes = new byte[capacity];
+            this.bookingIds = new int[capacity];
+            this.customerIds = new int[capacity];
+            this.roomNumbers = new int[capacity];
+            this.propertyIds = new int[capacity];
+            this.checkInDays = new int[capacity];
+            this.checkOutDays = new int[capacity];
+            this.amountsCents = new long[capacity];
+            this.partitionCount = partitionCount;
+            this.pending = new AtomicInteger(partitionCount);
+        }
+
+        void add(byte eventType, int bookingId, int customerId, int roomNumber, int propertyId,
+                 int checkInDay, int checkOutDay, long amountCents) {
+            eventTypes[size] = eventType;
+            bookingIds[size] = bookingId;
+            customerIds[size] = customerId;
+            roomNumbers[size] = roomNumber;
+            propertyIds[size] = propertyId;
+            checkInDays[size] = checkInDay;
+            checkOutDays[size] = checkOutDay;
+            amountsCents[size] = amountCents;
+            size++;
+        }
+
+        // Counting sort of the row numbers by partition, keeping sequence order within each
+        void index() {
+            partitionStart = new int[partitionCount + 1];
+            for (int row = 0; row < size; row++) {
+                partitionStart[Math.floorMod(bookingIds[row], partitionCount) + 1]++;
+            }
+            for (int p = 0; p < partitionCount; p++) {
+                partitionStart[p + 1] += partitionStart[p];
+            }
+            int[] next = partitionStart.clone();
+            partitionRows = new int[size];
+            for (int row = 0; row < size; row++) {
+                partitionRows[next[Math.floorMod(bookingIds[row], partitionCount)]++] = row;
+            }
+        }
+
+        int applyTo(int partition, LedgerProjections.Partition state, Set<Integer> rooms) {
+            int from = partitionStart[partition];
+            int to = partitionStart[partition + 1];
+            for (int i = from; i < to; i++) {
+                int row = partitionRows[i];
+                if (eventTypes[row] == LedgerEntry.ROOM_AVAILABILITY_CHANGED) {
+                    // Room events have booking ID 0, so only partition 0 sees them
+                    rooms.add(roomNumbers[row]);
+                } else {
+                    state.apply(eventTypes[row], bookingIds[row], customerIds[row], roomNumbers[row], propertyIds[row],
+                                checkInDays[row], checkOutDays[row], amountsCents[row]);
+                }
+            }
+            return to - from;
+        }
+
+        // True for the last apply thread done with this chunk
+        boolean release() {
+            return pending.decrementAndGet() == 0;
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.Room;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.Metrics;
+import com.hotelbooking.utils.Money;
+
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PricingEngine class for quoting stays with per-night dynamic rates
+ * Rules are compiled once per property and room type into a rate table indexed by epoch day,
+ * so quoting any stay is a prefix-sum lookup instead of evaluating every rule for every night.
+ * Occupancy is that of the room type at the room's own property.
+ *
+ * A booking or cancellation adjusts the occupancy of the nights it covers in the compiled tables
+ * and reprices only those nights, so writes never recompile a table. A table is recompiled from
+ * the database in the background once it is older than the refresh interval or was compiled on an
+ * earlier day, picking up rooms and other processes' bookings; until then the old one is served.
+ *
+ * Configuration:
+ *   -Dhotel.pricing.refresh.ms=300000    age after which a rate table is recompiled in the background
+ */
+public class PricingEngine {
+    // Number of nights compiled ahead of the compile date
+    private static final int HORIZON_DAYS = 730;
+    private static final long REFRESH_MILLIS = Long.getLong("hotel.pricing.refresh.ms", 300_000);
+
+    private static PricingEngine instance = null;
+
+    private static final AppLogger LOG = AppLogger.getLogger(PricingEngine.class);
+
+    private final List<PricingRule> rules = new CopyOnWriteArrayList<>();
+    private final List<LengthOfStayDiscount> stayDiscounts = new CopyOnWriteArrayList<>();
+    private final Map<String, RateTable> rateTables = new ConcurrentHashMap<>();
+    // Bumped whenever tables are discarded or their occupancy changes, so a table compiled before that
+    // is not cached; globally, and per "property|roomType|" so a write only affects its own room type
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, AtomicLong> typeGenerations = new ConcurrentHashMap<>();
+    // Keys of tables being recompiled in the background
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private ExecutorService refreshExecutor = null;
+
+    public PricingEngine() {
+        // Empty engine - add rules before quoting
+    }
+
+    /**
+     * Returns the shared engine loaded with the hotel's default rules
+     */
+    public static synchronized PricingEngine getInstance() {
+        if (instance == null) {
+            instance = new PricingEngine();
+            instance.loadDefaultRules();
+            Metrics.gauge("pricing.rateTables", instance.rateTables::size);
+        }
+        return instance;
+    }
+
+    /**
+     * Default hotel pricing policy
+     */
+    public void loadDefaultRules() {
+        addRule(PricingRule.daysOfWeek("Weekend", null, EnumSet.of(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY), 1500));
+        addRule(PricingRule.season("Holiday Peak", null, MonthDay.of(12, 20), MonthDay.of(1, 5), 2500));
+        addRule(PricingRule.season("Summer", null, MonthDay.of(6, 1), MonthDay.of(8, 31), 1000));
+        addRule(PricingRule.occupancyAtLeast("High Occupancy", null, 80, 1000));
+        addRule(PricingRule.occupancyAtLeast("Near Full", null, 95, 1000));
+        addStayDiscount(7, 500);
+        addStayDiscount(14, 1000);
+    }
+
+    /**
+     * Add a nightly rule; compiled rate tables are discarded
+     */
+    public void addRule(PricingRule rule) {
+        rules.add(rule);
+        invalidateAll();
+    }
+
+    /**
+     * Add a length-of-stay discount applied to the whole stay
+     * @param minNights minimum nights for the discount
+     * @param discountBasisPoints discount in basis points (500 = 5% off)
+     */
+    public void addStayDiscount(int minNights, int discountBasisPoints) {
+        stayDiscounts.add(new LengthOfStayDiscount(minNights, discountBasisPoints));
+    }
+
+    /**
+     * Quote the total price of a stay in cents
+     * @param room room from the catalog; its type and price select the rate table
+     * @param checkInDate first night
+     * @param checkOutDate departure date (not charged)
+     * @return total in cents after length-of-stay discount
+     */
+    public long quote(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        int firstNight = (int) checkInDate.toEpochDay();
+        int departure = (int) checkOutDate.toEpochDay();
+        if (departure <= firstNight) {
+            return Money.ZERO;
+        }
+
+        RateTable table = rateTableFor(room);
+        long total = table.sum(firstNight, departure);
+        return Money.applyBasisPoints(total, 10000 - stayDiscountFor(departure - firstNight));
+    }
+
+    /**
+     * Nightly rate for a single night in cents (before length-of-stay discount)
+     */
+    public long nightlyRate(Room room, LocalDate night) {
+        int day = (int) night.toEpochDay();
+        return rateTableFor(room).sum(day, day + 1);
+    }
+
+    /**
+     * Discard compiled tables for a room type of one property, e.g. after its rooms change
+     */
+    public void invalidate(int propertyId, String roomType) {
+        String prefix = propertyId + "|" + roomType + "|";
+        typeGeneration(prefix).incrementAndGet();
+        rateTables.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Apply a committed booking or cancellation to the occupancy of the compiled tables of its room type
+     * Only the nights of the stay are repriced; nothing is read from the database.
+     * @param rooms rooms booked (positive) or released (negative) for every night of the stay
+     */
+    public void occupancyChanged(int propertyId, String roomType, LocalDate checkInDate, LocalDate checkOutDate, int rooms) {
+        String prefix = propertyId + "|" + roomType + "|";
+        int fromDay = (int) checkInDate.toEpochDay();
+        int toDay = (int) checkOutDate.toEpochDay();
+        typeGeneration(prefix).incrementAndGet();
+        for (String key : rateTables.keySet()) {
+            if (key.startsWith(prefix)) {
+                rateTables.computeIfPresent(key, (tableKey, table) -> table.withBooked(fromDay, toDay, rooms));
+            }
+        }
+    }
+
+    /**
+     * Discard every compiled table
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        rateTables.clear();
+    }
+
+    private RateTable rateTableFor(Room room) {
+        // Keyed by property, type and catalog price so a catalog price change compiles a fresh table
+        String prefix = room.getPropertyId() + "|" + room.getRoomType() + "|";
+        String key = prefix + room.getPriceCents();
+        RateTable table = rateTables.get(key);
+        if (table != null) {
+            if (table.isStale()) {
+                refreshInBackground(key, prefix, room);
+            }
+            return table;
+        }
+
+        // Compiled outside the map (it queries the database); concurrent misses may compile twice
+        long compiledAt = generationOf(prefix);
+        table = compile(room.getPropertyId(), room.getRoomType(), room.getPriceCents());
+        if (generationOf(prefix) == compiledAt) {
+            RateTable existing = rateTables.putIfAbsent(key, table);
+            if (existing != null) {
+                return existing;
+            }
+            // Changed between the check and the put - do not keep a table built from old data
+            if (generationOf(prefix) != compiledAt) {
+                rateTables.remove(key);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Recompile a table on the refresh thread and swap it in, unless its room type changed meanwhile
+     * (then the old table stays and the next quote tries again)
+     */
+    private void refreshInBackground(String key, String prefix, Room room) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        refreshExecutor().execute(() -> {
+            try {
+                long compiledAt = generationOf(prefix);
+                RateTable table = compile(room.getPropertyId(), room.getRoomType(), room.getPriceCents());
+                if (generationOf(prefix) == compiledAt && rateTables.replace(key, table) != null
+                        && generationOf(prefix) != compiledAt) {
+                    rateTables.remove(key);
+                }
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    private synchronized ExecutorService refreshExecutor() {
+        if (refreshExecutor == null) {
+            refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pricing-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return refreshExecutor;
+    }
+
+    private AtomicLong typeGeneration(String prefix) {
+        return typeGenerations.computeIfAbsent(prefix, key -> new AtomicLong());
+    }
+
+    // Both counters only grow, so the sum is unchanged only if neither changed
+    private long generationOf(String prefix) {
+        return generation.get() + typeGeneration(prefix).get();
+    }
+
+    private int stayDiscountFor(int nights) {
+        int best = 0;
+        for (LengthOfStayDiscount discount : stayDiscounts) {
+            if (nights >= discount.minNights && discount.basisPoints > best) {
+                best = discount.basisPoints;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Compile all rules for one room type of a property into per-night rates
+     */
+    private RateTable compile(int propertyId, String roomType, long basePriceCents) {
+        int startDay = (int) LocalDate.now().toEpochDay();
+        int[] booked = new int[HORIZON_DAYS];
+        int roomCount = loadBookedRooms(propertyId, roomType, startDay, booked);
+
+        long[] prefix = new long[HORIZON_DAYS + 1];
+        for (int i = 0; i < HORIZON_DAYS; i++) {
+            prefix[i + 1] = prefix[i] + rateFor(roomType, basePriceCents, LocalDate.ofEpochDay(startDay + i),
+                                                occupancyPercent(booked[i], roomCount));
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Compiled " + HORIZON_DAYS + "-night rate table for " + roomType +
+                      " at property " + propertyId + " at " + Money.format(basePriceCents));
+        }
+        return new RateTable(roomType, basePriceCents, startDay, roomCount, booked, prefix, System.currentTimeMillis());
+    }
+
+    private static int occupancyPercent(int bookedRooms, int roomCount) {
+        return roomCount > 0 ? bookedRooms * 100 / roomCount : 0;
+    }
+
+    private long rateFor(String roomType, long basePriceCents, LocalDate night, int occupancyPercent) {
+        int basisPoints = 10000;
+        for (PricingRule rule : rules) {
+            basisPoints += rule.adjustmentFor(roomType, night, occupancyPercent);
+        }
+        return Money.applyBasisPoints(basePriceCents, Math.max(basisPoints, 0));
+    }
+
+    /**
+     * Number of a property's rooms of a type booked on each night of the horizon
+     * @param booked filled with the booked rooms per night, starting at startDay
+     * @return number of rooms of the type at the property
+     */
+    private int loadBookedRooms(int propertyId, String roomType, int startDay, int[] booked) {
+        int days = booked.length;
+        int roomCount = 0;
+        String roomCountSql = "SELECT COUNT(*) FROM rooms WHERE property_id = ? AND room_type = ?";
+        String bookingsSql = "SELECT b.check_in_date, b.check_out_date FROM bookings b " +
+                            "JOIN rooms r ON b.room_number = r.room_number " +
+                            "WHERE b.property_id = ? AND r.room_type = ? AND b.status = 'CONFIRMED' " +
+                            "AND b.check_out_date > ? AND b.check_in_date < ?";
+
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement countStatement = connection.prepareStatement(roomCountSql);
+             PreparedStatement bookingsStatement = connection.prepareStatement(bookingsSql)) {
+
+            countStatement.setInt(1, propertyId);
+            countStatement.setString(2, roomType);
+            try (ResultSet resultSet = countStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    roomCount = resultSet.getInt(1);
+                }
+            }
+            if (roomCount == 0) {
+                return 0;
+            }
+
+            // Difference array of booked rooms per night
+            int[] delta = new int[days + 1];
+            bookingsStatement.setInt(1, propertyId);
+            bookingsStatement.setString(2, roomType);
+            bookingsStatement.setDate(3, Date.valueOf(LocalDate.ofEpochDay(startDay)));
+            bookingsStatement.setDate(4, Date.valueOf(LocalDate.ofEpochDay(startDay + days)));
+            try (ResultSet resultSet = bookingsStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int from = Math.max((int) resultSet.getDate(1).toLocalDate().toEpochDay() - startDay, 0);
+                    int to = Math.min((int) resultSet.getDate(2).toLocalDate().toEpochDay() - startDay, days);
+                    if (from < to) {
+                        delta[from]++;
+                        delta[to]--;
+                    }
+                }
+            }
+
+            int rooms = 0;
+            for (int i = 0; i < days; i++) {
+                rooms += delta[i];
+                booked[i] = rooms;
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error loading occupancy for " + roomType + ": " + e.getMessage());
+        }
+
+        return roomCount;
+    }
+
+    /**
+     * Describe the active pricing rules
+     */
+    public Map<String, String> describeRules() {
+        Map<String, String> description = new HashMap<>();
+        for (PricingRule rule : rules) {
+            description.put(rule.getName(), rule.toString());
+        }
+        for (LengthOfStayDiscount discount : stayDiscounts) {
+            description.put(discount.minNights + "+ nights",
+                    String.format("Length of stay discount: -%.2f%%", discount.basisPoints / 100.0));
+        }
+        return description;
+    }
+
+    /**
+     * Length-of-stay discount
+     */
+    private static class LengthOfStayDiscount {
+        final int minNights;
+        final int basisPoints;
+
+        LengthOfStayDiscount(int minNights, int basisPoints) {
+            this.minNights = minNights;
+            this.basisPoints = basisPoints;
+        }
+    }
+
+    /**
+     * Compiled nightly rates for one room type and catalog price, stored as prefix sums
+     * Immutable: an occupancy change builds a copy, so quotes never see a half-updated table.
+     */
+    private class RateTable {
+        final String roomType;
+        final long basePriceCents;
+        final int startDay;
+        final int roomCount;
+        final int[] booked;
+        final long[] prefix;
+        final long compiledAtMillis;
+
+        RateTable(String roomType, long basePriceCents, int startDay, int roomCount, int[] booked, long[] prefix,
+                  long compiledAtMillis) {
+            this.roomType = roomType;
+            this.basePriceCents = basePriceCents;
+            this.startDay = startDay;
+            this.roomCount = roomCount;
+            this.booked = booked;
+            this.prefix = prefix;
+            this.compiledAtMillis = compiledAtMillis;
+        }
+
+        boolean isStale() {
+            return System.currentTimeMillis() - compiledAtMillis >= REFRESH_MILLIS ||
+                   startDay != (int) LocalDate.now().toEpochDay();
+        }
+
+        /**
+         * Copy of this table with rooms added to (or removed from) the booked count of nights in [fromDay, toDay)
+         */
+        RateTable withBooked(int fromDay, int toDay, int rooms) {
+            int from = Math.max(fromDay - startDay, 0);
+            int to = Math.min(toDay - startDay, booked.length);
+            if (from >= to || roomCount == 0) {
+                return this;
+            }
+
+            int[] newBooked = booked.clone();
+            long[] newPrefix = prefix.clone();
+            long shift = 0;
+            for (int i = from; i < booked.length; i++) {
+                if (i < to) {
+                    newBooked[i] = Math.min(Math.max(booked[i] + rooms, 0), roomCount);
+                    long rate = rateFor(roomType, basePriceCents, LocalDate.ofEpochDay(startDay + i),
+                                        occupancyPercent(newBooked[i], roomCount));
+                    shift += rate - (prefix[i + 1] - prefix[i]);
+                }
+                newPrefix[i + 1] = prefix[i + 1] + shift;
+            }
+            return new RateTable(roomType, basePriceCents, startDay, roomCount, newBooked, newPrefix, compiledAtMillis);
+        }
+
+        /**
+         * Sum of nightly rates for nights in [fromDay, toDay)
+         */
+        long sum(int fromDay, int toDay) {
+            long total = 0;
+            int from = fromDay;
+
+            // Nights before the compiled horizon are priced by evaluating the rules directly
+            while (from < toDay && from < startDay) {
+                total += rateFor(roomType, basePriceCents, LocalDate.ofEpochDay(from), 0);
+                from++;
+            }
+
+            int end = startDay + prefix.length - 1;
+            int compiledTo = Math.min(toDay, end);
+            if (from < compiledTo) {
+                total += prefix[compiledTo - startDay] - prefix[from - startDay];
+                from = compiledTo;
+            }
+
+            // Nights beyond the horizon likewise
+            while (from < toDay) {
+                total += rateFor(roomType, basePriceCents, LocalDate.ofEpochDay(from), 0);
+                from++;
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.hotelbooking.services;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * PricingRule class describing one nightly rate adjustment
+ * Adjustments are expressed in basis points of the room's catalog price (1000 = +10%)
+ * and are added together by the PricingEngine when it compiles a rate table
+ */
+public abstract class PricingRule {
+    private final String name;
+    private final String roomType; // null means the rule applies to every room type
+    private final int adjustmentBasisPoints;
+
+    protected PricingRule(String name, String roomType, int adjustmentBasisPoints) {
+        this.name = name;
+        this.roomType = roomType;
+        this.adjustmentBasisPoints = adjustmentBasisPoints;
+    }
+
+    /**
+     * Check whether the rule applies to one night
+     * @param night the night being priced
+     * @param occupancyPercent share of rooms of this type already booked that night
+     */
+    protected abstract boolean matches(LocalDate night, int occupancyPercent);
+
+    /**
+     * Adjustment contributed by this rule for one night of a room type
+     * @return basis points to add, or 0 if the rule does not apply
+     */
+    public int adjustmentFor(String type, LocalDate night, int occupancyPercent) {
+        if (roomType != null && !roomType.equalsIgnoreCase(type)) {
+            return 0;
+        }
+        return matches(night, occupancyPercent) ? adjustmentBasisPoints : 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getRoomType() {
+        return roomType;
+    }
+
+    public int getAdjustmentBasisPoints() {
+        return adjustmentBasisPoints;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | Room Type: %s | Adjustment: %+.2f%%",
+                name, roomType == null ? "All" : roomType, adjustmentBasisPoints / 100.0);
+    }
+
+    /**
+     * Season rule for a recurring date range; ranges may wrap over the new year (e.g. Dec 20 - Jan 5)
+     */
+    public static PricingRule season(String name, String roomType, MonthDay from, MonthDay to, int basisPoints) {
+        return new PricingRule(name, roomType, basisPoints) {
+            @Override
+            protected boolean matches(LocalDate night, int occupancyPercent) {
+                MonthDay day = MonthDay.from(night);
+                if (!from.isAfter(to)) {
+                    return !day.isBefore(from) && !day.isAfter(to);
+                }
+                return !day.isBefore(from) || !day.isAfter(to);
+            }
+        };
+    }
+
+    /**
+     * Day-of-week rule, e.g. weekend nights
+     */
+    public static PricingRule daysOfWeek(String name, String roomType, Set<DayOfWeek> days, int basisPoints) {
+        Set<DayOfWeek> nights = EnumSet.copyOf(days);
+        return new PricingRule(name, roomType, basisPoints) {
+            @Override
+            protected boolean matches(LocalDate night, int occupancyPercent) {
+                return nights.contains(night.getDayOfWeek());
+            }
+        };
+    }
+
+    /**
+     * Occupancy rule applied when at least the given share of rooms of the type is booked
+     */
+    public static PricingRule occupancyAtLeast(String name, String roomType, int percent, int basisPoints) {
+        return new PricingRule(name, roomType, basisPoints) {
+            @Override
+            protected boolean matches(LocalDate night, int occupancyPercent) {
+                return occupancyPercent >= percent;
+            }
+        };
+    }
+}
@@ -0,0 +1,253 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.Property;
+import com.hotelbooking.model.PropertyReport;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.LatencyHistogram;
+import com.hotelbooking.utils.Metrics;
+import com.hotelbooking.utils.RowMapper;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PropertyService class for the hotels of the group and their per-property reports
+ * Rooms and bookings carry a property_id; room numbers stay unique across the whole group, so
+ * room-keyed operations need no property. Reports are computed one task per property on a
+ * shared pool of worker threads, each task reading only its property's rows (through
+ * idx_bookings_property) and its property's partition of the availability index.
+ *
+ * Configuration:
+ *   -Dhotel.property=1          property used by callers that do not name one (GUI, old API calls)
+ *   -Dhotel.report.threads      report worker threads (default: available processors)
+ */
+public class PropertyService {
+    private static final int HOME_PROPERTY = Integer.getInteger("hotel.property", Property.DEFAULT_ID);
+    private static final int REPORT_THREADS = Integer.getInteger("hotel.report.threads",
+                                                                 Runtime.getRuntime().availableProcessors());
+
+    // Latency timers for every public method
+    private static final LatencyHistogram GET_ALL_PROPERTIES_TIMER = Metrics.timer("PropertyService.getAllProperties");
+    private static final LatencyHistogram GET_PROPERTY_BY_ID_TIMER = Metrics.timer("PropertyService.getPropertyById");
+    private static final LatencyHistogram CREATE_PROPERTY_TIMER = Metrics.timer("PropertyService.createProperty");
+    private static final LatencyHistogram GET_PROPERTY_REPORTS_TIMER = Metrics.timer("PropertyService.getPropertyReports");
+    private static final LatencyHistogram PROPERTY_REPORT_TIMER = Metrics.timer("PropertyService.propertyReport");
+
+    private static final AppLogger LOG = AppLogger.getLogger(PropertyService.class);
+
+    // Explicit projection and its positional mapper
+    static final String PROPERTY_COLUMNS = "property_id, code, name, city";
+    static final RowMapper<Property> PROPERTY_MAPPER = resultSet -> new Property(
+            resultSet.getInt(1),
+            resultSet.getString(2),
+            resultSet.getString(3),
+            resultSet.getString(4));
+
+    // Counts, revenue of stays checking in within the range, and nights sold within the range
+    private static final String REPORT_SQL =
+            "SELECT COALESCE(SUM(status = 'CONFIRMED'), 0), COALESCE(SUM(status = 'CANCELLED'), 0), " +
+            "COALESCE(CAST(ROUND(SUM(CASE WHEN status = 'CONFIRMED' AND check_in_date >= ? " +
+            "THEN total_amount ELSE 0 END) * 100) AS SIGNED), 0), " +
+            "COALESCE(SUM(CASE WHEN status = 'CONFIRMED' " +
+            "THEN DATEDIFF(LEAST(check_out_date, ?), GREATEST(check_in_date, ?)) ELSE 0 END), 0) " +
+            "FROM bookings WHERE property_id = ? AND check_in_date < ? AND check_out_date > ?";
+
+    private static ExecutorService reportExecutor = null;
+
+    private final AvailabilityIndex availabilityIndex;
+
+    public PropertyService() {
+        // Connections are borrowed from the pool for each call
+        this.availabilityIndex = AvailabilityIndex.getInstance();
+    }
+
+    /**
+     * Property used when a caller does not name one
+     */
+    public static int getHomePropertyId() {
+        return HOME_PROPERTY;
+    }
+
+    /**
+     * Get all properties of the group
+     * @return List of properties in ID order
+     */
+    public List<Property> getAllProperties() {
+        long startNanos = System.nanoTime();
+        try {
+            List<Property> properties = new ArrayList<>();
+            String sql = "SELECT " + PROPERTY_COLUMNS + " FROM properties ORDER BY property_id";
+
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+
+                properties = RowMapper.mapAll(resultSet, PROPERTY_MAPPER);
+
+            } catch (SQLException e) {
+                LOG.error("Error fetching properties: " + e.getMessage());
+            }
+
+            return properties;
+        } finally {
+            GET_ALL_PROPERTIES_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Find a property by ID
+     * @param propertyId the property ID
+     * @return Property if found, null otherwise
+     */
+    public Property getPropertyById(int propertyId) {
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "SELECT " + PROPERTY_COLUMNS + " FROM properties WHERE property_id = ?";
+
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, propertyId);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return PROPERTY_MAPPER.map(resultSet);
+                    }
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error fetching property " + propertyId + ": " + e.getMessage());
+            }
+
+            return null;
+        } finally {
+            GET_PROPERTY_BY_ID_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Add a property to the group
+     * @param code short unique code, e.g. "LON1"
+     * @param name display name
+     * @param city city (can be null)
+     * @return The created Property, or null if the insert failed
+     */
+    public Property createProperty(String code, String name, String city) {
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "INSERT INTO properties (code, name, city) VALUES (?, ?, ?)";
+
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setString(1, code);
+                statement.setString(2, name);
+                statement.setString(3, city);
+                statement.executeUpdate();
+
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        DatabaseConnection.recordWrite();
+                        Property property = new Property(generatedKeys.getInt(1), code, name, city);
+                        LOG.info("Property created: " + property);
+                        return property;
+                    }
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error creating property " + code + ": " + e.getMessage());
+            }
+
+            return null;
+        } finally {
+            CREATE_PROPERTY_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Report every property for a date range, one property per worker task
+     * @param fromDate first night of the range
+     * @param toDate day after the last night of the range
+     * @return one report per property, in property ID order; a property whose query failed is left out
+     */
+    public List<PropertyReport> getPropertyReports(LocalDate fromDate, LocalDate toDate) {
+        long startNanos = System.nanoTime();
+        try {
+            List<Property> properties = getAllProperties();
+            ExecutorService executor = getReportExecutor();
+
+            List<CompletableFuture<PropertyReport>> tasks = new ArrayList<>(properties.size());
+            for (Property property : properties) {
+                tasks.add(CompletableFuture.supplyAsync(() -> report(property, fromDate, toDate), executor));
+            }
+
+            List<PropertyReport> reports = new ArrayList<>(tasks.size());
+            for (CompletableFuture<PropertyReport> task : tasks) {
+                PropertyReport report = task.join();
+                if (report != null) {
+                    reports.add(report);
+                }
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Reported " + reports.size() + " of " + properties.size() + " properties from " +
+                          fromDate + " to " + toDate);
+            }
+            return reports;
+        } finally {
+            GET_PROPERTY_REPORTS_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Report one property for a date range
+     * @return the report, or null if its query failed
+     */
+    public PropertyReport report(Property property, LocalDate fromDate, LocalDate toDate) {
+        long startNanos = System.nanoTime();
+        try {
+            int propertyId = property.getPropertyId();
+
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(REPORT_SQL)) {
+                statement.setDate(1, Date.valueOf(fromDate));
+                statement.setDate(2, Date.valueOf(toDate));
+                statement.setDate(3, Date.valueOf(fromDate));
+                statement.setInt(4, propertyId);
+                statement.setDate(5, Date.valueOf(toDate));
+                statement.setDate(6, Date.valueOf(fromDate));
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return new PropertyReport(property, fromDate, toDate,
+                            availabilityIndex.getRoomCount(propertyId),
+                            availabilityIndex.getRoomsFreeTonight(propertyId).size(),
+                            resultSet.getInt(1), resultSet.getInt(2), resultSet.getLong(3), resultSet.getLong(4));
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error reporting property " + property.getCode() + ": " + e.getMessage());
+                return null;
+            }
+        } finally {
+            PROPERTY_REPORT_TIMER.recordSince(startNanos);
+        }
+    }
+
+    private static synchronized ExecutorService getReportExecutor() {
+        if (reportExecutor == null) {
+            AtomicInteger count = new AtomicInteger();
+            reportExecutor = Executors.newFixedThreadPool(Math.max(REPORT_THREADS, 1), runnable -> {
+                Thread thread = new Thread(runnable, "property-report-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return reportExecutor;
+    }
+}
@@ -0,0 +1,221 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.Quote;
+import com.hotelbooking.utils.Metrics;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * QuoteCache class holding short-lived availability and price quotes
+ * Entries are grouped by property and room type; a booking or cancellation removes only the
+ * entries of its property's room type whose dates overlap the changed stay (occupancy pricing
+ * affects the whole type at that property)
+ */
+public class QuoteCache {
+    // Default time-to-live - override with -Dhotel.quote.ttl.seconds=N
+    private static final long DEFAULT_TTL_SECONDS = Long.getLong("hotel.quote.ttl.seconds", 30);
+
+    // Room number used for quotes that cover a whole room type
+    public static final int ANY_ROOM = 0;
+
+    private static QuoteCache instance = null;
+
+    private final long ttlNanos;
+    private final Map<Integer, Map<String, TypeEntries>> entriesByProperty = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleRejects = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public QuoteCache(long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Returns the shared cache used by all BookingService instances
+     */
+    public static synchronized QuoteCache getInstance() {
+        if (instance == null) {
+            instance = new QuoteCache(DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+            QuoteCache cache = instance;
+            Metrics.gauge("quoteCache.entries", cache::size);
+            Metrics.gauge("quoteCache.hits", cache::getHitCount);
+            Metrics.gauge("quoteCache.misses", cache::getMissCount);
+            Metrics.gauge("quoteCache.staleRejects", cache::getStaleRejectCount);
+            Metrics.gauge("quoteCache.invalidations", cache::getInvalidationCount);
+        }
+        return instance;
+    }
+
+    /**
+     * Return a cached quote or compute and cache a new one
+     * A quote computed while an overlapping booking changed its room type is returned but not cached
+     * @param propertyId property of the quote
+     * @param roomType room type of the quote
+     * @param roomNumber room number, or ANY_ROOM for a room-type quote
+     * @param loader computes the quote on a miss
+     */
+    public Quote get(int propertyId, String roomType, int roomNumber, LocalDate checkInDate, LocalDate checkOutDate,
+                     Supplier<Quote> loader) {
+        TypeEntries entries = entriesByProperty.computeIfAbsent(propertyId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(roomType, type -> new TypeEntries());
+        Key key = new Key(roomNumber, (int) checkInDate.toEpochDay(), (int) checkOutDate.toEpochDay());
+
+        long now = System.nanoTime();
+        Entry entry = entries.quotes.get(key);
+        if (entry != null) {
+            if (now - entry.createdNanos < ttlNanos) {
+                hits.increment();
+                return entry.quote;
+            }
+            staleRejects.increment();
+            entries.quotes.remove(key, entry);
+        }
+
+        misses.increment();
+        long generation = entries.generation.get();
+        Quote quote = loader.get();
+        if (quote != null && entries.generation.get() == generation) {
+            Entry fresh = new Entry(quote, now);
+            entries.quotes.put(key, fresh);
+            // An invalidation between the check and the put may have missed this entry
+            if (entries.generation.get() != generation) {
+                entries.quotes.remove(key, fresh);
+            }
+        }
+        return quote;
+    }
+
+    /**
+     * Remove every quote of a property's room type whose stay overlaps the changed dates
+     * @param propertyId property of the booked or cancelled room
+     * @param roomType room type of the booked or cancelled room
+     * @param checkInDate first night of the changed stay
+     * @param checkOutDate departure date of the changed stay
+     */
+    public void invalidate(int propertyId, String roomType, LocalDate checkInDate, LocalDate checkOutDate) {
+        Map<String, TypeEntries> entriesByType = entriesByProperty.get(propertyId);
+        TypeEntries entries = entriesByType != null ? entriesByType.get(roomType) : null;
+        if (entries == null) {
+            return;
+        }
+
+        int from = (int) checkInDate.toEpochDay();
+        int to = (int) checkOutDate.toEpochDay();
+        entries.generation.incrementAndGet();
+        entries.quotes.keySet().removeIf(key -> {
+            boolean overlaps = key.checkInDay < to && from < key.checkOutDay;
+            if (overlaps) {
+                invalidations.increment();
+            }
+            return overlaps;
+        });
+    }
+
+    /**
+     * Remove all cached quotes
+     */
+    public void clear() {
+        for (Map<String, TypeEntries> entriesByType : entriesByProperty.values()) {
+            for (TypeEntries entries : entriesByType.values()) {
+                entries.generation.incrementAndGet();
+                entries.quotes.clear();
+            }
+        }
+    }
+
+    // Metrics
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getStaleRejectCount() {
+        return staleRejects.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public double getHitRate() {
+        long lookups = hits.sum() + misses.sum();
+        return lookups == 0 ? 0.0 : (double) hits.sum() / lookups;
+    }
+
+    public double getStaleRejectRate() {
+        long lookups = hits.sum() + misses.sum();
+        return lookups == 0 ? 0.0 : (double) staleRejects.sum() / lookups;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, TypeEntries> entriesByType : entriesByProperty.values()) {
+            for (TypeEntries entries : entriesByType.values()) {
+                size += entries.quotes.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QuoteCache | Entries: %d | Hit Rate: %.1f%% | Stale Rejects: %.1f%% | Invalidated: %d",
+                size(), getHitRate() * 100, getStaleRejectRate() * 100, getInvalidationCount());
+    }
+
+    /**
+     * Cached quotes of one room type at one property plus a generation counter bumped by every invalidation
+     */
+    private static class TypeEntries {
+        final Map<Key, Entry> quotes = new ConcurrentHashMap<>();
+        final AtomicLong generation = new AtomicLong();
+    }
+
+    private static class Entry {
+        final Quote quote;
+        final long createdNanos;
+
+        Entry(Quote quote, long createdNanos) {
+            this.quote = quote;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    private static class Key {
+        final int roomNumber;
+        final int checkInDay;
+        final int checkOutDay;
+
+        Key(int roomNumber, int checkInDay, int checkOutDay) {
+            this.roomNumber = roomNumber;
+            this.checkInDay = checkInDay;
+            this.checkOutDay = checkOutDay;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            Key key = (Key) obj;
+            return roomNumber == key.roomNumber && checkInDay == key.checkInDay && checkOutDay == key.checkOutDay;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(roomNumber, checkInDay, checkOutDay);
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.LedgerEntry;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.LatencyHistogram;
+import com.hotelbooking.utils.Metrics;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RoomAssignmentOptimizer class choosing which room of a type a stay goes into
+ * Rooms only ever move within the same property and room type.
+ * A free run of one or two nights between bookings is almost impossible to sell, so rooms are
+ * scored by the gaps a stay would leave before and after it (best fit: adjacent to existing
+ * stays is ideal, a short orphan gap is heavily penalised, otherwise the smaller hole wins).
+ * A nightly pass re-plans future bookings that were made by room type rather than for a
+ * specific room (bookings.room_locked = false) and moves them when that reduces fragmentation.
+ *
+ * Configuration:
+ *   -Dhotel.assign.orphan.nights (default 2), -Dhotel.assign.nightly.hour (default 3, -1 disables)
+ */
+public class RoomAssignmentOptimizer {
+    // Free runs up to this many nights count as unsellable orphans
+    private static final int ORPHAN_NIGHTS = Integer.getInteger("hotel.assign.orphan.nights", 2);
+    private static final int ORPHAN_PENALTY = 1000;
+    // Gaps longer than this are all treated as "wide open"
+    private static final int GAP_LIMIT = 60;
+    private static final int NIGHTLY_HOUR = Integer.getInteger("hotel.assign.nightly.hour", 3);
+
+    private static RoomAssignmentOptimizer instance = null;
+
+    private static final AppLogger LOG = AppLogger.getLogger(RoomAssignmentOptimizer.class);
+
+    private static final LatencyHistogram REOPTIMIZE_TIMER = Metrics.timer("RoomAssignmentOptimizer.reoptimize");
+    private static final LongAdder bookingsMoved = Metrics.counter("assign.bookingsMoved");
+
+    private final AvailabilityIndex availabilityIndex;
+    private final RoomLockManager roomLocks;
+    private ScheduledExecutorService nightlyExecutor = null;
+
+    public RoomAssignmentOptimizer(AvailabilityIndex availabilityIndex, RoomLockManager roomLocks) {
+        this.availabilityIndex = availabilityIndex;
+        this.roomLocks = roomLocks;
+    }
+
+    /**
+     * Returns the shared optimizer working on the shared availability index
+     */
+    public static synchronized RoomAssignmentOptimizer getInstance() {
+        if (instance == null) {
+            instance = new RoomAssignmentOptimizer(AvailabilityIndex.getInstance(), RoomLockManager.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Order candidate rooms from best to worst fit for a stay; rooms not free for the stay are dropped
+     * @param candidates room numbers of the requested type
+     * @return room numbers, lowest fragmentation cost first (ties keep the candidates' order)
+     */
+    public List<Integer> rankRooms(List<Integer> candidates, LocalDate checkInDate, LocalDate checkOutDate) {
+        List<Integer> free = new ArrayList<>(candidates.size());
+        Map<Integer, Integer> costs = new HashMap<>();
+        for (Integer roomNumber : candidates) {
+            if (availabilityIndex.isFree(roomNumber, checkInDate, checkOutDate)) {
+                free.add(roomNumber);
+                costs.put(roomNumber,
+                        gapCost(availabilityIndex.freeNightsBefore(roomNumber, checkInDate, GAP_LIMIT)) +
+                        gapCost(availabilityIndex.freeNightsAfter(roomNumber, checkOutDate, GAP_LIMIT)));
+            }
+        }
+        free.sort(Comparator.comparingInt(costs::get));
+        return free;
+    }
+
+    /**
+     * Best room for a stay, or -1 if none of the candidates is free
+     */
+    public int chooseRoom(List<Integer> candidates, LocalDate checkInDate, LocalDate checkOutDate) {
+        List<Integer> ranked = rankRooms(candidates, checkInDate, checkOutDate);
+        return ranked.isEmpty() ? -1 : ranked.get(0);
+    }
+
+    /**
+     * Cost of leaving a free run of the given length: zero when stays touch, a large penalty for
+     * an orphan, otherwise the run length (so tighter fits are preferred)
+     */
+    static int gapCost(int gapNights) {
+        if (gapNights <= 0) {
+            return 0;
+        }
+        if (gapNights <= ORPHAN_NIGHTS) {
+            return ORPHAN_PENALTY;
+        }
+        return Math.min(gapNights, GAP_LIMIT);
+    }
+
+    /**
+     * Re-plan every future, not room-locked booking and move those whose new room lowers the
+     * total fragmentation of their room type. Stays already started and room-locked bookings stay put.
+     * @return summary of the pass
+     */
+    public PassResult reoptimize() {
+        long startNanos = System.nanoTime();
+        PassResult result = new PassResult();
+        try {
+            int today = (int) LocalDate.now().toEpochDay();
+            Map<Integer, Map<String, List<Integer>>> roomsByProperty = loadRoomsByPropertyAndType();
+            Map<Integer, String> typeByRoom = new HashMap<>();
+            Map<Integer, Integer> propertyByRoom = new HashMap<>();
+            for (Map.Entry<Integer, Map<String, List<Integer>>> property : roomsByProperty.entrySet()) {
+                for (Map.Entry<String, List<Integer>> entry : property.getValue().entrySet()) {
+                    for (Integer roomNumber : entry.getValue()) {
+                        typeByRoom.put(roomNumber, entry.getKey());
+                        propertyByRoom.put(roomNumber, property.getKey());
+                    }
+                }
+            }
+
+            Map<Integer, Map<String, List<Stay>>> staysByProperty = new TreeMap<>();
+            for (Stay stay : loadFutureStays(today)) {
+                String roomType = typeByRoom.get(stay.roomNumber);
+                if (roomType != null) {
+                    staysByProperty.computeIfAbsent(propertyByRoom.get(stay.roomNumber), property -> new TreeMap<>())
+                            .computeIfAbsent(roomType, type -> new ArrayList<>()).add(stay);
+                }
+            }
+
+            for (Map.Entry<Integer, Map<String, List<Stay>>> property : staysByProperty.entrySet()) {
+                Map<String, List<Integer>> roomsByType = roomsByProperty.get(property.getKey());
+                for (Map.Entry<String, List<Stay>> entry : property.getValue().entrySet()) {
+                    optimizeType(property.getKey(), entry.getKey(), roomsByType.get(entry.getKey()), entry.getValue(),
+                                 today, result);
+                }
+            }
+
+            if (result.moved > 0) {
+                availabilityIndex.reload();
+            }
+        } catch (SQLException e) {
+            LOG.error("Error re-optimizing room assignments: " + e.getMessage());
+        } finally {
+            result.elapsedNanos = System.nanoTime() - startNanos;
+            REOPTIMIZE_TIMER.record(result.elapsedNanos);
+        }
+        LOG.info(result.toString());
+        return result;
+    }
+
+    /**
+     * Run reoptimize every night at the configured hour on a daemon thread
+     */
+    public synchronized void startNightlyReoptimization() {
+        if (nightlyExecutor != null || NIGHTLY_HOUR < 0) {
+            return;
+        }
+        nightlyExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-reassignment");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextRun = now.toLocalDate().atTime(NIGHTLY_HOUR, 0);
+        if (!nextRun.isAfter(now)) {
+            nextRun = nextRun.plusDays(1);
+        }
+        nightlyExecutor.scheduleAtFixedRate(this::reoptimize,
+                Duration.between(now, nextRun).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Greedy best-fit plan for one room type of a property, applied only if it beats the current assignment
+     */
+    private void optimizeType(int propertyId, String roomType, List<Integer> rooms, List<Stay> stays, int today, PassResult result)
+            throws SQLException {
+        int horizon = 1;
+        for (Stay stay : stays) {
+            horizon = Math.max(horizon, stay.checkOut - today);
+        }
+
+        // Calendar of nights that cannot move: stays already started and room-locked bookings
+        Map<Integer, BitSet> plan = new HashMap<>();
+        Map<Integer, BitSet> current = new HashMap<>();
+        for (Integer roomNumber : rooms) {
+            plan.put(roomNumber, new BitSet(horizon));
+            current.put(roomNumber, new BitSet(horizon));
+        }
+        List<Stay> movable = new ArrayList<>();
+        for (Stay stay : stays) {
+            occupy(current.get(stay.roomNumber), stay, today);
+            if (stay.locked || stay.checkIn <= today) {
+                occupy(plan.get(stay.roomNumber), stay, today);
+            } else {
+                movable.add(stay);
+            }
+        }
+        if (movable.isEmpty()) {
+            return;
+        }
+        result.considered += movable.size();
+
+        // Earliest arrival first, longer stays first on the same night
+        movable.sort(Comparator.<Stay>comparingInt(stay -> stay.checkIn).thenComparingInt(stay -> -stay.checkOut));
+        Map<Stay, Integer> assignment = new HashMap<>();
+        for (Stay stay : movable) {
+            int best = -1;
+            int bestCost = Integer.MAX_VALUE;
+            for (Integer roomNumber : rooms) {
+                BitSet nights = plan.get(roomNumber);
+                int from = stay.checkIn - today;
+                int to = stay.checkOut - today;
+                int booked = nights.nextSetBit(from);
+                if (booked >= 0 && booked < to) {
+                    continue;
+                }
+                int previous = nights.previousSetBit(from - 1);
+                int cost = gapCost(from - (previous + 1)) +
+                           gapCost(booked < 0 ? GAP_LIMIT : booked - to);
+                // Prefer the current room on ties so nothing moves without a gain
+                if (cost < bestCost || (cost == bestCost && roomNumber == stay.roomNumber)) {
+                    best = roomNumber;
+                    bestCost = cost;
+                }
+            }
+            if (best < 0) {
+                LOG.debug(() -> "No feasible re-plan for " + roomType + " - keeping the current assignment");
+                return;
+            }
+            occupy(plan.get(best), stay, today);
+            assignment.put(stay, best);
+        }
+
+        int costBefore = fragmentation(current);
+        int costAfter = fragmentation(plan);
+        result.costBefore += costBefore;
+        if (costAfter >= costBefore) {
+            result.costAfter += costBefore;
+            return;
+        }
+
+        List<Stay> moves = new ArrayList<>();
+        for (Map.Entry<Stay, Integer> entry : assignment.entrySet()) {
+            if (entry.getValue() != entry.getKey().roomNumber) {
+                moves.add(entry.getKey());
+            }
+        }
+        if (applyMoves(propertyId, rooms, moves, assignment)) {
+            result.moved += moves.size();
+            BookingService.dataChanged();
+            result.costAfter += costAfter;
+            bookingsMoved.add(moves.size());
+            QuoteCache quoteCache = QuoteCache.getInstance();
+            for (Stay stay : moves) {
+                quoteCache.invalidate(propertyId, roomType, LocalDate.ofEpochDay(stay.checkIn), LocalDate.ofEpochDay(stay.checkOut));
+            }
+        } else {
+            result.costAfter += costBefore;
+        }
+    }
+
+    /**
+     * Move bookings to their new rooms in one transaction while holding every room lock of the type
+     * A booking made or cancelled since the plan was computed makes the transaction fail and roll back
+     */
+    private boolean applyMoves(int propertyId, List<Integer> rooms, List<Stay> moves, Map<Stay, Integer> assignment) throws SQLException {
+        int[] roomNumbers = rooms.stream().mapToInt(Integer::intValue).toArray();
+        try (RoomLockManager.Lease lease = roomLocks.lockAll(roomNumbers, RoomLockManager.DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (lease == null) {
+                LOG.warn("Timed out waiting for room locks - assignments not changed");
+                return false;
+            }
+
+            String releaseSql = "DELETE FROM room_nights WHERE booking_id = ?";
+            String moveSql = "UPDATE bookings SET room_number = ? WHERE booking_id = ? AND room_number = ? " +
+                             "AND status = 'CONFIRMED' AND room_locked = false";
+            String reserveSql = "INSERT INTO room_nights (room_number, night, booking_id) VALUES (?, ?, ?)";
+
+            try (Connection connection = DatabaseConnection.borrowConnection()) {
+                connection.setAutoCommit(false);
+                try (PreparedStatement releaseStatement = connection.prepareStatement(releaseSql);
+                     PreparedStatement moveStatement = connection.prepareStatement(moveSql);
+                     PreparedStatement reserveStatement = connection.prepareStatement(reserveSql)) {
+
+                    for (Stay stay : moves) {
+                        releaseStatement.setInt(1, stay.bookingId);
+                        releaseStatement.addBatch();
+
+                        moveStatement.setInt(1, assignment.get(stay));
+                        moveStatement.setInt(2, stay.bookingId);
+                        moveStatement.setInt(3, stay.roomNumber);
+                        moveStatement.addBatch();
+
+                        for (int night = stay.checkIn; night < stay.checkOut; night++) {
+                            reserveStatement.setInt(1, assignment.get(stay));
+                            reserveStatement.setDate(2, Date.valueOf(LocalDate.ofEpochDay(night)));
+                            reserveStatement.setInt(3, stay.bookingId);
+                            reserveStatement.addBatch();
+                        }
+                    }
+
+                    // Release every old night before claiming new ones so swaps do not collide
+                    releaseStatement.executeBatch();
+                    for (int updated : moveStatement.executeBatch()) {
+                        if (updated != 1) {
+                            throw new SQLException("A booking changed while being re-assigned");
+                        }
+                    }
+                    reserveStatement.executeBatch();
+
+                    List<LedgerEntry> entries = new ArrayList<>(moves.size());
+                    for (Stay stay : moves) {
+                        entries.add(BookingLedger.moved(propertyId, stay.bookingId, stay.roomNumber, assignment.get(stay),
+                                                       LocalDate.ofEpochDay(stay.checkIn), LocalDate.ofEpochDay(stay.checkOut)));
+                    }
+                    BookingLedger.appendAll(connection, entries);
+                    connection.commit();
+                    return true;
+
+                } catch (SQLException e) {
+                    connection.rollback();
+                    LOG.warn("Room re-assignment rolled back: " + e.getMessage());
+                    return false;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Total cost of the free runs enclosed between stays, from tonight to the last booked night
+     */
+    private static int fragmentation(Map<Integer, BitSet> calendar) {
+        int cost = 0;
+        for (BitSet nights : calendar.values()) {
+            int free = nights.nextClearBit(0);
+            while (true) {
+                int booked = nights.nextSetBit(free);
+                if (booked < 0) {
+                    break;
+                }
+                cost += gapCost(booked - free);
+                free = nights.nextClearBit(booked);
+            }
+        }
+        return cost;
+    }
+
+    private static void occupy(BitSet nights, Stay stay, int today) {
+        nights.set(Math.max(stay.checkIn - today, 0), stay.checkOut - today);
+    }
+
+    private Map<Integer, Map<String, List<Integer>>> loadRoomsByPropertyAndType() throws SQLException {
+        Map<Integer, Map<String, List<Integer>>> roomsByProperty = new TreeMap<>();
+        String sql = "SELECT room_number, room_type, property_id FROM rooms ORDER BY room_number";
+
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                roomsByProperty.computeIfAbsent(resultSet.getInt(3), property -> new TreeMap<>())
+                        .computeIfAbsent(resultSet.getString(2), type -> new ArrayList<>()).add(resultSet.getInt(1));
+            }
+        }
+        return roomsByProperty;
+    }
+
+    private List<Stay> loadFutureStays(int today) throws SQLException {
+        List<Stay> stays = new ArrayList<>();
+        String sql = "SELECT booking_id, room_number, DATEDIFF(check_in_date, '1970-01-01'), " +
+                     "DATEDIFF(check_out_date, '1970-01-01'), room_locked " +
+                     "FROM bookings WHERE status = 'CONFIRMED' AND check_out_date > ?";
+
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setDate(1, Date.valueOf(LocalDate.ofEpochDay(today)));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    stays.add(new Stay(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3),
+                                       resultSet.getInt(4), resultSet.getBoolean(5)));
+                }
+            }
+        }
+        return stays;
+    }
+
+    /**
+     * One booked stay as epoch days
+     */
+    private static class Stay {
+        final int bookingId;
+        final int roomNumber;
+        final int checkIn;
+        final int checkOut;
+        final boolean locked;
+
+        Stay(int bookingId, int roomNumber, int checkIn, int checkOut, boolean locked) {
+            this.bookingId = bookingId;
+            this.roomNumber = roomNumber;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.locked = locked;
+        }
+    }
+
+    /**
+     * Outcome of a re-optimization pass
+     */
+    public static class PassResult {
+        private int considered;
+        private int moved;
+        private int costBefore;
+        private int costAfter;
+        private long elapsedNanos;
+
+        public int getBookingsConsidered() {
+            return considered;
+        }
+
+        public int getBookingsMoved() {
+            return moved;
+        }
+
+        public int getFragmentationBefore() {
+            return costBefore;
+        }
+
+        public int getFragmentationAfter() {
+            return costAfter;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Room re-assignment | Considered: %d | Moved: %d | Fragmentation: %d -> %d | %.1f ms",
+                    considered, moved, costBefore, costAfter, elapsedNanos / 1_000_000.0);
+        }
+    }
+}
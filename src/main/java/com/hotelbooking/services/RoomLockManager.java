@@ -0,0 +1,141 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.utils.LatencyHistogram;
+import com.hotelbooking.utils.Metrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * RoomLockManager class serializing in-process booking work per room
+ * Every room number gets its own lock (the room catalog is small and bounded), so threads working
+ * on different rooms never contend. Multi-room callers must use lockAll, which takes the locks in
+ * ascending room order to rule out deadlock.
+ */
+public class RoomLockManager {
+    // Default wait for a room lock - override with -Dhotel.booking.lock.timeout.ms=N
+    public static final long DEFAULT_TIMEOUT_MILLIS = Long.getLong("hotel.booking.lock.timeout.ms", 2000);
+
+    private static RoomLockManager instance = null;
+
+    private final Map<Integer, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final LongAdder acquisitions = Metrics.counter("roomLock.acquired");
+    private final LongAdder contended = Metrics.counter("roomLock.contended");
+    private final LongAdder timeouts = Metrics.counter("roomLock.timeouts");
+    private final LatencyHistogram waitTimer = Metrics.timer("roomLock.wait");
+    private final LatencyHistogram holdTimer = Metrics.timer("roomLock.hold");
+
+    /**
+     * Returns the shared lock manager used by all BookingService instances
+     */
+    public static synchronized RoomLockManager getInstance() {
+        if (instance == null) {
+            instance = new RoomLockManager();
+            Metrics.gauge("roomLock.rooms", instance.locks::size);
+        }
+        return instance;
+    }
+
+    /**
+     * Lock one room, waiting at most the timeout
+     * @return a lease to close when done, or null if the lock could not be taken in time
+     */
+    public Lease lock(int roomNumber, long timeout, TimeUnit unit) {
+        return lockAll(new int[] { roomNumber }, timeout, unit);
+    }
+
+    /**
+     * Lock several rooms in ascending room order, all or nothing
+     * @param roomNumbers rooms to lock (duplicates are ignored)
+     * @param timeout total time to wait for all locks
+     * @return a lease releasing every lock on close, or null on timeout (nothing stays locked)
+     */
+    public Lease lockAll(int[] roomNumbers, long timeout, TimeUnit unit) {
+        int[] sorted = Arrays.stream(roomNumbers).distinct().sorted().toArray();
+        ReentrantLock[] held = new ReentrantLock[sorted.length];
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + unit.toNanos(timeout);
+
+        try {
+            for (int i = 0; i < sorted.length; i++) {
+                ReentrantLock lock = locks.computeIfAbsent(sorted[i], room -> new ReentrantLock());
+                if (!lock.tryLock()) {
+                    contended.increment();
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !lock.tryLock(remaining, TimeUnit.NANOSECONDS)) {
+                        timeouts.increment();
+                        unlock(held, i);
+                        return null;
+                    }
+                }
+                held[i] = lock;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unlock(held, held.length);
+            return null;
+        }
+
+        acquisitions.add(sorted.length);
+        waitTimer.recordSince(startNanos);
+        return new Lease(held);
+    }
+
+    /**
+     * True if some thread currently holds the room's lock
+     */
+    public boolean isLocked(int roomNumber) {
+        ReentrantLock lock = locks.get(roomNumber);
+        return lock != null && lock.isLocked();
+    }
+
+    public long getContendedCount() {
+        return contended.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RoomLockManager | Rooms: %d | Acquired: %d | Contended: %d | Timeouts: %d",
+                locks.size(), acquisitions.sum(), contended.sum(), timeouts.sum());
+    }
+
+    private static void unlock(ReentrantLock[] held, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (held[i] != null) {
+                held[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Held room locks; close() releases them (in reverse order) exactly once
+     */
+    public class Lease implements AutoCloseable {
+        private final ReentrantLock[] held;
+        private final long acquiredNanos = System.nanoTime();
+        private boolean released = false;
+
+        private Lease(ReentrantLock[] held) {
+            this.held = held;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                unlock(held, held.length);
+                holdTimer.recordSince(acquiredNanos);
+            }
+        }
+    }
+}
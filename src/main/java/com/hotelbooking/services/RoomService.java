@@ -1,46 +1,112 @@
 package com.hotelbooking.services;
 
+import com.hotelbooking.events.OutboxRelay;
 import com.hotelbooking.model.Room;
+import com.hotelbooking.utils.AppLogger;
 import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.LatencyHistogram;
+import com.hotelbooking.utils.Metrics;
+import com.hotelbooking.utils.Money;
+import com.hotelbooking.utils.RowMapper;
+import com.hotelbooking.utils.SingleFlight;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * RoomService class for handling room-related operations
  * Demonstrates OOP principles and JDBC database operations
  */
 public class RoomService {
-    private Connection connection;
+
+    // Latency timers for every public method
+    private static final LatencyHistogram GET_AVAILABLE_ROOMS_TIMER = Metrics.timer("RoomService.getAvailableRooms");
+    private static final LatencyHistogram GET_ALL_ROOMS_TIMER = Metrics.timer("RoomService.getAllRooms");
+    private static final LatencyHistogram GET_ROOMS_BY_PROPERTY_TIMER = Metrics.timer("RoomService.getRoomsByProperty");
+    private static final LatencyHistogram GET_ROOM_BY_NUMBER_TIMER = Metrics.timer("RoomService.getRoomByNumber");
+    private static final LatencyHistogram SEARCH_ROOMS_TIMER = Metrics.timer("RoomService.searchRooms");
+    private static final LatencyHistogram SEARCH_ROOM_SUMMARIES_TIMER = Metrics.timer("RoomService.searchRoomSummaries");
+    private static final LatencyHistogram UPDATE_ROOM_AVAILABILITY_TIMER = Metrics.timer("RoomService.updateRoomAvailability");
+    private static final LatencyHistogram ADD_ROOM_TIMER = Metrics.timer("RoomService.addRoom");
+    private static final LatencyHistogram DISPLAY_AVAILABLE_ROOMS_TIMER = Metrics.timer("RoomService.displayAvailableRooms");
+
+    private static final AppLogger LOG = AppLogger.getLogger(RoomService.class);
+
+    // Property ID that matches rooms of every property in searches
+    public static final int ANY_PROPERTY = 0;
+
+    // Explicit projections and their positional mappers
+    // Room.isAvailable() means "free tonight" and comes from the booking calendar, not a column
+    static final String ROOM_COLUMNS = "room_number, room_type, price, amenities, property_id";
+    static final RowMapper<Room> ROOM_MAPPER = resultSet -> new Room(
+            resultSet.getInt(1),
+            resultSet.getInt(5),
+            resultSet.getString(2),
+            Money.fromDecimal(resultSet.getBigDecimal(3)),
+            false,
+            resultSet.getString(4));
+
+    // Summary projection for pricing and allocation paths - skips the amenities TEXT column
+    static final String ROOM_SUMMARY_COLUMNS = "room_number, room_type, price, property_id";
+    static final RowMapper<Room> ROOM_SUMMARY_MAPPER = resultSet -> new Room(
+            resultSet.getInt(1),
+            resultSet.getInt(4),
+            resultSet.getString(2),
+            Money.fromDecimal(resultSet.getBigDecimal(3)),
+            false,
+            null);
+
+    // Concurrent lookups of the same room share one query
+    private static final SingleFlight<Integer, Room> roomLookups = new SingleFlight<>("RoomService.getRoomByNumber.flight");
+
+    private AvailabilityIndex availabilityIndex;
+
+    // Bumped on every committed write so screens can tell whether their copy is stale
+    private static final AtomicLong dataVersion = new AtomicLong();
 
     // Constructor
     public RoomService() {
-        this.connection = DatabaseConnection.getConnection();
+        // Connections are borrowed from the pool for each call
+        this.availabilityIndex = AvailabilityIndex.getInstance();
     }
 
     /**
-     * Get all available rooms
+     * Counter that changes whenever a room is added
+     */
+    public static long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Get all rooms with no booking tonight
      * @return List of available rooms
      */
     public List<Room> getAvailableRooms() {
-        List<Room> availableRooms = new ArrayList<>();
-        String sql = "SELECT * FROM rooms WHERE is_available = true ORDER BY room_number";
+        long startNanos = System.nanoTime();
+        try {
+            List<Room> availableRooms = new ArrayList<>();
+            String sql = "SELECT " + ROOM_COLUMNS + " FROM rooms ORDER BY room_number";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
 
-            while (resultSet.next()) {
-                Room room = extractRoomFromResultSet(resultSet);
-                availableRooms.add(room);
-            }
+                availableRooms = keepAvailable(RowMapper.mapAll(resultSet, ROOM_MAPPER), null, null);
             
-            System.out.println("✅ Found " + availableRooms.size() + " available rooms");
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Found " + availableRooms.size() + " available rooms");
+                }
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error fetching available rooms: " + e.getMessage());
-        }
+            } catch (SQLException e) {
+                LOG.error("Error fetching available rooms: " + e.getMessage());
+            }
         
-        return availableRooms;
+            return availableRooms;
+        } finally {
+            GET_AVAILABLE_ROOMS_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
@@ -48,121 +114,277 @@ public class RoomService {
      * @return List of all rooms
      */
     public List<Room> getAllRooms() {
-        List<Room> allRooms = new ArrayList<>();
-        String sql = "SELECT * FROM rooms ORDER BY room_number";
+        long startNanos = System.nanoTime();
+        try {
+            List<Room> allRooms = new ArrayList<>();
+            String sql = "SELECT " + ROOM_COLUMNS + " FROM rooms ORDER BY room_number";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
 
-            while (resultSet.next()) {
-                Room room = extractRoomFromResultSet(resultSet);
-                allRooms.add(room);
-            }
+                allRooms = RowMapper.mapAll(resultSet, ROOM_MAPPER);
+                for (Room room : allRooms) {
+                    room.setAvailable(availabilityIndex.isFreeTonight(room.getRoomNumber()));
+                }
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error fetching all rooms: " + e.getMessage());
-        }
+            } catch (SQLException e) {
+                LOG.error("Error fetching all rooms: " + e.getMessage());
+            }
         
-        return allRooms;
+            return allRooms;
+        } finally {
+            GET_ALL_ROOMS_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Get all rooms of one property
+     * @param propertyId property to list
+     * @return List of the property's rooms in room number order
+     */
+    public List<Room> getRoomsByProperty(int propertyId) {
+        long startNanos = System.nanoTime();
+        try {
+            List<Room> rooms = new ArrayList<>();
+            String sql = "SELECT " + ROOM_COLUMNS + " FROM rooms WHERE property_id = ? ORDER BY room_number";
+
+            try (Connection connection = DatabaseConnection.borrowReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, propertyId);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    rooms = RowMapper.mapAll(resultSet, ROOM_MAPPER);
+                }
+                for (Room room : rooms) {
+                    room.setAvailable(availabilityIndex.isFreeTonight(room.getRoomNumber()));
+                }
+
+            } catch (SQLException e) {
+                LOG.error("Error fetching rooms of property " + propertyId + ": " + e.getMessage());
+            }
+
+            return rooms;
+        } finally {
+            GET_ROOMS_BY_PROPERTY_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
      * Find room by room number
+     * Concurrent calls for the same room share one query and one Room object
      * @param roomNumber the room number to search for
      * @return Room object if found, null otherwise
      */
     public Room getRoomByNumber(int roomNumber) {
-        String sql = "SELECT * FROM rooms WHERE room_number = ?";
-        
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        long startNanos = System.nanoTime();
+        try {
+            return roomLookups.execute(roomNumber, () -> loadRoomByNumber(roomNumber));
+        } finally {
+            GET_ROOM_BY_NUMBER_TIMER.recordSince(startNanos);
+        }
+    }
+
+    private Room loadRoomByNumber(int roomNumber) {
+        String sql = "SELECT " + ROOM_COLUMNS + " FROM rooms WHERE room_number = ?";
+    
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setInt(1, roomNumber);
-            
+        
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return extractRoomFromResultSet(resultSet);
+                    Room room = ROOM_MAPPER.map(resultSet);
+                    room.setAvailable(availabilityIndex.isFreeTonight(roomNumber));
+                    return room;
                 }
             }
-            
+        
         } catch (SQLException e) {
-            System.out.println("❌ Error fetching room " + roomNumber + ": " + e.getMessage());
+            LOG.error("Error fetching room " + roomNumber + ": " + e.getMessage());
         }
-        
+    
         return null;
     }
 
     /**
-     * Search rooms by type and maximum price
+     * Search rooms free tonight by type and maximum price
      * @param roomType type of room to search for (can be null for any type)
-     * @param maxPrice maximum price (can be 0 for any price)
+     * @param maxPriceCents maximum price in cents (can be 0 for any price)
      * @return List of matching rooms
      */
-    public List<Room> searchRooms(String roomType, double maxPrice) {
+    public List<Room> searchRooms(String roomType, long maxPriceCents) {
+        return searchRooms(roomType, maxPriceCents, null, null);
+    }
+
+    /**
+     * Search rooms free for a whole stay by type and maximum price
+     * @param roomType type of room to search for (can be null for any type)
+     * @param maxPriceCents maximum price in cents (can be 0 for any price)
+     * @param checkInDate first night of the stay (null for tonight)
+     * @param checkOutDate departure date (null for tomorrow)
+     * @return List of matching rooms, cheapest first
+     */
+    public List<Room> searchRooms(String roomType, long maxPriceCents, LocalDate checkInDate, LocalDate checkOutDate) {
+        return searchRooms(ANY_PROPERTY, roomType, maxPriceCents, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Search one property's rooms free for a whole stay by type and maximum price
+     * @param propertyId property to search (ANY_PROPERTY for the whole group)
+     * @param roomType type of room to search for (can be null for any type)
+     * @param maxPriceCents maximum price in cents (can be 0 for any price)
+     * @param checkInDate first night of the stay (null for tonight)
+     * @param checkOutDate departure date (null for tomorrow)
+     * @return List of matching rooms, cheapest first
+     */
+    public List<Room> searchRooms(int propertyId, String roomType, long maxPriceCents,
+                                  LocalDate checkInDate, LocalDate checkOutDate) {
+        long startNanos = System.nanoTime();
+        try {
+            return findAvailableRooms(ROOM_COLUMNS, ROOM_MAPPER, propertyId, roomType, maxPriceCents,
+                                      checkInDate, checkOutDate);
+        } finally {
+            SEARCH_ROOMS_TIMER.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Search rooms like searchRooms but without amenities, for callers that only need number, type and price
+     * @param roomType type of room to search for (can be null for any type)
+     * @param maxPriceCents maximum price in cents (can be 0 for any price)
+     * @param checkInDate first night of the stay
+     * @param checkOutDate departure date
+     * @return List of rooms free for the stay, cheapest first, with null amenities
+     */
+    public List<Room> searchRoomSummaries(String roomType, long maxPriceCents, LocalDate checkInDate, LocalDate checkOutDate) {
+        return searchRoomSummaries(ANY_PROPERTY, roomType, maxPriceCents, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Search one property's rooms like searchRoomSummaries
+     * @param propertyId property to search (ANY_PROPERTY for the whole group)
+     * @param roomType type of room to search for (can be null for any type)
+     * @param maxPriceCents maximum price in cents (can be 0 for any price)
+     * @param checkInDate first night of the stay
+     * @param checkOutDate departure date
+     * @return List of the property's rooms free for the stay, cheapest first, with null amenities
+     */
+    public List<Room> searchRoomSummaries(int propertyId, String roomType, long maxPriceCents,
+                                          LocalDate checkInDate, LocalDate checkOutDate) {
+        long startNanos = System.nanoTime();
+        try {
+            return findAvailableRooms(ROOM_SUMMARY_COLUMNS, ROOM_SUMMARY_MAPPER, propertyId, roomType, maxPriceCents,
+                                      checkInDate, checkOutDate);
+        } finally {
+            SEARCH_ROOM_SUMMARIES_TIMER.recordSince(startNanos);
+        }
+    }
+
+    private List<Room> findAvailableRooms(String columns, RowMapper<Room> mapper, int propertyId, String roomType,
+                                          long maxPriceCents, LocalDate checkInDate, LocalDate checkOutDate) {
         List<Room> matchingRooms = new ArrayList<>();
-        StringBuilder sql = new StringBuilder("SELECT * FROM rooms WHERE is_available = true");
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM rooms WHERE 1 = 1");
         List<Object> parameters = new ArrayList<>();
 
+        // Leading column of idx_rooms_property_type, so only the property's rows are read
+        if (propertyId != ANY_PROPERTY) {
+            sql.append(" AND property_id = ?");
+            parameters.add(propertyId);
+        }
+
         if (roomType != null && !roomType.trim().isEmpty()) {
             sql.append(" AND room_type = ?");
             parameters.add(roomType);
         }
 
-        if (maxPrice > 0) {
+        if (maxPriceCents > 0) {
             sql.append(" AND price <= ?");
-            parameters.add(maxPrice);
+            parameters.add(Money.toDecimal(maxPriceCents));
         }
 
         sql.append(" ORDER BY price");
 
-        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+        // Only the catalog comes from the query - availability is the index's, and a booking re-checks
+        // room_nights on the primary - so a replica within the lag bound is good enough
+        try (Connection connection = DatabaseConnection.borrowReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
             // Set parameters
             for (int i = 0; i < parameters.size(); i++) {
                 statement.setObject(i + 1, parameters.get(i));
             }
 
             try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    Room room = extractRoomFromResultSet(resultSet);
-                    matchingRooms.add(room);
-                }
+                matchingRooms = keepAvailable(RowMapper.mapAll(resultSet, mapper), checkInDate, checkOutDate);
             }
-            
-            System.out.println("✅ Found " + matchingRooms.size() + " matching rooms");
-            
+        
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Found " + matchingRooms.size() + " matching rooms");
+            }
+        
         } catch (SQLException e) {
-            System.out.println("❌ Error searching rooms: " + e.getMessage());
+            LOG.error("Error searching rooms: " + e.getMessage());
         }
-        
+    
         return matchingRooms;
     }
 
+    /**
+     * Drop rooms booked on any night of the stay (tonight when no dates are given) using the calendar index
+     */
+    private List<Room> keepAvailable(List<Room> rooms, LocalDate checkInDate, LocalDate checkOutDate) {
+        List<Room> available = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            boolean free = checkInDate == null
+                    ? availabilityIndex.isFreeTonight(room.getRoomNumber())
+                    : availabilityIndex.isFree(room.getRoomNumber(), checkInDate, checkOutDate);
+            if (free) {
+                room.setAvailable(availabilityIndex.isFreeTonight(room.getRoomNumber()));
+                available.add(room);
+            }
+        }
+        return available;
+    }
+
     /**
      * Update room availability
      * @param roomNumber the room number to update
      * @param isAvailable new availability status
      * @return true if update successful, false otherwise
+     * @deprecated availability is derived from the booking calendar (room_nights); the
+     *             is_available column is no longer read
      */
+    @Deprecated
     public boolean updateRoomAvailability(int roomNumber, boolean isAvailable) {
-        String sql = "UPDATE rooms SET is_available = ? WHERE room_number = ?";
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "UPDATE rooms SET is_available = ? WHERE room_number = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setBoolean(1, isAvailable);
-            statement.setInt(2, roomNumber);
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setBoolean(1, isAvailable);
+                statement.setInt(2, roomNumber);
             
-            int rowsAffected = statement.executeUpdate();
-            boolean success = rowsAffected > 0;
+                int rowsAffected = statement.executeUpdate();
+                boolean success = rowsAffected > 0;
             
-            if (success) {
-                System.out.println("✅ Room " + roomNumber + " availability updated to: " + 
-                                 (isAvailable ? "Available" : "Occupied"));
-            } else {
-                System.out.println("❌ Room " + roomNumber + " not found");
-            }
+                if (success) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Room " + roomNumber + " availability updated to: " +
+                                  (isAvailable ? "Available" : "Occupied"));
+                    }
+                } else {
+                    LOG.warn("Room " + roomNumber + " not found");
+                }
             
-            return success;
+                return success;
             
-        } catch (SQLException e) {
-            System.out.println("❌ Error updating room availability: " + e.getMessage());
-            return false;
+            } catch (SQLException e) {
+                LOG.error("Error updating room availability: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            UPDATE_ROOM_AVAILABILITY_TIMER.recordSince(startNanos);
         }
     }
 
@@ -172,76 +394,97 @@ public class RoomService {
      * @return true if successful, false otherwise
      */
     public boolean addRoom(Room room) {
-        String sql = "INSERT INTO rooms (room_number, room_type, price, is_available, amenities) VALUES (?, ?, ?, ?, ?)";
+        long startNanos = System.nanoTime();
+        try {
+            String sql = "INSERT INTO rooms (room_number, room_type, price, is_available, amenities, property_id) " +
+                         "VALUES (?, ?, ?, ?, ?, ?)";
         
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, room.getRoomNumber());
-            statement.setString(2, room.getRoomType());
-            statement.setDouble(3, room.getPrice());
-            statement.setBoolean(4, room.isAvailable());
-            statement.setString(5, room.getAmenities());
+            try (Connection connection = DatabaseConnection.borrowConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, room.getRoomNumber());
+                statement.setString(2, room.getRoomType());
+                statement.setBigDecimal(3, Money.toDecimal(room.getPriceCents()));
+                statement.setBoolean(4, room.isAvailable());
+                statement.setString(5, room.getAmenities());
+                statement.setInt(6, room.getPropertyId());
+
+                // The room and its ledger entry commit together
+                connection.setAutoCommit(false);
+                boolean success;
+                try {
+                    success = statement.executeUpdate() > 0;
+                    if (success) {
+                        BookingLedger.append(connection, BookingLedger.roomAvailable(room.getPropertyId(), room.getRoomNumber()));
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+
+                if (success) {
+                    availabilityIndex.addRoom(room.getPropertyId(), room.getRoomNumber());
+                    dataVersion.incrementAndGet();
+                    DatabaseConnection.recordWrite();
+                    OutboxRelay.signal();
+                    LOG.info("Room " + room.getRoomNumber() + " added successfully");
+                }
             
-            int rowsAffected = statement.executeUpdate();
-            boolean success = rowsAffected > 0;
+                return success;
             
-            if (success) {
-                System.out.println("✅ Room " + room.getRoomNumber() + " added successfully");
+            } catch (SQLException e) {
+                LOG.error("Error adding room: " + e.getMessage());
+                return false;
             }
-            
-            return success;
-            
-        } catch (SQLException e) {
-            System.out.println("❌ Error adding room: " + e.getMessage());
-            return false;
+        } finally {
+            ADD_ROOM_TIMER.recordSince(startNanos);
         }
     }
 
-    /**
-     * Helper method to extract Room object from ResultSet
-     */
-    private Room extractRoomFromResultSet(ResultSet resultSet) throws SQLException {
-        int roomNumber = resultSet.getInt("room_number");
-        String roomType = resultSet.getString("room_type");
-        double price = resultSet.getDouble("price");
-        boolean isAvailable = resultSet.getBoolean("is_available");
-        String amenities = resultSet.getString("amenities");
-        
-        return new Room(roomNumber, roomType, price, isAvailable, amenities);
-    }
-
     /**
      * Display all available rooms in a formatted way
      */
     public void displayAvailableRooms() {
-        List<Room> availableRooms = getAvailableRooms();
+        long startNanos = System.nanoTime();
+        try {
+            List<Room> availableRooms = getAvailableRooms();
         
-        if (availableRooms.isEmpty()) {
-            System.out.println("❌ No available rooms found.");
-            return;
-        }
+            if (availableRooms.isEmpty()) {
+                LOG.warn("No available rooms found.");
+                return;
+            }
         
-        System.out.println("\n=== AVAILABLE ROOMS ===");
-        System.out.println("+------------+-----------+---------+------------+----------------------+");
-        System.out.println("| Room No.   | Type      | Price   | Status     | Amenities            |");
-        System.out.println("+------------+-----------+---------+------------+----------------------+");
+            // Build the whole table and log it as one event
+            StringBuilder table = new StringBuilder("\n=== AVAILABLE ROOMS ===\n");
+            table.append("+------------+-----------+---------+------------+----------------------+\n");
+            table.append("| Room No.   | Type      | Price   | Status     | Amenities            |\n");
+            table.append("+------------+-----------+---------+------------+----------------------+\n");
         
-        for (Room room : availableRooms) {
-            System.out.printf("| %-10d | %-9s | $%-6.2f | %-10s | %-20s |\n",
-                    room.getRoomNumber(),
-                    room.getRoomType(),
-                    room.getPrice(),
-                    room.isAvailable() ? "Available" : "Occupied",
-                    room.getAmenities());
-        }
+            for (Room room : availableRooms) {
+                table.append(String.format("| %-10d | %-9s | %-7s | %-10s | %-20s |\n",
+                        room.getRoomNumber(),
+                        room.getRoomType(),
+                        Money.format(room.getPriceCents()),
+                        room.isAvailable() ? "Available" : "Occupied",
+                        room.getAmenities()));
+            }
         
-        System.out.println("+------------+-----------+---------+------------+----------------------+");
-        System.out.println("Total available rooms: " + availableRooms.size());
+            table.append("+------------+-----------+---------+------------+----------------------+\n");
+            table.append("Total available rooms: ").append(availableRooms.size());
+            LOG.info(table.toString());
+        } finally {
+            DISPLAY_AVAILABLE_ROOMS_TIMER.recordSince(startNanos);
+        }
     }
 
     /**
-     * Close the database connection
+     * Release resources held by this service
+     * Connections go back to the pool after every call, so there is nothing left to close;
+     * use DatabaseConnection.closeConnection() to shut down the pool on exit
      */
     public void close() {
-        DatabaseConnection.closeConnection();
+        // Nothing to release
     }
           }
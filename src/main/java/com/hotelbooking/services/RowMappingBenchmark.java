@@ -0,0 +1,252 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.Booking;
+import com.hotelbooking.model.Room;
+import com.hotelbooking.utils.DatabaseConnection;
+import com.hotelbooking.utils.Money;
+import com.hotelbooking.utils.RowMapper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RowMappingBenchmark class - times SELECT * with by-label mapping against the explicit projections
+ * and positional mappers the services use, on large result sets
+ * Rows are generated into temporary copies of the bookings and rooms tables on one connection, so
+ * the real tables are neither read nor changed. Each case reads every row into a list; cases run
+ * interleaved, warm-up rounds first, and per case the wall time of each measured round and the
+ * bytes allocated by the reading thread are reported. The by-label mappers are copies of the ones
+ * the projections replaced and are kept here only as the baseline.
+ *
+ * Usage: RowMappingBenchmark [--rows N] [--runs R] [--warmup W]
+ * Defaults: 100000 rows per table, 10 measured rounds, 5 warm-up rounds.
+ */
+public class RowMappingBenchmark {
+    private static final String[] ROOM_TYPES = {"Single", "Double", "Suite", "Deluxe"};
+    private static final String AMENITIES = "WiFi, TV, Air Conditioning, Mini Bar, Room Service, Safe, Hair Dryer, " +
+                                            "Coffee Maker, Iron, Desk, Bathrobe, Slippers, City View, Rain Shower";
+
+    private static final RowMapper<Booking> BOOKING_BY_LABEL = resultSet -> {
+        Booking booking = new Booking(resultSet.getInt("booking_id"),
+                                      resultSet.getInt("customer_id"),
+                                      resultSet.getInt("room_number"),
+                                      resultSet.getDate("check_in_date").toLocalDate(),
+                                      resultSet.getDate("check_out_date").toLocalDate(),
+                                      resultSet.getString("status"));
+        booking.setTotalAmountCents(Money.fromDecimal(resultSet.getBigDecimal("total_amount")));
+        booking.setPropertyId(resultSet.getInt("property_id"));
+        return booking;
+    };
+
+    private static final RowMapper<Room> ROOM_BY_LABEL = resultSet -> new Room(
+            resultSet.getInt("room_number"),
+            resultSet.getInt("property_id"),
+            resultSet.getString("room_type"),
+            Money.fromDecimal(resultSet.getBigDecimal("price")),
+            resultSet.getBoolean("is_available"),
+            resultSet.getString("amenities"));
+
+    private final int rows;
+    private final int runs;
+    private final int warmup;
+
+    public RowMappingBenchmark(int rows, int runs, int warmup) {
+        this.rows = rows;
+        this.runs = runs;
+        this.warmup = warmup;
+    }
+
+    /**
+     * Main method - parse arguments and run the comparison
+     */
+    public static void main(String[] args) throws SQLException {
+        int rows = 100_000;
+        int runs = 10;
+        int warmup = 5;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows":
+                    rows = Integer.parseInt(args[++i]);
+                    break;
+                case "--runs":
+                    runs = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (rows <= 0 || runs <= 0 || warmup < 0) {
+            System.err.println("--rows and --runs must be positive, --warmup not negative");
+            System.exit(2);
+        }
+        try {
+            for (String line : new RowMappingBenchmark(rows, runs, warmup).run()) {
+                System.out.println(line);
+            }
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+
+    /**
+     * Generate the rows, run every case and return one summary line per case
+     */
+    public List<String> run() throws SQLException {
+        try (Connection connection = DatabaseConnection.borrowConnection()) {
+            try {
+                generate(connection);
+
+                List<Case<?>> cases = Arrays.asList(
+                        new Case<>("bookings select*+label", "SELECT * FROM bench_bookings", BOOKING_BY_LABEL),
+                        new Case<>("bookings projection+pos",
+                                   "SELECT " + BookingService.BATCH_COLUMNS + " FROM bench_bookings",
+                                   BookingService.BOOKING_MAPPER),
+                        new Case<>("rooms select*+label", "SELECT * FROM bench_rooms", ROOM_BY_LABEL),
+                        new Case<>("rooms projection+pos",
+                                   "SELECT " + RoomService.ROOM_COLUMNS + " FROM bench_rooms", RoomService.ROOM_MAPPER),
+                        new Case<>("rooms summary+pos",
+                                   "SELECT " + RoomService.ROOM_SUMMARY_COLUMNS + " FROM bench_rooms",
+                                   RoomService.ROOM_SUMMARY_MAPPER));
+
+                for (int round = 0; round < warmup + runs; round++) {
+                    for (Case<?> benchCase : cases) {
+                        benchCase.read(connection, round >= warmup);
+                    }
+                }
+
+                List<String> lines = new ArrayList<>(cases.size());
+                for (Case<?> benchCase : cases) {
+                    lines.add(benchCase.summary());
+                }
+                return lines;
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP TEMPORARY TABLE IF EXISTS bench_bookings, bench_rooms");
+                }
+            }
+        }
+    }
+
+    private void generate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TEMPORARY TABLE IF EXISTS bench_bookings, bench_rooms");
+            statement.execute("CREATE TEMPORARY TABLE bench_bookings LIKE bookings");
+            statement.execute("CREATE TEMPORARY TABLE bench_rooms LIKE rooms");
+        }
+
+        String bookingSql = "INSERT INTO bench_bookings (customer_id, room_number, check_in_date, check_out_date, " +
+                            "total_amount, status, property_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String roomSql = "INSERT INTO bench_rooms (room_number, property_id, room_type, price, amenities) VALUES (?, ?, ?, ?, ?)";
+        LocalDate firstNight = LocalDate.now().minusYears(1);
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement bookings = connection.prepareStatement(bookingSql);
+             PreparedStatement rooms = connection.prepareStatement(roomSql)) {
+            for (int i = 1; i <= rows; i++) {
+                LocalDate checkIn = firstNight.plusDays(i % 700);
+                bookings.setInt(1, 1 + i % 5000);
+                bookings.setInt(2, 100 + i % 400);
+                bookings.setDate(3, Date.valueOf(checkIn));
+                bookings.setDate(4, Date.valueOf(checkIn.plusDays(1 + i % 6)));
+                bookings.setBigDecimal(5, BigDecimal.valueOf(5000 + i % 90_000, 2));
+                bookings.setString(6, i % 10 == 0 ? Booking.STATUS_CANCELLED : Booking.STATUS_CONFIRMED);
+                bookings.setInt(7, 1 + i % 3);
+                bookings.addBatch();
+
+                rooms.setInt(1, i);
+                rooms.setInt(2, 1 + i % 3);
+                rooms.setString(3, ROOM_TYPES[i % ROOM_TYPES.length]);
+                rooms.setBigDecimal(4, BigDecimal.valueOf(5000 + i % 50_000, 2));
+                rooms.setString(5, AMENITIES);
+                rooms.addBatch();
+
+                if (i % 1000 == 0 || i == rows) {
+                    bookings.executeBatch();
+                    rooms.executeBatch();
+                }
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * One query and mapper, with the timings of its measured rounds
+     */
+    private final class Case<T> {
+        final String name;
+        final String sql;
+        final RowMapper<T> mapper;
+        final long[] nanos = new long[runs];
+        final long[] allocatedBytes = new long[runs];
+        int measured;
+
+        Case(String name, String sql, RowMapper<T> mapper) {
+            this.name = name;
+            this.sql = sql;
+            this.mapper = mapper;
+        }
+
+        void read(Connection connection, boolean measure) throws SQLException {
+            long allocatedBefore = allocatedBytes();
+            long startNanos = System.nanoTime();
+            List<T> mapped;
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                mapped = RowMapper.mapAll(resultSet, mapper);
+            }
+            long elapsed = System.nanoTime() - startNanos;
+            if (mapped.size() != rows) {
+                throw new SQLException(name + " read " + mapped.size() + " rows, expected " + rows);
+            }
+            if (measure) {
+                nanos[measured] = elapsed;
+                allocatedBytes[measured] = allocatedBytes() - allocatedBefore;
+                measured++;
+            }
+        }
+
+        String summary() {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long value : sorted) {
+                total += value;
+            }
+            long allocated = 0;
+            for (long value : allocatedBytes) {
+                allocated += value;
+            }
+            return String.format(Locale.ROOT,
+                    "%-24s rows=%d runs=%d  min=%8.1f  median=%8.1f  mean=%8.1f ms  alloc=%7.1f MB/run",
+                    name, rows, runs, sorted[0] / 1e6, sorted[(runs - 1) / 2] / 1e6, total / 1e6 / runs,
+                    allocated / 1048576.0 / runs);
+        }
+    }
+
+    // Bytes allocated so far by this thread, or 0 if the JVM does not report it
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.hotelbooking.services;
+
+import com.hotelbooking.model.Customer;
+import com.hotelbooking.utils.AppLogger;
+import com.hotelbooking.utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ServiceContext class holding the one set of services shared by every screen
+ * The services keep no per-caller state (connections come from the pool), so a single instance
+ * of each can serve all dialogs. Also caches customer names for booking tables, reloaded in one
+ * query whenever the customer data version changes instead of one lookup per row.
+ *
+ * View versions combine this process's data versions with the booking ledger's last sequence, so a
+ * booking, cancellation, move or new room made by another client also changes them. The ledger is
+ * asked at most once per hotel.view.ledgerCheck.ms. Changes the ledger does not record (customer
+ * and room edits by other clients) are picked up by reloading any view older than hotel.view.maxAge.ms.
+ *
+ * Configuration:
+ *   -Dhotel.view.ledgerCheck.ms=1000   how long a read of the ledger's last sequence is reused
+ *   -Dhotel.view.maxAge.ms=60000       age after which a view is reloaded even if no version changed
+ */
+public class ServiceContext {
+    private static final long LEDGER_CHECK_MILLIS = Long.getLong("hotel.view.ledgerCheck.ms", 1000);
+    private static final long MAX_VIEW_AGE_MILLIS = Long.getLong("hotel.view.maxAge.ms", 60_000);
+
+    private static ServiceContext instance = null;
+
+    private static final AppLogger LOG = AppLogger.getLogger(ServiceContext.class);
+
+    private final BookingService bookingService;
+    private final CustomerService customerService;
+    private final RoomService roomService;
+
+    private final Map<Integer, String> customerNames = new HashMap<>();
+    private long customerNamesVersion = -1;
+    private long customerNamesLoadedAtMillis;
+
+    private long ledgerSequence;
+    private long ledgerCheckedAtMillis;
+
+    public ServiceContext(BookingService bookingService, CustomerService customerService, RoomService roomService) {
+        this.bookingService = bookingService;
+        this.customerService = customerService;
+        this.roomService = roomService;
+    }
+
+    /**
+     * Returns the shared context, creating its services on first use
+     */
+    public static synchronized ServiceContext getInstance() {
+        if (instance == null) {
+            instance = new ServiceContext(new BookingService(), new CustomerService(), new RoomService());
+        }
+        return instance;
+    }
+
+    public BookingService getBookingService() {
+        return bookingService;
+    }
+
+    public CustomerService getCustomerService() {
+        return customerService;
+    }
+
+    public RoomService getRoomService() {
+        return roomService;
+    }
+
+    /**
+     * Changes whenever bookings or customers change (booking tables show both), in any process for bookings
+     */
+    public long getBookingsViewVersion() {
+        return getLedgerSequence() + BookingService.getDataVersion() + CustomerService.getDataVersion();
+    }
+
+    /**
+     * Changes whenever rooms or bookings change (room availability depends on both), in any process for bookings
+     */
+    public long getRoomsViewVersion() {
+        return getLedgerSequence() + RoomService.getDataVersion() + BookingService.getDataVersion();
+    }
+
+    /**
+     * True if a view loaded at the given time should be reloaded whatever its version
+     */
+    public boolean isExpired(long loadedAtMillis) {
+        return System.currentTimeMillis() - loadedAtMillis >= MAX_VIEW_AGE_MILLIS;
+    }
+
+    /**
+     * Last booking ledger sequence, read from the primary at most once per hotel.view.ledgerCheck.ms
+     */
+    private synchronized long getLedgerSequence() {
+        long now = System.currentTimeMillis();
+        if (now - ledgerCheckedAtMillis < LEDGER_CHECK_MILLIS) {
+            return ledgerSequence;
+        }
+        ledgerCheckedAtMillis = now;
+
+        try (Connection connection = DatabaseConnection.borrowConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(sequence), 0) FROM booking_ledger")) {
+            if (resultSet.next()) {
+                ledgerSequence = resultSet.getLong(1);
+            }
+        } catch (SQLException e) {
+            LOG.error("Error reading booking ledger sequence: " + e.getMessage());
+        }
+        return ledgerSequence;
+    }
+
+    /**
+     * Customer name for display, or "Unknown"
+     */
+    public synchronized String getCustomerName(int customerId) {
+        long version = CustomerService.getDataVersion();
+        if (version != customerNamesVersion || isExpired(customerNamesLoadedAtMillis)) {
+            customerNames.clear();
+            for (Customer customer : customerService.getAllCustomers()) {
+                customerNames.put(customer.getCustomerId(), customer.getName());
+            }
+            customerNamesVersion = version;
+            customerNamesLoadedAtMillis = System.currentTimeMillis();
+        }
+
+        String name = customerNames.get(customerId);
+        if (name == null) {
+            // Created outside this process since the last reload
+            Customer customer = customerService.findCustomerById(customerId);
+            name = customer != null ? customer.getName() : "Unknown";
+            customerNames.put(customerId, name);
+        }
+        return name;
+    }
+}
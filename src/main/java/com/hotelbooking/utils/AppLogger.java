@@ -0,0 +1,306 @@
+package com.hotelbooking.utils;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * AppLogger class - leveled logger that hands messages to a background writer thread
+ * Producers claim slots in a bounded lock-free ring buffer and never touch the console lock;
+ * the writer drains the ring in batches. When the ring is full the message is dropped and counted.
+ *
+ * Levels are configured per logger-name prefix:
+ *   -Dhotel.log.level=INFO                                  (root level)
+ *   -Dhotel.log.level.com.hotelbooking.services=DEBUG       (package level)
+ *   -Dhotel.log.level.com.hotelbooking.services.RoomService=WARN
+ */
+public class AppLogger {
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final String LEVEL_PROPERTY = "hotel.log.level";
+    private static final int BUFFER_CAPACITY = ringCapacity(Integer.getInteger("hotel.log.buffer", 8192));
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final Ring ring = new Ring(BUFFER_CAPACITY);
+    private static final LongAdder dropped = new LongAdder();
+
+    // Level configuration - every logger caches its effective level, recomputed on change
+    private static final Map<String, Level> packageLevels = new ConcurrentHashMap<>();
+    private static final List<AppLogger> loggers = new CopyOnWriteArrayList<>();
+    private static volatile Level rootLevel = Level.INFO;
+
+    static {
+        loadLevels(System.getProperties());
+
+        Thread writer = new Thread(AppLogger::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(AppLogger::flush, "log-flush"));
+    }
+
+    private final String name;
+    private final String shortName;
+    private volatile int threshold;
+
+    private AppLogger(String name, String shortName) {
+        this.name = name;
+        this.shortName = shortName;
+        this.threshold = resolveLevel(name).ordinal();
+    }
+
+    public static AppLogger getLogger(Class<?> type) {
+        AppLogger logger = new AppLogger(type.getName(), type.getSimpleName());
+        loggers.add(logger);
+        return logger;
+    }
+
+    /**
+     * Set the root level used by loggers without a package-specific level
+     */
+    public static void setLevel(Level newLevel) {
+        rootLevel = newLevel;
+        refreshThresholds();
+    }
+
+    /**
+     * Set the level for a package or class name prefix (null clears it)
+     */
+    public static void setLevel(String prefix, Level newLevel) {
+        if (newLevel == null) {
+            packageLevels.remove(prefix);
+        } else {
+            packageLevels.put(prefix, newLevel);
+        }
+        refreshThresholds();
+    }
+
+    public static long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public boolean isEnabled(Level messageLevel) {
+        return messageLevel.ordinal() >= threshold;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    /**
+     * Debug message built only when debug is enabled for this logger
+     */
+    public void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) {
+            log(Level.DEBUG, message.get());
+        }
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    private void log(Level messageLevel, String message) {
+        if (isEnabled(messageLevel) && !ring.offer(new LogEvent(System.currentTimeMillis(), messageLevel, shortName, message))) {
+            dropped.increment();
+        }
+    }
+
+    private static void loadLevels(Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            Level configured = parseLevel(properties.getProperty(key));
+            if (configured == null) {
+                continue;
+            }
+            if (key.equals(LEVEL_PROPERTY)) {
+                rootLevel = configured;
+            } else if (key.startsWith(LEVEL_PROPERTY + ".")) {
+                packageLevels.put(key.substring(LEVEL_PROPERTY.length() + 1), configured);
+            }
+        }
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Level of the longest configured prefix matching the logger name, else the root level
+     */
+    private static Level resolveLevel(String loggerName) {
+        Level resolved = rootLevel;
+        int longestMatch = -1;
+        for (Map.Entry<String, Level> entry : packageLevels.entrySet()) {
+            String prefix = entry.getKey();
+            boolean matches = loggerName.equals(prefix) ||
+                              (loggerName.startsWith(prefix) && loggerName.charAt(prefix.length()) == '.');
+            if (matches && prefix.length() > longestMatch) {
+                longestMatch = prefix.length();
+                resolved = entry.getValue();
+            }
+        }
+        return resolved;
+    }
+
+    private static void refreshThresholds() {
+        for (AppLogger logger : loggers) {
+            logger.threshold = resolveLevel(logger.name).ordinal();
+        }
+    }
+
+    private static void writeLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Write out everything still buffered (called on shutdown)
+     */
+    public static void flush() {
+        while (drain() > 0) {
+            // keep draining until the ring is empty
+        }
+        System.out.flush();
+        System.err.flush();
+    }
+
+    /**
+     * Drain the ring into one console write per stream; the ring has a single consumer
+     * @return number of events written
+     */
+    private static synchronized int drain() {
+        StringBuilder out = null;
+        StringBuilder err = null;
+        int written = 0;
+        LogEvent event;
+        while ((event = ring.poll()) != null) {
+            if (event.level == Level.ERROR) {
+                err = append(err, event);
+            } else {
+                out = append(out, event);
+            }
+            written++;
+        }
+        if (out != null) {
+            System.out.print(out);
+        }
+        if (err != null) {
+            System.err.print(err);
+        }
+        return written;
+    }
+
+    private static StringBuilder append(StringBuilder buffer, LogEvent event) {
+        if (buffer == null) {
+            buffer = new StringBuilder(256);
+        }
+        buffer.append(TIME_FORMAT.format(Instant.ofEpochMilli(event.timestamp))).append(' ')
+              .append(String.format("%-5s", event.level)).append(' ')
+              .append(event.logger).append(" - ").append(event.message)
+              .append(System.lineSeparator());
+        return buffer;
+    }
+
+    private static int ringCapacity(int requested) {
+        int capacity = Integer.highestOneBit(Math.max(requested, 2));
+        return capacity < requested ? capacity << 1 : capacity;
+    }
+
+    private static class LogEvent {
+        final long timestamp;
+        final Level level;
+        final String logger;
+        final String message;
+
+        LogEvent(long timestamp, Level level, String logger, String message) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.logger = logger;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Bounded multi-producer ring buffer (sequence-per-slot design)
+     * A slot whose sequence equals the producer position is free; position + 1 means it holds an event
+     */
+    private static class Ring {
+        private final LogEvent[] events;
+        private final AtomicLongArray sequences;
+        private final AtomicLong tail = new AtomicLong();
+        private final int mask;
+        private long head; // guarded by the single consumer (AppLogger.drain)
+
+        Ring(int capacity) {
+            this.events = new LogEvent[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(LogEvent event) {
+            long position = tail.get();
+            while (true) {
+                int index = (int) (position & mask);
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        events[index] = event;
+                        sequences.set(index, position + 1); // publishes the event
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (difference < 0) {
+                    return false; // full
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+
+        LogEvent poll() {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                return null;
+            }
+            LogEvent event = events[index];
+            events[index] = null;
+            sequences.set(index, head + events.length);
+            head++;
+            return event;
+        }
+    }
+}
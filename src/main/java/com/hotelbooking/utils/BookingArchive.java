@@ -0,0 +1,371 @@
+package com.hotelbooking.utils;
+
+import com.hotelbooking.model.Booking;
+import com.hotelbooking.model.BookingBatch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * BookingArchive stores historical bookings in an append-only columnar format
+ * Each column lives in its own fixed-width file and is scanned through a read-only memory map,
+ * so analytics over archived rows never materialize Booking objects unless a row matches
+ * The property_id column was added later: rows archived before it exist read property 0 (unknown).
+ */
+public class BookingArchive {
+    // Archive location - override with -Dhotel.archive.dir=/path/to/archive
+    private static final String DEFAULT_DIRECTORY = System.getProperty("hotel.archive.dir", "archive");
+
+    // Column files; booking_id is written last and acts as the commit marker for a row
+    private static final String BOOKING_ID_COLUMN = "booking_id.i32";
+    private static final String CUSTOMER_ID_COLUMN = "customer_id.i32";
+    private static final String ROOM_NUMBER_COLUMN = "room_number.i32";
+    private static final String CHECK_IN_COLUMN = "check_in_day.i32";
+    private static final String CHECK_OUT_COLUMN = "check_out_day.i32";
+    private static final String AMOUNT_COLUMN = "amount_cents.i64";
+    private static final String STATUS_COLUMN = "status.i8";
+    private static final String PROPERTY_ID_COLUMN = "property_id.i32";
+
+    private static BookingArchive defaultArchive = null;
+
+    private final Path directory;
+    private int rowCount;
+    private volatile Columns columns;
+
+    public BookingArchive(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            this.rowCount = (int) (size(BOOKING_ID_COLUMN) / Integer.BYTES);
+            recoverPartialAppend();
+            padPropertyColumn();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open booking archive at " + directory, e);
+        }
+    }
+
+    /**
+     * Returns the shared archive stored in the configured archive directory
+     */
+    public static synchronized BookingArchive getDefault() {
+        if (defaultArchive == null) {
+            defaultArchive = new BookingArchive(Paths.get(DEFAULT_DIRECTORY));
+            Metrics.gauge("archive.rows", defaultArchive::getRowCount);
+        }
+        return defaultArchive;
+    }
+
+    /**
+     * Number of rows committed to the archive
+     */
+    public synchronized int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Appends a batch of bookings to the end of every column file
+     * Bookings already present in the archive are skipped, so a retried archival run is harmless
+     * @param batch bookings to append
+     * @return number of rows actually appended
+     */
+    public synchronized int append(BookingBatch batch) throws IOException {
+        int[] archivedIds = sortedBookingIds();
+        int n = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (Arrays.binarySearch(archivedIds, batch.getBookingId(i)) < 0) {
+                n++;
+            }
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        ByteBuffer customerIds = allocate(n * Integer.BYTES);
+        ByteBuffer roomNumbers = allocate(n * Integer.BYTES);
+        ByteBuffer checkInDays = allocate(n * Integer.BYTES);
+        ByteBuffer checkOutDays = allocate(n * Integer.BYTES);
+        ByteBuffer amounts = allocate(n * Long.BYTES);
+        ByteBuffer statuses = allocate(n);
+        ByteBuffer propertyIds = allocate(n * Integer.BYTES);
+        ByteBuffer bookingIds = allocate(n * Integer.BYTES);
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (Arrays.binarySearch(archivedIds, batch.getBookingId(i)) >= 0) {
+                continue;
+            }
+            customerIds.putInt(batch.getCustomerId(i));
+            roomNumbers.putInt(batch.getRoomNumber(i));
+            checkInDays.putInt(batch.getCheckInDay(i));
+            checkOutDays.putInt(batch.getCheckOutDay(i));
+            amounts.putLong(batch.getAmountCents(i));
+            statuses.put(batch.getStatus(i));
+            propertyIds.putInt(batch.getPropertyId(i));
+            bookingIds.putInt(batch.getBookingId(i));
+        }
+
+        appendColumn(CUSTOMER_ID_COLUMN, customerIds);
+        appendColumn(ROOM_NUMBER_COLUMN, roomNumbers);
+        appendColumn(CHECK_IN_COLUMN, checkInDays);
+        appendColumn(CHECK_OUT_COLUMN, checkOutDays);
+        appendColumn(AMOUNT_COLUMN, amounts);
+        appendColumn(STATUS_COLUMN, statuses);
+        appendColumn(PROPERTY_ID_COLUMN, propertyIds);
+        appendColumn(BOOKING_ID_COLUMN, bookingIds);
+
+        rowCount += n;
+        columns = null; // Remap on next read
+        return n;
+    }
+
+    /**
+     * Check whether a booking has already been archived
+     */
+    public boolean containsBookingId(int bookingId) {
+        Columns c = view();
+        for (int i = 0; i < c.rows; i++) {
+            if (c.bookingIds.get(i) == bookingId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to collect all archived booking ids in sorted order
+     */
+    private int[] sortedBookingIds() {
+        Columns c = view();
+        int[] ids = new int[c.rows];
+        c.bookingIds.get(0, ids);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Sum of confirmed booking amounts in cents
+     */
+    public long sumConfirmedRevenueCents() {
+        Columns c = view();
+        long total = 0;
+        for (int i = 0; i < c.rows; i++) {
+            if (c.statuses.get(i) == BookingBatch.STATUS_CONFIRMED) {
+                total += c.amounts.get(i);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Confirmed booking amounts in cents per property, in property ID order
+     */
+    public Map<Integer, Long> sumConfirmedRevenueCentsByProperty() {
+        Columns c = view();
+        Map<Integer, Long> revenue = new TreeMap<>();
+        for (int i = 0; i < c.rows; i++) {
+            if (c.statuses.get(i) == BookingBatch.STATUS_CONFIRMED) {
+                revenue.merge(c.propertyIds.get(i), c.amounts.get(i), Long::sum);
+            }
+        }
+        return revenue;
+    }
+
+    /**
+     * Count archived bookings with the given status code
+     */
+    public int countByStatus(byte status) {
+        Columns c = view();
+        int count = 0;
+        for (int i = 0; i < c.rows; i++) {
+            if (c.statuses.get(i) == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Find archived bookings for a customer
+     */
+    public List<Booking> findByCustomer(int customerId) {
+        Columns c = view();
+        List<Booking> matches = new ArrayList<>();
+        for (int i = 0; i < c.rows; i++) {
+            if (c.customerIds.get(i) == customerId) {
+                matches.add(toBooking(c, i));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Find archived bookings for a room
+     */
+    public List<Booking> findByRoom(int roomNumber) {
+        Columns c = view();
+        List<Booking> matches = new ArrayList<>();
+        for (int i = 0; i < c.rows; i++) {
+            if (c.roomNumbers.get(i) == roomNumber) {
+                matches.add(toBooking(c, i));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Find archived bookings of a property
+     */
+    public List<Booking> findByProperty(int propertyId) {
+        Columns c = view();
+        List<Booking> matches = new ArrayList<>();
+        for (int i = 0; i < c.rows; i++) {
+            if (c.propertyIds.get(i) == propertyId) {
+                matches.add(toBooking(c, i));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Helper method to build a Booking from one archived row
+     */
+    private Booking toBooking(Columns c, int row) {
+        Booking booking = new Booking(c.bookingIds.get(row), c.customerIds.get(row), c.roomNumbers.get(row),
+                LocalDate.ofEpochDay(c.checkInDays.get(row)), LocalDate.ofEpochDay(c.checkOutDays.get(row)),
+                BookingBatch.toStatus(c.statuses.get(row)));
+        booking.setTotalAmountCents(c.amounts.get(row));
+        booking.setPropertyId(c.propertyIds.get(row));
+        return booking;
+    }
+
+    /**
+     * Returns the current read-only mapping of all columns, mapping them on first use
+     */
+    private Columns view() {
+        Columns c = columns;
+        if (c == null) {
+            synchronized (this) {
+                c = columns;
+                if (c == null) {
+                    try {
+                        c = new Columns(rowCount);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot map booking archive at " + directory, e);
+                    }
+                    columns = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    private MappedByteBuffer map(String column, long bytes) throws IOException {
+        Path file = directory.resolve(column);
+        if (!Files.exists(file)) {
+            Files.createFile(file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private void appendColumn(String column, ByteBuffer data) throws IOException {
+        data.flip();
+        try (FileChannel channel = FileChannel.open(directory.resolve(column),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Truncate columns written by an append that crashed before its booking_id column was committed
+     */
+    private void recoverPartialAppend() throws IOException {
+        // A torn tail of booking_id itself (size not a multiple of 4) would misalign the next append
+        truncate(BOOKING_ID_COLUMN, (long) rowCount * Integer.BYTES);
+        truncate(CUSTOMER_ID_COLUMN, (long) rowCount * Integer.BYTES);
+        truncate(ROOM_NUMBER_COLUMN, (long) rowCount * Integer.BYTES);
+        truncate(CHECK_IN_COLUMN, (long) rowCount * Integer.BYTES);
+        truncate(CHECK_OUT_COLUMN, (long) rowCount * Integer.BYTES);
+        truncate(AMOUNT_COLUMN, (long) rowCount * Long.BYTES);
+        truncate(STATUS_COLUMN, rowCount);
+        truncate(PROPERTY_ID_COLUMN, (long) rowCount * Integer.BYTES);
+    }
+
+    /**
+     * Fill the property_id column with zeros for rows archived before the column existed
+     */
+    private void padPropertyColumn() throws IOException {
+        long missing = (long) rowCount * Integer.BYTES - size(PROPERTY_ID_COLUMN);
+        if (missing > 0) {
+            ByteBuffer zeros = allocate((int) missing);
+            zeros.position(zeros.limit());
+            appendColumn(PROPERTY_ID_COLUMN, zeros);
+        }
+    }
+
+    private void truncate(String column, long bytes) throws IOException {
+        Path file = directory.resolve(column);
+        if (Files.exists(file) && Files.size(file) > bytes) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(bytes);
+            }
+        }
+    }
+
+    private long size(String column) throws IOException {
+        Path file = directory.resolve(column);
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Read-only views over the mapped column files
+     */
+    private class Columns {
+        final int rows;
+        final IntBuffer bookingIds;
+        final IntBuffer customerIds;
+        final IntBuffer roomNumbers;
+        final IntBuffer checkInDays;
+        final IntBuffer checkOutDays;
+        final LongBuffer amounts;
+        final ByteBuffer statuses;
+        final IntBuffer propertyIds;
+
+        Columns(int rows) throws IOException {
+            this.rows = rows;
+            this.bookingIds = map(BOOKING_ID_COLUMN, (long) rows * Integer.BYTES).asIntBuffer();
+            this.customerIds = map(CUSTOMER_ID_COLUMN, (long) rows * Integer.BYTES).asIntBuffer();
+            this.roomNumbers = map(ROOM_NUMBER_COLUMN, (long) rows * Integer.BYTES).asIntBuffer();
+            this.checkInDays = map(CHECK_IN_COLUMN, (long) rows * Integer.BYTES).asIntBuffer();
+            this.checkOutDays = map(CHECK_OUT_COLUMN, (long) rows * Integer.BYTES).asIntBuffer();
+            this.amounts = map(AMOUNT_COLUMN, (long) rows * Long.BYTES).asLongBuffer();
+            this.statuses = map(STATUS_COLUMN, rows);
+            this.propertyIds = map(PROPERTY_ID_COLUMN, (long) rows * Integer.BYTES).asIntBuffer();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.hotelbooking.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ConnectionPool class - bounded pool of physical connections, each with its own statement cache
+ * Borrowers get a handle whose close() resets the connection (rollback of an open transaction,
+ * auto-commit back on, leaked statements closed) and returns it to the pool.
+ * Layering: pool handle -> PreparedStatementCache -> JdbcProfiler -> driver connection
+ *
+ * Configuration:
+ *   -Dhotel.db.pool.size (default 10), -Dhotel.db.pool.timeout.ms (default 5000)
+ */
+public class ConnectionPool {
+    private static final int DEFAULT_MAX_SIZE = Integer.getInteger("hotel.db.pool.size", 10);
+    private static final long DEFAULT_TIMEOUT_MILLIS = Long.getLong("hotel.db.pool.timeout.ms", 5000);
+    // Idle connections older than this are validated before being handed out
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private static ConnectionPool defaultPool = null;
+
+    private static final AppLogger LOG = AppLogger.getLogger(ConnectionPool.class);
+
+    /**
+     * Opens a new physical connection
+     */
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long timeoutMillis;
+    private final int statementCacheSize;
+
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final LongAdder borrowTimeouts = Metrics.counter("db.pool.timeouts");
+    private final LongAdder discarded = Metrics.counter("db.pool.discarded");
+    private volatile boolean shutdown = false;
+
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long timeoutMillis, int statementCacheSize) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.timeoutMillis = timeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * Returns the shared pool of application database connections
+     */
+    public static synchronized ConnectionPool getDefault() {
+        if (defaultPool == null || defaultPool.shutdown) {
+            ConnectionPool pool = new ConnectionPool(DatabaseConnection::openPhysicalConnection,
+                    DEFAULT_MAX_SIZE, DEFAULT_TIMEOUT_MILLIS, PreparedStatementCache.DEFAULT_SIZE);
+            Metrics.gauge("db.pool.size", pool::getTotalCount);
+            Metrics.gauge("db.pool.active", pool::getActiveCount);
+            Metrics.gauge("db.pool.idle", pool::getIdleCount);
+            defaultPool = pool;
+        }
+        return defaultPool;
+    }
+
+    /**
+     * Shut down the shared pool if it was ever created
+     */
+    public static synchronized void shutdownDefault() {
+        if (defaultPool != null) {
+            defaultPool.shutdown();
+        }
+    }
+
+    /**
+     * Borrow a connection; close() on the returned handle gives it back
+     * @throws SQLException if no connection becomes available within the timeout
+     */
+    public Connection borrow() throws SQLException {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        while (true) {
+            if (shutdown) {
+                throw new SQLException("Connection pool is shut down");
+            }
+
+            // LIFO keeps the most recently used (warmest) connections busy
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled == null) {
+                pooled = tryCreate();
+            }
+            if (pooled == null) {
+                long remaining = deadline - System.nanoTime();
+                try {
+                    pooled = remaining > 0 ? idle.pollFirst(remaining, TimeUnit.NANOSECONDS) : null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection");
+                }
+                if (pooled == null) {
+                    borrowTimeouts.increment();
+                    throw new SQLException("Timed out after " + timeoutMillis + " ms waiting for a database connection" +
+                                           " (pool size " + maxSize + ", active " + activeConnections.get() + ")");
+                }
+            }
+
+            if (!pooled.isUsable()) {
+                discard(pooled);
+                continue;
+            }
+
+            activeConnections.incrementAndGet();
+            JdbcProfiler.recordConnectionWait(System.nanoTime() - startNanos);
+            return pooled.lease();
+        }
+    }
+
+    /**
+     * Open idle connections ahead of demand until the pool holds the target count
+     * Safe to call from several threads at once to open connections in parallel
+     * @return number of connections this call opened
+     */
+    public int prefill(int target) throws SQLException {
+        int opened = 0;
+        while (!shutdown && totalConnections.get() < Math.min(target, maxSize)) {
+            PooledConnection pooled = tryCreate();
+            if (pooled == null) {
+                break;
+            }
+            idle.offerLast(pooled);
+            opened++;
+        }
+        return opened;
+    }
+
+    /**
+     * Close all idle connections and refuse further borrows; borrowed ones close on return
+     */
+    public void shutdown() {
+        shutdown = true;
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    public int getActiveCount() {
+        return activeConnections.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool | Size: %d/%d | Active: %d | Idle: %d | Statement Cache Hit Rate: %.1f%%",
+                getTotalCount(), maxSize, getActiveCount(), getIdleCount(), PreparedStatementCache.getHitRate() * 100);
+    }
+
+    private PooledConnection tryCreate() throws SQLException {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= maxSize) {
+                return null;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        try {
+            Connection physical = factory.open();
+            return new PooledConnection(physical, new PreparedStatementCache(physical, statementCacheSize));
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        activeConnections.decrementAndGet();
+        if (shutdown || !pooled.reset()) {
+            discard(pooled);
+            return;
+        }
+        pooled.lastReleasedNanos = System.nanoTime();
+        idle.offerFirst(pooled);
+    }
+
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        discarded.increment();
+        pooled.statements.closeAll();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            LOG.debug("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Physical connection plus its statement cache
+     */
+    private class PooledConnection {
+        final Connection physical;
+        final PreparedStatementCache statements;
+        volatile long lastReleasedNanos = System.nanoTime();
+
+        PooledConnection(Connection physical, PreparedStatementCache statements) {
+            this.physical = physical;
+            this.statements = statements;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new LeaseHandler(this));
+        }
+
+        boolean isUsable() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                return System.nanoTime() - lastReleasedNanos < VALIDATE_AFTER_NANOS || physical.isValid(2);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Undo anything the borrower left behind; false if the connection should be discarded
+         */
+        boolean reset() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                physical.clearWarnings();
+                statements.reset();
+                return true;
+            } catch (SQLException e) {
+                LOG.warn("Discarding connection that failed to reset: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Borrower's view of a pooled connection; close() returns it to the pool exactly once
+     */
+    private class LeaseHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        LeaseHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement":
+                    checkOpen();
+                    return pooled.statements.prepare((Connection) proxy, method, args);
+                default:
+                    checkOpen();
+                    try {
+                        return method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+        }
+    }
+}
@@ -3,19 +3,31 @@ package com.hotelbooking.utils;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * DatabaseConnection utility class for managing MySQL database connections
  * Demonstrates OOP Abstraction by hiding complex database connection details
+ *
+ * Writes and reads that must see them (a booking just made, a customer just looked up to book)
+ * use borrowConnection() and go to the primary. List, search and report reads use
+ * borrowReadConnection(), which ReplicaRouter sends to a read replica when one is configured
+ * and within the lag bound.
+ *
+ * Configuration:
+ *   -Dhotel.db.url, -Dhotel.db.user, -Dhotel.db.password   the primary (defaults below)
+ *   replicas: see ReplicaRouter
  */
 public class DatabaseConnection {
     // Database configuration - these should be in a config file in real applications
-    private static final String URL = "jdbc:mysql://localhost:3306/hotel_booking_system";
-    private static final String USERNAME = "root";
-    private static final String PASSWORD = "password"; // Change to your MySQL password
+    private static final String URL = System.getProperty("hotel.db.url", "jdbc:mysql://localhost:3306/hotel_booking_system");
+    private static final String USERNAME = System.getProperty("hotel.db.user", "root");
+    private static final String PASSWORD = System.getProperty("hotel.db.password", "password"); // Change to your MySQL password
+    private static final boolean ROUTE_READS = !System.getProperty("hotel.db.replicas", "").trim().isEmpty();
     
-    // Static instance for Singleton pattern (optional enhancement)
-    private static Connection connection = null;
+    private static final AppLogger LOG = AppLogger.getLogger(DatabaseConnection.class);
+    private static final LongAdder connectionsOpened = Metrics.counter("db.connections.opened");
+    private static final LatencyHistogram CONNECT_TIMER = Metrics.timer("db.connect");
     
     // Private constructor to prevent instantiation - Utility class pattern
     private DatabaseConnection() {
@@ -23,47 +35,88 @@ public class DatabaseConnection {
     }
     
     /**
-     * Establishes and returns a database connection
+     * Borrows a connection from the shared pool
+     * Callers must close() it (try-with-resources) to return it to the pool
+     * @return pooled Connection
+     * @throws SQLException if the database is unreachable or the pool is exhausted
+     */
+    public static Connection borrowConnection() throws SQLException {
+        return ConnectionPool.getDefault().borrow();
+    }
+    
+    /**
+     * Borrows a connection for a list, search or report read, from a replica when one is
+     * configured and caught up, otherwise from the primary pool
+     * Callers must close() it (try-with-resources) to return it to its pool
+     * @return pooled Connection
+     * @throws SQLException if no database is reachable or the pool is exhausted
+     */
+    public static Connection borrowReadConnection() throws SQLException {
+        return ROUTE_READS ? ReplicaRouter.getInstance().borrowRead() : borrowConnection();
+    }
+    
+    /**
+     * Notes that a write was committed, so routed reads on any thread see it
+     */
+    public static void recordWrite() {
+        if (ROUTE_READS) {
+            ReplicaRouter.recordWrite();
+        }
+    }
+    
+    /**
+     * Establishes and returns a database connection from the shared pool
      * @return Connection object or null if connection fails
      */
     public static Connection getConnection() {
         try {
-            // Load MySQL JDBC Driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            
-            // Create and return connection
-            connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
-            System.out.println("✅ Database connection established successfully!");
-            return connection;
-            
-        } catch (ClassNotFoundException e) {
-            System.out.println("❌ MySQL JDBC Driver not found!");
-            System.out.println("Please add MySQL Connector/J to your classpath.");
-            e.printStackTrace();
-            return null;
+            return borrowConnection();
         } catch (SQLException e) {
-            System.out.println("❌ Database connection failed!");
-            System.out.println("Error: " + e.getMessage());
-            System.out.println("Please check:");
-            System.out.println("1. Is MySQL server running?");
-            System.out.println("2. Is database 'hotel_booking_system' created?");
-            System.out.println("3. Are username and password correct?");
+            LOG.error("Database connection failed! Error: " + e.getMessage() + "\n" +
+                      "Please check:\n" +
+                      "1. Is MySQL server running?\n" +
+                      "2. Is database 'hotel_booking_system' created?\n" +
+                      "3. Are username and password correct?");
             return null;
         }
     }
     
     /**
-     * Closes the database connection
+     * Opens a new physical connection (used by the connection pool)
      */
-    public static void closeConnection() {
-        if (connection != null) {
+    static Connection openPhysicalConnection() throws SQLException {
+        return openPhysicalConnection(URL);
+    }
+    
+    /**
+     * Opens a new physical connection to the given server with the configured credentials
+     * (used by the replica pools; other JDBC drivers on the classpath register themselves)
+     */
+    static Connection openPhysicalConnection(String url) throws SQLException {
+        long startNanos = System.nanoTime();
+        if (url.startsWith("jdbc:mysql:")) {
             try {
-                connection.close();
-                System.out.println("✅ Database connection closed successfully!");
-            } catch (SQLException e) {
-                System.out.println("❌ Error closing database connection: " + e.getMessage());
+                // Load MySQL JDBC Driver
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("MySQL JDBC Driver not found! Please add MySQL Connector/J to your classpath.", e);
             }
         }
+        
+        Connection connection = JdbcProfiler.wrap(DriverManager.getConnection(url, USERNAME, PASSWORD));
+        connectionsOpened.increment();
+        CONNECT_TIMER.recordSince(startNanos);
+        LOG.debug("Database connection established successfully!");
+        return connection;
+    }
+    
+    /**
+     * Closes all pooled database connections
+     */
+    public static void closeConnection() {
+        ReplicaRouter.shutdownDefault();
+        ConnectionPool.shutdownDefault();
+        LOG.debug("Database connections closed successfully!");
     }
     
     /**
@@ -73,12 +126,11 @@ public class DatabaseConnection {
     public static boolean testConnection() {
         try (Connection testConn = getConnection()) {
             if (testConn != null && !testConn.isClosed()) {
-                System.out.println("✅ Database connection test: PASSED");
+                LOG.info("Database connection test: PASSED");
                 return true;
             }
         } catch (SQLException e) {
-            System.out.println("❌ Database connection test: FAILED");
-            System.out.println("Error: " + e.getMessage());
+            LOG.error("Database connection test: FAILED - " + e.getMessage());
         }
         return false;
     }
@@ -87,18 +139,15 @@ public class DatabaseConnection {
      * Gets database connection info (for debugging)
      */
     public static void printConnectionInfo() {
-        if (connection != null) {
-            try {
-                System.out.println("📊 Database Connection Info:");
-                System.out.println("URL: " + URL);
-                System.out.println("Database: " + connection.getCatalog());
-                System.out.println("Auto Commit: " + connection.getAutoCommit());
-                System.out.println("Is Closed: " + connection.isClosed());
-            } catch (SQLException e) {
-                System.out.println("Error getting connection info: " + e.getMessage());
-            }
-        } else {
-            System.out.println("No active database connection.");
+        try (Connection connection = borrowConnection()) {
+            LOG.info("Database Connection Info:\n" +
+                     "URL: " + URL + "\n" +
+                     "Database: " + connection.getCatalog() + "\n" +
+                     "Auto Commit: " + connection.getAutoCommit() + "\n" +
+                     "Pool: " + ConnectionPool.getDefault() +
+                     (ROUTE_READS ? "\n" + ReplicaRouter.getInstance() : ""));
+        } catch (SQLException e) {
+            LOG.error("Error getting connection info: " + e.getMessage());
         }
     }
     
@@ -110,7 +159,7 @@ public class DatabaseConnection {
             Class.forName("com.mysql.cj.jdbc.Driver");
             return DriverManager.getConnection(url, username, password);
         } catch (ClassNotFoundException | SQLException e) {
-            System.out.println("Custom connection failed: " + e.getMessage());
+            LOG.error("Custom connection failed: " + e.getMessage());
             return null;
         }
     }
@@ -0,0 +1,329 @@
+package com.hotelbooking.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * JdbcProfiler utility class - wraps JDBC connections in dynamic proxies that time every statement
+ * Statements are grouped by SQL fingerprint (whitespace collapsed, literals replaced by ?),
+ * each with a call count, latency histogram and rows returned.
+ * Executions slower than -Dhotel.sql.slow.ms (default 100) are appended to the slow-query file
+ * (-Dhotel.sql.slow.log, default slow-queries.log) by a background thread.
+ * Disable with -Dhotel.sql.profile=false.
+ */
+public class JdbcProfiler {
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("hotel.sql.profile"));
+    private static final long SLOW_THRESHOLD_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("hotel.sql.slow.ms", 100));
+    private static final String SLOW_LOG_FILE = System.getProperty("hotel.sql.slow.log", "slow-queries.log");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Map<String, StatementStats> statsBySql = new ConcurrentHashMap<>();
+    private static final Map<String, StatementStats> statsByFingerprint = new ConcurrentHashMap<>();
+    private static final LatencyHistogram CONNECTION_WAIT_TIMER = Metrics.timer("db.connection.wait");
+    private static final LongAdder slowQueries = Metrics.counter("db.sql.slow");
+
+    private static final AppLogger LOG = AppLogger.getLogger(JdbcProfiler.class);
+
+    private static ExecutorService slowLogWriter = null;
+
+    // Private constructor to prevent instantiation - Utility class pattern
+    private JdbcProfiler() {
+        // Utility class should not be instantiated
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Wrap a physical connection so every statement created from it is profiled
+     */
+    public static Connection wrap(Connection connection) {
+        if (!ENABLED || connection == null || Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof ConnectionHandler) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(JdbcProfiler.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+    }
+
+    /**
+     * Record how long a caller waited to obtain a connection
+     */
+    public static void recordConnectionWait(long nanos) {
+        CONNECTION_WAIT_TIMER.record(nanos);
+    }
+
+    /**
+     * Normalize SQL so statements differing only in literals or whitespace share one entry
+     */
+    public static String fingerprint(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?+)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    /**
+     * Statement statistics ranked by total execution time, hottest first
+     */
+    public static List<StatementStats> getRankedStatements() {
+        List<StatementStats> ranked = new ArrayList<>(statsByFingerprint.values());
+        ranked.sort(Comparator.comparingLong(StatementStats::getTotalNanos).reversed());
+        return ranked;
+    }
+
+    /**
+     * Human-readable report of the hottest statements
+     * @param limit maximum number of statements to include
+     */
+    public static String report(int limit) {
+        List<StatementStats> ranked = getRankedStatements();
+        long grandTotal = 0;
+        for (StatementStats stats : ranked) {
+            grandTotal += stats.getTotalNanos();
+        }
+
+        StringBuilder report = new StringBuilder("=== SQL Profile (by total time) ===\n");
+        report.append(String.format("%-4s %8s %10s %6s %9s %9s %10s  %s%n",
+                "#", "Calls", "Total ms", "%", "Mean ms", "p99 ms", "Rows", "Statement"));
+        for (int i = 0; i < Math.min(limit, ranked.size()); i++) {
+            StatementStats stats = ranked.get(i);
+            LatencyHistogram.Snapshot snapshot = stats.latency.snapshot();
+            report.append(String.format("%-4d %8d %10.1f %6.1f %9.3f %9.3f %10d  %s%n",
+                    i + 1, stats.getCalls(), stats.getTotalNanos() / 1e6,
+                    grandTotal == 0 ? 0.0 : 100.0 * stats.getTotalNanos() / grandTotal,
+                    snapshot.getMeanNanos() / 1e6, snapshot.getP99Nanos() / 1e6,
+                    stats.getRowsReturned(), stats.getFingerprint()));
+        }
+        report.append(CONNECTION_WAIT_TIMER.snapshot()).append('\n');
+        report.append("Slow queries (> ").append(TimeUnit.NANOSECONDS.toMillis(SLOW_THRESHOLD_NANOS))
+              .append(" ms): ").append(slowQueries.sum());
+        return report.toString();
+    }
+
+    /**
+     * Clear all statement statistics
+     */
+    public static void reset() {
+        statsBySql.clear();
+        statsByFingerprint.clear();
+        CONNECTION_WAIT_TIMER.reset();
+        slowQueries.reset();
+    }
+
+    private static StatementStats statsFor(String sql) {
+        // Exact SQL text is the fast path; fingerprinting runs once per distinct text
+        StatementStats stats = statsBySql.get(sql);
+        if (stats == null) {
+            StatementStats shared = statsByFingerprint.computeIfAbsent(fingerprint(sql), StatementStats::new);
+            StatementStats existing = statsBySql.putIfAbsent(sql, shared);
+            stats = existing != null ? existing : shared;
+        }
+        return stats;
+    }
+
+    private static void recordExecution(StatementStats stats, String sql, long elapsedNanos) {
+        stats.calls.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.latency.record(elapsedNanos);
+        if (elapsedNanos >= SLOW_THRESHOLD_NANOS) {
+            slowQueries.increment();
+            logSlowQuery(sql, elapsedNanos);
+        }
+    }
+
+    private static synchronized void logSlowQuery(String sql, long elapsedNanos) {
+        if (slowLogWriter == null) {
+            slowLogWriter = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        String line = String.format("%s | %.3f ms | %s%n", LocalDateTime.now(), elapsedNanos / 1e6,
+                WHITESPACE.matcher(sql).replaceAll(" ").trim());
+        slowLogWriter.execute(() -> {
+            try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(SLOW_LOG_FILE), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(line);
+            } catch (IOException e) {
+                LOG.warn("Could not write slow query log: " + e.getMessage());
+            }
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ResultSet wrapResultSet(ResultSet resultSet, StatementStats stats, Statement owner) {
+        if (resultSet == null) {
+            return null;
+        }
+        return (ResultSet) Proxy.newProxyInstance(JdbcProfiler.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, new ResultSetHandler(resultSet, stats, owner));
+    }
+
+    /**
+     * Per-fingerprint statistics
+     */
+    public static class StatementStats {
+        private final String fingerprint;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rowsReturned = new LongAdder();
+        private final LatencyHistogram latency;
+
+        StatementStats(String fingerprint) {
+            this.fingerprint = fingerprint;
+            this.latency = new LatencyHistogram(fingerprint);
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getRowsReturned() {
+            return rowsReturned.sum();
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency.snapshot();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = JdbcProfiler.invoke(connection, method, args);
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                // prepareStatement/prepareCall carry their SQL; createStatement passes it to execute*
+                String sql = result instanceof PreparedStatement ? (String) args[0] : null;
+                return Proxy.newProxyInstance(JdbcProfiler.class.getClassLoader(),
+                        new Class<?>[] { method.getReturnType() },
+                        new StatementHandler((Statement) result, (Connection) proxy, sql));
+            }
+            return result;
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final Connection connectionProxy;
+        private final String preparedSql;
+        private StatementStats lastStats;
+
+        StatementHandler(Statement statement, Connection connectionProxy, String preparedSql) {
+            this.statement = statement;
+            this.connectionProxy = connectionProxy;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return connectionProxy;
+            }
+            if (name.equals("getResultSet") || name.equals("getGeneratedKeys")) {
+                return wrapResultSet((ResultSet) JdbcProfiler.invoke(statement, method, args),
+                        name.equals("getResultSet") ? lastStats : null, (Statement) proxy);
+            }
+            if (!name.startsWith("execute")) {
+                return JdbcProfiler.invoke(statement, method, args);
+            }
+
+            // Plain Statement passes its SQL to execute*; PreparedStatement has it from prepare
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (sql == null) {
+                return JdbcProfiler.invoke(statement, method, args);
+            }
+            StatementStats stats = statsFor(sql);
+            lastStats = stats;
+
+            long startNanos = System.nanoTime();
+            Object result;
+            try {
+                result = JdbcProfiler.invoke(statement, method, args);
+            } finally {
+                recordExecution(stats, sql, System.nanoTime() - startNanos);
+            }
+            if (result instanceof ResultSet) {
+                return wrapResultSet((ResultSet) result, stats, (Statement) proxy);
+            }
+            return result;
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final StatementStats stats;
+        private final Statement owner;
+
+        ResultSetHandler(ResultSet resultSet, StatementStats stats, Statement owner) {
+            this.resultSet = resultSet;
+            this.stats = stats;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getStatement")) {
+                return owner;
+            }
+            Object result = JdbcProfiler.invoke(resultSet, method, args);
+            if (stats != null && name.equals("next") && Boolean.TRUE.equals(result)) {
+                stats.rowsReturned.increment();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.hotelbooking.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics utility class - process-wide registry of counters, latency timers and gauges
+ * Counters and timers are lock-free on the recording path; gauges are read only when a snapshot is taken
+ */
+public class Metrics {
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private static final AppLogger LOG = AppLogger.getLogger(Metrics.class);
+
+    private static ScheduledExecutorService dumpExecutor = null;
+    private static ScheduledFuture<?> dumpTask = null;
+
+    static {
+        gauge("log.dropped", AppLogger::getDroppedCount);
+    }
+
+    // Private constructor to prevent instantiation - Utility class pattern
+    private Metrics() {
+        // Utility class should not be instantiated
+    }
+
+    /**
+     * Get or create a named counter
+     */
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Get or create a named latency timer
+     */
+    public static LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * Register (or replace) a gauge whose value is sampled at snapshot time
+     */
+    public static void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Point-in-time view of every metric, sorted by name
+     * Counter and gauge values are Longs; timer values are LatencyHistogram.Snapshot objects
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+            try {
+                snapshot.put(entry.getKey(), entry.getValue().getAsLong());
+            } catch (RuntimeException e) {
+                snapshot.put(entry.getKey(), -1L);
+            }
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : timers.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                snapshot.put(entry.getKey(), entry.getValue().snapshot());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Human-readable report of the current snapshot
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder("=== Metrics ===\n");
+        for (Map.Entry<String, Object> entry : snapshot().entrySet()) {
+            if (entry.getValue() instanceof LatencyHistogram.Snapshot) {
+                report.append(entry.getValue()).append('\n');
+            } else {
+                report.append(entry.getKey()).append(" = ").append(entry.getValue()).append('\n');
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Start dumping the metrics report to the log at a fixed period
+     */
+    public static synchronized void startPeriodicDump(long period, TimeUnit unit) {
+        stopPeriodicDump();
+        if (dumpExecutor == null) {
+            dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        dumpTask = dumpExecutor.scheduleAtFixedRate(() -> LOG.info(report()), period, period, unit);
+    }
+
+    /**
+     * Stop the periodic dump if it is running
+     */
+    public static synchronized void stopPeriodicDump() {
+        if (dumpTask != null) {
+            dumpTask.cancel(false);
+            dumpTask = null;
+        }
+    }
+
+    /**
+     * Clear all counters and timers (gauges stay registered)
+     */
+    public static void reset() {
+        for (LongAdder counter : counters.values()) {
+            counter.reset();
+        }
+        for (LatencyHistogram timer : timers.values()) {
+            timer.reset();
+        }
+    }
+}
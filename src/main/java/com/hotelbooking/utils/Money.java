@@ -0,0 +1,71 @@
+package com.hotelbooking.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money utility class for exact fixed-point amounts stored as long cents
+ * All prices and totals in the application are whole cents, matching the DECIMAL(10,2) columns,
+ * so arithmetic and aggregation never drift the way double amounts did
+ */
+public class Money {
+    public static final int SCALE = 2;
+    public static final long ZERO = 0L;
+
+    // Private constructor to prevent instantiation - Utility class pattern
+    private Money() {
+        // Utility class should not be instantiated
+    }
+
+    /**
+     * Convert a DECIMAL column value to cents
+     * @param amount decimal amount from JDBC (null is treated as zero, e.g. SUM over no rows)
+     * @return amount in cents
+     */
+    public static long fromDecimal(BigDecimal amount) {
+        if (amount == null) {
+            return ZERO;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert cents to a DECIMAL value for JDBC parameters
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Parse user input such as "150" or "149.99" into cents
+     * @throws NumberFormatException if the text is not a valid amount
+     */
+    public static long parse(String text) {
+        return fromDecimal(new BigDecimal(text.trim()));
+    }
+
+    /**
+     * Multiply an amount by a quantity (e.g. nightly price by number of nights)
+     * @throws ArithmeticException on overflow
+     */
+    public static long times(long cents, long quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /**
+     * Apply a rate in basis points (10000 = 100%), rounding half up to the nearest cent
+     */
+    public static long applyBasisPoints(long cents, int basisPoints) {
+        long scaled = Math.multiplyExact(cents, (long) basisPoints);
+        return scaled >= 0 ? (scaled + 5000) / 10000 : -((-scaled + 5000) / 10000);
+    }
+
+    /**
+     * Format cents for display, e.g. 12345 -> "$123.45"
+     */
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        String text = "$" + (abs / 100) + "." + (abs % 100 < 10 ? "0" : "") + (abs % 100);
+        return cents < 0 ? "-" + text : text;
+    }
+}
@@ -0,0 +1,259 @@
+package com.hotelbooking.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PreparedStatementCache class - LRU cache of prepared statements for one physical connection
+ * Statements are keyed by SQL text (plus the generated-keys flag). Closing a cached statement only
+ * clears its parameters and returns it to the cache; the physical statement is closed on eviction
+ * or when the owning connection is discarded.
+ * Size per connection: -Dhotel.db.statementCache.size (default 64, 0 disables)
+ */
+public class PreparedStatementCache {
+    public static final int DEFAULT_SIZE = Integer.getInteger("hotel.db.statementCache.size", 64);
+
+    private static final LongAdder hits = Metrics.counter("db.statementCache.hits");
+    private static final LongAdder misses = Metrics.counter("db.statementCache.misses");
+    private static final LongAdder evictions = Metrics.counter("db.statementCache.evictions");
+
+    private static final AppLogger LOG = AppLogger.getLogger(PreparedStatementCache.class);
+
+    private final Connection connection;
+    private final int maxSize;
+    private final Map<String, CachedStatement> statements;
+
+    public PreparedStatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Prepare a statement through the cache
+     * @param owner connection handle returned by the statement's getConnection()
+     * @param method the Connection.prepareStatement overload being called
+     * @param args its arguments (SQL first)
+     */
+    public synchronized PreparedStatement prepare(Connection owner, Method method, Object[] args) throws SQLException {
+        String key = cacheKey(args);
+        if (key == null || maxSize <= 0) {
+            return (PreparedStatement) invoke(connection, method, args);
+        }
+
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+            return cached.lease(owner);
+        }
+
+        misses.increment();
+        PreparedStatement statement = (PreparedStatement) invoke(connection, method, args);
+        if (cached != null) {
+            // Same SQL already open on this connection (nested use) - hand out an uncached statement
+            return statement;
+        }
+
+        cached = new CachedStatement(statement);
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.lease(owner);
+    }
+
+    /**
+     * Return every statement to a clean state when its connection goes back to the pool
+     * Statements still leased (not closed by the borrower) are closed and dropped
+     */
+    public synchronized void reset() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            CachedStatement cached = iterator.next();
+            if (cached.inUse) {
+                iterator.remove();
+                cached.closePhysical();
+            }
+        }
+    }
+
+    /**
+     * Close every cached statement
+     */
+    public synchronized void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closePhysical();
+        }
+        statements.clear();
+    }
+
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * SQL texts currently cached, most recently used last (for diagnostics)
+     */
+    public synchronized List<String> getCachedSql() {
+        List<String> sql = new ArrayList<>(statements.size());
+        for (String key : statements.keySet()) {
+            int flag = key.indexOf('\u0000');
+            sql.add(flag < 0 ? key : key.substring(0, flag));
+        }
+        return sql;
+    }
+
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    public static double getHitRate() {
+        long lookups = hits.sum() + misses.sum();
+        return lookups == 0 ? 0.0 : (double) hits.sum() / lookups;
+    }
+
+    private void evictOverflow() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (statements.size() > maxSize && iterator.hasNext()) {
+            CachedStatement eldest = iterator.next();
+            iterator.remove();
+            evictions.increment();
+            if (eldest.inUse) {
+                eldest.evicted = true; // closed when the borrower releases it
+            } else {
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    private synchronized void release(CachedStatement cached) {
+        try {
+            ResultSet open = cached.statement.getResultSet();
+            if (open != null) {
+                open.close();
+            }
+            cached.statement.clearParameters();
+            cached.statement.clearBatch();
+            cached.statement.clearWarnings();
+        } catch (SQLException e) {
+            // Statement is in an unknown state - drop it instead of reusing it
+            LOG.warn("Discarding cached statement: " + e.getMessage());
+            statements.values().remove(cached);
+            cached.evicted = true;
+        }
+        cached.inUse = false;
+        if (cached.evicted) {
+            cached.closePhysical();
+        }
+    }
+
+    /**
+     * SQL text plus generated-keys flag; null for overloads that are not cached
+     */
+    private static String cacheKey(Object[] args) {
+        if (args == null || !(args[0] instanceof String)) {
+            return null;
+        }
+        if (args.length == 1) {
+            return (String) args[0];
+        }
+        if (args.length == 2 && args[1] instanceof Integer) {
+            return args[0] + "\u0000" + args[1];
+        }
+        return null;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    private class CachedStatement {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement lease(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatementCache.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new LeaseHandler(this, owner));
+        }
+
+        void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                LOG.debug("Error closing cached statement: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Borrower's view of a cached statement; close() hands it back to the cache exactly once
+     */
+    private class LeaseHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private boolean closed;
+
+        LeaseHandler(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(cached);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    try {
+                        return method.invoke(cached.statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.hotelbooking.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ReplicaRouter class sending list, search and report reads to read replicas
+ * Replication lag is measured with a heartbeat: every interval the primary's
+ * replication_heartbeat row is set to the current time, and each replica's copy of the row is
+ * read back. The replicated value is a time up to which the replica is known to hold every
+ * commit of the primary, so now minus that value bounds its lag - and keeps growing if the
+ * heartbeat stops. A read goes to a replica only if that lag is within
+ * hotel.db.replica.maxLag.ms and the replica has caught up with the last write committed by this
+ * process, on any thread - server requests run on a new thread each, so the write and the read that
+ * must see it rarely share one. Otherwise, or when the replica cannot be reached, it falls back to
+ * the primary: for at most the lag bound after a write, usually one heartbeat plus the replica's lag.
+ * Writes of other processes are seen once replicated, within the lag bound.
+ *
+ * Reads and lag are published as metrics: db.reads.primary, db.reads.replica, db.reads.fallback
+ * and db.replica.N.lagMs (-1 while unknown).
+ *
+ * Configuration:
+ *   -Dhotel.db.replicas=URL[,URL...]       replica JDBC URLs (none by default - every read goes to the primary)
+ *   -Dhotel.db.replica.maxLag.ms=1000      lag above which a replica is skipped
+ *   -Dhotel.db.replica.heartbeat.ms=250    heartbeat interval
+ *   -Dhotel.db.replica.pool.size           connections per replica (default hotel.db.pool.size)
+ */
+public class ReplicaRouter {
+    private static final String REPLICA_URLS = System.getProperty("hotel.db.replicas", "");
+    private static final long MAX_LAG_MILLIS = Long.getLong("hotel.db.replica.maxLag.ms", 1000);
+    private static final long HEARTBEAT_MILLIS = Long.getLong("hotel.db.replica.heartbeat.ms", 250);
+    private static final int POOL_SIZE = Integer.getInteger("hotel.db.replica.pool.size",
+                                                            Integer.getInteger("hotel.db.pool.size", 10));
+    private static final long POOL_TIMEOUT_MILLIS = Long.getLong("hotel.db.pool.timeout.ms", 5000);
+
+    private static final String BEAT_SQL = "UPDATE replication_heartbeat SET beat_ms = GREATEST(beat_ms, ?) WHERE id = 1";
+    private static final String READ_BEAT_SQL = "SELECT beat_ms FROM replication_heartbeat WHERE id = 1";
+
+    private static ReplicaRouter instance = null;
+
+    // When this process last committed a write (0 if it never did)
+    private static final AtomicLong lastWriteMillis = new AtomicLong();
+
+    private static final AppLogger LOG = AppLogger.getLogger(ReplicaRouter.class);
+
+    private final ConnectionPool primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final LongAdder primaryReads = Metrics.counter("db.reads.primary");
+    private final LongAdder replicaReads = Metrics.counter("db.reads.replica");
+    private final LongAdder fallbackReads = Metrics.counter("db.reads.fallback");
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * Router over the given pools; the heartbeat is not started
+     */
+    public ReplicaRouter(ConnectionPool primary, List<ConnectionPool> replicaPools, long maxLagMillis) {
+        this.primary = primary;
+        this.maxLagMillis = maxLagMillis;
+        List<Replica> list = new ArrayList<>();
+        for (int i = 0; i < replicaPools.size(); i++) {
+            Replica replica = new Replica(i, replicaPools.get(i));
+            Metrics.gauge("db.replica." + i + ".lagMs", replica::getLagMillis);
+            list.add(replica);
+        }
+        this.replicas = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns the shared router for the configured replicas, with its heartbeat running
+     */
+    public static synchronized ReplicaRouter getInstance() {
+        if (instance == null) {
+            List<ConnectionPool> pools = new ArrayList<>();
+            for (String url : REPLICA_URLS.split(",")) {
+                if (!url.trim().isEmpty()) {
+                    String replicaUrl = url.trim();
+                    pools.add(new ConnectionPool(() -> DatabaseConnection.openPhysicalConnection(replicaUrl),
+                            POOL_SIZE, POOL_TIMEOUT_MILLIS, PreparedStatementCache.DEFAULT_SIZE));
+                }
+            }
+            instance = new ReplicaRouter(ConnectionPool.getDefault(), pools, MAX_LAG_MILLIS);
+            instance.startHeartbeat(HEARTBEAT_MILLIS);
+        }
+        return instance;
+    }
+
+    /**
+     * Shut down the shared router, if it was ever created
+     */
+    public static synchronized void shutdownDefault() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * Note that a write was committed; reads from every thread go to the primary until a replica
+     * has caught up with it
+     */
+    public static void recordWrite() {
+        lastWriteMillis.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * Borrow a connection for a read that may see slightly stale data
+     * Callers must close() it (try-with-resources) to return it to its pool
+     */
+    public Connection borrowRead() throws SQLException {
+        Replica replica = chooseReplica();
+        if (replica != null) {
+            try {
+                Connection connection = replica.pool.borrow();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.caughtUpToMillis = 0;
+                fallbackReads.increment();
+                LOG.warn("Replica " + replica.index + " unavailable, reading from the primary: " + e.getMessage());
+            }
+        }
+        primaryReads.increment();
+        return primary.borrow();
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * Current lag bound of a replica in milliseconds, or -1 while unknown
+     */
+    public long getLagMillis(int replicaIndex) {
+        return replicas.get(replicaIndex).getLagMillis();
+    }
+
+    /**
+     * Run the heartbeat on a daemon thread
+     */
+    public synchronized void startHeartbeat(long intervalMillis) {
+        if (heartbeat != null || replicas.isEmpty()) {
+            return;
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::beat, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the heartbeat and close the replica pools
+     */
+    public synchronized void shutdown() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            heartbeat = null;
+        }
+        for (Replica replica : replicas) {
+            replica.pool.shutdown();
+        }
+    }
+
+    /**
+     * Write the heartbeat on the primary, then measure each replica against it
+     */
+    void beat() {
+        try (Connection connection = primary.borrow();
+             PreparedStatement statement = connection.prepareStatement(BEAT_SQL)) {
+            statement.setLong(1, System.currentTimeMillis());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            LOG.warn("Replication heartbeat failed on the primary: " + e.getMessage());
+        }
+
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.borrow();
+                 PreparedStatement statement = connection.prepareStatement(READ_BEAT_SQL);
+                 ResultSet resultSet = statement.executeQuery()) {
+                replica.caughtUpToMillis = resultSet.next() ? resultSet.getLong(1) : 0;
+            } catch (SQLException e) {
+                if (replica.caughtUpToMillis != 0) {
+                    LOG.warn("Replica " + replica.index + " heartbeat read failed: " + e.getMessage());
+                }
+                replica.caughtUpToMillis = 0;
+            }
+        }
+    }
+
+    /**
+     * Next replica (round robin) that is within the lag bound and has caught up with this process's writes
+     */
+    private Replica chooseReplica() {
+        int count = replicas.size();
+        if (count == 0) {
+            return null;
+        }
+        long wroteAt = lastWriteMillis.get();
+        long oldestAllowed = System.currentTimeMillis() - maxLagMillis;
+        boolean ownWritePending = false;
+        int start = Math.floorMod(nextReplica.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((start + i) % count);
+            long caughtUpTo = replica.caughtUpToMillis;
+            if (caughtUpTo == 0 || caughtUpTo < oldestAllowed) {
+                continue;
+            }
+            if (caughtUpTo < wroteAt) {
+                ownWritePending = true;
+                continue;
+            }
+            return replica;
+        }
+        if (!ownWritePending) {
+            // Every replica is lagging or down, not merely behind this process's last write
+            fallbackReads.increment();
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder("ReplicaRouter | Replicas: ").append(replicas.size());
+        for (Replica replica : replicas) {
+            long lag = replica.getLagMillis();
+            description.append(" | #").append(replica.index).append(" lag ").append(lag < 0 ? "unknown" : lag + " ms");
+        }
+        return description.toString();
+    }
+
+    private static final class Replica {
+        final int index;
+        final ConnectionPool pool;
+        // Replicated heartbeat: the replica holds every primary commit up to this time (0 while unknown)
+        volatile long caughtUpToMillis = 0;
+
+        Replica(int index, ConnectionPool pool) {
+            this.index = index;
+            this.pool = pool;
+        }
+
+        long getLagMillis() {
+            long caughtUpTo = caughtUpToMillis;
+            return caughtUpTo == 0 ? -1 : Math.max(System.currentTimeMillis() - caughtUpTo, 0);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.hotelbooking.utils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RowMapper interface - turns the current row of a ResultSet into an object
+ * Mappers are declared next to the explicit column list they read and use positional access,
+ * so a column list and its mapper must always change together.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Map the current row (the cursor is already positioned)
+     */
+    T map(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Map every remaining row of a result set
+     */
+    static <T> List<T> mapAll(ResultSet resultSet, RowMapper<T> mapper) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        while (resultSet.next()) {
+            rows.add(mapper.map(resultSet));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,98 @@
+package com.hotelbooking.utils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight class - coalesces concurrent identical lookups into one execution
+ * The first caller for a key runs the loader; callers arriving with the same key while it is
+ * still running wait for it and get the same result (or exception) instead of running their own.
+ * Nothing is cached: once the call completes the next caller for the key runs the loader again.
+ * A caller that joins a run already in flight gets a result whose loader started before it
+ * asked, so it may miss a change committed just before its call; callers that must see their
+ * own or another thread's latest commit should not go through a SingleFlight.
+ *
+ * Results are shared between the waiting callers, so they must not be modified.
+ *
+ * Metrics, registered under the given name:
+ *   NAME.calls            lookups requested
+ *   NAME.executions       loader runs
+ *   NAME.collapsed        lookups answered by another caller's run
+ *   NAME.collapsePercent  collapsed / calls, in percent
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls;
+    private final LongAdder executions;
+    private final LongAdder collapsed;
+
+    public SingleFlight(String name) {
+        this.calls = Metrics.counter(name + ".calls");
+        this.executions = Metrics.counter(name + ".executions");
+        this.collapsed = Metrics.counter(name + ".collapsed");
+        Metrics.gauge(name + ".collapsePercent", this::getCollapsePercent);
+    }
+
+    /**
+     * Run the loader for the key, or join the run already in flight for an equal key
+     * @param key lookup key (must implement equals/hashCode)
+     * @param loader the lookup itself
+     * @return the loader's result
+     */
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            collapsed.increment();
+            return await(leader);
+        }
+
+        executions.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private V await(CompletableFuture<V> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Number of keys with a lookup currently running
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Share of lookups that were answered by another caller's run, in percent
+     */
+    public long getCollapsePercent() {
+        long total = calls.sum();
+        return total == 0 ? 0 : collapsed.sum() * 100 / total;
+    }
+}
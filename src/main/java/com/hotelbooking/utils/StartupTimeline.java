@@ -0,0 +1,146 @@
+package com.hotelbooking.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StartupTimeline utility class - records the phases of application startup
+ * Every phase is measured from JVM start, so the report shows both when a phase ran and how long
+ * it took, including phases running in parallel on warmup threads. Milestones are zero-length
+ * phases such as "firstInteraction" (main frame visible) and "warm" (all caches loaded).
+ * With -Dhotel.startup.csv=FILE each run appends its phases to FILE so startup times can be
+ * compared across runs.
+ */
+public class StartupTimeline {
+    private static final String CSV_FILE = System.getProperty("hotel.startup.csv");
+
+    // System.nanoTime() value corresponding to JVM start
+    private static final long ORIGIN_NANOS = System.nanoTime() -
+            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+
+    private static final List<Phase> phases = new CopyOnWriteArrayList<>();
+
+    private static final AppLogger LOG = AppLogger.getLogger(StartupTimeline.class);
+
+    // Private constructor to prevent instantiation - Utility class pattern
+    private StartupTimeline() {
+        // Utility class should not be instantiated
+    }
+
+    /**
+     * Start of a phase, to pass to end()
+     */
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a phase that started at startNanos and ends now
+     */
+    public static void end(String phase, long startNanos) {
+        long endNanos = System.nanoTime();
+        phases.add(new Phase(phase, Thread.currentThread().getName(), startNanos - ORIGIN_NANOS, endNanos - startNanos));
+        Metrics.timer("startup." + phase).record(endNanos - startNanos);
+    }
+
+    /**
+     * Run a task as a named phase
+     */
+    public static void time(String phase, Runnable task) {
+        long startNanos = begin();
+        try {
+            task.run();
+        } finally {
+            end(phase, startNanos);
+        }
+    }
+
+    /**
+     * Record a point in time (a zero-length phase)
+     */
+    public static void milestone(String name) {
+        end(name, System.nanoTime());
+    }
+
+    /**
+     * Milliseconds from JVM start to the milestone or the end of the phase, or -1 if not recorded
+     */
+    public static double getMillisSinceStart(String phase) {
+        for (Phase recorded : phases) {
+            if (recorded.name.equals(phase)) {
+                return (recorded.startNanos + recorded.durationNanos) / 1_000_000.0;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Phases in start order with offsets from JVM start
+     */
+    public static String report() {
+        List<Phase> sorted = new ArrayList<>(phases);
+        sorted.sort(Comparator.comparingLong(phase -> phase.startNanos));
+
+        StringBuilder report = new StringBuilder("=== Startup Timeline (ms since JVM start) ===\n");
+        report.append(String.format("%-20s %10s %10s  %s%n", "phase", "start", "duration", "thread"));
+        for (Phase phase : sorted) {
+            report.append(String.format("%-20s %10.1f %10.1f  %s%n", phase.name,
+                    phase.startNanos / 1_000_000.0, phase.durationNanos / 1_000_000.0, phase.thread));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Append this run's phases to the CSV file, if -Dhotel.startup.csv is set
+     */
+    public static void appendCsv() {
+        if (CSV_FILE == null || CSV_FILE.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(CSV_FILE);
+        boolean newFile = !Files.exists(path);
+        String run = LocalDateTime.now().toString();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (newFile) {
+                writer.write("run,java_version,phase,thread,start_ms,duration_ms");
+                writer.newLine();
+            }
+            for (Phase phase : phases) {
+                writer.write(String.format(Locale.ROOT, "%s,%s,%s,%s,%.1f,%.1f", run, System.getProperty("java.version"),
+                        phase.name, phase.thread, phase.startNanos / 1_000_000.0, phase.durationNanos / 1_000_000.0));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not write startup timeline to " + CSV_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private static class Phase {
+        final String name;
+        final String thread;
+        final long startNanos;
+        final long durationNanos;
+
+        Phase(String name, String thread, long startNanos, long durationNanos) {
+            this.name = name;
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+        }
+    }
+}